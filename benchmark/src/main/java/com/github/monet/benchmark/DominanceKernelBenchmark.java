@@ -0,0 +1,121 @@
+package com.github.monet.benchmark;
+
+import java.util.Random;
+
+import com.github.monet.common.DominanceKernel;
+import com.github.monet.common.ParetoPoint;
+
+/**
+ * Compares the batch comparisons of {@link DominanceKernel} to calling
+ * {@link ParetoPoint#dominates(double[], double[], int, boolean)} twice per
+ * pair, for 2 to 8 objectives. Run it with
+ *
+ * <pre>
+ * java com.github.monet.benchmark.DominanceKernelBenchmark [points [queries
+ * [repetitions]]]
+ * </pre>
+ *
+ * Two kinds of populations are compared: uniformly random points, where most
+ * pairs are found to be incomparable after the first two objectives, and
+ * points close to a sphere like those of a population that has converged
+ * towards the front, where all objectives have to be compared more often and
+ * the branches of the pairwise comparison are hard to predict.
+ */
+public class DominanceKernelBenchmark {
+
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+		int queries = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+		int repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+
+		System.out.printf("%d points, %d queries%n", n, queries);
+		System.out.printf("%8s %10s %12s %12s %8s %10s%n", "points",
+				"objectives", "pairwise ms", "kernel ms", "speedup",
+				"identical");
+		for (boolean converged : new boolean[] { false, true }) {
+			for (int k = 2; k <= 8; k++) {
+				DominanceKernelBenchmark.run(
+						DominanceKernelBenchmark.population(new Random(42), n,
+						k, converged),
+						converged ? "sphere" : "uniform", queries, repetitions);
+			}
+		}
+	}
+
+	private static double[][] population(Random random, int n, int k,
+			boolean converged) {
+		double[][] points = new double[n][k];
+		for (int i = 0; i < n; i++) {
+			double norm = 0;
+			for (int d = 0; d < k; d++) {
+				points[i][d] = converged ? Math.abs(random.nextGaussian())
+						: random.nextDouble();
+				norm += points[i][d] * points[i][d];
+			}
+			if (converged) {
+				// up to 5% away from the sphere
+				norm = Math.sqrt(norm) * (1 + 0.05 * random.nextDouble());
+				for (int d = 0; d < k; d++) {
+					points[i][d] /= norm;
+				}
+			}
+		}
+		return points;
+	}
+
+	private static void run(double[][] points, String name, int queries,
+			int repetitions) {
+		int n = points.length;
+		int k = points[0].length;
+		double[] values = new double[n * k];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(points[i], 0, values, i * k, k);
+		}
+		DominanceKernel kernel = DominanceKernel.forDimension(k, true);
+		byte[] relations = new byte[n];
+
+		double pairwise = Double.POSITIVE_INFINITY;
+		double batch = Double.POSITIVE_INFINITY;
+		boolean identical = true;
+		// the first repetition warms up the JIT and is not timed
+		for (int r = 0; r <= repetitions; r++) {
+			long checksum = 0;
+			long start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				double[] p = points[q % n];
+				for (int i = 0; i < n; i++) {
+					if (ParetoPoint.dominates(points[i], p, k, true)) {
+						checksum += i;
+					} else if (ParetoPoint.dominates(p, points[i], k, true)) {
+						checksum -= i;
+					}
+				}
+			}
+			if (r > 0) {
+				pairwise = Math.min(pairwise, (System.nanoTime() - start)
+						/ 1e6);
+			}
+
+			long kernelChecksum = 0;
+			start = System.nanoTime();
+			for (int q = 0; q < queries; q++) {
+				kernel.relations(values, 0, n, points[q % n], relations);
+				for (int i = 0; i < n; i++) {
+					if (relations[i] == DominanceKernel.DOMINATES) {
+						kernelChecksum += i;
+					} else if (relations[i] == DominanceKernel.DOMINATED) {
+						kernelChecksum -= i;
+					}
+				}
+			}
+			if (r > 0) {
+				batch = Math.min(batch, (System.nanoTime() - start) / 1e6);
+			}
+			identical &= checksum == kernelChecksum;
+		}
+		System.out.printf("%8s %10d %12.1f %12.1f %8.2f %10s%n", name, k,
+				pairwise, batch, pairwise / batch,
+				identical);
+	}
+
+}
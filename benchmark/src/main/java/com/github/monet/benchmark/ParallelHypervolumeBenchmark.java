@@ -0,0 +1,79 @@
+package com.github.monet.benchmark;
+
+import java.util.Random;
+
+import com.github.monet.common.ExactHypervolume;
+import com.github.monet.common.ParallelHypervolume;
+
+/**
+ * Measures how {@link ParallelHypervolume} scales with the number of threads
+ * and checks that every thread count gives the serial result bit for bit. Run
+ * it with
+ *
+ * <pre>
+ * java com.github.monet.benchmark.ParallelHypervolumeBenchmark [points
+ * [objectives [repetitions]]]
+ * </pre>
+ *
+ * The points lie on the positive part of a unit sphere, so all of them are
+ * non-dominated.
+ */
+public class ParallelHypervolumeBenchmark {
+
+	private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int k = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		int repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+
+		double[][] points = ParallelHypervolumeBenchmark.sphere(new Random(42),
+				n, k);
+		double expected = 0;
+		double serial = Double.POSITIVE_INFINITY;
+		for (int r = 0; r < repetitions; r++) {
+			long start = System.nanoTime();
+			expected = new ExactHypervolume().calculate(points.clone(), null);
+			serial = Math.min(serial, (System.nanoTime() - start) / 1e6);
+		}
+		System.out.printf("%d points, %d objectives, %d processors%n", n, k,
+				Runtime.getRuntime().availableProcessors());
+		System.out.printf("serial: %.1f ms, hypervolume %s%n", serial,
+				expected);
+		System.out.printf("%8s %12s %8s %10s%n", "threads", "ms", "speedup",
+				"identical");
+
+		for (int threads : THREADS) {
+			ParallelHypervolume calculator = new ParallelHypervolume(threads,
+					1);
+			double best = Double.POSITIVE_INFINITY;
+			boolean identical = true;
+			for (int r = 0; r < repetitions; r++) {
+				long start = System.nanoTime();
+				double result = calculator.calculate(points.clone(), null);
+				best = Math.min(best, (System.nanoTime() - start) / 1e6);
+				identical &= Double.doubleToLongBits(
+						result) == Double.doubleToLongBits(expected);
+			}
+			System.out.printf("%8d %12.1f %8.2f %10s%n", threads, best, serial
+					/ best, identical);
+		}
+	}
+
+	private static double[][] sphere(Random random, int n, int k) {
+		double[][] points = new double[n][k];
+		for (int i = 0; i < n; i++) {
+			double norm = 0;
+			for (int d = 0; d < k; d++) {
+				points[i][d] = Math.abs(random.nextGaussian());
+				norm += points[i][d] * points[i][d];
+			}
+			norm = Math.sqrt(norm);
+			for (int d = 0; d < k; d++) {
+				points[i][d] /= norm;
+			}
+		}
+		return points;
+	}
+
+}
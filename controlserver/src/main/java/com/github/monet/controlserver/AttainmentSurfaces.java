@@ -0,0 +1,78 @@
+package com.github.monet.controlserver;
+
+import java.io.Serializable;
+
+/**
+ * The attainment surfaces of one job of an experiment over all repetitions
+ * of the experiment.
+ *
+ * @see ExperimentAttainment
+ */
+public class AttainmentSurfaces implements Serializable {
+
+	private static final long serialVersionUID = 2391735307412386945L;
+
+	private final String job;
+	private final int runs;
+	private final int[] levels;
+	private final double[][][] surfaces;
+
+	/**
+	 * @param job
+	 *            the index of the job within its experiment
+	 * @param runs
+	 *            the number of runs with a pareto front
+	 * @param levels
+	 *            the level of each surface
+	 * @param surfaces
+	 *            the minimal points of each surface
+	 */
+	public AttainmentSurfaces(String job, int runs, int[] levels,
+			double[][][] surfaces) {
+		this.job = job;
+		this.runs = runs;
+		this.levels = levels;
+		this.surfaces = surfaces;
+	}
+
+	/**
+	 * @return the index of the job within its experiment
+	 */
+	public String getJob() {
+		return this.job;
+	}
+
+	/**
+	 * @return the number of runs with a pareto front
+	 */
+	public int getRuns() {
+		return this.runs;
+	}
+
+	/**
+	 * @return the level of each surface: the number of runs that attain it
+	 */
+	public int[] getLevels() {
+		return this.levels;
+	}
+
+	/**
+	 * @return the minimal points of each surface, in the order of the levels
+	 */
+	public double[][][] getSurfaces() {
+		return this.surfaces;
+	}
+
+	/**
+	 * @return the number of objectives, 0 if all surfaces are empty
+	 */
+	public int getDimension() {
+		for (double[][] surface : this.surfaces) {
+			if (surface.length > 0) {
+				return surface[0].length;
+			}
+		}
+		return 0;
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.github.monet.controlserver;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -281,6 +282,14 @@ public class Experiment extends Observable implements Serializable {
 					BasicDBObject pushObj = new BasicDBObject("$set",
 							new BasicDBObject("finishedDatetime", finishedDate));
 					exps.update(new BasicDBObject("_id", getName()), pushObj);
+					// compare the fronts of all successful jobs
+					if (event.state.equalsIgnoreCase(STATE_SUCCESS)
+							|| event.state
+									.equalsIgnoreCase(STATE_PARTIAL_SUCCESS)) {
+						ExperimentMetrics.calculateLater(getName());
+						ReferenceFronts.buildLater(getName());
+						ExperimentAttainment.calculateLater(getName());
+					}
 				} else if (event.state.equalsIgnoreCase(STATE_ACTIVE)) {
 					startedDate = new Date();
 					BasicDBObject pushObj = new BasicDBObject("$set",
@@ -712,6 +721,46 @@ public class Experiment extends Observable implements Serializable {
 		return new MeasuredData(query);
 	}
 
+	/**
+	 * Returns the hypervolume of the pareto front of each job, all calculated
+	 * with the same normalization and reference point. They are calculated
+	 * when the experiment has finished, see {@link ExperimentMetrics}.
+	 *
+	 * @return the hypervolumes by job ID, null if they haven't been
+	 *         calculated (yet)
+	 */
+	public Map<String, Double> getHypervolumes() {
+		return ExperimentMetrics.load(this.getName());
+	}
+
+	/**
+	 * Returns the non-dominated union of the pareto fronts of all jobs of this
+	 * experiment and its repetitions. It is built when an experiment has
+	 * finished, see {@link ReferenceFronts}.
+	 *
+	 * @return the points of the reference front, null if it hasn't been built
+	 *         (yet)
+	 * @throws IOException
+	 *             if the saved front can't be read
+	 */
+	public double[][] getReferenceFront() throws IOException {
+		return ReferenceFronts.load(this.getName());
+	}
+
+	/**
+	 * Returns the best, median and worst attainment surfaces of each job over
+	 * this experiment and its repetitions. They are calculated when an
+	 * experiment has finished, see {@link ExperimentAttainment}.
+	 *
+	 * @return the surfaces of each job, null if they haven't been calculated
+	 *         (yet)
+	 * @throws IOException
+	 *             if the saved surfaces can't be read
+	 */
+	public List<AttainmentSurfaces> getAttainmentSurfaces() throws IOException {
+		return ExperimentAttainment.load(this.getName());
+	}
+
 	/**
 	 * Returns all {@link Experiment}s known.
 	 *
@@ -0,0 +1,241 @@
+package com.github.monet.controlserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.monet.common.AttainmentFunction;
+import com.github.monet.common.DBCollections;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.gridfs.GridFSDBFile;
+
+/**
+ * Calculates the best, median and worst attainment surfaces of every job of
+ * an experiment over the runs of the job in the experiment and all its
+ * repetitions (see {@link AttainmentFunction}). Jobs are matched by their
+ * index within the experiment. Only runs that measured a pareto front of two
+ * or three objectives count.
+ *
+ * The surfaces of the jobs are calculated in parallel and saved in one file
+ * of the GridFS collection {@link DBCollections#ATTAINMENT_SURFACES}, named
+ * after the original experiment. Loaded surfaces are cached until they are
+ * calculated again.
+ */
+public class ExperimentAttainment {
+
+	private static final Logger LOG = LogManager
+			.getFormatterLogger(ExperimentAttainment.class);
+
+	/**
+	 * Loaded surfaces by the name of the original experiment.
+	 */
+	private static final Map<String, List<AttainmentSurfaces>> CACHE =
+			Collections
+			.synchronizedMap(new HashMap<String, List<AttainmentSurfaces>>());
+
+	private final String experimentName;
+	private final int parallelism;
+
+	/**
+	 * @param experimentName
+	 *            the name of the experiment or of one of its repetitions
+	 */
+	public ExperimentAttainment(String experimentName) {
+		this(experimentName, ExperimentCalculations.defaultParallelism());
+	}
+
+	/**
+	 * @param experimentName
+	 *            the name of the experiment or of one of its repetitions
+	 * @param parallelism
+	 *            number of jobs whose surfaces are calculated at once
+	 */
+	public ExperimentAttainment(String experimentName, int parallelism) {
+		this.experimentName = experimentName;
+		this.parallelism = ExperimentCalculations.checkParallelism(parallelism);
+	}
+
+	/**
+	 * Calculates and saves the attainment surfaces of an experiment in a
+	 * background thread, after the pending calculations of
+	 * {@link ExperimentMetrics}.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment
+	 * @return the pending calculation
+	 */
+	public static Future<List<AttainmentSurfaces>> calculateLater(
+			final String experimentName) {
+		return ExperimentCalculations.later("attainment surfaces",
+				experimentName, new Callable<List<AttainmentSurfaces>>() {
+					@Override
+					public List<AttainmentSurfaces> call() throws Exception {
+						return new ExperimentAttainment(experimentName)
+								.calculate();
+					}
+				});
+	}
+
+	/**
+	 * Calculates the attainment surfaces and saves them, replacing the ones
+	 * saved before.
+	 *
+	 * @return the surfaces of each job with at least one run
+	 * @throws InterruptedException
+	 *             if the calculation has been interrupted; nothing is saved
+	 *             then
+	 */
+	public List<AttainmentSurfaces> calculate() throws InterruptedException {
+		String original = ReferenceFronts.getOriginal(this.experimentName);
+		List<String> experiments = ReferenceFronts.getRepetitions(original);
+		BasicDBObject query = new BasicDBObject("parentExperiment",
+				new BasicDBObject("$in", experiments));
+
+		Map<String, List<double[][]>> runs =
+				new LinkedHashMap<String, List<double[][]>>();
+		for (MeasuredParetoFront front : MeasuredData.streamParetoFronts(
+				query)) {
+			if (!front.hasPoints()) {
+				continue;
+			}
+			String job = front.getJobID().substring(
+					front.getJobID().lastIndexOf('/') + 1);
+			if (!runs.containsKey(job)) {
+				runs.put(job, new ArrayList<double[][]>());
+			}
+			List<double[]> points = front.getParetoFrontPointArrays();
+			runs.get(job).add(points.toArray(new double[points.size()][]));
+		}
+
+		// the jobs and the blocks of three-dimensional surfaces share one
+		// pool, so no more than parallelism threads are busy at once
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		final AttainmentFunction eaf = new AttainmentFunction(pool);
+		Map<String, Future<AttainmentSurfaces>> pending =
+				new LinkedHashMap<String, Future<AttainmentSurfaces>>();
+		List<AttainmentSurfaces> result = new ArrayList<AttainmentSurfaces>();
+		try {
+			for (final Map.Entry<String, List<double[][]>> job : runs
+					.entrySet()) {
+				pending.put(job.getKey(),
+						pool.submit(new Callable<AttainmentSurfaces>() {
+							@Override
+							public AttainmentSurfaces call() {
+								int n = job.getValue().size();
+								int[] levels = AttainmentFunction
+										.defaultLevels(n);
+								return new AttainmentSurfaces(job.getKey(), n,
+										levels, eaf.surfaces(job.getValue(),
+												levels, true));
+							}
+						}));
+			}
+			for (Map.Entry<String, Future<AttainmentSurfaces>> job : pending
+					.entrySet()) {
+				try {
+					result.add(job.getValue().get());
+				} catch (ExecutionException e) {
+					LOG.warn("no attainment surfaces for job %s of %s: %s",
+							job.getKey(), original, e.getCause().getMessage());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		this.save(original, experiments, result);
+		CACHE.put(original, result);
+		LOG.info("calculated the attainment surfaces of %d jobs of %s",
+				result.size(), original);
+		return result;
+	}
+
+	/**
+	 * Loads the attainment surfaces saved for an experiment.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment or of one of its repetitions
+	 * @return the surfaces of each job, null if they haven't been calculated
+	 *         yet
+	 * @throws IOException
+	 *             if the saved surfaces can't be read
+	 */
+	public static List<AttainmentSurfaces> load(String experimentName)
+			throws IOException {
+		String original = ReferenceFronts.getOriginal(experimentName);
+		List<AttainmentSurfaces> cached = CACHE.get(original);
+		if (cached != null) {
+			return cached;
+		}
+		GridFSDBFile file = ExperimentCalculations.find(
+				DBCollections.ATTAINMENT_SURFACES, original);
+		if (file == null) {
+			return null;
+		}
+		List<AttainmentSurfaces> result = new ArrayList<AttainmentSurfaces>();
+		try {
+			List<?> jobs = (List<?>) file.getMetaData().get("jobs");
+			int count = 0;
+			for (Object entry : jobs) {
+				count += ((List<?>) ((DBObject) entry).get("levels")).size();
+			}
+			Iterator<double[][]> stored = ExperimentCalculations.read(file,
+					count).iterator();
+			for (Object entry : jobs) {
+				DBObject job = (DBObject) entry;
+				List<?> levelList = (List<?>) job.get("levels");
+				int[] levels = new int[levelList.size()];
+				double[][][] surfaces = new double[levels.length][][];
+				for (int l = 0; l < levels.length; l++) {
+					levels[l] = ((Number) levelList.get(l)).intValue();
+					surfaces[l] = stored.next();
+				}
+				result.add(new AttainmentSurfaces((String) job.get("job"),
+						((Number) job.get("runs")).intValue(), levels,
+						surfaces));
+			}
+		} catch (ClassCastException | NullPointerException e) {
+			throw new IOException("malformed attainment surfaces of "
+					+ original, e);
+		}
+		CACHE.put(original, result);
+		return result;
+	}
+
+	/**
+	 * Saves the surfaces of all jobs one after another; the jobs and levels
+	 * are listed in the metadata.
+	 */
+	private void save(String original, List<String> experiments,
+			List<AttainmentSurfaces> result) {
+		List<double[][]> surfaces = new ArrayList<double[][]>();
+		BasicDBList jobs = new BasicDBList();
+		for (AttainmentSurfaces job : result) {
+			BasicDBList levels = new BasicDBList();
+			for (int l = 0; l < job.getLevels().length; l++) {
+				levels.add(job.getLevels()[l]);
+				surfaces.add(job.getSurfaces()[l]);
+			}
+			jobs.add(new BasicDBObject("job", job.getJob()).append("runs",
+					job.getRuns()).append("levels", levels));
+		}
+		ExperimentCalculations.save(DBCollections.ATTAINMENT_SURFACES,
+				original, experiments, surfaces, new BasicDBObject("jobs",
+						jobs));
+	}
+
+}
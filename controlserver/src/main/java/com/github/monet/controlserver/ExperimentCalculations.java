@@ -0,0 +1,169 @@
+package com.github.monet.controlserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.monet.common.ReferenceFrontBuilder;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.gridfs.GridFS;
+import com.mongodb.gridfs.GridFSDBFile;
+import com.mongodb.gridfs.GridFSInputFile;
+
+/**
+ * Scaffolding of the calculations run for finished experiments
+ * ({@link ExperimentMetrics}, {@link ReferenceFronts} and
+ * {@link ExperimentAttainment}): the background thread, the number of
+ * threads of each calculation and the GridFS files holding the results.
+ */
+final class ExperimentCalculations {
+
+	private static final Logger LOG = LogManager
+			.getFormatterLogger(ExperimentCalculations.class);
+
+	/**
+	 * Runs the calculations for finished experiments one after another, so
+	 * that they don't compete with each other for the processors.
+	 */
+	private static final ExecutorService BACKGROUND = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "experiment metrics");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private ExperimentCalculations() {
+	}
+
+	/**
+	 * Runs the calculation in the background thread after the pending ones;
+	 * a failure is logged.
+	 *
+	 * @param what
+	 *            what is calculated, for the log
+	 * @param experimentName
+	 *            the name of the experiment, for the log
+	 * @return the pending calculation
+	 */
+	static <T> Future<T> later(final String what, final String experimentName,
+			final Callable<T> calculation) {
+		return BACKGROUND.submit(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				try {
+					return calculation.call();
+				} catch (Exception e) {
+					LOG.error("could not calculate the %s of %s: %s", what,
+							experimentName, e.getMessage());
+					throw e;
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return one thread per processor
+	 */
+	static int defaultParallelism() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @return the parallelism
+	 * @throws IllegalArgumentException
+	 *             if it is less than one
+	 */
+	static int checkParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"at least one thread is needed");
+		}
+		return parallelism;
+	}
+
+	/**
+	 * @param bucket
+	 *            the GridFS collection
+	 * @param original
+	 *            the name of the original experiment
+	 * @return the file saved for the experiment, null if there is none
+	 */
+	static GridFSDBFile find(String bucket, String original) {
+		return ExperimentCalculations.getFiles(bucket).findOne(original);
+	}
+
+	/**
+	 * Reads all point sets of a file written by
+	 * {@link #save(String, String, List, List, BasicDBObject)}.
+	 *
+	 * @param count
+	 *            the number of point sets in the file
+	 */
+	static List<double[][]> read(GridFSDBFile file, int count)
+			throws IOException {
+		List<double[][]> points = new ArrayList<double[][]>(count);
+		try (InputStream in = file.getInputStream()) {
+			for (int i = 0; i < count; i++) {
+				points.add(ReferenceFrontBuilder.read(in));
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * Saves the point sets one after another in the format of
+	 * {@link ReferenceFrontBuilder#write(double[][], java.io.OutputStream)},
+	 * replacing the file saved before for the experiment.
+	 *
+	 * @param bucket
+	 *            the GridFS collection
+	 * @param original
+	 *            the name of the original experiment
+	 * @param experiments
+	 *            the experiments whose data is included, added to the
+	 *            metadata
+	 * @param points
+	 *            the point sets to save
+	 * @param metaData
+	 *            the metadata of the file
+	 */
+	static void save(String bucket, String original, List<String> experiments,
+			List<double[][]> points, BasicDBObject metaData) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			for (double[][] set : points) {
+				ReferenceFrontBuilder.write(set, out);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		BasicDBList names = new BasicDBList();
+		names.addAll(experiments);
+		GridFS files = ExperimentCalculations.getFiles(bucket);
+		files.remove(original);
+		GridFSInputFile file = files.createFile(out.toByteArray());
+		file.setFilename(original);
+		file.setContentType("application/octet-stream");
+		file.setMetaData(metaData.append("experiments", names));
+		file.save();
+	}
+
+	private static GridFS getFiles(String bucket) {
+		return new GridFS(ControlServer.getInstance().db, bucket);
+	}
+
+}
@@ -0,0 +1,228 @@
+package com.github.monet.controlserver;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.monet.common.DBCollections;
+import com.github.monet.common.ObjectiveBounds;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
+/**
+ * Calculates the hypervolume of the pareto fronts of all jobs of an
+ * experiment with one common normalization, so that the values are comparable
+ * between the jobs (the S-Metric of each job depends on the bounds of its own
+ * front).
+ *
+ * The fronts are streamed from the database twice, one job at a time: the
+ * first pass determines the ideal and nadir point of all fronts (see
+ * {@link ObjectiveBounds}), the second one calculates the hypervolumes in a
+ * thread pool. Only a few fronts are held in memory at once. The results are
+ * saved at <code>metrics.hypervolume</code> of the experiment document.
+ *
+ * @see MeasuredData#streamParetoFronts(BasicDBObject)
+ */
+public class ExperimentMetrics {
+
+	private static final Logger LOG = LogManager
+			.getFormatterLogger(ExperimentMetrics.class);
+
+	/**
+	 * Field of the experiment document holding the hypervolumes.
+	 */
+	public static final String FIELD = "metrics.hypervolume";
+
+	private final String experimentName;
+	private final int parallelism;
+	private final double offset;
+
+	/**
+	 * Uses the default reference point offset.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment
+	 */
+	public ExperimentMetrics(String experimentName) {
+		this(experimentName, ExperimentCalculations.defaultParallelism(),
+				ObjectiveBounds.DEFAULT_REFERENCE_OFFSET);
+	}
+
+	/**
+	 * @param experimentName
+	 *            the name of the experiment
+	 * @param parallelism
+	 *            number of threads calculating hypervolumes
+	 * @param offset
+	 *            distance of the reference point from the nadir point,
+	 *            relative to the range of each objective
+	 */
+	public ExperimentMetrics(String experimentName, int parallelism,
+			double offset) {
+		this.experimentName = experimentName;
+		this.parallelism = ExperimentCalculations.checkParallelism(parallelism);
+		this.offset = offset;
+	}
+
+	/**
+	 * Calculates and saves the hypervolumes of an experiment in a background
+	 * thread.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment
+	 * @return the pending calculation
+	 */
+	public static Future<Map<String, Double>> calculateLater(
+			final String experimentName) {
+		return ExperimentCalculations.later("hypervolumes", experimentName,
+				new Callable<Map<String, Double>>() {
+					@Override
+					public Map<String, Double> call() throws Exception {
+						return new ExperimentMetrics(experimentName)
+								.calculate();
+					}
+				});
+	}
+
+	/**
+	 * Calculates the hypervolumes and saves them at {@link #FIELD} of the
+	 * experiment document.
+	 *
+	 * @return the hypervolume of each job with a pareto front by its ID
+	 * @throws InterruptedException
+	 *             if the calculation has been interrupted; nothing is saved
+	 *             then
+	 */
+	public Map<String, Double> calculate() throws InterruptedException {
+		BasicDBObject query = new BasicDBObject("parentExperiment",
+				this.experimentName);
+		Map<String, Double> hypervolumes = new LinkedHashMap<String, Double>();
+
+		final ObjectiveBounds bounds = new ObjectiveBounds(true, this.offset);
+		Set<String> rejected = new HashSet<String>();
+		for (MeasuredParetoFront front : MeasuredData
+				.streamParetoFronts(query)) {
+			try {
+				bounds.addAll(front.getParetoFrontPointArrays());
+			} catch (IllegalArgumentException e) {
+				LOG.warn("ignoring the pareto front of %s: %s",
+						front.getJobID(), e.getMessage());
+				rejected.add(front.getJobID());
+			}
+		}
+		if (bounds.isEmpty()) {
+			LOG.info("no pareto fronts measured for %s", this.experimentName);
+			return hypervolumes;
+		}
+
+		// at most two fronts per thread are waiting to be processed
+		final Semaphore pending = new Semaphore(2 * this.parallelism);
+		Map<String, Future<Double>> results =
+				new LinkedHashMap<String, Future<Double>>();
+		ExecutorService pool = Executors.newFixedThreadPool(this.parallelism);
+		try {
+			for (MeasuredParetoFront front : MeasuredData
+					.streamParetoFronts(query)) {
+				if (!front.hasPoints() || rejected.contains(front.getJobID())) {
+					continue;
+				}
+				final List<double[]> points = front
+						.getParetoFrontPointArrays();
+				pending.acquire();
+				results.put(front.getJobID(),
+						pool.submit(new Callable<Double>() {
+							@Override
+							public Double call() {
+								try {
+									return bounds.hypervolume(points, null);
+								} finally {
+									pending.release();
+								}
+							}
+						}));
+			}
+			for (Map.Entry<String, Future<Double>> result : results
+					.entrySet()) {
+				try {
+					hypervolumes.put(result.getKey(), result.getValue().get());
+				} catch (ExecutionException e) {
+					LOG.warn("no hypervolume for %s: %s", result.getKey(), e
+							.getCause().getMessage());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		this.save(bounds, hypervolumes);
+		LOG.info("calculated the hypervolumes of %d jobs of %s",
+				hypervolumes.size(), this.experimentName);
+		return hypervolumes;
+	}
+
+	/**
+	 * Loads the hypervolumes saved for an experiment.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment
+	 * @return the hypervolume of each job by its ID, null if they haven't been
+	 *         calculated yet
+	 */
+	public static Map<String, Double> load(String experimentName) {
+		DBCollection experiments = ControlServer.getInstance().db
+				.getCollection(DBCollections.EXPERIMENTS);
+		DBObject experiment = experiments.findOne(new BasicDBObject("_id",
+				experimentName), new BasicDBObject(FIELD, true));
+		if (experiment == null || experiment.get("metrics") == null) {
+			return null;
+		}
+		DBObject metrics = (DBObject) ((DBObject) experiment.get("metrics"))
+				.get("hypervolume");
+		if (metrics == null) {
+			return null;
+		}
+		Map<String, Double> hypervolumes = new LinkedHashMap<String, Double>();
+		for (Object job : (List<?>) metrics.get("jobs")) {
+			DBObject entry = (DBObject) job;
+			hypervolumes.put((String) entry.get("job"),
+					((Number) entry.get("hypervolume")).doubleValue());
+		}
+		return hypervolumes;
+	}
+
+	private void save(ObjectiveBounds bounds,
+			Map<String, Double> hypervolumes) {
+		// job IDs contain slashes and might contain dots, so they can't be
+		// used as keys
+		BasicDBList jobs = new BasicDBList();
+		for (Map.Entry<String, Double> entry : hypervolumes.entrySet()) {
+			jobs.add(new BasicDBObject("job", entry.getKey()).append(
+					"hypervolume", entry.getValue()));
+		}
+		BasicDBObject metrics = new BasicDBObject("ideal", bounds.getIdeal())
+				.append("nadir", bounds.getNadir())
+				.append("reference", bounds.getReferencePoint())
+				.append("offset", bounds.getOffset())
+				.append("jobs", jobs)
+				.append("calculatedDatetime", new Date());
+		DBCollection experiments = ControlServer.getInstance().db
+				.getCollection(DBCollections.EXPERIMENTS);
+		experiments.update(new BasicDBObject("_id", this.experimentName),
+				new BasicDBObject("$set", new BasicDBObject(FIELD, metrics)));
+	}
+
+}
@@ -2,9 +2,13 @@ package com.github.monet.controlserver;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import com.github.monet.common.DBCollections;
+import com.github.monet.common.CompiledPath;
 import com.github.monet.common.MongoBuilder;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
@@ -43,10 +47,44 @@ public class MeasuredData implements Serializable {
 				"measuredData", true));
 		while (jobCursor.hasNext()) {
 			DBObject job = jobCursor.next();
-			dataList.add((DBObject) job.get("measuredData"));
+			dataList.add(MeasuredData.reassemble(db, job.get("_id"),
+					(DBObject) job.get("measuredData")));
 		}
 	}
 
+	/**
+	 * Merges the chunks of measured data that were spilled while the job was
+	 * running with the measured data saved at its end, see
+	 * {@link DBCollections#MEASURED_CHUNKS}.
+	 *
+	 * @param jobID
+	 *            the ID of the job
+	 * @param data
+	 *            the measured data of the job document
+	 * @return the complete measured data, the given data if nothing was
+	 *         spilled
+	 */
+	@SuppressWarnings("unchecked")
+	static DBObject reassemble(DB db, Object jobID, DBObject data) {
+		if (data == null || data.get(DBCollections.SPILLED_CHUNKS) == null) {
+			return data;
+		}
+		BasicDBObject merged = new BasicDBObject();
+		DBCursor chunks = db.getCollection(DBCollections.MEASURED_CHUNKS)
+				.find(new BasicDBObject("job", jobID))
+				.sort(new BasicDBObject("seq", 1));
+		try {
+			while (chunks.hasNext()) {
+				MongoBuilder.merge(merged,
+						(Map<String, Object>) chunks.next().get("data"));
+			}
+		} finally {
+			chunks.close();
+		}
+		MongoBuilder.merge(merged, (Map<String, Object>) data);
+		return merged;
+	}
+
 	/**
 	 * Return the runtime of the job in nanoseconds.
 	 *
@@ -76,6 +114,62 @@ public class MeasuredData implements Serializable {
 		return paretoFrontList;
 	}
 
+	/**
+	 * Returns the pareto fronts of all jobs matching the query, loading only
+	 * one job at a time from the database. Unlike
+	 * {@link #getParetoFronts()} this does not keep the measured data of all
+	 * jobs in memory. Every iteration runs a new query.
+	 *
+	 * @param query
+	 *            A {@link BasicDBObject} which specifies the query parameters
+	 * @return the pareto fronts with the IDs of their jobs, including jobs
+	 *         without a front
+	 */
+	public static Iterable<MeasuredParetoFront> streamParetoFronts(
+			final BasicDBObject query) {
+		final DBCollection jobCollection = ControlServer.getInstance().db
+				.getCollection(DBCollections.JOBS);
+		return new Iterable<MeasuredParetoFront>() {
+			@Override
+			public Iterator<MeasuredParetoFront> iterator() {
+				final DBCursor cursor = jobCollection.find(query,
+						new BasicDBObject("measuredData.paretoFront", true));
+				return new Iterator<MeasuredParetoFront>() {
+					private boolean closed = false;
+
+					@Override
+					public boolean hasNext() {
+						if (this.closed) {
+							return false;
+						}
+						if (!cursor.hasNext()) {
+							cursor.close();
+							this.closed = true;
+						}
+						return !this.closed;
+					}
+
+					@Override
+					public MeasuredParetoFront next() {
+						if (!this.hasNext()) {
+							throw new NoSuchElementException();
+						}
+						DBObject job = cursor.next();
+						DBObject data = (DBObject) job.get("measuredData");
+						return new MeasuredParetoFront((String) job.get("_id"),
+								(data == null) ? null : (DBObject) data
+										.get("paretoFront"));
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
 	/**
 	 * Returns the list if S-Metric values for each compared job. Note that
 	 * individual values within the list might be <code>null</code> because no
@@ -93,16 +187,43 @@ public class MeasuredData implements Serializable {
 	}
 
 	/**
-	 * Find any measured data given a path expression.
+	 * Returns for each compared job whether its S-Metric was approximated by
+	 * sampling instead of calculated exactly. The confidence interval of an
+	 * approximation can be found at <code>SMetricApproximation</code>.
+	 *
+	 * @return true for each approximated S-Metric value
+	 */
+	public List<Boolean> getSMetricApproximated() {
+		List<Boolean> approximated = new ArrayList<>();
+		for (DBObject data : dataList) {
+			approximated.add(data.get("SMetricApproximation") != null);
+		}
+		return approximated;
+	}
+
+	/**
+	 * Find any measured data given a path expression. The path is compiled
+	 * once for all jobs.
 	 *
 	 * @param path
 	 *            the path expression
 	 * @return the measured data
 	 */
 	public List<Object> find(String path) {
-		List<Object> result = new ArrayList<Object>();
+		return this.find(CompiledPath.compile(path));
+	}
+
+	/**
+	 * Find any measured data given a compiled path expression.
+	 *
+	 * @param path
+	 *            the compiled path expression
+	 * @return the measured data
+	 */
+	public List<Object> find(CompiledPath path) {
+		List<Object> result = new ArrayList<Object>(dataList.size());
 		for (DBObject data : dataList) {
-			result.add(MongoBuilder.find(data, path));
+			result.add(path.find(data));
 		}
 		return result;
 	}
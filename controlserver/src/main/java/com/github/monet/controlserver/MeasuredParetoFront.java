@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.github.monet.common.EdgeSets;
 import com.mongodb.DBObject;
 
 /**
@@ -20,14 +21,61 @@ public class MeasuredParetoFront implements Serializable {
 
 	private DBObject paretoFrontObject;
 
+	private String jobID;
+
 	List<List<Double>> pointList;
 
 	List<List<String>> edgeList;
 
+	transient EdgeSets edgeSets;
+
 	public MeasuredParetoFront(DBObject paretoFrontObject) {
 		this.paretoFrontObject = paretoFrontObject;
 	}
 
+	public MeasuredParetoFront(String jobID, DBObject paretoFrontObject) {
+		this.jobID = jobID;
+		this.paretoFrontObject = paretoFrontObject;
+	}
+
+	/**
+	 * @return the ID of the job that measured the front, null if unknown
+	 */
+	public String getJobID() {
+		return this.jobID;
+	}
+
+	/**
+	 * @return true if the job measured at least one point
+	 */
+	public boolean hasPoints() {
+		return this.paretoFrontObject != null
+				&& this.paretoFrontObject.get("points") instanceof List
+				&& !((List<?>) this.paretoFrontObject.get("points")).isEmpty();
+	}
+
+	/**
+	 * Returns the points as arrays as expected by the S-Metric methods of
+	 * {@link com.github.monet.common.ParetoPoint}.
+	 *
+	 * @return the points of the front, empty if there are none
+	 */
+	public List<double[]> getParetoFrontPointArrays() {
+		List<double[]> points = new ArrayList<double[]>();
+		if (!this.hasPoints()) {
+			return points;
+		}
+		for (Object point : (List<?>) this.paretoFrontObject.get("points")) {
+			List<?> values = (List<?>) point;
+			double[] array = new double[values.size()];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = ((Number) values.get(i)).doubleValue();
+			}
+			points.add(array);
+		}
+		return points;
+	}
+
 	@SuppressWarnings("unchecked")
 	public List<List<Double>> getParetoFrontPoints() {
 		if (pointList == null) {
@@ -40,18 +88,71 @@ public class MeasuredParetoFront implements Serializable {
 		return this.pointList;
 	}
 
+	/**
+	 * Returns the edges of each solution of the front. Fronts measured as
+	 * {@link EdgeSets} are decoded, with each edge name shared by all
+	 * solutions; fronts of older jobs list the edges of each solution.
+	 *
+	 * @return the edges of the solutions, empty if no edges were measured
+	 */
 	@SuppressWarnings("unchecked")
 	public List<List<String>> getParetoFrontEdges() {
 		if (edgeList == null) {
 			edgeList = new ArrayList<List<String>>();
-			List<DBObject> edgeObjectList = (List<DBObject>) paretoFrontObject.get("edges");
-			for (DBObject singleEdgeAsObject : edgeObjectList) {
-				edgeList.add((List<String>) singleEdgeAsObject);
+			if (paretoFrontObject == null) {
+				return this.edgeList;
+			}
+			EdgeSets edgeSets = this.getEdgeSets();
+			if (edgeSets != null) {
+				for (Object data : (List<?>) paretoFrontObject.get(
+						"edgeSets")) {
+					edgeList.add(edgeSets.decode((byte[]) data));
+				}
+			} else if (paretoFrontObject.get("edges") instanceof List) {
+				List<DBObject> edgeObjectList =
+						(List<DBObject>) paretoFrontObject.get("edges");
+				for (DBObject singleEdgeAsObject : edgeObjectList) {
+					edgeList.add((List<String>) singleEdgeAsObject);
+				}
 			}
 		}
 		return this.edgeList;
 	}
 
+	/**
+	 * Returns the edges of each solution as ids of the dictionary of
+	 * {@link #getEdgeSets()}, without creating a list per solution.
+	 *
+	 * @return the ascending ids of the edges of each solution, null if the
+	 *         edges weren't measured as {@link EdgeSets}
+	 */
+	public int[][] getParetoFrontEdgeIds() {
+		if (this.getEdgeSets() == null) {
+			return null;
+		}
+		List<?> data = (List<?>) paretoFrontObject.get("edgeSets");
+		int[][] ids = new int[data.size()][];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = EdgeSets.decodeIds((byte[]) data.get(i));
+		}
+		return ids;
+	}
+
+	/**
+	 * @return the dictionary of the edges of the front, null if the edges
+	 *         weren't measured as {@link EdgeSets}
+	 */
+	@SuppressWarnings("unchecked")
+	public EdgeSets getEdgeSets() {
+		if (edgeSets == null && paretoFrontObject != null
+				&& paretoFrontObject.get("edgeSets") instanceof List
+				&& paretoFrontObject.get("edgeDictionary") instanceof List) {
+			edgeSets = new EdgeSets(
+					(List<String>) paretoFrontObject.get("edgeDictionary"));
+		}
+		return this.edgeSets;
+	}
+
 	public Double getValue(int x, int y) throws IndexOutOfBoundsException {
 		List<Double> sndDim = getParetoFrontPoints().get(x);
 		return sndDim.get(y);
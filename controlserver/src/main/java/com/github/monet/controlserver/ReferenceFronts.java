@@ -0,0 +1,321 @@
+package com.github.monet.controlserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.monet.common.DBCollections;
+import com.github.monet.common.ReferenceFrontBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.gridfs.GridFSDBFile;
+
+/**
+ * Builds the reference front of an experiment: the non-dominated union of the
+ * pareto fronts of all jobs of the experiment and of all its repetitions.
+ *
+ * The fronts are streamed from the database one job at a time and handed to
+ * a few threads, each of which merges them into its own
+ * {@link ReferenceFrontBuilder}; the partial fronts are merged at the end.
+ * The result is stored in a compact binary format in the GridFS collection
+ * {@link DBCollections#REFERENCE_FRONTS}, named after the original experiment,
+ * so it is shared by all repetitions. When another repetition finishes, only
+ * its fronts are merged into the stored reference front, see
+ * {@link #update()}.
+ */
+public class ReferenceFronts {
+
+	private static final Logger LOG = LogManager
+			.getFormatterLogger(ReferenceFronts.class);
+
+	/**
+	 * Marks the end of the fronts for the merging threads.
+	 */
+	private static final List<double[]> END = Collections.emptyList();
+
+	/**
+	 * Seconds to wait for space in the queue before the merging threads are
+	 * checked for failures.
+	 */
+	private static final long OFFER_TIMEOUT = 1;
+
+	private final String experimentName;
+	private final int parallelism;
+
+	/**
+	 * @param experimentName
+	 *            the name of the experiment or of one of its repetitions
+	 */
+	public ReferenceFronts(String experimentName) {
+		this(experimentName, ExperimentCalculations.defaultParallelism());
+	}
+
+	/**
+	 * @param experimentName
+	 *            the name of the experiment or of one of its repetitions
+	 * @param parallelism
+	 *            number of threads merging fronts
+	 */
+	public ReferenceFronts(String experimentName, int parallelism) {
+		this.experimentName = experimentName;
+		this.parallelism = ExperimentCalculations.checkParallelism(parallelism);
+	}
+
+	/**
+	 * Updates and saves the reference front of an experiment in a background
+	 * thread, after the pending calculations of {@link ExperimentMetrics}.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment
+	 * @return the pending reference front
+	 * @see #update()
+	 */
+	public static Future<double[][]> buildLater(final String experimentName) {
+		return ExperimentCalculations.later("reference front", experimentName,
+				new Callable<double[][]>() {
+					@Override
+					public double[][] call() throws Exception {
+						return new ReferenceFronts(experimentName).update();
+					}
+				});
+	}
+
+	/**
+	 * Builds the reference front from the fronts of all repetitions and saves
+	 * it, replacing the one saved before.
+	 *
+	 * @return the reference front, empty if no pareto front has been measured
+	 * @throws InterruptedException
+	 *             if the merging has been interrupted; nothing is saved then
+	 */
+	public double[][] build() throws InterruptedException {
+		String original = ReferenceFronts.getOriginal(this.experimentName);
+		List<String> experiments = ReferenceFronts.getRepetitions(original);
+		ReferenceFrontBuilder builder = new ReferenceFrontBuilder(true);
+		this.merge(builder, experiments);
+
+		double[][] front = builder.getFront();
+		this.save(original, experiments, builder.getMergedFronts(), front);
+		LOG.info("merged %d pareto fronts of %s into %d points",
+				builder.getMergedFronts(), original, front.length);
+		return front;
+	}
+
+	/**
+	 * Merges the fronts of this experiment into the reference front saved for
+	 * its repetitions, so finishing R repetitions reads every front only once
+	 * instead of R times. The reference front is built from scratch with
+	 * {@link #build()} if none has been saved yet or if it already contains
+	 * this experiment, e.g. because jobs have been run again.
+	 *
+	 * @return the updated reference front
+	 * @throws InterruptedException
+	 *             if the merging has been interrupted; nothing is saved then
+	 * @throws IOException
+	 *             if the saved front can't be read
+	 */
+	public double[][] update() throws InterruptedException, IOException {
+		String original = ReferenceFronts.getOriginal(this.experimentName);
+		GridFSDBFile file = ExperimentCalculations.find(
+				DBCollections.REFERENCE_FRONTS, original);
+		if (file == null || file.getMetaData() == null) {
+			return this.build();
+		}
+		List<String> experiments = new ArrayList<String>();
+		Object names = file.getMetaData().get("experiments");
+		if (names instanceof List) {
+			for (Object name : (List<?>) names) {
+				experiments.add(name.toString());
+			}
+		}
+		if (experiments.isEmpty()
+				|| experiments.contains(this.experimentName)) {
+			return this.build();
+		}
+
+		double[][] stored = ExperimentCalculations.read(file, 1).get(0);
+		Object storedFronts = file.getMetaData().get("fronts");
+		int mergedFronts = (storedFronts instanceof Number)
+				? ((Number) storedFronts)
+				.intValue() : 0;
+		ReferenceFrontBuilder builder = new ReferenceFrontBuilder(true);
+		builder.merge(ReferenceFrontBuilder.asList(stored));
+		int seeded = builder.getMergedFronts();
+		this.merge(builder, Collections.singletonList(this.experimentName));
+		int added = builder.getMergedFronts() - seeded;
+		mergedFronts += added;
+
+		double[][] front = builder.getFront();
+		experiments.add(this.experimentName);
+		this.save(original, experiments, mergedFronts, front);
+		LOG.info("merged %d pareto fronts of %s into %d points", added,
+				this.experimentName, front.length);
+		return front;
+	}
+
+	/**
+	 * Merges the pareto fronts of all jobs of the experiments into the
+	 * builder.
+	 */
+	private void merge(ReferenceFrontBuilder builder, List<String> experiments)
+			throws InterruptedException {
+		BasicDBObject query = new BasicDBObject("parentExperiment",
+				new BasicDBObject("$in", experiments));
+
+		// at most two fronts per thread are waiting to be merged
+		final BlockingQueue<List<double[]>> fronts =
+				new ArrayBlockingQueue<List<double[]>>(2 * this.parallelism);
+		List<Future<ReferenceFrontBuilder>> partials =
+				new ArrayList<Future<ReferenceFrontBuilder>>();
+		ExecutorService pool = Executors.newFixedThreadPool(this.parallelism);
+		try {
+			for (int i = 0; i < this.parallelism; i++) {
+				partials.add(pool.submit(new Callable<ReferenceFrontBuilder>() {
+					@Override
+					public ReferenceFrontBuilder call()
+							throws InterruptedException {
+						ReferenceFrontBuilder partial =
+								new ReferenceFrontBuilder(true);
+						List<double[]> front;
+						while ((front = fronts.take()) != END) {
+							try {
+								partial.merge(front);
+							} catch (IllegalArgumentException e) {
+								LOG.warn("ignoring a pareto front: %s",
+										e.getMessage());
+							}
+						}
+						return partial;
+					}
+				}));
+			}
+			for (MeasuredParetoFront front : MeasuredData
+					.streamParetoFronts(query)) {
+				if (front.hasPoints()) {
+					ReferenceFronts.put(fronts,
+							front.getParetoFrontPointArrays(),
+							partials);
+				}
+			}
+			for (int i = 0; i < this.parallelism; i++) {
+				ReferenceFronts.put(fronts, END, partials);
+			}
+			for (Future<ReferenceFrontBuilder> partial : partials) {
+				try {
+					builder.merge(partial.get());
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				} catch (IllegalArgumentException e) {
+					LOG.warn("ignoring the fronts of a thread: %s",
+							e.getMessage());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for space in the queue. The merging threads only end after they
+	 * have taken {@link #END}, so if one of them is done before, it has failed
+	 * and nobody might take the front anymore.
+	 *
+	 * @throws IllegalStateException
+	 *             if a merging thread has failed
+	 */
+	private static void put(BlockingQueue<List<double[]>> fronts,
+			List<double[]> front, List<Future<ReferenceFrontBuilder>> partials)
+			throws InterruptedException {
+		while (!fronts.offer(front, OFFER_TIMEOUT, TimeUnit.SECONDS)) {
+			for (Future<ReferenceFrontBuilder> partial : partials) {
+				if (partial.isDone()) {
+					try {
+						partial.get();
+					} catch (ExecutionException e) {
+						throw new IllegalStateException(e.getCause());
+					}
+					throw new IllegalStateException(
+							"a thread stopped merging pareto fronts");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the reference front saved for an experiment.
+	 *
+	 * @param experimentName
+	 *            the name of the experiment or of one of its repetitions
+	 * @return the points of the reference front, null if it hasn't been built
+	 *         yet
+	 * @throws IOException
+	 *             if the saved front can't be read
+	 */
+	public static double[][] load(String experimentName) throws IOException {
+		GridFSDBFile file = ExperimentCalculations.find(
+				DBCollections.REFERENCE_FRONTS,
+				ReferenceFronts.getOriginal(experimentName));
+		if (file == null) {
+			return null;
+		}
+		return ExperimentCalculations.read(file, 1).get(0);
+	}
+
+	private void save(String original, List<String> experiments,
+			int mergedFronts, double[][] front) {
+		ExperimentCalculations.save(DBCollections.REFERENCE_FRONTS, original,
+				experiments, Collections.singletonList(front),
+				new BasicDBObject("fronts", mergedFronts).append("points",
+						front.length));
+	}
+
+	/**
+	 * @return the name of the experiment a repetition repeats, the name itself
+	 *         for an original experiment
+	 */
+	static String getOriginal(String experimentName) {
+		DBCollection experiments = ControlServer.getInstance().db
+				.getCollection(DBCollections.EXPERIMENTS);
+		DBObject experiment = experiments.findOne(new BasicDBObject("_id",
+				experimentName), new BasicDBObject("repeatOf", true));
+		if (experiment == null || experiment.get("repeatOf") == null) {
+			return experimentName;
+		}
+		return (String) experiment.get("repeatOf");
+	}
+
+	/**
+	 * @return the names of the original experiment and all its repetitions
+	 */
+	static List<String> getRepetitions(String original) {
+		List<String> names = new ArrayList<String>();
+		names.add(original);
+		DBCollection experiments = ControlServer.getInstance().db
+				.getCollection(DBCollections.EXPERIMENTS);
+		DBCursor cursor = experiments.find(new BasicDBObject("repeatOf",
+				original), new BasicDBObject("_id", true));
+		try {
+			while (cursor.hasNext()) {
+				names.add((String) cursor.next().get("_id"));
+			}
+		} finally {
+			cursor.close();
+		}
+		return names;
+	}
+
+}
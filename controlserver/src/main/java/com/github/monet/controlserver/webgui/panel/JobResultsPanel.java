@@ -1,9 +1,15 @@
 package com.github.monet.controlserver.webgui.panel;
 
+import java.io.IOException;
 import java.util.List;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.string.Strings;
 
+import com.github.monet.controlserver.AttainmentSurfaces;
+import com.github.monet.controlserver.ExperimentAttainment;
 import com.github.monet.controlserver.MeasuredData;
 import com.mongodb.BasicDBObject;
 
@@ -13,6 +19,8 @@ import com.mongodb.BasicDBObject;
 public class JobResultsPanel extends ContentPanel {
   private static final long serialVersionUID = 6987921836406978033L;
 
+  private static Logger LOG = LogManager.getLogger(JobResultsPanel.class);
+
   /**
    * Constructor that expects the {@code id} of the experiment as argument.
    * @param id
@@ -28,6 +36,81 @@ public class JobResultsPanel extends ContentPanel {
     jsRuntimes.setEscapeModelStrings(false);
 
     add(jsRuntimes);
+
+    String plots;
+    try {
+      plots = this.generateAttainmentPlots(ExperimentAttainment.load(id));
+    } catch (IOException e) {
+      LOG.error("could not load the attainment surfaces of " + id, e);
+      plots = "<p>The attainment surfaces could not be loaded: "
+          + Strings.escapeMarkup(String.valueOf(e.getMessage())) + "</p>";
+    }
+    Label attainment = new Label("attainment", plots);
+    attainment.setEscapeModelStrings(false);
+
+    add(attainment);
+  }
+
+  /**
+   * Generates a canvas and a CanvasXpress scatter plot of the best, median
+   * and worst attainment surface for each job with two or three objectives.
+   */
+  private String generateAttainmentPlots(List<AttainmentSurfaces> surfaces) {
+    if (surfaces == null) {
+      return "<p>The attainment surfaces have not been calculated yet.</p>";
+    }
+    StringBuilder html = new StringBuilder();
+    for (int i = 0; i < surfaces.size(); i++) {
+      AttainmentSurfaces job = surfaces.get(i);
+      int k = job.getDimension();
+      if (k < 2 || k > 3) {
+        continue;
+      }
+      String container = "jsAttainment" + i;
+      StringBuilder vars = new StringBuilder();
+      StringBuilder data = new StringBuilder();
+      StringBuilder levels = new StringBuilder();
+      int n = 0;
+      for (int l = 0; l < job.getLevels().length; l++) {
+        String level = "'attained by " + job.getLevels()[l] + " of "
+        		+ job.getRuns() + " runs'";
+        for (double[] point : job.getSurfaces()[l]) {
+          if (n > 0) {
+            vars.append(", ");
+            data.append(", ");
+            levels.append(", ");
+          }
+          n++;
+          vars.append("'p").append(n).append("'");
+          levels.append(level);
+          data.append("[");
+          for (int d = 0; d < k; d++) {
+            data.append(point[d]).append((d < k - 1) ? ", " : "]");
+          }
+        }
+      }
+      html.append("<h3>Attainment surfaces of job ").append(job.getJob())
+      		.append("</h3>");
+      html.append("<canvas id='").append(container)
+      		.append("' width='600' height='450'></canvas>");
+      html.append("<script type='text/javascript'>");
+      html.append("var attainment").append(i).append(" = new CanvasXpress('")
+      		.append(container).append("',");
+      html.append("{ 'y' : { 'smps' : [ 'x1', 'x2'").append((k == 3) ? ", 'x3'"
+      		: "").append(" ], 'vars' : [");
+      html.append(vars).append("], 'data' : [").append(data).append("] },");
+      html.append("'z' : { 'Surface' : [").append(levels).append("] },");
+      html.append("'m' : { 'Name' : 'Attainment surfaces', ");
+      html.append("'Description' : 'Best, median and worst attainment ")
+      		.append("surface over all repetitions.' } }, {");
+      html.append("'graphType': '").append((k == 3) ? "Scatter3D"
+      		: "Scatter2D").append("', 'colorBy': 'Surface', ");
+      html.append("'imageDir': 'assets/images/canvasExpress/', ");
+      html.append("'title': 'Attainment surfaces', 'xAxis': ['x1'], ")
+      		.append("'yAxis': ['x2']");
+      html.append((k == 3) ? ", 'zAxis': ['x3']" : "").append("});</script>");
+    }
+    return html.toString();
   }
 
   private String generateJavaScriptForRuntimeBoxplots(List<Long> runtimes) {
@@ -11,6 +11,10 @@ package com.github.monet.aggregators;
  * sense if your singular interest is the aggregated value and you might exceed
  * the limit 16MB of measured data per experiment.
  *
+ * Aggregators of numbers should implement {@link DoubleAggregator},
+ * {@link LongAggregator} or {@link IntAggregator}, so measured values don't
+ * have to be boxed.
+ *
  * @author Max Günther
  *
  * @param <T>
@@ -3,33 +3,52 @@
  */
 package com.github.monet.aggregators;
 
-import java.util.ArrayList;
-
 /**
  * Aggregates the average of a number of values.
  *
+ * Only the sum and the number of the values are kept. The sum is built in the
+ * order the values are aggregated, so the average is the same as if all
+ * values were summed up at the end.
+ *
  * @author Max Günther
  *
  */
-public class AverageAggregator implements Aggregator<Double> {
-	private final ArrayList<Double> values;
+public class AverageAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
+	private double sum;
+	private long count;
 
 	public AverageAggregator() {
-		this.values = new ArrayList<Double>();
+		this.sum = 0.0;
+		this.count = 0;
 	}
 
 	@Override
 	public void aggregate(Double value) {
-		this.values.add(value);
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		this.sum += value;
+		this.count++;
 	}
 
 	@Override
 	public Double getValue() {
-		double sum = 0;
-		for (Double d : this.values) {
-			sum += d;
-		}
-		return sum / this.values.size();
+		return this.sum / this.count;
+	}
+
+	@Override
+	public AverageAggregator newAggregator() {
+		return new AverageAggregator();
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> other) {
+		AverageAggregator average = (AverageAggregator) other;
+		this.sum += average.sum;
+		this.count += average.count;
 	}
 
 }
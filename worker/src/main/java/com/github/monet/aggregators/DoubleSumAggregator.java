@@ -9,7 +9,8 @@ package com.github.monet.aggregators;
  * @author Max Günther
  *
  */
-public class DoubleSumAggregator implements Aggregator<Double> {
+public class DoubleSumAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
 	private double sum;
 
 	public DoubleSumAggregator() {
@@ -18,6 +19,11 @@ public class DoubleSumAggregator implements Aggregator<Double> {
 
 	@Override
 	public void aggregate(Double value) {
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
 		this.sum += value;
 	}
 
@@ -26,4 +32,14 @@ public class DoubleSumAggregator implements Aggregator<Double> {
 		return this.sum;
 	}
 
+	@Override
+	public DoubleSumAggregator newAggregator() {
+		return new DoubleSumAggregator();
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> other) {
+		this.sum += ((DoubleSumAggregator) other).sum;
+	}
+
 }
@@ -9,8 +9,9 @@ package com.github.monet.aggregators;
  * @author Max Günther.
  *
  */
-public class IntegerSumAggregator implements Aggregator<Integer> {
-	private Integer sum;
+public class IntegerSumAggregator implements IntAggregator,
+		MergeableAggregator<Integer> {
+	private int sum;
 
 	public IntegerSumAggregator() {
 		this.sum = 0;
@@ -18,7 +19,12 @@ public class IntegerSumAggregator implements Aggregator<Integer> {
 
 	@Override
 	public void aggregate(Integer value) {
-		this.sum = this.sum + value;
+		this.aggregate(value.intValue());
+	}
+
+	@Override
+	public void aggregate(int value) {
+		this.sum += value;
 	}
 
 	@Override
@@ -26,4 +32,14 @@ public class IntegerSumAggregator implements Aggregator<Integer> {
 		return this.sum;
 	}
 
+	@Override
+	public IntegerSumAggregator newAggregator() {
+		return new IntegerSumAggregator();
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Integer> other) {
+		this.sum += ((IntegerSumAggregator) other).sum;
+	}
+
 }
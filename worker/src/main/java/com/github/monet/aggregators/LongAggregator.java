@@ -0,0 +1,21 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+/**
+ * An {@link Aggregator} of long values that can be aggregated without boxing
+ * them. The meter passes values measured with a primitive measure method to
+ * {@link #aggregate(long)} instead of {@link #aggregate(Object)}.
+ *
+ * Implementations usually let {@link #aggregate(Object)} call
+ * {@link #aggregate(long)}.
+ */
+public interface LongAggregator extends Aggregator<Long> {
+
+	/**
+	 * Aggregate value.
+	 */
+	public void aggregate(long value);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+/**
+ * Aggregates the largest value, negative infinity if there is none. NaN
+ * propagates, both when aggregating and when merging: once a NaN value has
+ * been aggregated, the result is NaN.
+ */
+public class MaxAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
+	private double max;
+
+	public MaxAggregator() {
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+
+	@Override
+	public void aggregate(Double value) {
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		this.max = Math.max(this.max, value);
+	}
+
+	@Override
+	public Double getValue() {
+		return this.max;
+	}
+
+	@Override
+	public MaxAggregator newAggregator() {
+		return new MaxAggregator();
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> other) {
+		this.max = Math.max(this.max, ((MaxAggregator) other).max);
+	}
+
+}
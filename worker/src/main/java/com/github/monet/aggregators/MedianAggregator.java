@@ -3,37 +3,125 @@
  */
 package com.github.monet.aggregators;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 
 /**
  * "Aggregates" the median value of all values aggregated.
  *
+ * The first {@link #EXACT_LIMIT} values are kept and give the exact median.
+ * After that the median is estimated with a {@link TDigestAggregator}, unless
+ * the aggregator was created to be exact, then all values are kept. Merging
+ * the estimated median of other values makes the median estimated as well.
+ *
  * @author Max Günther
  *
  */
-public class MedianAggregator implements Aggregator<Double> {
-	private final ArrayList<Double> values;
+public class MedianAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
+
+	/**
+	 * Number of values for which the median is exact.
+	 */
+	public static final int EXACT_LIMIT = 4096;
 
+	private final boolean exact;
+	private double[] values;
+	private int size;
+	private TDigestAggregator digest;
+
+	/**
+	 * Creates an aggregator that estimates the median of more than
+	 * {@link #EXACT_LIMIT} values.
+	 */
 	public MedianAggregator() {
-		this.values = new ArrayList<Double>();
+		this(false);
+	}
+
+	/**
+	 * @param exact
+	 *            true to keep all values for the exact median
+	 */
+	public MedianAggregator(boolean exact) {
+		this.exact = exact;
+		this.values = new double[16];
+		this.size = 0;
 	}
 
 	@Override
 	public void aggregate(Double value) {
-		this.values.add(value);
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		if (this.digest != null) {
+			this.digest.aggregate(value);
+			return;
+		}
+		if (!this.exact && this.size == EXACT_LIMIT) {
+			this.toDigest();
+			this.digest.aggregate(value);
+			return;
+		}
+		if (this.size == this.values.length) {
+			this.values = Arrays.copyOf(this.values, 2 * this.size);
+		}
+		this.values[this.size++] = value;
+	}
+
+	/**
+	 * Passes the kept values to a digest, which estimates the median from
+	 * now on.
+	 */
+	private void toDigest() {
+		if (this.digest == null) {
+			this.digest = new TDigestAggregator();
+			for (int i = 0; i < this.size; i++) {
+				this.digest.aggregate(this.values[i]);
+			}
+			this.values = null;
+		}
 	}
 
 	@Override
 	public Double getValue() {
-		Collections.sort(this.values);
-		int size = this.values.size();
+		if (this.digest != null) {
+			return this.digest.getValue();
+		}
+		// the order of the values doesn't matter, so sort in place
+		Arrays.sort(this.values, 0, this.size);
+		int size = this.size;
 		if (size == 0) {
 			return 0.0;
 		} else if ((size % 2) == 0) {
-			return (this.values.get((size - 1) / 2) + this.values.get(size / 2)) / 2;
+			return (this.values[(size - 1) / 2] + this.values[size / 2]) / 2;
+		} else {
+			return this.values[size / 2];
+		}
+	}
+
+	/**
+	 * @return true if the median is exact
+	 */
+	public boolean isExact() {
+		return this.digest == null;
+	}
+
+	@Override
+	public MedianAggregator newAggregator() {
+		return new MedianAggregator(this.exact);
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> other) {
+		MedianAggregator median = (MedianAggregator) other;
+		if (median.digest != null) {
+			this.toDigest();
+			this.digest.merge(median.digest);
 		} else {
-			return this.values.get(size / 2);
+			for (int i = 0; i < median.size; i++) {
+				this.aggregate(median.values[i]);
+			}
 		}
 	}
 
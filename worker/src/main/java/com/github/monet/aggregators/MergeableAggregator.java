@@ -0,0 +1,33 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+/**
+ * An {@link Aggregator} whose values can be aggregated in parts, e.g. one
+ * part per thread, and then combined. A meter used by several threads gives
+ * each thread its own aggregator created with {@link #newAggregator()}, so no
+ * locks are needed while measuring, and merges them into the added
+ * aggregator when the data is sent.
+ *
+ * @param <T>
+ *            the type of what to aggregate
+ */
+public interface MergeableAggregator<T> extends Aggregator<T> {
+
+	/**
+	 * Returns a new aggregator of the same kind and with the same parameters
+	 * as this one that hasn't aggregated anything yet.
+	 *
+	 * @return the new aggregator
+	 */
+	public MergeableAggregator<T> newAggregator();
+
+	/**
+	 * Adds the values aggregated by the other aggregator, which has been
+	 * created with {@link #newAggregator()} of this aggregator or of an
+	 * aggregator of the same kind.
+	 */
+	public void merge(MergeableAggregator<T> other);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+/**
+ * Aggregates the smallest value, positive infinity if there is none. NaN
+ * propagates, both when aggregating and when merging: once a NaN value has
+ * been aggregated, the result is NaN.
+ */
+public class MinAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
+	private double min;
+
+	public MinAggregator() {
+		this.min = Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public void aggregate(Double value) {
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		this.min = Math.min(this.min, value);
+	}
+
+	@Override
+	public Double getValue() {
+		return this.min;
+	}
+
+	@Override
+	public MinAggregator newAggregator() {
+		return new MinAggregator();
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> other) {
+		this.min = Math.min(this.min, ((MinAggregator) other).min);
+	}
+
+}
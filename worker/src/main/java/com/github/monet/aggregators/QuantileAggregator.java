@@ -0,0 +1,143 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a quantile of a number of values with the P² algorithm of Jain
+ * and Chlamtac, which only keeps five markers: the minimum, the maximum, the
+ * quantile and the quantiles halfway to the minimum and maximum.
+ *
+ * The quantile is exact for up to five values. For more values it is an
+ * estimate that is good for smooth distributions; use a
+ * {@link TDigestAggregator} if several quantiles are needed or aggregators
+ * have to be combined.
+ */
+public class QuantileAggregator implements DoubleAggregator {
+	private final double p;
+	/** heights of the markers */
+	private final double[] heights = new double[5];
+	/** positions of the markers, starting with 1 */
+	private final int[] positions = new int[5];
+	/** desired positions of the markers */
+	private final double[] desired = new double[5];
+	/** increments of the desired positions */
+	private final double[] increments;
+	private long count;
+
+	/**
+	 * @param p
+	 *            the quantile, e.g. 0.9 for the 90th percentile
+	 * @throws IllegalArgumentException
+	 *             unless 0 &lt;= p &lt;= 1
+	 */
+	public QuantileAggregator(double p) {
+		if (!(p >= 0 && p <= 1)) {
+			throw new IllegalArgumentException(
+					"the quantile has to be in [0, 1]: " + p);
+		}
+		this.p = p;
+		this.increments = new double[] { 0, p / 2, p, (1 + p) / 2, 1 };
+		this.count = 0;
+	}
+
+	@Override
+	public void aggregate(Double value) {
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		double[] q = this.heights;
+		int[] n = this.positions;
+		if (this.count < 5) {
+			q[(int) this.count++] = value;
+			if (this.count == 5) {
+				Arrays.sort(q);
+				for (int i = 0; i < 5; i++) {
+					n[i] = i + 1;
+					this.desired[i] = 1 + 4 * this.increments[i];
+				}
+			}
+			return;
+		}
+		this.count++;
+		// the cell of the value
+		int k;
+		if (value < q[0]) {
+			q[0] = value;
+			k = 0;
+		} else if (value >= q[4]) {
+			q[4] = value;
+			k = 3;
+		} else {
+			k = 0;
+			while (value >= q[k + 1]) {
+				k++;
+			}
+		}
+		for (int i = k + 1; i < 5; i++) {
+			n[i]++;
+		}
+		for (int i = 0; i < 5; i++) {
+			this.desired[i] += this.increments[i];
+		}
+		// move the middle markers towards their desired positions
+		for (int i = 1; i < 4; i++) {
+			double d = this.desired[i] - n[i];
+			if ((d >= 1 && n[i + 1] - n[i] > 1)
+					|| (d <= -1 && n[i - 1] - n[i] < -1)) {
+				int s = (d > 0) ? 1 : -1;
+				double h = this.parabolic(i, s);
+				if (q[i - 1] < h && h < q[i + 1]) {
+					q[i] = h;
+				} else {
+					q[i] += s * (q[i + s] - q[i]) / (n[i + s] - n[i]);
+				}
+				n[i] += s;
+			}
+		}
+	}
+
+	private double parabolic(int i, int s) {
+		double[] q = this.heights;
+		int[] n = this.positions;
+		return q[i] + (double) s / (n[i + 1] - n[i - 1])
+				* ((n[i] - n[i - 1] + s) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+				+ (n[i + 1] - n[i] - s) * (q[i] - q[i - 1])
+						/ (n[i] - n[i - 1]));
+	}
+
+	/**
+	 * @return the quantile, NaN if there are no values
+	 */
+	@Override
+	public Double getValue() {
+		if (this.count == 0) {
+			return Double.NaN;
+		}
+		if (this.count >= 5) {
+			return this.heights[2];
+		}
+		// interpolate between the sorted values
+		double[] sorted = Arrays.copyOf(this.heights, (int) this.count);
+		Arrays.sort(sorted);
+		double index = this.p * (sorted.length - 1);
+		int lower = (int) index;
+		if (lower == sorted.length - 1) {
+			return sorted[lower];
+		}
+		return sorted[lower] + (index - lower)
+				* (sorted[lower + 1] - sorted[lower]);
+	}
+
+	/**
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+}
@@ -0,0 +1,324 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+import java.util.Arrays;
+
+/**
+ * Estimates quantiles of a number of values with a t-digest of Dunning and
+ * Ertl: the values are merged into centroids, which are small near the
+ * minimum and maximum and larger in the middle, so extreme quantiles are
+ * estimated more accurately than the median.
+ *
+ * New values are collected in a buffer and merged with the centroids when
+ * the buffer is full, so the memory used only depends on the compression.
+ * Digests of parts of the values can be combined with
+ * {@link #merge(MergeableAggregator)}, e.g. the digests of several runs.
+ *
+ * {@link #getValue()} returns the median; other quantiles are returned by
+ * {@link #getQuantile(double)}.
+ */
+public class TDigestAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
+
+	/**
+	 * Compression used by {@link #TDigestAggregator()}, which gives about 100
+	 * centroids and errors of less than 1% of the range of ranks around the
+	 * median.
+	 */
+	public static final double DEFAULT_COMPRESSION = 100;
+
+	private final double compression;
+	private double[] means;
+	private double[] weights;
+	private int centroids;
+	/** merged centroids, swapped with the centroids after merging */
+	private double[] mergedMeans;
+	private double[] mergedWeights;
+	private final double[] bufferMeans;
+	private final double[] bufferWeights;
+	private int buffered;
+	private double count;
+	private double min;
+	private double max;
+
+	public TDigestAggregator() {
+		this(DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param compression
+	 *            the number of centroids, more give better estimates
+	 * @throws IllegalArgumentException
+	 *             if the compression is less than 10
+	 */
+	public TDigestAggregator(double compression) {
+		if (!(compression >= 10)) {
+			throw new IllegalArgumentException(
+					"the compression has to be at least 10: " + compression);
+		}
+		this.compression = compression;
+		int size = (int) Math.ceil(compression) + 10;
+		this.means = new double[size];
+		this.weights = new double[size];
+		this.mergedMeans = new double[size];
+		this.mergedWeights = new double[size];
+		this.bufferMeans = new double[5 * size];
+		this.bufferWeights = new double[5 * size];
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+
+	@Override
+	public void aggregate(Double value) {
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		this.add(value, 1.0);
+	}
+
+	private void add(double mean, double weight) {
+		if (this.buffered == this.bufferMeans.length) {
+			this.compress();
+		}
+		this.bufferMeans[this.buffered] = mean;
+		this.bufferWeights[this.buffered] = weight;
+		this.buffered++;
+		this.count += weight;
+		if (mean < this.min) {
+			this.min = mean;
+		}
+		if (mean > this.max) {
+			this.max = mean;
+		}
+	}
+
+	@Override
+	public TDigestAggregator newAggregator() {
+		return new TDigestAggregator(this.compression);
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> aggregator) {
+		TDigestAggregator other = (TDigestAggregator) aggregator;
+		other.compress();
+		for (int i = 0; i < other.centroids; i++) {
+			this.add(other.means[i], other.weights[i]);
+		}
+		if (other.count > 0) {
+			this.min = Math.min(this.min, other.min);
+			this.max = Math.max(this.max, other.max);
+		}
+	}
+
+	/**
+	 * Merges the buffered values with the centroids.
+	 */
+	private void compress() {
+		if (this.buffered == 0) {
+			return;
+		}
+		TDigestAggregator.sort(this.bufferMeans, this.bufferWeights, 0,
+				this.buffered - 1);
+		int merged = 0;
+		double mean = 0;
+		double weight = 0;
+		// weight of the merged centroids before the current one
+		double before = 0;
+		double limit = 0;
+		int i = 0;
+		int j = 0;
+		while (i < this.centroids || j < this.buffered) {
+			double m;
+			double w;
+			if (j == this.buffered
+					|| (i < this.centroids
+					&& this.means[i] <= this.bufferMeans[j])) {
+				m = this.means[i];
+				w = this.weights[i++];
+			} else {
+				m = this.bufferMeans[j];
+				w = this.bufferWeights[j++];
+			}
+			if (weight > 0 && before + weight + w <= limit) {
+				weight += w;
+				mean += (m - mean) * w / weight;
+				continue;
+			}
+			if (weight > 0) {
+				merged = this.emit(merged, mean, weight);
+				before += weight;
+			}
+			mean = m;
+			weight = w;
+			limit = this.count * this.quantileLimit(before / this.count);
+		}
+		merged = this.emit(merged, mean, weight);
+		double[] swap = this.means;
+		this.means = this.mergedMeans;
+		this.mergedMeans = swap;
+		swap = this.weights;
+		this.weights = this.mergedWeights;
+		this.mergedWeights = swap;
+		this.centroids = merged;
+		this.buffered = 0;
+	}
+
+	private int emit(int merged, double mean, double weight) {
+		if (merged == this.mergedMeans.length) {
+			this.mergedMeans = Arrays.copyOf(this.mergedMeans, 2 * merged);
+			this.mergedWeights = Arrays.copyOf(this.mergedWeights, 2 * merged);
+		}
+		this.mergedMeans[merged] = mean;
+		this.mergedWeights[merged] = weight;
+		return merged + 1;
+	}
+
+	/**
+	 * @return the largest quantile a centroid starting at quantile q may
+	 *         reach, using the scale function k(q) = c / (2 pi) asin(2q - 1)
+	 */
+	private double quantileLimit(double q) {
+		double k = this.compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+		double limit = (Math.sin((k + 1) * 2 * Math.PI / this.compression) + 1)
+				/ 2;
+		return (k + 1 >= this.compression / 4) ? 1 : limit;
+	}
+
+	/**
+	 * Sorts the means and the weights with them.
+	 */
+	private static void sort(double[] keys, double[] values, int low,
+			int high) {
+		while (high - low > 16) {
+			double pivot = keys[(low + high) >>> 1];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					TDigestAggregator.swap(keys, values, i++, j--);
+				}
+			}
+			// recurse into the smaller part
+			if (j - low < high - i) {
+				TDigestAggregator.sort(keys, values, low, j);
+				low = i;
+			} else {
+				TDigestAggregator.sort(keys, values, i, high);
+				high = j;
+			}
+		}
+		for (int i = low + 1; i <= high; i++) {
+			for (int j = i; j > low && keys[j - 1] > keys[j]; j--) {
+				TDigestAggregator.swap(keys, values, j - 1, j);
+			}
+		}
+	}
+
+	private static void swap(double[] keys, double[] values, int i, int j) {
+		double key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+		double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	/**
+	 * @return the estimated median, NaN if there are no values
+	 */
+	@Override
+	public Double getValue() {
+		return this.getQuantile(0.5);
+	}
+
+	/**
+	 * Estimates a quantile by interpolating between the centroids. For a
+	 * small number of values, which all have their own centroid, the quantile
+	 * is interpolated between the values like the median of an even number of
+	 * values.
+	 *
+	 * @param q
+	 *            the quantile, e.g. 0.9 for the 90th percentile
+	 * @return the estimated quantile, NaN if there are no values
+	 * @throws IllegalArgumentException
+	 *             unless 0 &lt;= q &lt;= 1
+	 */
+	public double getQuantile(double q) {
+		if (!(q >= 0 && q <= 1)) {
+			throw new IllegalArgumentException(
+					"the quantile has to be in [0, 1]: " + q);
+		}
+		this.compress();
+		if (this.centroids == 0) {
+			return Double.NaN;
+		}
+		int last = this.centroids - 1;
+		if (last == 0) {
+			return this.means[0];
+		}
+		// the centroids are at the middle of their ranks
+		double index = q * this.count;
+		double first = this.weights[0] / 2;
+		if (index <= first) {
+			return (this.weights[0] == 1) ? this.min : this.min + index / first
+					* (this.means[0] - this.min);
+		}
+		double end = this.count - this.weights[last] / 2;
+		if (index >= end) {
+			double rest = this.weights[last] / 2;
+			return (this.weights[last] == 1) ? this.max
+					: this.max - (this.count - index) / rest
+					* (this.max - this.means[last]);
+		}
+		double center = first;
+		for (int i = 0; i < last; i++) {
+			double next = center + (this.weights[i] + this.weights[i + 1]) / 2;
+			if (index <= next) {
+				double t = (index - center) / (next - center);
+				return this.means[i] + t * (this.means[i + 1] - this.means[i]);
+			}
+			center = next;
+		}
+		return this.means[last];
+	}
+
+	/**
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return (long) this.count;
+	}
+
+	/**
+	 * @return the number of centroids after merging the buffered values
+	 */
+	public int getCentroids() {
+		this.compress();
+		return this.centroids;
+	}
+
+	/**
+	 * @return the smallest value, positive infinity if there are none
+	 */
+	public double getMin() {
+		return this.min;
+	}
+
+	/**
+	 * @return the largest value, negative infinity if there are none
+	 */
+	public double getMax() {
+		return this.max;
+	}
+
+}
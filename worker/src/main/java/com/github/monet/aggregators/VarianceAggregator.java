@@ -0,0 +1,97 @@
+/*
+ * This class is too trivial to license.
+ */
+package com.github.monet.aggregators;
+
+/**
+ * Aggregates the mean and the sample variance of a number of values with
+ * Welford's algorithm, which doesn't lose precision like summing up the
+ * squares of the values.
+ *
+ * Aggregators of parts of the values can be combined with
+ * {@link #merge(MergeableAggregator)}.
+ */
+public class VarianceAggregator implements DoubleAggregator,
+		MergeableAggregator<Double> {
+	private long count;
+	private double mean;
+	/** sum of the squared differences from the mean */
+	private double m2;
+
+	public VarianceAggregator() {
+		this.count = 0;
+		this.mean = 0.0;
+		this.m2 = 0.0;
+	}
+
+	@Override
+	public void aggregate(Double value) {
+		this.aggregate(value.doubleValue());
+	}
+
+	@Override
+	public void aggregate(double value) {
+		this.count++;
+		double delta = value - this.mean;
+		this.mean += delta / this.count;
+		this.m2 += delta * (value - this.mean);
+	}
+
+	@Override
+	public VarianceAggregator newAggregator() {
+		return new VarianceAggregator();
+	}
+
+	@Override
+	public void merge(MergeableAggregator<Double> aggregator) {
+		VarianceAggregator other = (VarianceAggregator) aggregator;
+		if (other.count == 0) {
+			return;
+		}
+		long count = this.count + other.count;
+		double delta = other.mean - this.mean;
+		this.mean += delta * other.count / count;
+		this.m2 += other.m2 + delta * delta
+				* ((double) this.count * other.count / count);
+		this.count = count;
+	}
+
+	/**
+	 * Returns the sample variance.
+	 *
+	 * @return the variance, NaN for less than two values
+	 */
+	@Override
+	public Double getValue() {
+		return this.getVariance();
+	}
+
+	/**
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the mean, NaN if there are no values
+	 */
+	public double getMean() {
+		return (this.count == 0) ? Double.NaN : this.mean;
+	}
+
+	/**
+	 * @return the sample variance, NaN for less than two values
+	 */
+	public double getVariance() {
+		return (this.count < 2) ? Double.NaN : this.m2 / (this.count - 1);
+	}
+
+	/**
+	 * @return the sample standard deviation, NaN for less than two values
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+
+}
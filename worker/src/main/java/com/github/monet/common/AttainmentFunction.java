@@ -0,0 +1,452 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Empirical attainment function (EAF) of several runs of an algorithm on the
+ * same problem. The t-attainment surface is the boundary of the region that
+ * is weakly dominated by the fronts of at least t of the n runs: t = 1 gives
+ * the best, t = n the worst and t = n/2 the median attainment surface
+ * (V. Grunert da Fonseca et al., 2001). Each surface is returned as its
+ * minimal points.
+ *
+ * Two objectives are handled by a sweep along the first objective that keeps
+ * the best value of the second objective of every run in a sorted array: the
+ * t-th smallest of them is the t-attainment surface at the current position.
+ * This takes O(m log m + m n) for m points in total. Three objectives are
+ * handled by a sweep along the third objective that calculates the surfaces
+ * of the two-dimensional projections at every distinct value of it; the
+ * points of a surface that are not attained at the previous value are the
+ * minimal points in three dimensions. The values of the third objective are
+ * split into blocks that are calculated in parallel in a
+ * {@link ForkJoinPool}, each starting with the projections of all points
+ * before it.
+ *
+ * Surfaces of more objectives are not supported.
+ */
+public class AttainmentFunction {
+
+	/**
+	 * Number of blocks per thread the values of the third objective are split
+	 * into.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+
+	private static final Comparator<double[]> BY_X =
+			new Comparator<double[]>() {
+		@Override
+		public int compare(double[] a, double[] b) {
+			int c = Double.compare(a[0], b[0]);
+			return (c != 0) ? c : Double.compare(a[1], b[1]);
+		}
+	};
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Uses the pool shared with {@link ParallelHypervolume}.
+	 */
+	public AttainmentFunction() {
+		this(ParallelHypervolume.getSharedPool());
+	}
+
+	/**
+	 * @param pool
+	 *            the pool to calculate blocks of three-dimensional surfaces in
+	 */
+	public AttainmentFunction(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @param runs
+	 *            the number of runs
+	 * @return the levels of the best, median and worst attainment surface
+	 */
+	public static int[] defaultLevels(int runs) {
+		if (runs <= 2) {
+			return (runs == 1) ? new int[] { 1 } : new int[] { 1, 2 };
+		}
+		return new int[] { 1, (runs + 1) / 2, runs };
+	}
+
+	/**
+	 * Calculates attainment surfaces.
+	 *
+	 * @param runs
+	 *            the front of each run; all points of two or three objectives,
+	 *            not modified. Fronts may be empty and contain dominated
+	 *            points.
+	 * @param levels
+	 *            the levels of the surfaces, each in 1..runs
+	 * @param minimization
+	 *            true if smaller values are better
+	 * @return the minimal points of each surface, in the order of the levels.
+	 *         Two-dimensional surfaces are sorted by their first objective.
+	 * @throws IllegalArgumentException
+	 *             if a level is out of range or the points have more than
+	 *             three or differing numbers of objectives
+	 */
+	public double[][][] surfaces(List<double[][]> runs, int[] levels,
+			boolean minimization) {
+		int n = runs.size();
+		for (int level : levels) {
+			if (level < 1 || level > n) {
+				throw new IllegalArgumentException("level " + level
+						+ " is not in 1.." + n);
+			}
+		}
+		int k = 0;
+		List<double[]> points = new ArrayList<double[]>();
+		List<Integer> owners = new ArrayList<Integer>();
+		for (int r = 0; r < n; r++) {
+			for (double[] p : runs.get(r)) {
+				if (k == 0) {
+					k = p.length;
+					if (k < 2 || k > 3) {
+						throw new IllegalArgumentException(
+								"attainment surfaces of " + k
+								+ " objectives are not supported");
+					}
+				} else if (p.length != k) {
+					throw new IllegalArgumentException("the point has "
+							+ p.length + " objectives, expected " + k);
+				}
+				points.add(ParetoPoint.toMinimization(p, minimization));
+				owners.add(r);
+			}
+		}
+		double[][][] surfaces;
+		if (k == 0) {
+			surfaces = new double[levels.length][0][];
+		} else if (k == 2) {
+			surfaces = AttainmentFunction.sweep(points, owners, n, levels);
+		} else {
+			surfaces = this.sweep3D(points, owners, n, levels);
+		}
+		if (!minimization) {
+			for (double[][] surface : surfaces) {
+				for (int i = 0; i < surface.length; i++) {
+					surface[i] = ParetoPoint.toMinimization(surface[i], false);
+				}
+			}
+		}
+		return surfaces;
+	}
+
+	/**
+	 * Two-dimensional attainment surfaces of the points of the runs.
+	 *
+	 * @param points
+	 *            minimized points, their first two objectives are used
+	 * @param owners
+	 *            the run of each point
+	 */
+	private static double[][][] sweep(List<double[]> points,
+			List<Integer> owners, int n, int[] levels) {
+		int m = points.size();
+		Integer[] order = new Integer[m];
+		for (int i = 0; i < m; i++) {
+			order[i] = i;
+		}
+		final List<double[]> values = points;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return BY_X.compare(values.get(a), values.get(b));
+			}
+		});
+
+		// best value of the second objective of each run, and all of them
+		// sorted
+		double[] best = new double[n];
+		double[] sorted = new double[n];
+		Arrays.fill(best, Double.POSITIVE_INFINITY);
+		Arrays.fill(sorted, Double.POSITIVE_INFINITY);
+		double[] last = new double[levels.length];
+		Arrays.fill(last, Double.POSITIVE_INFINITY);
+		List<List<double[]>> surfaces = new ArrayList<List<double[]>>();
+		for (int l = 0; l < levels.length; l++) {
+			surfaces.add(new ArrayList<double[]>());
+		}
+
+		int i = 0;
+		while (i < m) {
+			double x = points.get(order[i])[0];
+			// all points with the same first objective before the surfaces
+			for (; i < m && points.get(order[i])[0] == x; i++) {
+				double y = points.get(order[i])[1];
+				int r = owners.get(order[i]);
+				if (y < best[r]) {
+					AttainmentFunction.replace(sorted, best[r], y);
+					best[r] = y;
+				}
+			}
+			for (int l = 0; l < levels.length; l++) {
+				double y = sorted[levels[l] - 1];
+				if (y < last[l]) {
+					surfaces.get(l).add(new double[] { x, y });
+					last[l] = y;
+				}
+			}
+		}
+
+		double[][][] result = new double[levels.length][][];
+		for (int l = 0; l < levels.length; l++) {
+			result[l] = surfaces.get(l).toArray(
+					new double[surfaces.get(l).size()][]);
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces a value of a sorted array by a smaller one, keeping it sorted.
+	 */
+	private static void replace(double[] sorted, double old, double value) {
+		// the last occurrence of the old value
+		int from = Arrays.binarySearch(sorted, old);
+		while (from + 1 < sorted.length && sorted[from + 1] == old) {
+			from++;
+		}
+		int to = from;
+		while (to > 0 && sorted[to - 1] > value) {
+			sorted[to] = sorted[to - 1];
+			to--;
+		}
+		sorted[to] = value;
+	}
+
+	private double[][][] sweep3D(List<double[]> points, List<Integer> owners,
+			int n, int[] levels) {
+		int m = points.size();
+		Integer[] order = new Integer[m];
+		for (int i = 0; i < m; i++) {
+			order[i] = i;
+		}
+		final List<double[]> values = points;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(values.get(a)[2], values.get(b)[2]);
+			}
+		});
+		double[][] sortedPoints = new double[m][];
+		int[] sortedOwners = new int[m];
+		// indices of the first point of each distinct value of the third
+		// objective, and m at the end
+		int[] starts = new int[m + 1];
+		int groups = 0;
+		for (int i = 0; i < m; i++) {
+			sortedPoints[i] = points.get(order[i]);
+			sortedOwners[i] = owners.get(order[i]);
+			if (i == 0 || sortedPoints[i][2] != sortedPoints[i - 1][2]) {
+				starts[groups++] = i;
+			}
+		}
+		starts[groups] = m;
+
+		int blocks = Math.min(groups, TASKS_PER_THREAD
+				* this.pool.getParallelism());
+		List<Block> tasks = new ArrayList<Block>();
+		for (int b = 0; b < blocks; b++) {
+			int from = (int) ((long) groups * b / blocks);
+			int to = (int) ((long) groups * (b + 1) / blocks);
+			tasks.add(new Block(sortedPoints, sortedOwners, starts, n, levels,
+					from, to));
+		}
+		List<List<List<double[]>>> results = this.pool.invoke(
+				new Blocks(tasks));
+
+		double[][][] surfaces = new double[levels.length][][];
+		for (int l = 0; l < levels.length; l++) {
+			List<double[]> surface = new ArrayList<double[]>();
+			for (List<List<double[]>> block : results) {
+				surface.addAll(block.get(l));
+			}
+			surfaces[l] = surface.toArray(new double[surface.size()][]);
+		}
+		return surfaces;
+	}
+
+	/**
+	 * Runs the blocks in parallel and collects their results in order.
+	 */
+	private static final class Blocks
+			extends RecursiveTask<List<List<List<double[]>>>> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<Block> blocks;
+
+		Blocks(List<Block> blocks) {
+			this.blocks = blocks;
+		}
+
+		@Override
+		protected List<List<List<double[]>>> compute() {
+			RecursiveTask.invokeAll(this.blocks);
+			List<List<List<double[]>>> results =
+					new ArrayList<List<List<double[]>>>();
+			for (Block block : this.blocks) {
+				results.add(block.join());
+			}
+			return results;
+		}
+	}
+
+	/**
+	 * Calculates the minimal points of the three-dimensional surfaces with
+	 * the values of the third objective of the groups from..to-1.
+	 */
+	private static final class Block
+			extends RecursiveTask<List<List<double[]>>> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[][] points;
+		private final int[] owners;
+		private final int[] starts;
+		private final int n;
+		private final int[] levels;
+		private final int from;
+		private final int to;
+
+		Block(double[][] points, int[] owners, int[] starts, int n,
+				int[] levels, int from, int to) {
+			this.points = points;
+			this.owners = owners;
+			this.starts = starts;
+			this.n = n;
+			this.levels = levels;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<List<double[]>> compute() {
+			Staircase[] runs = new Staircase[this.n];
+			for (int r = 0; r < this.n; r++) {
+				runs[r] = new Staircase();
+			}
+			for (int i = 0; i < this.starts[this.from]; i++) {
+				runs[this.owners[i]].add(this.points[i][0], this.points[i][1]);
+			}
+			double[][][] previous = this.surfaces(runs);
+
+			List<List<double[]>> result = new ArrayList<List<double[]>>();
+			for (int l = 0; l < this.levels.length; l++) {
+				result.add(new ArrayList<double[]>());
+			}
+			for (int g = this.from; g < this.to; g++) {
+				boolean changed = false;
+				for (int i = this.starts[g]; i < this.starts[g + 1]; i++) {
+					changed |= runs[this.owners[i]].add(this.points[i][0],
+							this.points[i][1]);
+				}
+				if (!changed) {
+					continue;
+				}
+				double z = this.points[this.starts[g]][2];
+				double[][][] current = this.surfaces(runs);
+				for (int l = 0; l < this.levels.length; l++) {
+					Block.addNew(current[l], previous[l], z, result.get(l));
+				}
+				previous = current;
+			}
+			return result;
+		}
+
+		private double[][][] surfaces(Staircase[] runs) {
+			List<double[]> points = new ArrayList<double[]>();
+			List<Integer> owners = new ArrayList<Integer>();
+			for (int r = 0; r < runs.length; r++) {
+				for (int i = 0; i < runs[r].size; i++) {
+					points.add(new double[] { runs[r].xs[i], runs[r].ys[i] });
+					owners.add(r);
+				}
+			}
+			return AttainmentFunction.sweep(points, owners, this.n,
+					this.levels);
+		}
+
+		/**
+		 * Adds the points of the current surface that are not weakly
+		 * dominated by the previous one, both sorted by their first
+		 * objective.
+		 */
+		private static void addNew(double[][] current, double[][] previous,
+				double z, List<double[]> result) {
+			int j = 0;
+			for (double[] p : current) {
+				while (j < previous.length && previous[j][0] <= p[0]) {
+					j++;
+				}
+				if (j == 0 || previous[j - 1][1] > p[1]) {
+					result.add(new double[] { p[0], p[1], z });
+				}
+			}
+		}
+	}
+
+	/**
+	 * The non-dominated points of a two-dimensional front, sorted by their
+	 * first objective.
+	 */
+	private static final class Staircase {
+		double[] xs = new double[8];
+		double[] ys = new double[8];
+		int size = 0;
+
+		/**
+		 * @return true if the point is not weakly dominated
+		 */
+		boolean add(double x, double y) {
+			// the first point with a greater first objective
+			int i = 0;
+			int high = this.size;
+			while (i < high) {
+				int middle = (i + high) >>> 1;
+				if (this.xs[middle] <= x) {
+					i = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (i > 0 && this.ys[i - 1] <= y) {
+				return false;
+			}
+			// the points dominated by the new one follow it
+			int end = i;
+			while (end < this.size && this.ys[end] >= y) {
+				end++;
+			}
+			// a point with the same first objective is dominated as well
+			int start = (i > 0 && this.xs[i - 1] == x) ? i - 1 : i;
+			int removed = end - start;
+			if (removed == 0) {
+				if (this.size == this.xs.length) {
+					this.xs = Arrays.copyOf(this.xs, 2 * this.size);
+					this.ys = Arrays.copyOf(this.ys, 2 * this.size);
+				}
+				System.arraycopy(this.xs, start, this.xs, start + 1, this.size
+						- start);
+				System.arraycopy(this.ys, start, this.ys, start + 1, this.size
+						- start);
+				this.size++;
+			} else if (removed > 1) {
+				System.arraycopy(this.xs, end, this.xs, start + 1, this.size
+						- end);
+				System.arraycopy(this.ys, end, this.ys, start + 1, this.size
+						- end);
+				this.size -= removed - 1;
+			}
+			this.xs[start] = x;
+			this.ys[start] = y;
+			return true;
+		}
+	}
+
+}
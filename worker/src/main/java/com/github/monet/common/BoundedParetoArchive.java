@@ -0,0 +1,70 @@
+package com.github.monet.common;
+
+import java.util.Map;
+
+/**
+ * A {@link ParetoArchive} of bounded size. To stay within its bound it may
+ * reject or drop points that are not dominated by any other point, so it only
+ * keeps a representative subset of the non-dominated points.
+ *
+ * @param <T>
+ *            type of the values stored with the points
+ * @see EpsilonGridArchive
+ * @see HypervolumeArchive
+ */
+public interface BoundedParetoArchive<T> extends ParetoArchive<T> {
+
+	/**
+	 * Returns how much the archive has been thinned. Contains at least
+	 * <ul>
+	 * <li><code>method</code> - how the archive is bounded</li>
+	 * <li><code>offered</code> - number of points given to the archive</li>
+	 * <li><code>rejected</code> - number of points that were not added</li>
+	 * <li><code>removed</code> - number of points removed after they had been
+	 * added, either because they were dominated or to keep the bound</li>
+	 * <li><code>size</code> - number of points in the archive</li>
+	 * </ul>
+	 * and the parameters of the bound.
+	 *
+	 * @return a new map of the statistics, in a fixed order
+	 */
+	public Map<String, Object> getTruncationStatistics();
+
+	/**
+	 * Thins the archive to its bound now. Archives that collect points
+	 * beyond their bound to thin them in batches, like
+	 * {@link HypervolumeArchive}, only keep their bound after this has been
+	 * called, so it should be called before the points are read; for others
+	 * it does nothing.
+	 */
+	public void truncate();
+
+	/**
+	 * Sets the listener that is told about every point that leaves the
+	 * archive after it had been added, because a new point dominates or
+	 * replaces it or to keep the bound. {@link #clear()} does not notify it.
+	 *
+	 * @param listener
+	 *            the listener, null for none
+	 */
+	public void setRemovalListener(RemovalListener<T> listener);
+
+	/**
+	 * Receives the points that leave a bounded archive.
+	 *
+	 * @param <T>
+	 *            type of the values stored with the points
+	 */
+	public interface RemovalListener<T> {
+
+		/**
+		 * @param point
+		 *            the removed point
+		 * @param value
+		 *            the value stored with it
+		 */
+		public void removed(double[] point, T value);
+
+	}
+
+}
@@ -0,0 +1,335 @@
+package com.github.monet.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the points of a pareto front from CSV: the objective values of one
+ * point per line, separated by commas, as written by {@link CSVFrontWriter}.
+ * Blank lines are skipped.
+ *
+ * The points are read one at a time with {@link #next()} into an array that
+ * is reused, and numbers are parsed directly from the characters read, so
+ * reading does not create objects per line or value. Numbers of up to 15
+ * significant digits and a decimal exponent of at most 22 are converted
+ * exactly with one multiplication or division; others, like the 17 digits
+ * {@link Double#toString(double)} may print, NaN and Infinity, are handed to
+ * {@link Double#parseDouble(String)}.
+ */
+public class CSVFrontReader implements Closeable {
+
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int e = 1; e < POWERS_OF_TEN.length; e++) {
+			POWERS_OF_TEN[e] = POWERS_OF_TEN[e - 1] * 10;
+		}
+	}
+
+	private final Reader in;
+	private char[] buffer = new char[8192];
+	/** start of the unparsed characters */
+	private int start = 0;
+	/** end of the characters read */
+	private int end = 0;
+	private boolean eof = false;
+	private long line = 0;
+	private double[] values = new double[8];
+	private int size = 0;
+
+	/**
+	 * @param in
+	 *            the characters to read, which are buffered by the reader
+	 */
+	public CSVFrontReader(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads a file in UTF-8.
+	 */
+	public CSVFrontReader(File file) throws IOException {
+		this(new InputStreamReader(new FileInputStream(file),
+				StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Reads the next point.
+	 *
+	 * @return false at the end of the input
+	 * @throws NumberFormatException
+	 *             if a value isn't a number
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			int lineEnd = this.findLineEnd();
+			if (lineEnd < 0) {
+				return false;
+			}
+			this.line++;
+			this.parseLine(this.start, lineEnd);
+			this.start = lineEnd + 1;
+			if (this.size > 0) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of values of the current point
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return value d of the current point
+	 */
+	public double get(int d) {
+		if (d >= this.size) {
+			throw new IndexOutOfBoundsException("the point has " + this.size
+					+ " values");
+		}
+		return this.values[d];
+	}
+
+	/**
+	 * Copies the values of the current point into the given array.
+	 *
+	 * @return the given array
+	 */
+	public double[] getPoint(double[] point) {
+		System.arraycopy(this.values, 0, point, 0, this.size);
+		return point;
+	}
+
+	/**
+	 * @return a copy of the values of the current point
+	 */
+	public double[] getPoint() {
+		return Arrays.copyOf(this.values, this.size);
+	}
+
+	/**
+	 * @return the number of the line of the current point, starting at 1
+	 */
+	public long getLineNumber() {
+		return this.line;
+	}
+
+	/**
+	 * Reads all remaining points.
+	 */
+	public List<double[]> readAll() throws IOException {
+		List<double[]> points = new ArrayList<double[]>();
+		while (this.next()) {
+			points.add(this.getPoint());
+		}
+		return points;
+	}
+
+	/**
+	 * Reads all remaining points into a front.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the points have different numbers of values or there
+	 *             are none
+	 */
+	public ParetoFront readFront(boolean minimization) throws IOException {
+		if (!this.next()) {
+			throw new IllegalArgumentException("the front is empty");
+		}
+		int k = this.size;
+		ParetoFront front = new ParetoFront(k, minimization);
+		do {
+			if (this.size != k) {
+				throw new IllegalArgumentException("line " + this.line + " has "
+						+ this.size + " values, expected " + k);
+			}
+			front.add(this.values);
+		} while (this.next());
+		return front;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	/**
+	 * Reads until the buffer holds a whole line.
+	 *
+	 * @return the index of the line break, or of the end of the last line
+	 *         without one; -1 at the end of the input
+	 */
+	private int findLineEnd() throws IOException {
+		int i = this.start;
+		while (true) {
+			for (; i < this.end; i++) {
+				char c = this.buffer[i];
+				if (c == '\n' || c == '\r') {
+					if (c == '\r') {
+						// \r\n is one line break, handled by skipping \n as a
+						// blank line
+						this.buffer[i] = '\n';
+					}
+					return i;
+				}
+			}
+			if (this.eof) {
+				if (this.start == this.end) {
+					return -1;
+				}
+				// the last line has no line break
+				if (this.end == this.buffer.length) {
+					this.buffer = Arrays.copyOf(this.buffer, this.buffer.length
+							+ 1);
+				}
+				this.buffer[this.end] = '\n';
+				return this.end++;
+			}
+			if (this.start > 0) {
+				// keep the beginning of the line
+				System.arraycopy(this.buffer, this.start, this.buffer, 0,
+						this.end - this.start);
+				i -= this.start;
+				this.end -= this.start;
+				this.start = 0;
+			}
+			if (this.end == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, 2
+						* this.buffer.length);
+			}
+			int read = this.in.read(this.buffer, this.end, this.buffer.length
+					- this.end);
+			if (read < 0) {
+				this.eof = true;
+			} else {
+				this.end += read;
+			}
+		}
+	}
+
+	private void parseLine(int from, int to) {
+		this.size = 0;
+		int i = from;
+		while (i < to) {
+			int comma = i;
+			while (comma < to && this.buffer[comma] != ',') {
+				comma++;
+			}
+			int s = i;
+			int e = comma;
+			while (s < e && Character.isWhitespace(this.buffer[s])) {
+				s++;
+			}
+			while (e > s && Character.isWhitespace(this.buffer[e - 1])) {
+				e--;
+			}
+			if (s == e) {
+				if (comma == to && this.size == 0) {
+					// blank line
+					return;
+				}
+				throw new NumberFormatException("line " + this.line
+						+ ": empty value");
+			}
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, 2
+						* this.values.length);
+			}
+			this.values[this.size++] = this.parseDouble(s, e);
+			i = comma + 1;
+			if (comma == to - 1) {
+				throw new NumberFormatException("line " + this.line
+						+ ": empty value");
+			}
+		}
+	}
+
+	/**
+	 * Parses the characters from..to-1, which aren't empty.
+	 */
+	private double parseDouble(int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (this.buffer[i] == '-' || this.buffer[i] == '+') {
+			negative = this.buffer[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		for (; i < to && this.buffer[i] >= '0' && this.buffer[i] <= '9'; i++) {
+			any = true;
+			if (mantissa > 0 || this.buffer[i] != '0') {
+				mantissa = 10 * mantissa + (this.buffer[i] - '0');
+				digits++;
+			}
+			if (digits > 15) {
+				return this.parseSlowly(from, to);
+			}
+		}
+		if (i < to && this.buffer[i] == '.') {
+			for (i++; i < to && this.buffer[i] >= '0'
+					&& this.buffer[i] <= '9'; i++) {
+				any = true;
+				if (mantissa > 0 || this.buffer[i] != '0') {
+					mantissa = 10 * mantissa + (this.buffer[i] - '0');
+					digits++;
+				}
+				exponent--;
+				if (digits > 15) {
+					return this.parseSlowly(from, to);
+				}
+			}
+		}
+		if (!any) {
+			return this.parseSlowly(from, to);
+		}
+		if (i < to && (this.buffer[i] == 'e' || this.buffer[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < to && (this.buffer[i] == '-' || this.buffer[i] == '+')) {
+				negativeExponent = this.buffer[i] == '-';
+				i++;
+			}
+			int e = 0;
+			int start = i;
+			for (; i < to && this.buffer[i] >= '0' && this.buffer[i] <= '9'
+					&& e < 10000; i++) {
+				e = 10 * e + (this.buffer[i] - '0');
+			}
+			if (i == start) {
+				return this.parseSlowly(from, to);
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		if (i != to || exponent < -22 || exponent > 22) {
+			return this.parseSlowly(from, to);
+		}
+		double value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent]
+				: mantissa * POWERS_OF_TEN[exponent];
+		return negative ? -value : value;
+	}
+
+	private double parseSlowly(int from, int to) {
+		try {
+			return Double.parseDouble(new String(this.buffer, from, to - from));
+		} catch (NumberFormatException e) {
+			throw new NumberFormatException("line " + this.line + ": "
+					+ e.getMessage());
+		}
+	}
+
+}
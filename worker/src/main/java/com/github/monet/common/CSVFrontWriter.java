@@ -0,0 +1,103 @@
+package com.github.monet.common;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the points of a pareto front as CSV: the objective values of one
+ * point per line, separated by ", ". Each line is put together in a reused
+ * buffer and written at once to a buffered writer.
+ */
+public class CSVFrontWriter implements Closeable, Flushable {
+
+	private final Writer out;
+	private final StringBuilder line = new StringBuilder();
+	private char[] chars = new char[256];
+
+	/**
+	 * @param out
+	 *            receives the characters; wrapped in a {@link BufferedWriter}
+	 *            unless it is one
+	 */
+	public CSVFrontWriter(Writer out) {
+		this.out = (out instanceof BufferedWriter) ? out
+				: new BufferedWriter(out);
+	}
+
+	/**
+	 * Writes a file in UTF-8.
+	 *
+	 * @param append
+	 *            true to append to an existing file
+	 */
+	public CSVFrontWriter(File file, boolean append) throws IOException {
+		this(new OutputStreamWriter(new FileOutputStream(file, append),
+				StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes all values of the point as one line.
+	 */
+	public void write(double[] point) throws IOException {
+		this.write(point, 0, point.length);
+	}
+
+	/**
+	 * Writes the values from..to-1 of the array as one line.
+	 */
+	public void write(double[] values, int from, int to) throws IOException {
+		this.line.setLength(0);
+		for (int i = from; i < to; i++) {
+			if (i > from) {
+				this.line.append(", ");
+			}
+			this.line.append(values[i]);
+		}
+		this.line.append('\n');
+		int length = this.line.length();
+		if (length > this.chars.length) {
+			this.chars = new char[Math.max(length, 2 * this.chars.length)];
+		}
+		this.line.getChars(0, length, this.chars, 0);
+		this.out.write(this.chars, 0, length);
+	}
+
+	/**
+	 * Writes the points, one per line.
+	 */
+	public void writeAll(List<double[]> points) throws IOException {
+		for (double[] point : points) {
+			this.write(point);
+		}
+	}
+
+	/**
+	 * Writes the points of the front, one per line.
+	 */
+	public void writeAll(ParetoFront front) throws IOException {
+		int k = front.getDimension();
+		double[] values = front.getValues();
+		for (int i = 0; i < front.size(); i++) {
+			this.write(values, i * k, (i + 1) * k);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.out.close();
+	}
+
+}
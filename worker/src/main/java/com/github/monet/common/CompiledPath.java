@@ -0,0 +1,210 @@
+package com.github.monet.common;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mongodb.DBObject;
+
+/**
+ * A path expression of {@link MongoBuilder} split into its elements once, so
+ * it can be used many times without being parsed again, e.g. by
+ * {@link MongoBuilder#insert(String, Object)} for every measured value or to
+ * find the same value in the measured data of many jobs.
+ *
+ * Compiled paths are kept in a cache of the {@link #CACHE_SIZE} most recently
+ * used paths, so {@link #compile(String)} returns the same instance for a
+ * path as long as it is used.
+ */
+public final class CompiledPath {
+
+	/**
+	 * Number of compiled paths kept in the cache.
+	 */
+	public static final int CACHE_SIZE = 1024;
+
+	/**
+	 * Index of an element that is a key of a map.
+	 */
+	static final int KEY = -1;
+
+	/**
+	 * Index of an element "#" without index: appends to a list when
+	 * inserting, the last element when finding.
+	 */
+	static final int LAST = -2;
+
+	private static final Map<String, CompiledPath> CACHE =
+			new LinkedHashMap<String, CompiledPath>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, CompiledPath> eldest) {
+			return this.size() > CACHE_SIZE;
+		}
+	};
+
+	private final String path;
+	/** the elements of the path */
+	final String[] tokens;
+	/** {@link #KEY}, {@link #LAST} or the index of a list of each element */
+	final int[] indices;
+	/** position of each element in the path without leading slash */
+	final int[] positions;
+	/**
+	 * number of leading elements that are keys, without the last element
+	 */
+	final int keyPrefix;
+
+	private CompiledPath(String path, String[] tokens, int[] indices,
+			int[] positions) {
+		this.path = path;
+		this.tokens = tokens;
+		this.indices = indices;
+		this.positions = positions;
+		int keys = 0;
+		while (keys < tokens.length - 1 && indices[keys] == KEY) {
+			keys++;
+		}
+		this.keyPrefix = keys;
+	}
+
+	/**
+	 * Returns the compiled path expression, from the cache if it was compiled
+	 * recently.
+	 *
+	 * @param path
+	 *            the path expression; a leading slash is ignored
+	 * @throws MongoBuilderException
+	 *             if the path is empty, starts with "#" or has an index that
+	 *             isn't a number
+	 */
+	public static CompiledPath compile(String path) {
+		synchronized (CACHE) {
+			CompiledPath compiled = CACHE.get(path);
+			if (compiled != null) {
+				return compiled;
+			}
+		}
+		CompiledPath compiled = CompiledPath.parse(path);
+		synchronized (CACHE) {
+			CACHE.put(path, compiled);
+		}
+		return compiled;
+	}
+
+	private static CompiledPath parse(String path) {
+		// ignore leading slash
+		String p = path.startsWith("/") ? path.substring(1) : path;
+		// elements are separated by slashes, a trailing slash is ignored
+		int count = 0;
+		for (int i = 0; i < p.length(); i++) {
+			if (p.charAt(i) == '/') {
+				count++;
+			}
+		}
+		if (!p.isEmpty() && !p.endsWith("/")) {
+			count++;
+		}
+		if (count == 0) {
+			throw new MongoBuilderException("empty path", p, "", 0);
+		}
+		String[] tokens = new String[count];
+		int[] indices = new int[count];
+		int[] positions = new int[count];
+		int start = 0;
+		for (int t = 0; t < count; t++) {
+			int end = p.indexOf('/', start);
+			if (end < 0) {
+				end = p.length();
+			}
+			String token = p.substring(start, end);
+			tokens[t] = token;
+			positions[t] = start;
+			if (!token.startsWith("#")) {
+				indices[t] = KEY;
+			} else if (token.length() == 1) {
+				indices[t] = LAST;
+			} else {
+				try {
+					indices[t] = Integer.parseInt(token.substring(1));
+				} catch (NumberFormatException e) {
+					throw new MongoBuilderException("index is not a number", p,
+							token, start);
+				}
+				if (indices[t] < 0) {
+					throw new MongoBuilderException("index of of bounds", p,
+							token, start);
+				}
+			}
+			start = end + 1;
+		}
+		if (indices[0] != KEY) {
+			throw new MongoBuilderException("may not start with '#'", p,
+					tokens[0], 0);
+		}
+		return new CompiledPath(p, tokens, indices, positions);
+	}
+
+	/**
+	 * Finds a value or intermediate list or map like
+	 * {@link MongoBuilder#find(DBObject, String)}.
+	 *
+	 * @param dbobj
+	 *            the MongoDB database object to look in
+	 * @return the found value, null if a key is missing
+	 * @throws MongoBuilderException
+	 *             if the path conflicts with the dbobj
+	 */
+	@SuppressWarnings("unchecked")
+	public Object find(DBObject dbobj) {
+		Object current = dbobj;
+		for (int t = 0; t < this.tokens.length; t++) {
+			if (current instanceof Map) {
+				if (this.indices[t] != KEY) {
+					throw this.exception("expected key but got list", t);
+				}
+				current = ((Map<String, Object>) current).get(this.tokens[t]);
+			} else if (current instanceof List) {
+				if (this.indices[t] == KEY) {
+					throw this.exception("expected list but got key", t);
+				}
+				List<Object> list = (List<Object>) current;
+				int index = this.indices[t];
+				if (index == LAST) {
+					index = list.size() - 1;
+				} else if (index >= list.size()) {
+					throw this.exception("index out of bounds", t);
+				}
+				current = list.get(index);
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * @return the path expression without leading slash
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * @return the number of elements of the path
+	 */
+	public int length() {
+		return this.tokens.length;
+	}
+
+	MongoBuilderException exception(String message, int t) {
+		return new MongoBuilderException(message, this.path, this.tokens[t],
+				this.positions[t]);
+	}
+
+	@Override
+	public String toString() {
+		return this.path;
+	}
+
+}
@@ -41,6 +41,31 @@ public class DBCollections {
 	 */
 	public static String JOBS = "jobs";
 
+	/**
+	 * Collection of the parts of the measured data of jobs that were spilled
+	 * while the jobs were running, if the job parameters
+	 * <code>spill_values</code> or <code>spill_seconds</code> were set. The
+	 * measured data of a job is the merge of its chunks in the order of their
+	 * sequence numbers and of <code>measuredData</code> of the job, see
+	 * {@link MongoBuilder#merge(java.util.Map, java.util.Map)}.
+	 *
+	 * <p>
+	 * Schema:
+	 * <ul>
+	 * <li><code>job</code> - ID of the job</li>
+	 * <li><code>seq</code> - sequence number of the chunk, starting with 0</li>
+	 * <li><code>data</code> - dictionary of the spilled data</li>
+	 * </ul>
+	 */
+	public static final String MEASURED_CHUNKS = "measured_chunks";
+
+	/**
+	 * Key in <code>measuredData</code> of a job with the number of chunks of
+	 * its measured data in {@link #MEASURED_CHUNKS}; missing if nothing was
+	 * spilled.
+	 */
+	public static final String SPILLED_CHUNKS = "SPILLED_CHUNKS";
+
 	/**
 	 * Collection of all workers. This includes workers that are currently not
 	 * connected to the ControlServer, but are somehow still known to it.
@@ -80,4 +105,17 @@ public class DBCollections {
 	 */
 	public static final String MEASUREMENT_FILES = "measurement_files";
 
+	/**
+	 * Grid-FS collection of the reference fronts of experiments, i.e. the
+	 * union of the pareto fronts of all jobs of an experiment and its
+	 * repetitions. The file name is the name of the original experiment.
+	 */
+	public static final String REFERENCE_FRONTS = "reference_fronts";
+
+	/**
+	 * Grid-FS collection of the attainment surfaces of experiments, one file
+	 * per original experiment that covers all its repetitions.
+	 */
+	public static final String ATTAINMENT_SURFACES = "attainment_surfaces";
+
 }
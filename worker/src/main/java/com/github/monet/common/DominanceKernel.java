@@ -0,0 +1,337 @@
+package com.github.monet.common;
+
+/**
+ * Compares one point to many points at once, e.g. to find out which points
+ * of a population dominate or are dominated by a new point.
+ *
+ * The points are stored row-major in one array like in {@link ParetoFront}.
+ * Instead of stopping at the first objective that decides the dominance like
+ * {@link ParetoPoint#dominates(double[], double[], int, boolean)}, the kernels
+ * collect whether any objective is better and whether any is worse and
+ * combine them into a {@link #relation(double[], int, double[])} code without
+ * branches, which the JIT compiles to conditional moves and can unroll. There
+ * are kernels for two, three and four objectives with the loop over the
+ * objectives unrolled by hand and a generic one for any number of objectives,
+ * which compares both directions in one pass but stops once the points are
+ * incomparable; {@link #forDimension(int, boolean)} selects one at runtime.
+ *
+ * The unrolled kernels take about 0.5 to 0.6 times as long as comparing the
+ * points pairwise; with five or more objectives most pairs are incomparable
+ * after a few of them and the generic kernel is no faster than the pairwise
+ * comparison (see DominanceKernelBenchmark in the benchmark module).
+ *
+ * All relations are relative to the given point p.
+ */
+public abstract class DominanceKernel {
+
+	/**
+	 * The points are equal.
+	 */
+	public static final byte EQUAL = 0;
+
+	/**
+	 * The point of the array dominates p.
+	 */
+	public static final byte DOMINATES = 1;
+
+	/**
+	 * p dominates the point of the array.
+	 */
+	public static final byte DOMINATED = 2;
+
+	/**
+	 * Neither point dominates the other.
+	 */
+	public static final byte INCOMPARABLE = 3;
+
+	/**
+	 * Number of points compared at once when looking for certain relations.
+	 */
+	private static final int BLOCK = 256;
+
+	/**
+	 * Swaps {@link #DOMINATES} and {@link #DOMINATED} for maximization.
+	 */
+	private static final byte[] MAXIMIZATION = { EQUAL, DOMINATED, DOMINATES,
+			INCOMPARABLE };
+
+	protected final int k;
+	protected final boolean minimization;
+
+	protected DominanceKernel(int k, boolean minimization) {
+		this.k = k;
+		this.minimization = minimization;
+	}
+
+	/**
+	 * Returns the kernel for the number of objectives.
+	 *
+	 * @param k
+	 *            number of objectives, at least 1
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public static DominanceKernel forDimension(int k, boolean minimization) {
+		switch (k) {
+		case 2:
+			return new Kernel2D(minimization);
+		case 3:
+			return new Kernel3D(minimization);
+		case 4:
+			return new Kernel4D(minimization);
+		default:
+			if (k < 1) {
+				throw new IllegalArgumentException(
+						"at least one objective is needed");
+			}
+			return new GenericKernel(k, minimization);
+		}
+	}
+
+	public int getDimension() {
+		return this.k;
+	}
+
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	/**
+	 * Relation of point i of the array to p: {@link #EQUAL},
+	 * {@link #DOMINATES}, {@link #DOMINATED} or {@link #INCOMPARABLE}.
+	 *
+	 * @param values
+	 *            the points, row-major
+	 * @param i
+	 *            index of the point
+	 * @param p
+	 *            the point to compare to
+	 */
+	public int relation(double[] values, int i, double[] p) {
+		int code = this.compare(values, i * this.k, p);
+		return this.minimization ? code : MAXIMIZATION[code];
+	}
+
+	/**
+	 * Relations of the points from..to-1 of the array to p.
+	 *
+	 * @param relations
+	 *            receives the relation of point i at index i - from
+	 */
+	public void relations(double[] values, int from, int to, double[] p,
+			byte[] relations) {
+		this.compareAll(values, from, to, p, relations);
+		if (!this.minimization) {
+			for (int i = 0; i < to - from; i++) {
+				relations[i] = MAXIMIZATION[relations[i]];
+			}
+		}
+	}
+
+	/**
+	 * Collects the points of the array that dominate p.
+	 *
+	 * @param n
+	 *            the number of points of the array
+	 * @param indices
+	 *            receives the indices of the dominating points in ascending
+	 *            order, needs room for n
+	 * @return the number of dominating points
+	 */
+	public int dominating(double[] values, int n, double[] p, int[] indices) {
+		return this.collect(values, n, p, DOMINATES, indices);
+	}
+
+	/**
+	 * Collects the points of the array that p dominates.
+	 *
+	 * @see #dominating(double[], int, double[], int[])
+	 */
+	public int dominatedBy(double[] values, int n, double[] p, int[] indices) {
+		return this.collect(values, n, p, DOMINATED, indices);
+	}
+
+	/**
+	 * @return true if a point of the array dominates p; stops after the
+	 *         block of points containing the first one
+	 */
+	public boolean isDominated(double[] values, int n, double[] p) {
+		byte[] relations = new byte[Math.min(n, BLOCK)];
+		for (int from = 0; from < n; from += BLOCK) {
+			int to = Math.min(n, from + BLOCK);
+			this.relations(values, from, to, p, relations);
+			for (int i = 0; i < to - from; i++) {
+				if (relations[i] == DOMINATES) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private int collect(double[] values, int n, double[] p, int relation,
+			int[] indices) {
+		byte[] relations = new byte[Math.min(n, BLOCK)];
+		int count = 0;
+		for (int from = 0; from < n; from += BLOCK) {
+			int to = Math.min(n, from + BLOCK);
+			this.relations(values, from, to, p, relations);
+			for (int i = 0; i < to - from; i++) {
+				// always write, only advance on a match
+				indices[count] = from + i;
+				count += (relations[i] == relation) ? 1 : 0;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Compares the point at offset a of the array to p for minimization.
+	 *
+	 * @return bit 0 set if the point is smaller in some objective, bit 1 set
+	 *         if p is smaller in some objective
+	 */
+	protected abstract int compare(double[] values, int a, double[] p);
+
+	/**
+	 * Compares the points from..to-1 to p like
+	 * {@link #compare(double[], int, double[])}. Each kernel has its own loop,
+	 * so the comparison is inlined into it.
+	 */
+	protected abstract void compareAll(double[] values, int from, int to,
+			double[] p, byte[] codes);
+
+	private static int less(double a, double b) {
+		return (a < b) ? 1 : 0;
+	}
+
+	private static final class Kernel2D extends DominanceKernel {
+		Kernel2D(boolean minimization) {
+			super(2, minimization);
+		}
+
+		@Override
+		protected int compare(double[] values, int a, double[] p) {
+			double x = values[a];
+			double y = values[a + 1];
+			int better = less(x, p[0]) | less(y, p[1]);
+			int worse = less(p[0], x) | less(p[1], y);
+			return better | (worse << 1);
+		}
+
+		@Override
+		protected void compareAll(double[] values, int from, int to, double[] p,
+				byte[] codes) {
+			double px = p[0];
+			double py = p[1];
+			for (int i = from, a = 2 * from; i < to; i++, a += 2) {
+				double x = values[a];
+				double y = values[a + 1];
+				int better = less(x, px) | less(y, py);
+				int worse = less(px, x) | less(py, y);
+				codes[i - from] = (byte) (better | (worse << 1));
+			}
+		}
+	}
+
+	private static final class Kernel3D extends DominanceKernel {
+		Kernel3D(boolean minimization) {
+			super(3, minimization);
+		}
+
+		@Override
+		protected int compare(double[] values, int a, double[] p) {
+			double x = values[a];
+			double y = values[a + 1];
+			double z = values[a + 2];
+			int better = less(x, p[0]) | less(y, p[1]) | less(z, p[2]);
+			int worse = less(p[0], x) | less(p[1], y) | less(p[2], z);
+			return better | (worse << 1);
+		}
+
+		@Override
+		protected void compareAll(double[] values, int from, int to, double[] p,
+				byte[] codes) {
+			double px = p[0];
+			double py = p[1];
+			double pz = p[2];
+			for (int i = from, a = 3 * from; i < to; i++, a += 3) {
+				double x = values[a];
+				double y = values[a + 1];
+				double z = values[a + 2];
+				int better = less(x, px) | less(y, py) | less(z, pz);
+				int worse = less(px, x) | less(py, y) | less(pz, z);
+				codes[i - from] = (byte) (better | (worse << 1));
+			}
+		}
+	}
+
+	private static final class Kernel4D extends DominanceKernel {
+		Kernel4D(boolean minimization) {
+			super(4, minimization);
+		}
+
+		@Override
+		protected int compare(double[] values, int a, double[] p) {
+			int better = less(values[a], p[0]) | less(values[a + 1],
+					p[1]) | less(values[a + 2], p[2])
+					| less(values[a + 3], p[3]);
+			int worse = less(p[0], values[a]) | less(p[1],
+					values[a + 1]) | less(p[2], values[a + 2])
+					| less(p[3], values[a + 3]);
+			return better | (worse << 1);
+		}
+
+		@Override
+		protected void compareAll(double[] values, int from, int to, double[] p,
+				byte[] codes) {
+			double p0 = p[0];
+			double p1 = p[1];
+			double p2 = p[2];
+			double p3 = p[3];
+			for (int i = from, a = 4 * from; i < to; i++, a += 4) {
+				double v0 = values[a];
+				double v1 = values[a + 1];
+				double v2 = values[a + 2];
+				double v3 = values[a + 3];
+				int better = less(v0, p0) | less(v1, p1) | less(v2,
+						p2) | less(v3, p3);
+				int worse = less(p0, v0) | less(p1, v1) | less(p2,
+						v2) | less(p3, v3);
+				codes[i - from] = (byte) (better | (worse << 1));
+			}
+		}
+	}
+
+	private static final class GenericKernel extends DominanceKernel {
+		GenericKernel(int k, boolean minimization) {
+			super(k, minimization);
+		}
+
+		@Override
+		protected int compare(double[] values, int a, double[] p) {
+			// with many objectives most pairs are incomparable long before the
+			// last one, so stopping early beats avoiding the branch
+			int better = 0;
+			int worse = 0;
+			for (int d = 0; d < this.k; d++) {
+				better |= less(values[a + d], p[d]);
+				worse |= less(p[d], values[a + d]);
+				if ((better & worse) != 0) {
+					break;
+				}
+			}
+			return better | (worse << 1);
+		}
+
+		@Override
+		protected void compareAll(double[] values, int from, int to, double[] p,
+				byte[] codes) {
+			int k = this.k;
+			for (int i = from, a = k * from; i < to; i++, a += k) {
+				codes[i - from] = (byte) this.compare(values, a, p);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.github.monet.common;
+
+import java.util.List;
+
+/**
+ * The hypervolume of a set of mutually non-dominated points with a fixed
+ * reference point that is kept up to date while points are added and
+ * removed, instead of being recalculated from scratch after every change.
+ *
+ * Like a {@link ParetoArchive} a point is only added if no point of the set
+ * weakly dominates it, and the points it dominates are removed. Points that
+ * do not strictly dominate the reference point don't contribute to the
+ * volume and are ignored.
+ *
+ * The volume is the sum of the contributions of all updates, so it
+ * accumulates their rounding errors.
+ *
+ * @see HypervolumeCalculators#dynamic(double[], boolean)
+ * @see HypervolumeTracker
+ */
+public interface DynamicHypervolume {
+
+	/**
+	 * Adds a point unless it is weakly dominated by a point of the set or
+	 * does not dominate the reference point. Points dominated by the new
+	 * point are removed.
+	 *
+	 * @param point
+	 *            the objective values, not modified
+	 * @return true if the point was added
+	 */
+	public boolean add(double[] point);
+
+	/**
+	 * Removes a point.
+	 *
+	 * @param point
+	 *            the objective values of the point
+	 * @return true if the point was in the set
+	 */
+	public boolean remove(double[] point);
+
+	/**
+	 * @return the hypervolume dominated by the points of the set
+	 */
+	public double getVolume();
+
+	/**
+	 * @return the number of points in the set
+	 */
+	public int size();
+
+	/**
+	 * @return copies of the points of the set
+	 */
+	public List<double[]> getPoints();
+
+	/**
+	 * @return a copy of the reference point
+	 */
+	public double[] getReferencePoint();
+
+	/**
+	 * @return true if smaller objective values are better
+	 */
+	public boolean isMinimization();
+
+	/**
+	 * Removes all points.
+	 */
+	public void clear();
+
+}
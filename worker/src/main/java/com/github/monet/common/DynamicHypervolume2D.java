@@ -0,0 +1,144 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link DynamicHypervolume} of two objectives in O(log n) per added or
+ * removed point (amortized over the dominated points that are removed).
+ *
+ * The points form a staircase that is kept in a balanced search tree ordered
+ * by the first objective. The exclusive contribution of a point is the
+ * rectangle between it, the next point in the first objective and the
+ * previous point in the second objective, so adding or removing a point only
+ * needs its neighbours in the tree.
+ */
+public class DynamicHypervolume2D implements DynamicHypervolume {
+
+	private final boolean minimization;
+	/** the reference point, minimized */
+	private final double refX;
+	private final double refY;
+	/** the minimized points, second objective by first objective */
+	private final TreeMap<Double, Double> front = new TreeMap<Double, Double>();
+	private double volume = 0;
+
+	/**
+	 * @param ref
+	 *            the reference point
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public DynamicHypervolume2D(double[] ref, boolean minimization) {
+		if (ref.length != 2) {
+			throw new IllegalArgumentException("the reference point has "
+					+ ref.length + " objectives, expected 2");
+		}
+		this.minimization = minimization;
+		this.refX = this.toMinimization(ref[0]);
+		this.refY = this.toMinimization(ref[1]);
+	}
+
+	@Override
+	public boolean add(double[] point) {
+		double x = this.toMinimization(point[0]);
+		double y = this.toMinimization(point[1]);
+		if (!(x < this.refX && y < this.refY)) {
+			return false;
+		}
+		Map.Entry<Double, Double> floor = this.front.floorEntry(x);
+		if (floor != null && floor.getValue() <= y) {
+			return false;
+		}
+		// the dominated points follow the new one, including one with the
+		// same first objective
+		Map.Entry<Double, Double> next = this.front.ceilingEntry(x);
+		while (next != null && next.getValue() >= y) {
+			this.removeMinimized(next.getKey(), next.getValue());
+			next = this.front.higherEntry(next.getKey());
+		}
+		this.front.put(x, y);
+		this.volume += this.contribution(x, y);
+		return true;
+	}
+
+	@Override
+	public boolean remove(double[] point) {
+		double x = this.toMinimization(point[0]);
+		Double y = this.front.get(x);
+		if (y == null || y != this.toMinimization(point[1])) {
+			return false;
+		}
+		this.removeMinimized(x, y);
+		return true;
+	}
+
+	@Override
+	public double getVolume() {
+		return this.volume;
+	}
+
+	@Override
+	public int size() {
+		return this.front.size();
+	}
+
+	@Override
+	public List<double[]> getPoints() {
+		List<double[]> points = new ArrayList<double[]>(this.front.size());
+		for (Map.Entry<Double, Double> entry : this.front.entrySet()) {
+			points.add(new double[] { this.toMinimization(entry.getKey()),
+					this.toMinimization(entry.getValue()) });
+		}
+		return points;
+	}
+
+	@Override
+	public double[] getReferencePoint() {
+		return new double[] { this.toMinimization(this.refX),
+				this.toMinimization(this.refY) };
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	@Override
+	public void clear() {
+		this.front.clear();
+		this.volume = 0;
+	}
+
+	private void removeMinimized(double x, double y) {
+		this.volume -= this.contribution(x, y);
+		this.front.remove(x);
+		if (this.front.isEmpty()) {
+			// drop the rounding errors
+			this.volume = 0;
+		}
+	}
+
+	/**
+	 * @return the area only dominated by the point of the front
+	 */
+	private double contribution(double x, double y) {
+		Double nextX = this.front.higherKey(x);
+		Map.Entry<Double, Double> previous = this.front.lowerEntry(x);
+		double width = ((nextX == null) ? this.refX : nextX) - x;
+		double height = ((previous == null) ? this.refY : previous.getValue())
+				- y;
+		return width * height;
+	}
+
+	/**
+	 * The tree would treat -0.0 as a different key than 0.0, see
+	 * {@link ParetoPoint#toMinimization(double, boolean)}.
+	 */
+	private double toMinimization(double value) {
+		return ParetoPoint.toMinimization(value, this.minimization);
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link DynamicHypervolume} of three objectives in O(n log n) per added or
+ * removed point.
+ *
+ * The volume changes by the exclusive contribution of the point: the volume
+ * of the box between the point and the reference point minus the part of it
+ * dominated by the other points, which is the hypervolume of the points
+ * max(p, q) calculated by the dimension sweep of {@link Hypervolume3D}. Unlike
+ * two objectives no sublinear update is known, so this is asymptotically as
+ * expensive as recalculating the whole volume, but it keeps the volume
+ * available at any time without converting the front first.
+ */
+public class DynamicHypervolume3D implements DynamicHypervolume {
+
+	private final boolean minimization;
+	/** the reference point, minimized */
+	private final double[] ref;
+	/** the minimized points */
+	private final List<double[]> points = new ArrayList<double[]>();
+	private final Hypervolume3D sweep = new Hypervolume3D();
+	private double volume = 0;
+
+	/**
+	 * @param ref
+	 *            the reference point
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public DynamicHypervolume3D(double[] ref, boolean minimization) {
+		if (ref.length != 3) {
+			throw new IllegalArgumentException("the reference point has "
+					+ ref.length + " objectives, expected 3");
+		}
+		this.minimization = minimization;
+		this.ref = this.toMinimization(ref);
+	}
+
+	@Override
+	public boolean add(double[] point) {
+		double[] p = this.toMinimization(point);
+		if (!DynamicHypervolume3D.strictlyLess(p, this.ref)) {
+			return false;
+		}
+		for (double[] q : this.points) {
+			if (DynamicHypervolume3D.weaklyDominates(q, p)) {
+				return false;
+			}
+		}
+		for (int i = this.points.size() - 1; i >= 0; i--) {
+			if (DynamicHypervolume3D.weaklyDominates(p, this.points.get(i))) {
+				this.removeAt(i);
+			}
+		}
+		this.volume += this.contribution(p);
+		this.points.add(p);
+		return true;
+	}
+
+	@Override
+	public boolean remove(double[] point) {
+		double[] p = this.toMinimization(point);
+		for (int i = 0; i < this.points.size(); i++) {
+			if (Arrays.equals(this.points.get(i), p)) {
+				this.removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public double getVolume() {
+		return this.volume;
+	}
+
+	@Override
+	public int size() {
+		return this.points.size();
+	}
+
+	@Override
+	public List<double[]> getPoints() {
+		List<double[]> points = new ArrayList<double[]>(this.points.size());
+		for (double[] p : this.points) {
+			points.add(this.toMinimization(p));
+		}
+		return points;
+	}
+
+	@Override
+	public double[] getReferencePoint() {
+		return this.toMinimization(this.ref);
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	@Override
+	public void clear() {
+		this.points.clear();
+		this.volume = 0;
+	}
+
+	private void removeAt(int i) {
+		double[] p = this.points.get(i);
+		// swap with the last point, the order does not matter
+		this.points.set(i, this.points.get(this.points.size() - 1));
+		this.points.remove(this.points.size() - 1);
+		this.volume -= this.contribution(p);
+		if (this.points.isEmpty()) {
+			// drop the rounding errors
+			this.volume = 0;
+		}
+	}
+
+	/**
+	 * @return the volume only dominated by p, which must not be in the set
+	 */
+	private double contribution(double[] p) {
+		double box = 1;
+		for (int d = 0; d < 3; d++) {
+			box *= this.ref[d] - p[d];
+		}
+		// max(p, q) as points of a maximization problem with the reference
+		// point as origin
+		double[][] overlaps = new double[this.points.size()][3];
+		for (int i = 0; i < overlaps.length; i++) {
+			double[] q = this.points.get(i);
+			for (int d = 0; d < 3; d++) {
+				overlaps[i][d] = this.ref[d] - Math.max(p[d], q[d]);
+			}
+		}
+		return box - this.sweep.calculate(overlaps, null);
+	}
+
+	private static boolean strictlyLess(double[] a, double[] b) {
+		return a[0] < b[0] && a[1] < b[1] && a[2] < b[2];
+	}
+
+	private static boolean weaklyDominates(double[] a, double[] b) {
+		return a[0] <= b[0] && a[1] <= b[1] && a[2] <= b[2];
+	}
+
+	private double[] toMinimization(double[] point) {
+		if (point.length != 3) {
+			throw new IllegalArgumentException("the point has " + point.length
+					+ " objectives, expected 3");
+		}
+		return ParetoPoint.toMinimization(point, this.minimization);
+	}
+
+}
@@ -0,0 +1,249 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact encoding of the edge sets of the solutions of a pareto front, as
+ * measured with
+ * {@link com.github.monet.interfaces.Meter#measurePareto(double[],
+ * Collection)}.
+ *
+ * Instead of storing the names of the edges again for every solution, each
+ * edge gets an id in the order it is first seen and is stored only once in a
+ * dictionary per job. A set of edges then is a byte array in one of two
+ * formats, whichever is smaller, marked by the first byte:
+ * <ul>
+ * <li>{@link #DELTA}: the number of edges, the smallest id and the gaps
+ * between consecutive ids minus one, each as a varint (seven bits per byte,
+ * the highest bit set if another byte follows). Solutions using few of the
+ * edges, like paths, need about one byte per edge.</li>
+ * <li>{@link #BITSET}: one bit per id up to the largest one, the lowest bit
+ * of the first byte for id 0. Solutions using many of the edges, like
+ * spanning trees of sparse graphs, need one bit per edge of the
+ * dictionary.</li>
+ * </ul>
+ *
+ * The ids of a set are stored in ascending order without duplicates, so the
+ * order in which the edges were given is not kept.
+ */
+public class EdgeSets {
+
+	/**
+	 * Format of ids stored as gaps.
+	 */
+	public static final byte DELTA = 0;
+
+	/**
+	 * Format of ids stored as bits.
+	 */
+	public static final byte BITSET = 1;
+
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private final List<String> edges = new ArrayList<String>();
+
+	/**
+	 * Creates an empty dictionary.
+	 */
+	public EdgeSets() {
+	}
+
+	/**
+	 * Creates a dictionary of the given edges, e.g. to decode edge sets read
+	 * from the database.
+	 *
+	 * @param dictionary
+	 *            the edges in the order of their ids
+	 */
+	public EdgeSets(List<String> dictionary) {
+		for (String edge : dictionary) {
+			this.getId(edge);
+		}
+	}
+
+	/**
+	 * @return the id of the edge, which is added to the dictionary if it is
+	 *         new
+	 */
+	public int getId(String edge) {
+		Integer id = this.ids.get(edge);
+		if (id == null) {
+			id = this.edges.size();
+			this.ids.put(edge, id);
+			this.edges.add(edge);
+		}
+		return id;
+	}
+
+	/**
+	 * @return the edge with the id
+	 */
+	public String getEdge(int id) {
+		return this.edges.get(id);
+	}
+
+	/**
+	 * @return the edges in the order of their ids
+	 */
+	public List<String> getDictionary() {
+		return Collections.unmodifiableList(this.edges);
+	}
+
+	/**
+	 * @return the number of edges in the dictionary
+	 */
+	public int size() {
+		return this.edges.size();
+	}
+
+	/**
+	 * Encodes the edges, adding new ones to the dictionary.
+	 */
+	public byte[] encode(Collection<String> edges) {
+		int[] ids = new int[edges.size()];
+		int count = 0;
+		for (String edge : edges) {
+			ids[count++] = this.getId(edge);
+		}
+		return EdgeSets.encodeIds(ids);
+	}
+
+	/**
+	 * @return the edges of an encoded set in the order of their ids
+	 */
+	public List<String> decode(byte[] data) {
+		int[] ids = EdgeSets.decodeIds(data);
+		List<String> edges = new ArrayList<String>(ids.length);
+		for (int id : ids) {
+			edges.add(this.edges.get(id));
+		}
+		return edges;
+	}
+
+	/**
+	 * Encodes a set of ids in the smaller format.
+	 *
+	 * @param ids
+	 *            non-negative ids in any order, possibly with duplicates;
+	 *            sorted in place
+	 */
+	public static byte[] encodeIds(int[] ids) {
+		Arrays.sort(ids);
+		int count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] < 0) {
+				throw new IllegalArgumentException("negative id " + ids[i]);
+			}
+			if (i == 0 || ids[i] != ids[i - 1]) {
+				ids[count++] = ids[i];
+			}
+		}
+		int deltaSize = 1 + EdgeSets.varintSize(count);
+		for (int i = 0; i < count; i++) {
+			deltaSize += EdgeSets.varintSize((i == 0) ? ids[0] : ids[i]
+					- ids[i - 1] - 1);
+		}
+		int bitsetSize = 1 + ((count == 0) ? 0 : ids[count - 1] / 8 + 1);
+
+		if (bitsetSize < deltaSize) {
+			byte[] data = new byte[bitsetSize];
+			data[0] = BITSET;
+			for (int i = 0; i < count; i++) {
+				data[1 + (ids[i] >>> 3)] |= 1 << (ids[i] & 7);
+			}
+			return data;
+		}
+		byte[] data = new byte[deltaSize];
+		data[0] = DELTA;
+		int offset = EdgeSets.writeVarint(data, 1, count);
+		for (int i = 0; i < count; i++) {
+			offset = EdgeSets.writeVarint(data, offset, (i == 0) ? ids[0]
+					: ids[i] - ids[i - 1] - 1);
+		}
+		return data;
+	}
+
+	/**
+	 * @return the ids of an encoded set in ascending order
+	 * @throws IllegalArgumentException
+	 *             if the data is malformed
+	 */
+	public static int[] decodeIds(byte[] data) {
+		if (data.length == 0) {
+			throw new IllegalArgumentException("empty edge set data");
+		}
+		if (data[0] == BITSET) {
+			int count = 0;
+			for (int i = 1; i < data.length; i++) {
+				count += Integer.bitCount(data[i] & 0xFF);
+			}
+			int[] ids = new int[count];
+			int n = 0;
+			for (int i = 1; i < data.length; i++) {
+				int bits = data[i] & 0xFF;
+				while (bits != 0) {
+					ids[n++] = 8 * (i - 1)
+							+ Integer.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+				}
+			}
+			return ids;
+		}
+		if (data[0] != DELTA) {
+			throw new IllegalArgumentException("unknown edge set format "
+					+ data[0]);
+		}
+		int[] position = { 1 };
+		int count = EdgeSets.readVarint(data, position);
+		if (count > data.length) {
+			throw new IllegalArgumentException("malformed edge set data");
+		}
+		int[] ids = new int[count];
+		for (int i = 0; i < count; i++) {
+			int gap = EdgeSets.readVarint(data, position);
+			ids[i] = (i == 0) ? gap : ids[i - 1] + gap + 1;
+		}
+		return ids;
+	}
+
+	private static int varintSize(int value) {
+		int size = 1;
+		while ((value >>>= 7) != 0) {
+			size++;
+		}
+		return size;
+	}
+
+	private static int writeVarint(byte[] data, int offset, int value) {
+		while ((value & ~0x7F) != 0) {
+			data[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[offset++] = (byte) value;
+		return offset;
+	}
+
+	/**
+	 * Reads a varint at position[0] and advances the position.
+	 */
+	private static int readVarint(byte[] data, int[] position) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			if (position[0] >= data.length) {
+				throw new IllegalArgumentException("malformed edge set data");
+			}
+			byte b = data[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("malformed edge set data");
+	}
+
+}
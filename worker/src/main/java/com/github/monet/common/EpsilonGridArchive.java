@@ -0,0 +1,262 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link BoundedParetoArchive} that keeps at most one point per box of an
+ * epsilon grid (M. Laumanns, L. Thiele, K. Deb and E. Zitzler, "Combining
+ * Convergence and Diversity in Evolutionary Multi-Objective Optimization",
+ * 2002).
+ *
+ * The objective space is divided into boxes of width epsilon. A point is only
+ * accepted if no point of the archive lies in a box that dominates its own,
+ * and it replaces the point of its box if it dominates it or, if neither
+ * dominates the other, it is closer to the best corner of the box. For every
+ * point ever offered the archive keeps a point that is worse by less than
+ * epsilon in each objective at most, and the number of points is bounded by
+ * the number of boxes of a front within the objective ranges.
+ *
+ * @param <T>
+ *            type of the values stored with the points
+ */
+public class EpsilonGridArchive<T> implements BoundedParetoArchive<T> {
+
+	/**
+	 * The point representing a box.
+	 */
+	private static final class Cell<T> {
+		final Box box;
+		double[] point;
+		double[] values;
+		T value;
+		long sequence;
+
+		Cell(Box box) {
+			this.box = box;
+		}
+	}
+
+	/**
+	 * Index of a box, usable as a key.
+	 */
+	private static final class Box {
+		final double[] index;
+		final int hash;
+
+		Box(double[] index) {
+			this.index = index;
+			this.hash = Arrays.hashCode(index);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof Box)
+					&& Arrays.equals(this.index, ((Box) obj).index);
+		}
+	}
+
+	private final boolean minimization;
+	private final double[] epsilon;
+	private final Map<Box, Cell<T>> cells = new HashMap<Box, Cell<T>>();
+	private final NDTreeArchive<Cell<T>> boxes;
+	private long sequence = 0;
+	private long offered = 0;
+	private long rejected = 0;
+	private long removed = 0;
+	private RemovalListener<T> listener = null;
+
+	/**
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 * @param epsilon
+	 *            width of the boxes, either one value for all objectives or
+	 *            one per objective
+	 */
+	public EpsilonGridArchive(boolean minimization, double... epsilon) {
+		if (epsilon.length == 0) {
+			throw new IllegalArgumentException("no epsilon given");
+		}
+		for (double e : epsilon) {
+			if (!(e > 0)) {
+				throw new IllegalArgumentException("epsilon must be positive");
+			}
+		}
+		this.minimization = minimization;
+		this.epsilon = epsilon.clone();
+		this.boxes = new NDTreeArchive<Cell<T>>(true) {
+			@Override
+			protected void removed(double[] point, Cell<T> cell) {
+				EpsilonGridArchive.this.cells.remove(cell.box);
+				EpsilonGridArchive.this.removed++;
+				if (EpsilonGridArchive.this.listener != null) {
+					EpsilonGridArchive.this.listener.removed(cell.point,
+							cell.value);
+				}
+			}
+		};
+	}
+
+	@Override
+	public boolean add(double[] point, T value) {
+		this.offered++;
+		double[] values = ParetoPoint.toMinimization(point, this.minimization);
+		double[] index = this.index(values);
+		Box box = new Box(index);
+
+		Cell<T> cell = this.cells.get(box);
+		if (cell != null) {
+			if (this.replaces(values, index, cell)) {
+				if (this.listener != null) {
+					this.listener.removed(cell.point, cell.value);
+				}
+				this.set(cell, point, values, value);
+				this.removed++;
+				return true;
+			}
+			this.rejected++;
+			return false;
+		}
+
+		cell = new Cell<T>(box);
+		if (!this.boxes.add(index, cell)) {
+			this.rejected++;
+			return false;
+		}
+		this.set(cell, point, values, value);
+		this.cells.put(box, cell);
+		return true;
+	}
+
+	/**
+	 * @return true if the point would be rejected, i.e. a point of the archive
+	 *         lies in a box that dominates its box or in its box and is not
+	 *         replaced by it
+	 */
+	@Override
+	public boolean isDominated(double[] point) {
+		double[] values = ParetoPoint.toMinimization(point, this.minimization);
+		double[] index = this.index(values);
+		Cell<T> cell = this.cells.get(new Box(index));
+		if (cell != null) {
+			return !this.replaces(values, index, cell);
+		}
+		return this.boxes.isDominated(index);
+	}
+
+	@Override
+	public int size() {
+		return this.cells.size();
+	}
+
+	@Override
+	public List<Tuple<double[], T>> getEntries() {
+		List<Cell<T>> cells = new ArrayList<Cell<T>>(this.cells.values());
+		Collections.sort(cells, new Comparator<Cell<T>>() {
+			@Override
+			public int compare(Cell<T> a, Cell<T> b) {
+				return Long.compare(a.sequence, b.sequence);
+			}
+		});
+		List<Tuple<double[], T>> entries = new ArrayList<Tuple<double[], T>>(
+				cells.size());
+		for (Cell<T> cell : cells) {
+			entries.add(new Tuple<double[], T>(cell.point, cell.value));
+		}
+		return entries;
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	@Override
+	public void clear() {
+		this.cells.clear();
+		this.boxes.clear();
+	}
+
+	@Override
+	public Map<String, Object> getTruncationStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("method", "epsilon");
+		statistics.put("epsilon", this.epsilon.clone());
+		statistics.put("offered", this.offered);
+		statistics.put("rejected", this.rejected);
+		statistics.put("removed", this.removed);
+		statistics.put("size", this.size());
+		return statistics;
+	}
+
+	/**
+	 * Does nothing, the archive never exceeds its bound.
+	 */
+	@Override
+	public void truncate() {
+	}
+
+	@Override
+	public void setRemovalListener(RemovalListener<T> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Checks if a point replaces the point of its box: if it dominates it or
+	 * if neither dominates the other and it is closer to the corner of the
+	 * box.
+	 */
+	private boolean replaces(double[] values, double[] index, Cell<T> cell) {
+		if (ParetoPoint.dominates(values, cell.values, values.length, true)) {
+			return true;
+		}
+		if (ParetoPoint.dominates(cell.values, values, values.length, true)
+				|| Arrays.equals(cell.values, values)) {
+			return false;
+		}
+		return this.distanceToCorner(values,
+				index) < this.distanceToCorner(cell.values, index);
+	}
+
+
+	private double[] index(double[] values) {
+		double[] index = new double[values.length];
+		for (int d = 0; d < values.length; d++) {
+			// adding 0 turns -0.0 into 0.0, so equal boxes are equal bit by bit
+			index[d] = 0.0 + Math.floor(values[d] / this.epsilon(d));
+		}
+		return index;
+	}
+
+	private void set(Cell<T> cell, double[] point, double[] values, T value) {
+		cell.point = point;
+		cell.values = values;
+		cell.value = value;
+		cell.sequence = this.sequence++;
+	}
+
+	private double epsilon(int d) {
+		return this.epsilon[(this.epsilon.length == 1) ? 0 : d];
+	}
+
+	private double distanceToCorner(double[] values, double[] index) {
+		double distance = 0;
+		for (int d = 0; d < values.length; d++) {
+			double delta = values[d] - index[d] * this.epsilon(d);
+			distance += delta * delta;
+		}
+		return distance;
+	}
+
+}
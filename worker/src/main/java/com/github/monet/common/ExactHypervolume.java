@@ -0,0 +1,38 @@
+package com.github.monet.common;
+
+/**
+ * Exact hypervolume for any number of objectives. Delegates to the fastest
+ * available algorithm for the dimension of the given points:
+ * {@link Hypervolume2D} for two, {@link Hypervolume3D} for three and
+ * {@link WFGHypervolume} for four and more objectives.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class ExactHypervolume implements HypervolumeCalculator {
+
+	private final HypervolumeCalculator hypervolume2D = new Hypervolume2D();
+	private final HypervolumeCalculator hypervolume3D = new Hypervolume3D();
+	private final HypervolumeCalculator wfg = new WFGHypervolume();
+
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		if (points.length == 0) {
+			return 0;
+		}
+		switch (points[0].length) {
+		case 1:
+			double max = points[0][0];
+			for (double[] p : points) {
+				max = Math.max(max, p[0]);
+			}
+			return Math.max(0, max - ((ref == null) ? 0 : ref[0]));
+		case 2:
+			return this.hypervolume2D.calculate(points, ref);
+		case 3:
+			return this.hypervolume3D.calculate(points, ref);
+		default:
+			return this.wfg.calculate(points, ref);
+		}
+	}
+
+}
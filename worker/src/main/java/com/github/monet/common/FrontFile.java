@@ -0,0 +1,214 @@
+package com.github.monet.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pareto front stored in a binary file, which is mapped into memory
+ * instead of being read, so even fronts of millions of points are available
+ * at once without parsing them or holding them on the heap.
+ *
+ * The file starts with a header of {@link #HEADER_SIZE} bytes: the magic
+ * number {@link #MAGIC}, the version of the format, the number of objectives
+ * k, flags (bit 0 set for minimization) as four byte integers and the number
+ * of points n as an eight byte integer. The n * k values of the points follow
+ * row-major as doubles. Everything is little-endian. Files are written by a
+ * {@link FrontFileWriter}.
+ *
+ * A single mapping can't be larger than 2 GB, so larger files are mapped in
+ * several segments of whole points.
+ */
+public class FrontFile {
+
+	/**
+	 * "MONF" in the first four bytes of the file.
+	 */
+	public static final int MAGIC = 0x464E4F4D;
+
+	/**
+	 * Version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Number of bytes before the first value.
+	 */
+	public static final int HEADER_SIZE = 24;
+
+	/**
+	 * Offset of the number of points in the header.
+	 */
+	static final int SIZE_OFFSET = 16;
+
+	private final int k;
+	private final boolean minimization;
+	private final long n;
+	private final int pointsPerSegment;
+	private final DoubleBuffer[] segments;
+
+	private FrontFile(int k, boolean minimization, long n, int pointsPerSegment,
+			DoubleBuffer[] segments) {
+		this.k = k;
+		this.minimization = minimization;
+		this.n = n;
+		this.pointsPerSegment = pointsPerSegment;
+		this.segments = segments;
+	}
+
+	/**
+	 * Maps a front file into memory. The file may be closed or changed
+	 * afterwards, but points appended later aren't visible.
+	 *
+	 * @throws IOException
+	 *             if the file can't be read or isn't a front file
+	 */
+	public static FrontFile open(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file,
+				"r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = FrontFile.readHeader(channel, file);
+			int k = header.getInt(8);
+			boolean minimization = (header.getInt(12) & 1) != 0;
+			long n = header.getLong(SIZE_OFFSET);
+			if (HEADER_SIZE + n * k * 8 > channel.size()) {
+				throw new IOException(file + " is truncated: " + n
+						+ " points expected");
+			}
+			int pointsPerSegment = (Integer.MAX_VALUE - 7) / (8 * k);
+			DoubleBuffer[] segments = new DoubleBuffer[(int) ((n
+					+ pointsPerSegment - 1) / pointsPerSegment)];
+			for (int s = 0; s < segments.length; s++) {
+				long first = (long) s * pointsPerSegment;
+				long points = Math.min(pointsPerSegment, n - first);
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_SIZE + first * k * 8, points * k * 8)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+			return new FrontFile(k, minimization, n, pointsPerSegment,
+					segments);
+		}
+	}
+
+	/**
+	 * @return true if the file starts with {@link #MAGIC}
+	 */
+	public static boolean isFrontFile(File file) throws IOException {
+		if (file.length() < HEADER_SIZE) {
+			return false;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			return Integer.reverseBytes(raf.readInt()) == MAGIC;
+		}
+	}
+
+	/**
+	 * Reads all points of a front file or of a CSV file like
+	 * {@link CSVFrontReader}, whichever the file is.
+	 */
+	public static List<double[]> readPoints(File file) throws IOException {
+		if (FrontFile.isFrontFile(file)) {
+			FrontFile front = FrontFile.open(file);
+			if (front.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " has too many points for a list");
+			}
+			List<double[]> points = new ArrayList<double[]>((int) front.size());
+			for (long i = 0; i < front.size(); i++) {
+				points.add(front.getPoint(i, new double[front.k]));
+			}
+			return points;
+		}
+		try (CSVFrontReader reader = new CSVFrontReader(file)) {
+			return reader.readAll();
+		}
+	}
+
+	/**
+	 * Checks the header and returns it.
+	 */
+	static ByteBuffer readHeader(FileChannel channel, File file)
+			throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				throw new IOException(file + " is not a front file");
+			}
+		}
+		if (header.getInt(0) != MAGIC) {
+			throw new IOException(file + " is not a front file");
+		}
+		if (header.getInt(4) != VERSION) {
+			throw new IOException(file + " has the unknown version "
+					+ header.getInt(4));
+		}
+		if (header.getInt(8) < 1 || header.getLong(SIZE_OFFSET) < 0) {
+			throw new IOException(file + " has a corrupt header");
+		}
+		return header;
+	}
+
+	public int getDimension() {
+		return this.k;
+	}
+
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	/**
+	 * @return the number of points
+	 */
+	public long size() {
+		return this.n;
+	}
+
+	/**
+	 * @return value d of point i
+	 */
+	public double get(long i, int d) {
+		int s = (int) (i / this.pointsPerSegment);
+		return this.segments[s].get((int) (i - (long) s * this.pointsPerSegment)
+				* this.k + d);
+	}
+
+	/**
+	 * Copies point i into the given array.
+	 *
+	 * @param point
+	 *            receives the k values
+	 * @return the given array
+	 */
+	public double[] getPoint(long i, double[] point) {
+		int s = (int) (i / this.pointsPerSegment);
+		DoubleBuffer segment = this.segments[s].duplicate();
+		segment.position((int) (i - (long) s * this.pointsPerSegment) * this.k);
+		segment.get(point, 0, this.k);
+		return point;
+	}
+
+	/**
+	 * Copies all points into a {@link ParetoFront}.
+	 */
+	public ParetoFront toParetoFront() {
+		if (this.n * this.k > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException(
+					"the front has too many values for an array");
+		}
+		double[] values = new double[(int) (this.n * this.k)];
+		int offset = 0;
+		for (DoubleBuffer segment : this.segments) {
+			DoubleBuffer copy = segment.duplicate();
+			int length = copy.remaining();
+			copy.get(values, offset, length);
+			offset += length;
+		}
+		return new ParetoFront(this.k, values, (int) this.n, this.minimization);
+	}
+
+}
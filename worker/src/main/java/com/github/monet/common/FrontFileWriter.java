@@ -0,0 +1,219 @@
+package com.github.monet.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Writes the points of a pareto front into a {@link FrontFile}.
+ *
+ * The points are collected in a buffer and written in batches, after which
+ * the number of points in the header is updated, so a reader sees all
+ * points up to the last batch even if the writer is never closed. Points can
+ * be appended to an existing file.
+ */
+public class FrontFileWriter implements Closeable {
+
+	/**
+	 * Default number of points per batch.
+	 */
+	public static final int DEFAULT_BATCH = 4096;
+
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final int k;
+	private final boolean minimization;
+	private final ByteBuffer buffer;
+	private long n;
+
+	private FrontFileWriter(RandomAccessFile raf, int k, boolean minimization,
+			long n, int batch) {
+		this.raf = raf;
+		this.channel = raf.getChannel();
+		this.k = k;
+		this.minimization = minimization;
+		this.n = n;
+		this.buffer = ByteBuffer.allocateDirect(Math.max(batch, 1) * k
+				* 8).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Creates a new front file, replacing an existing one.
+	 *
+	 * @param k
+	 *            number of objectives
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public static FrontFileWriter create(File file, int k, boolean minimization)
+			throws IOException {
+		return FrontFileWriter.create(file, k, minimization, DEFAULT_BATCH);
+	}
+
+	/**
+	 * @param batch
+	 *            number of points written at once
+	 * @see #create(File, int, boolean)
+	 */
+	public static FrontFileWriter create(File file, int k, boolean minimization,
+			int batch) throws IOException {
+		if (k < 1) {
+			throw new IllegalArgumentException(
+					"points need at least one objective");
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			ByteBuffer header = ByteBuffer.allocate(
+					FrontFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(FrontFile.MAGIC).putInt(FrontFile.VERSION).putInt(
+					k).putInt(minimization ? 1 : 0).putLong(0);
+			header.flip();
+			FileChannel channel = raf.getChannel();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			return new FrontFileWriter(raf, k, minimization, 0, batch);
+		} catch (IOException | RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a front file to append points to it, dropping anything after the
+	 * last complete batch.
+	 *
+	 * @throws IOException
+	 *             if the file isn't a front file
+	 */
+	public static FrontFileWriter append(File file) throws IOException {
+		return FrontFileWriter.append(file, DEFAULT_BATCH);
+	}
+
+	/**
+	 * @param batch
+	 *            number of points written at once
+	 * @see #append(File)
+	 */
+	public static FrontFileWriter append(File file, int batch)
+			throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			FileChannel channel = raf.getChannel();
+			ByteBuffer header = FrontFile.readHeader(channel, file);
+			int k = header.getInt(8);
+			long n = header.getLong(FrontFile.SIZE_OFFSET);
+			long end = FrontFile.HEADER_SIZE + n * k * 8;
+			if (end > channel.size()) {
+				throw new IOException(file + " is truncated: " + n
+						+ " points expected");
+			}
+			channel.truncate(end);
+			channel.position(end);
+			return new FrontFileWriter(raf, k, (header.getInt(12) & 1) != 0, n,
+					batch);
+		} catch (IOException | RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	public int getDimension() {
+		return this.k;
+	}
+
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	/**
+	 * @return the number of points of the file, including those not written
+	 *         yet
+	 */
+	public long size() {
+		return this.n + this.buffer.position() / (8 * this.k);
+	}
+
+	/**
+	 * Appends the point.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the point does not have k values
+	 */
+	public void add(double[] point) throws IOException {
+		if (point.length != this.k) {
+			throw new IllegalArgumentException("the point has " + point.length
+					+ " values, expected " + this.k);
+		}
+		if (this.buffer.remaining() < 8 * this.k) {
+			this.flush();
+		}
+		for (int d = 0; d < this.k; d++) {
+			this.buffer.putDouble(point[d]);
+		}
+	}
+
+	/**
+	 * Appends the points.
+	 */
+	public void addAll(List<double[]> points) throws IOException {
+		for (double[] point : points) {
+			this.add(point);
+		}
+	}
+
+	/**
+	 * Appends the points of the front.
+	 */
+	public void addAll(ParetoFront front) throws IOException {
+		if (front.getDimension() != this.k) {
+			throw new IllegalArgumentException("the front has "
+					+ front.getDimension() + " objectives, expected " + this.k);
+		}
+		double[] values = front.getValues();
+		for (int i = 0; i < front.size() * this.k; i++) {
+			if (!this.buffer.hasRemaining()) {
+				this.flush();
+			}
+			this.buffer.putDouble(values[i]);
+		}
+	}
+
+	/**
+	 * Writes the buffered points and updates the number of points in the
+	 * header.
+	 */
+	public void flush() throws IOException {
+		if (this.buffer.position() == 0) {
+			return;
+		}
+		long points = this.buffer.position() / (8 * this.k);
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+		this.n += points;
+		ByteBuffer size = ByteBuffer.allocate(8).order(
+				ByteOrder.LITTLE_ENDIAN).putLong(0, this.n);
+		while (size.hasRemaining()) {
+			this.channel.write(size, FrontFile.SIZE_OFFSET + size.position());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.flush();
+		} finally {
+			this.raf.close();
+		}
+	}
+
+}
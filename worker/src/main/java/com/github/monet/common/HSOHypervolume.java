@@ -0,0 +1,29 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The original recursive HSO algorithm, see
+ * {@link ParetoPoint#getMaximizationSMetricByHSO(List, double[], int)}. Mainly
+ * useful as a reference for the faster algorithms.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class HSOHypervolume implements HypervolumeCalculator {
+
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		if (points.length == 0) {
+			return 0;
+		}
+		int k = points[0].length;
+		List<ParetoPoint> inds = new ArrayList<ParetoPoint>(points.length);
+		for (double[] point : points) {
+			inds.add(new ParetoPoint(point, false));
+		}
+		return ParetoPoint.getMaximizationSMetricByHSO(inds, (ref == null)
+				? new double[k] : ref, k);
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.github.monet.common;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Exact hypervolume of a bi-objective point set in O(n log n).
+ *
+ * The points are sorted by their second objective once and swept from the
+ * reference point upwards. Every slice of the sweep corresponds to exactly one
+ * iteration of {@link ParetoPoint#getMaximizationSMetricByHSO(java.util.List,
+ * double[], int)} for k == 2, so both methods add up the very same terms in the
+ * very same order and therefore return identical values.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class Hypervolume2D implements HypervolumeCalculator {
+
+	/**
+	 * Orders points ascending by their second objective.
+	 */
+	private static final Comparator<double[]> BY_SECOND_OBJECTIVE =
+			new Comparator<double[]>() {
+		@Override
+		public int compare(double[] a, double[] b) {
+			return Double.compare(a[1], b[1]);
+		}
+	};
+
+	/**
+	 * Calculates the dominated hypervolume of the given points. Only the first
+	 * two values of each point are used.
+	 */
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		int n = points.length;
+		if (n == 0) {
+			return 0;
+		}
+		double refX = (ref == null) ? 0 : ref[0];
+		double refY = (ref == null) ? 0 : ref[1];
+
+		Arrays.sort(points, BY_SECOND_OBJECTIVE);
+
+		// maxX[i] is the largest first objective of all points i..n-1, i.e. the
+		// width of the slice that starts at point i
+		double[] maxX = new double[n];
+		maxX[n - 1] = points[n - 1][0];
+		for (int i = n - 2; i >= 0; i--) {
+			maxX[i] = Math.max(maxX[i + 1], points[i][0]);
+		}
+
+		double volume = 0;
+		double curDistance = refY;
+		int i = 0;
+		while (i < n) {
+			double newDistance = points[i][1];
+			volume += (maxX[i] - refX) * Math.abs(newDistance - curDistance);
+			curDistance = newDistance;
+			// skip every point that lies on the border of the current slice
+			while (i < n && points[i][1] <= newDistance) {
+				i++;
+			}
+		}
+		return volume;
+	}
+
+}
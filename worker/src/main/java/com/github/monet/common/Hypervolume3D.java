@@ -0,0 +1,114 @@
+package com.github.monet.common;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exact hypervolume of a three-objective point set in O(n log n) by a
+ * dimension sweep.
+ *
+ * The points are processed in decreasing order of their third objective. The
+ * projections of all points processed so far form a two-dimensional staircase
+ * that is kept in a balanced search tree ordered by the first objective. When a
+ * point is inserted, it only has to be compared to its neighbours in the tree
+ * and to the points it dominates, which are removed for good. The area the
+ * point adds to the staircase is covered for every height between its own third
+ * objective and the reference point, so the total volume is the sum of all
+ * these areas times the respective heights.
+ *
+ * Points that do not dominate the reference point do not contribute.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class Hypervolume3D implements HypervolumeCalculator {
+
+	/**
+	 * Orders points descending by their third objective.
+	 */
+	static final Comparator<double[]> BY_THIRD_OBJECTIVE_DESCENDING =
+			new Comparator<double[]>() {
+		@Override
+		public int compare(double[] a, double[] b) {
+			return Double.compare(b[2], a[2]);
+		}
+	};
+
+	/**
+	 * Calculates the dominated hypervolume of the given points. Only the first
+	 * three values of each point are used.
+	 */
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		double refX = (ref == null) ? 0 : ref[0];
+		double refY = (ref == null) ? 0 : ref[1];
+		double refZ = (ref == null) ? 0 : ref[2];
+
+		Arrays.sort(points, BY_THIRD_OBJECTIVE_DESCENDING);
+
+		TreeMap<Double, double[]> front = new TreeMap<Double, double[]>();
+		double volume = 0;
+		for (double[] p : points) {
+			if (p[0] <= refX || p[1] <= refY || p[2] <= refZ) {
+				continue;
+			}
+			volume += insert(front, p, refX, refY) * (p[2] - refZ);
+		}
+		return volume;
+	}
+
+	/**
+	 * Inserts the projection of a point into a two-dimensional staircase and
+	 * returns the area that is newly covered by it. Points of the staircase
+	 * that are dominated by the new point are removed. If the new point is
+	 * weakly dominated it is not inserted and 0 is returned.
+	 *
+	 * @param front
+	 *            the staircase, mapping the first objective to the point. The
+	 *            second objective is strictly decreasing along the map.
+	 * @param p
+	 *            the point to insert, only the first two values are used
+	 * @param refX
+	 *            first objective of the reference point
+	 * @param refY
+	 *            second objective of the reference point
+	 * @return the area added to the staircase
+	 */
+	static double insert(TreeMap<Double, double[]> front, double[] p,
+			double refX, double refY) {
+		double x = p[0];
+		double y = p[1];
+
+		// the right neighbour has the largest second objective of all points
+		// that are at least as good in the first one
+		Map.Entry<Double, double[]> right = front.ceilingEntry(x);
+		if (right != null && right.getValue()[1] >= y) {
+			return 0;
+		}
+		double coveredY = (right == null) ? refY : right.getValue()[1];
+		if (right != null && right.getKey() == x) {
+			// same first objective but worse in the second one
+			front.remove(right.getKey());
+		}
+
+		// walk left over all points that are dominated by p
+		double area = 0;
+		double rightX = x;
+		Map.Entry<Double, double[]> left = front.lowerEntry(x);
+		while (left != null && left.getValue()[1] <= y) {
+			double leftX = left.getKey();
+			area += (rightX - leftX) * (y - coveredY);
+			coveredY = left.getValue()[1];
+			rightX = leftX;
+			front.remove(left.getKey());
+			left = front.lowerEntry(leftX);
+		}
+		double leftX = (left == null) ? refX : left.getKey();
+		area += (rightX - leftX) * (y - coveredY);
+
+		front.put(x, p);
+		return area;
+	}
+
+}
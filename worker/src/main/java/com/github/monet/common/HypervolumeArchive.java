@@ -0,0 +1,214 @@
+package com.github.monet.common;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A {@link BoundedParetoArchive} with a fixed capacity. Whenever the
+ * non-dominated points exceed the capacity, the point with the smallest
+ * exclusive hypervolume contribution is dropped until the capacity is reached
+ * again, as in the SMS-EMOA. So the kept points cover as much of the
+ * hypervolume of the front as the greedy choice can.
+ *
+ * The contributions are calculated with all objectives normalized to the
+ * range of the points before thinning and a reference point 10% beyond the
+ * worst values, so the extreme points are kept as long as they contribute. To
+ * amortize the calculation of the contributions, up to twice the capacity of
+ * points are collected before the archive is thinned; {@link #truncate()}
+ * thins it before the points are read, {@link #size()} and
+ * {@link #getEntries()} don't.
+ *
+ * @param <T>
+ *            type of the values stored with the points
+ * @see HypervolumeContributions
+ */
+public class HypervolumeArchive<T> implements BoundedParetoArchive<T> {
+
+	/**
+	 * Distance of the reference point from the worst values, relative to the
+	 * range of each objective.
+	 */
+	private static final double REFERENCE_OFFSET = 0.1;
+
+	private final boolean minimization;
+	private final int capacity;
+	private final NDTreeArchive<T> archive;
+	private long offered = 0;
+	private long rejected = 0;
+	private long removed = 0;
+	private long truncated = 0;
+	private RemovalListener<T> listener = null;
+
+	/**
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 * @param capacity
+	 *            maximum number of points to keep
+	 */
+	public HypervolumeArchive(boolean minimization, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("the capacity must be positive");
+		}
+		this.minimization = minimization;
+		this.capacity = capacity;
+		this.archive = new NDTreeArchive<T>(minimization) {
+			@Override
+			protected void removed(double[] point, T value) {
+				HypervolumeArchive.this.removed++;
+				if (HypervolumeArchive.this.listener != null) {
+					HypervolumeArchive.this.listener.removed(point, value);
+				}
+			}
+		};
+	}
+
+	@Override
+	public boolean add(double[] point, T value) {
+		this.offered++;
+		if (!this.archive.add(point, value)) {
+			this.rejected++;
+			return false;
+		}
+		if (this.archive.size() > 2 * this.capacity) {
+			this.truncate();
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isDominated(double[] point) {
+		return this.archive.isDominated(point);
+	}
+
+	@Override
+	public int size() {
+		return this.archive.size();
+	}
+
+	@Override
+	public List<Tuple<double[], T>> getEntries() {
+		return this.archive.getEntries();
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	@Override
+	public void clear() {
+		this.archive.clear();
+	}
+
+	@Override
+	public Map<String, Object> getTruncationStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("method", "hypervolume");
+		statistics.put("capacity", this.capacity);
+		statistics.put("offered", this.offered);
+		statistics.put("rejected", this.rejected);
+		statistics.put("removed", this.removed);
+		statistics.put("truncated", this.truncated);
+		statistics.put("size", this.size());
+		return statistics;
+	}
+
+	@Override
+	public void setRemovalListener(RemovalListener<T> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Drops the smallest contributors until the capacity is reached. The
+	 * contributions are only calculated for all points once; as the
+	 * contribution of a point can only grow when other points are removed, a
+	 * point that was calculated before the last removal only has to be
+	 * recalculated when it becomes the smallest one again.
+	 */
+	@Override
+	public void truncate() {
+		if (this.archive.size() <= this.capacity) {
+			return;
+		}
+		List<Tuple<double[], T>> entries = this.archive.getEntries();
+		int n = entries.size();
+		final double[][] points = this.normalize(entries);
+		final double[] contributions = HypervolumeContributions.calculate(
+				points, null);
+		PriorityQueue<Integer> queue = new PriorityQueue<Integer>(n,
+				new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int c = Double.compare(contributions[a], contributions[b]);
+				return (c != 0) ? c : a.compareTo(b);
+			}
+		});
+		for (int i = 0; i < n; i++) {
+			queue.add(i);
+		}
+		boolean[] dropped = new boolean[n];
+		int[] calculatedAt = new int[n];
+		int removals = 0;
+		while (n - removals > this.capacity) {
+			int i = queue.poll();
+			if (calculatedAt[i] < removals) {
+				double[][] others = new double[n - removals - 1][];
+				for (int j = 0, o = 0; j < n; j++) {
+					if (j != i && !dropped[j]) {
+						others[o++] = points[j];
+					}
+				}
+				contributions[i] = HypervolumeContributions.calculate(points[i],
+						others, null);
+				calculatedAt[i] = removals;
+				queue.add(i);
+			} else {
+				dropped[i] = true;
+				removals++;
+			}
+		}
+		this.truncated += removals;
+		this.removed += removals;
+		this.archive.clear();
+		for (int i = 0; i < n; i++) {
+			if (!dropped[i]) {
+				this.archive.add(entries.get(i).getFirst(),
+						entries.get(i).getSecond());
+			} else if (this.listener != null) {
+				this.listener.removed(entries.get(i).getFirst(),
+						entries.get(i).getSecond());
+			}
+		}
+	}
+
+	/**
+	 * Maps the points to a maximization problem with all objectives in
+	 * [REFERENCE_OFFSET, 1 + REFERENCE_OFFSET] and the origin as reference
+	 * point.
+	 */
+	private double[][] normalize(List<Tuple<double[], T>> entries) {
+		int k = entries.get(0).getFirst().length;
+		double[][] points = new double[entries.size()][k];
+		for (int d = 0; d < k; d++) {
+			double best = Double.POSITIVE_INFINITY;
+			double worst = Double.NEGATIVE_INFINITY;
+			for (Tuple<double[], T> entry : entries) {
+				double v = this.minimization ? entry.getFirst()[d]
+						: -entry.getFirst()[d];
+				best = Math.min(best, v);
+				worst = Math.max(worst, v);
+			}
+			double range = (worst > best) ? worst - best : 1;
+			for (int i = 0; i < points.length; i++) {
+				double v = this.minimization ? entries.get(i).getFirst()[d]
+						: -entries.get(i).getFirst()[d];
+				points[i][d] = (worst - v) / range + REFERENCE_OFFSET;
+			}
+		}
+		return points;
+	}
+
+}
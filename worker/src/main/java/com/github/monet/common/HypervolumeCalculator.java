@@ -0,0 +1,28 @@
+package com.github.monet.common;
+
+/**
+ * Interface specifying an algorithm that calculates the dominated hypervolume
+ * (S-Metric) of a set of points.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!! Minimization problems have to be
+ * inverted first, see {@link ParetoPoint#calculateSMetric(java.util.List,
+ * double[], boolean, HypervolumeCalculator)}.
+ *
+ * @see HypervolumeCalculators
+ */
+public interface HypervolumeCalculator {
+
+	/**
+	 * Calculates the dominated hypervolume of the given points.
+	 *
+	 * @param points
+	 *            points of a maximization problem, all of the same dimension.
+	 *            Implementations may reorder the array, but must not modify
+	 *            the points themselves.
+	 * @param ref
+	 *            the reference point or null to use the origin
+	 * @return the dominated hypervolume
+	 */
+	public double calculate(double[][] points, double[] ref);
+
+}
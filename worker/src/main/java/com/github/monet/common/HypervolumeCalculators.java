@@ -0,0 +1,196 @@
+package com.github.monet.common;
+
+import java.util.Map;
+
+/**
+ * Names of the available {@link HypervolumeCalculator}s, so that the algorithm
+ * used for the S-Metric can be chosen by a job parameter on the worker or by
+ * the controlserver.
+ */
+public class HypervolumeCalculators {
+
+	/**
+	 * Name of the job parameter that selects the hypervolume algorithm used
+	 * for the S-Metric of a job.
+	 */
+	public static final String PARAMETER = "hypervolume";
+
+	/**
+	 * The fastest exact algorithm for the given dimension (default).
+	 *
+	 * @see ExactHypervolume
+	 */
+	public static final String EXACT = "exact";
+
+	/**
+	 * The WFG algorithm regardless of the dimension.
+	 *
+	 * @see WFGHypervolume
+	 */
+	public static final String WFG = "wfg";
+
+	/**
+	 * The original recursive HSO algorithm.
+	 *
+	 * @see HSOHypervolume
+	 */
+	public static final String HSO = "hso";
+
+	/**
+	 * Approximation by sampling, for many objectives.
+	 *
+	 * @see MonteCarloHypervolume
+	 */
+	public static final String MONTE_CARLO = "montecarlo";
+
+	/**
+	 * The exact algorithm with the slices of large fronts of four and more
+	 * objectives calculated by several threads.
+	 *
+	 * @see ParallelHypervolume
+	 */
+	public static final String PARALLEL = "parallel";
+
+	/**
+	 * Name of the job parameter for the number of threads of {@link #PARALLEL};
+	 * if it is missing, a pool with one thread per processor is shared.
+	 */
+	public static final String THREADS_PARAMETER = "hypervolume_threads";
+
+	/**
+	 * Name of the job parameter for the minimum number of points of a
+	 * parallel calculation of {@link #PARALLEL}.
+	 */
+	public static final String THRESHOLD_PARAMETER = "hypervolume_threshold";
+
+	/**
+	 * Name of the job parameter for the (maximum) number of samples of
+	 * {@link #MONTE_CARLO}.
+	 */
+	public static final String SAMPLES_PARAMETER = "hypervolume_samples";
+
+	/**
+	 * Name of the job parameter for the relative target error of
+	 * {@link #MONTE_CARLO}.
+	 */
+	public static final String ERROR_PARAMETER = "hypervolume_error";
+
+	/**
+	 * Name of the job parameter for the confidence level of
+	 * {@link #MONTE_CARLO}.
+	 */
+	public static final String CONFIDENCE_PARAMETER = "hypervolume_confidence";
+
+	/**
+	 * Name of the job parameter for the random seed of {@link #MONTE_CARLO}.
+	 */
+	public static final String SEED_PARAMETER = "hypervolume_seed";
+
+	private HypervolumeCalculators() {
+	}
+
+	/**
+	 * Returns a new instance of the hypervolume algorithm with the given name.
+	 *
+	 * @param name
+	 *            one of {@link #EXACT}, {@link #WFG}, {@link #HSO},
+	 *            {@link #PARALLEL} or {@link #MONTE_CARLO}; null or an empty
+	 *            string select
+	 *            {@link #EXACT}
+	 * @return the hypervolume algorithm
+	 * @throws IllegalArgumentException
+	 *             if no algorithm with that name exists
+	 */
+	public static HypervolumeCalculator forName(String name) {
+		if (name == null || name.trim().isEmpty()
+				|| name.trim().equalsIgnoreCase(EXACT)) {
+			return new ExactHypervolume();
+		} else if (name.trim().equalsIgnoreCase(WFG)) {
+			return new WFGHypervolume();
+		} else if (name.trim().equalsIgnoreCase(HSO)) {
+			return new HSOHypervolume();
+		} else if (name.trim().equalsIgnoreCase(PARALLEL)) {
+			return new ParallelHypervolume();
+		} else if (name.trim().equalsIgnoreCase(MONTE_CARLO)) {
+			return new MonteCarloHypervolume();
+		}
+		throw new IllegalArgumentException("unknown hypervolume algorithm: "
+				+ name);
+	}
+
+	/**
+	 * Returns a new instance of the hypervolume algorithm selected by the
+	 * parameters of a job, see {@link #PARAMETER}. The options of
+	 * {@link #MONTE_CARLO} are read from {@link #SAMPLES_PARAMETER},
+	 * {@link #ERROR_PARAMETER}, {@link #CONFIDENCE_PARAMETER} and
+	 * {@link #SEED_PARAMETER}, those of {@link #PARALLEL} from
+	 * {@link #THREADS_PARAMETER} and {@link #THRESHOLD_PARAMETER}.
+	 *
+	 * @param parameters
+	 *            the job parameters
+	 * @return the hypervolume algorithm
+	 * @throws IllegalArgumentException
+	 *             if the algorithm does not exist or an option is malformed
+	 */
+	public static HypervolumeCalculator forParameters(
+			Map<String, Object> parameters) {
+		Object name = parameters.get(PARAMETER);
+		HypervolumeCalculator calculator = forName((name == null) ? null
+				: name.toString());
+		if (calculator instanceof MonteCarloHypervolume) {
+			calculator = new MonteCarloHypervolume(
+					(long) getNumber(parameters, SAMPLES_PARAMETER,
+					MonteCarloHypervolume.DEFAULT_SAMPLES),
+					getNumber(parameters, ERROR_PARAMETER, 0),
+					getNumber(parameters, CONFIDENCE_PARAMETER,
+					MonteCarloHypervolume.DEFAULT_CONFIDENCE),
+					(long) getNumber(parameters, SEED_PARAMETER,
+					MonteCarloHypervolume.DEFAULT_SEED));
+		} else if (calculator instanceof ParallelHypervolume) {
+			int threshold = (int) getNumber(parameters, THRESHOLD_PARAMETER,
+					ParallelHypervolume.DEFAULT_THRESHOLD);
+			int threads = (int) getNumber(parameters, THREADS_PARAMETER, 0);
+			calculator = (threads == 0) ? new ParallelHypervolume(threshold)
+					: new ParallelHypervolume(threads, threshold);
+		}
+		return calculator;
+	}
+
+	/**
+	 * Returns a new {@link DynamicHypervolume} for the dimension of the
+	 * reference point.
+	 *
+	 * @param ref
+	 *            the reference point of two or three objectives
+	 * @param minimization
+	 *            true if smaller values are better
+	 * @return the dynamic hypervolume, empty
+	 * @throws IllegalArgumentException
+	 *             for other numbers of objectives
+	 */
+	public static DynamicHypervolume dynamic(double[] ref,
+			boolean minimization) {
+		if (ref.length == 2) {
+			return new DynamicHypervolume2D(ref, minimization);
+		} else if (ref.length == 3) {
+			return new DynamicHypervolume3D(ref, minimization);
+		}
+		throw new IllegalArgumentException("no dynamic hypervolume for "
+				+ ref.length + " objectives");
+	}
+
+	private static double getNumber(Map<String, Object> parameters, String key,
+			double defaultValue) {
+		Object value = parameters.get(key);
+		if (value == null || value.toString().trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Double.parseDouble(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("malformed hypervolume option "
+					+ key + ": " + value);
+		}
+	}
+
+}
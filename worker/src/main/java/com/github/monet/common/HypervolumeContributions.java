@@ -0,0 +1,536 @@
+package com.github.monet.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calculates the exclusive hypervolume contribution of every point of a set,
+ * i.e. the hypervolume that is lost if only this point is removed, in one
+ * pass instead of one hypervolume calculation per point.
+ *
+ * <ul>
+ * <li>Two objectives: O(n log n). The non-dominated points form a staircase,
+ * the exclusive region of a staircase point is the rectangle between its
+ * neighbours minus the boxes of the points that are dominated by it alone.</li>
+ * <li>Three objectives: O(n log n) for mutually non-dominated sets following
+ * M. Emmerich and C. Fonseca, "Computing Hypervolume Contributions in Low
+ * Dimensions: Asymptotically Optimal Algorithm and Complexity Results", 2011.
+ * A sweep over the third objective keeps the exclusive region of every
+ * staircase point as a list of boxes which are shared by all heights and only
+ * closed (and accounted for) when a newly inserted point cuts them. Points
+ * that dominate other points are corrected afterwards by a hypervolume
+ * calculation of their limit set.</li>
+ * <li>Four and more objectives: the exclusive hypervolume of each point is the
+ * volume of its box minus the hypervolume of all other points limited by it
+ * (see {@link WFGHypervolume}).</li>
+ * </ul>
+ *
+ * Points that are weakly dominated by another point (including duplicates)
+ * and points that do not dominate the reference point contribute 0.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class HypervolumeContributions {
+
+	private HypervolumeContributions() {
+	}
+
+	/**
+	 * Calculates the exclusive hypervolume contribution of each point.
+	 *
+	 * @param points
+	 *            points of a maximization problem, all of the same dimension.
+	 *            Neither the array nor the points are modified.
+	 * @param ref
+	 *            the reference point or null to use the origin
+	 * @return the contribution of points[i] at index i
+	 */
+	public static double[] calculate(double[][] points, double[] ref) {
+		double[] contributions = new double[points.length];
+		if (points.length == 0) {
+			return contributions;
+		}
+		int k = points[0].length;
+		if (ref == null) {
+			ref = new double[k];
+		}
+
+		// points that don't dominate the reference point neither contribute
+		// nor change the contribution of other points
+		int[] relevant = new int[points.length];
+		int n = 0;
+		for (int i = 0; i < points.length; i++) {
+			if (HypervolumeContributions.dominates(points[i], ref)) {
+				relevant[n++] = i;
+			}
+		}
+		relevant = Arrays.copyOf(relevant, n);
+
+		if (k == 2) {
+			HypervolumeContributions.contributions2D(points, relevant, ref,
+					contributions);
+		} else if (k == 3) {
+			HypervolumeContributions.contributions3D(points, relevant, ref,
+					contributions);
+		} else {
+			boolean[] dominated = HypervolumeContributions.weaklyDominated(
+					points, relevant, k);
+			for (int i = 0; i < relevant.length; i++) {
+				if (!dominated[i]) {
+					contributions[relevant[i]] = HypervolumeContributions
+							.exclusiveHypervolume(points, relevant, i, ref,
+							new WFGHypervolume());
+				}
+			}
+		}
+		return contributions;
+	}
+
+	/**
+	 * Calculates the exclusive hypervolume contribution of a single point,
+	 * which is cheaper than calculating the contributions of all points if
+	 * only a few of them are needed.
+	 *
+	 * @param point
+	 *            a point of a maximization problem
+	 * @param others
+	 *            all other points, not modified
+	 * @param ref
+	 *            the reference point or null to use the origin
+	 * @return the hypervolume that is lost if the point is removed
+	 */
+	public static double calculate(double[] point, double[][] others,
+			double[] ref) {
+		int k = point.length;
+		if (ref == null) {
+			ref = new double[k];
+		}
+		if (!HypervolumeContributions.dominates(point, ref)) {
+			return 0;
+		}
+		double[][] relevant = new double[others.length][];
+		int n = 0;
+		for (double[] q : others) {
+			if (HypervolumeContributions.dominates(q, ref)) {
+				relevant[n++] = q;
+			}
+		}
+		return HypervolumeContributions.exclusiveHypervolume(point, relevant, n,
+				ref, new ExactHypervolume());
+	}
+
+	// ########################################################################
+	// TWO OBJECTIVES
+	// ########################################################################
+
+	private static void contributions2D(double[][] points, int[] relevant,
+			double[] ref, double[] contributions) {
+		Integer[] order = HypervolumeContributions.sortDecreasing(points,
+				relevant, 2);
+
+		// staircase: first objective strictly decreasing, second strictly
+		// increasing; everything else is weakly dominated
+		int[] stairs = new int[order.length];
+		int m = 0;
+		List<Integer> dominated = new ArrayList<Integer>();
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Integer i : order) {
+			if (points[i][1] > maxY) {
+				stairs[m++] = i;
+				maxY = points[i][1];
+			} else {
+				dominated.add(i);
+			}
+		}
+
+		// assign each dominated point to the single staircase point whose
+		// exclusive rectangle it cuts, if any
+		List<List<double[]>> cutting = new ArrayList<List<double[]>>(
+				Collections.<List<double[]>> nCopies(m, null));
+		for (int i : dominated) {
+			double[] p = points[i];
+			// last staircase point with a first objective >= p[0]
+			int low = 0;
+			int high = m;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (points[stairs[mid]][0] >= p[0]) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			int s = low - 1;
+			double lowerY = (s == 0) ? ref[1] : points[stairs[s - 1]][1];
+			if (p[1] > lowerY) {
+				if (cutting.get(s) == null) {
+					cutting.set(s, new ArrayList<double[]>());
+				}
+				cutting.get(s).add(p);
+			}
+		}
+
+		HypervolumeCalculator hypervolume2D = new Hypervolume2D();
+		for (int s = 0; s < m; s++) {
+			double[] p = points[stairs[s]];
+			double lowerX = (s == m - 1) ? ref[0] : points[stairs[s + 1]][0];
+			double lowerY = (s == 0) ? ref[1] : points[stairs[s - 1]][1];
+			double contribution = (p[0] - lowerX) * (p[1] - lowerY);
+			if (cutting.get(s) != null) {
+				double[][] cut = cutting.get(s).toArray(new double[0][]);
+				contribution -= hypervolume2D.calculate(cut,
+						new double[] { lowerX, lowerY });
+			}
+			contributions[stairs[s]] = contribution;
+		}
+	}
+
+	// ########################################################################
+	// THREE OBJECTIVES
+	// ########################################################################
+
+	/**
+	 * A part of the exclusive region of a staircase point: the box
+	 * (lowerX, upperX] x (lowerY, y of the owner], open since height startZ.
+	 */
+	private static final class Box {
+		final double lowerX;
+		final double upperX;
+		final double lowerY;
+		final double startZ;
+
+		Box(double lowerX, double upperX, double lowerY, double startZ) {
+			this.lowerX = lowerX;
+			this.upperX = upperX;
+			this.lowerY = lowerY;
+			this.startZ = startZ;
+		}
+	}
+
+	/**
+	 * A point of the staircase with its open boxes, ordered by their first
+	 * objective. The lower bounds of the second objective decrease along the
+	 * boxes.
+	 */
+	private static final class Owner {
+		final double[] p;
+		final int index;
+		final ArrayDeque<Box> boxes = new ArrayDeque<Box>();
+		double contribution = 0;
+
+		Owner(double[] p, int index) {
+			this.p = p;
+			this.index = index;
+		}
+
+		void open(double lowerX, double upperX, double lowerY, double z) {
+			if (lowerX < upperX && lowerY < this.p[1]) {
+				this.boxes.addLast(new Box(lowerX, upperX, lowerY, z));
+			}
+		}
+
+		void close(Box box, double z) {
+			this.contribution += (box.startZ - z) * (box.upperX - box.lowerX)
+					* (this.p[1] - box.lowerY);
+		}
+
+		void closeAll(double z) {
+			for (Box box : this.boxes) {
+				this.close(box, z);
+			}
+			this.boxes.clear();
+		}
+
+		/**
+		 * A new point covers everything up to y within the range of the boxes.
+		 */
+		void cutFromBelow(double y, double z) {
+			double lowerX = Double.POSITIVE_INFINITY;
+			double upperX = Double.NEGATIVE_INFINITY;
+			while (!this.boxes.isEmpty() && this.boxes.peekLast().lowerY < y) {
+				Box box = this.boxes.pollLast();
+				this.close(box, z);
+				lowerX = Math.min(lowerX, box.lowerX);
+				upperX = Math.max(upperX, box.upperX);
+			}
+			this.open(lowerX, upperX, y, z);
+		}
+
+		/**
+		 * A new point covers everything up to x within the range of the boxes.
+		 */
+		void cutFromLeft(double x, double z) {
+			while (!this.boxes.isEmpty()
+					&& this.boxes.peekFirst().upperX <= x) {
+				this.close(this.boxes.pollFirst(), z);
+			}
+			if (!this.boxes.isEmpty() && this.boxes.peekFirst().lowerX < x) {
+				Box box = this.boxes.pollFirst();
+				this.close(box, z);
+				this.boxes.addFirst(new Box(x, box.upperX, box.lowerY, z));
+			}
+		}
+	}
+
+	private static void contributions3D(double[][] points, int[] relevant,
+			double[] ref, double[] contributions) {
+		// sorted decreasingly by the third objective first, so no point can be
+		// dominated by a point behind it
+		Integer[] order = HypervolumeContributions.sortDecreasing(points,
+				relevant, 3, 2);
+
+		// separate the weakly dominated points with a 2-D staircase
+		List<Integer> front = new ArrayList<Integer>(order.length);
+		List<Integer> dominated = new ArrayList<Integer>();
+		TreeMap<Double, double[]> staircase = new TreeMap<Double, double[]>();
+		for (Integer i : order) {
+			if (Hypervolume3D.insert(staircase, points[i], ref[0],
+					ref[1]) > 0) {
+				front.add(i);
+			} else {
+				dominated.add(i);
+			}
+		}
+
+		// sweep over the third objective
+		TreeMap<Double, Owner> stairs = new TreeMap<Double, Owner>();
+		List<Owner> owners = new ArrayList<Owner>(front.size());
+		for (int i : front) {
+			Owner owner = new Owner(points[i], i);
+			owners.add(owner);
+			double x = owner.p[0];
+			double y = owner.p[1];
+			double z = owner.p[2];
+
+			// remove the staircase points that are dominated in the first two
+			// objectives, ordered increasingly by the first one
+			ArrayList<Owner> removed = new ArrayList<Owner>();
+			Map.Entry<Double, Owner> entry = stairs.floorEntry(x);
+			while (entry != null && entry.getValue().p[1] <= y) {
+				removed.add(entry.getValue());
+				entry = stairs.lowerEntry(entry.getKey());
+			}
+			Collections.reverse(removed);
+			for (Owner r : removed) {
+				r.closeAll(z);
+				stairs.remove(r.p[0]);
+			}
+
+			Map.Entry<Double, Owner> left = stairs.lowerEntry(x);
+			Map.Entry<Double, Owner> right = stairs.higherEntry(x);
+			double lowerX = (left == null) ? ref[0] : left.getKey();
+			double rightY = (right == null) ? ref[1] : right.getValue().p[1];
+
+			// the exclusive region of the new point lies above the removed
+			// points and between its neighbours
+			for (Owner r : removed) {
+				owner.open(lowerX, r.p[0], r.p[1], z);
+				lowerX = r.p[0];
+			}
+			owner.open(lowerX, x, rightY, z);
+
+			if (left != null) {
+				left.getValue().cutFromBelow(y, z);
+			}
+			if (right != null) {
+				right.getValue().cutFromLeft(x, z);
+			}
+			stairs.put(x, owner);
+		}
+		for (Owner owner : stairs.values()) {
+			owner.closeAll(ref[2]);
+		}
+
+		// the sweep ignores the dominated points, so the contribution of each
+		// point that dominates one of them is recalculated
+		HypervolumeCalculator hypervolume3D = new Hypervolume3D();
+		for (Owner owner : owners) {
+			boolean dominatesAny = false;
+			for (int j = 0; j < dominated.size() && !dominatesAny; j++) {
+				double[] q = points[dominated.get(j)];
+				dominatesAny = owner.p[0] >= q[0] && owner.p[1] >= q[1]
+						&& owner.p[2] >= q[2];
+			}
+			if (dominatesAny) {
+				int position = Arrays.binarySearch(relevant, owner.index);
+				contributions[owner.index] = HypervolumeContributions
+						.exclusiveHypervolume(points, relevant, position, ref,
+						hypervolume3D);
+			} else {
+				contributions[owner.index] = owner.contribution;
+			}
+		}
+	}
+
+	// ########################################################################
+	// ANY NUMBER OF OBJECTIVES
+	// ########################################################################
+
+	/**
+	 * The exclusive hypervolume of points[relevant[i]] with respect to all
+	 * other relevant points.
+	 */
+	private static double exclusiveHypervolume(double[][] points,
+			int[] relevant, int i, double[] ref,
+			HypervolumeCalculator calculator) {
+		double[][] others = new double[relevant.length - 1][];
+		for (int j = 0, o = 0; j < relevant.length; j++) {
+			if (j != i) {
+				others[o++] = points[relevant[j]];
+			}
+		}
+		return HypervolumeContributions.exclusiveHypervolume(
+				points[relevant[i]], others, others.length, ref, calculator);
+	}
+
+	/**
+	 * The exclusive hypervolume of p with respect to the first n others, which
+	 * all dominate the reference point: the volume of the box of p minus the
+	 * hypervolume of the others limited by p.
+	 */
+	private static double exclusiveHypervolume(double[] p, double[][] others,
+			int n, double[] ref, HypervolumeCalculator calculator) {
+		int k = p.length;
+		double[][] limited = WFGHypervolume.limitSet(others, 0, n, p, k);
+		int m = HypervolumeContributions.removeDominated(limited, k);
+		return WFGHypervolume.inclusiveHypervolume(p, ref, k)
+				- calculator.calculate(Arrays.copyOf(limited, m), ref);
+	}
+
+	/**
+	 * Moves the points that are not weakly dominated by another point to the
+	 * front of the array. Unlike {@link WFGHypervolume#removeDominated} the
+	 * points are not sorted first, which is faster for the limited sets of a
+	 * single point as only a few of them are left.
+	 *
+	 * @return the number of points kept
+	 */
+	private static int removeDominated(double[][] points, int k) {
+		int kept = 0;
+		for (int i = 0; i < points.length; i++) {
+			double[] p = points[i];
+			boolean dominated = false;
+			for (int j = 0; j < kept && !dominated; j++) {
+				dominated = HypervolumeContributions.weaklyDominates(points[j],
+						p, k);
+			}
+			if (dominated) {
+				continue;
+			}
+			int j = 0;
+			while (j < kept) {
+				if (HypervolumeContributions.weaklyDominates(p, points[j], k)) {
+					points[j] = points[--kept];
+				} else {
+					j++;
+				}
+			}
+			points[kept++] = p;
+		}
+		return kept;
+	}
+
+	/**
+	 * Flags each relevant point that is weakly dominated by another one. Of
+	 * several equal points all but one are flagged.
+	 */
+	private static boolean[] weaklyDominated(double[][] points, int[] relevant,
+			int k) {
+		Integer[] order = HypervolumeContributions.sortDecreasing(points,
+				relevant, k);
+		int[] position = new int[points.length];
+		for (int i = 0; i < relevant.length; i++) {
+			position[relevant[i]] = i;
+		}
+		boolean[] dominated = new boolean[relevant.length];
+		List<double[]> kept = new ArrayList<double[]>();
+		for (Integer i : order) {
+			double[] p = points[i];
+			for (double[] q : kept) {
+				boolean weakly = true;
+				for (int d = 0; d < k && weakly; d++) {
+					weakly = q[d] >= p[d];
+				}
+				if (weakly) {
+					dominated[position[i]] = true;
+					break;
+				}
+			}
+			if (!dominated[position[i]]) {
+				kept.add(p);
+			}
+		}
+		return dominated;
+	}
+
+	/**
+	 * @return true if p is strictly better than the reference point in every
+	 *         objective
+	 */
+	private static boolean dominates(double[] p, double[] ref) {
+		for (int d = 0; d < ref.length; d++) {
+			if (p[d] <= ref[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if a is at least as good as b in the first k objectives
+	 */
+	private static boolean weaklyDominates(double[] a, double[] b, int k) {
+		for (int d = 0; d < k; d++) {
+			if (a[d] < b[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sorts the given indices lexicographically decreasing by the objectives
+	 * of their points, starting with the given objectives.
+	 */
+	private static Integer[] sortDecreasing(final double[][] points,
+			int[] indices, final int k, final int... first) {
+		Integer[] order = new Integer[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			order[i] = indices[i];
+		}
+		final int[] objectives = new int[k];
+		int o = 0;
+		for (int d : first) {
+			objectives[o++] = d;
+		}
+		for (int d = 0; d < k; d++) {
+			boolean used = false;
+			for (int f : first) {
+				used |= (f == d);
+			}
+			if (!used) {
+				objectives[o++] = d;
+			}
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				for (int d : objectives) {
+					int c = Double.compare(points[b][d], points[a][d]);
+					if (c != 0) {
+						return c;
+					}
+				}
+				return 0;
+			}
+		});
+		return order;
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.github.monet.common;
+
+/**
+ * An approximated hypervolume together with its confidence interval, as
+ * calculated by {@link MonteCarloHypervolume}.
+ */
+public class HypervolumeEstimate {
+
+	private final double value;
+	private final double lowerBound;
+	private final double upperBound;
+	private final double confidence;
+	private final long samples;
+	private final long seed;
+
+	public HypervolumeEstimate(double value, double lowerBound,
+			double upperBound, double confidence, long samples, long seed) {
+		this.value = value;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.confidence = confidence;
+		this.samples = samples;
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the estimated hypervolume
+	 */
+	public double getValue() {
+		return this.value;
+	}
+
+	/**
+	 * @return the lower bound of the confidence interval
+	 */
+	public double getLowerBound() {
+		return this.lowerBound;
+	}
+
+	/**
+	 * @return the upper bound of the confidence interval
+	 */
+	public double getUpperBound() {
+		return this.upperBound;
+	}
+
+	/**
+	 * @return the confidence level of the interval, e.g. 0.95
+	 */
+	public double getConfidence() {
+		return this.confidence;
+	}
+
+	/**
+	 * @return the number of samples drawn
+	 */
+	public long getSamples() {
+		return this.samples;
+	}
+
+	/**
+	 * @return the seed of the random number generator
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%f [%f, %f] (%d samples, %.0f%%)", this.value,
+				this.lowerBound, this.upperBound, this.samples, this.confidence
+				* 100);
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.github.monet.common;
+
+import java.util.List;
+
+/**
+ * A {@link ParetoArchive} that keeps track of the hypervolume of the points
+ * of another archive with a {@link DynamicHypervolume}, so the current volume
+ * is known after every change without recalculating it, e.g. for anytime
+ * algorithms that report their front continuously.
+ *
+ * Both remove the points dominated by an accepted point, so the volume
+ * follows the archive with the cost of one update per change. Bounded
+ * archives may drop any point, though; the tracker removes those from the
+ * volume as the archive reports them through its
+ * {@link BoundedParetoArchive.RemovalListener}. The volume is only rebuilt
+ * from the points of the archive if it rejects a point within the reference
+ * point that the archive accepted, which means it missed a removal.
+ *
+ * @param <T>
+ *            type of the values stored with the points
+ */
+public class HypervolumeTracker<T> implements ParetoArchive<T> {
+
+	private final ParetoArchive<T> archive;
+	private final DynamicHypervolume volume;
+	private final double[] ref;
+
+	/**
+	 * @param archive
+	 *            the archive to track, which must not be changed other than
+	 *            through the tracker
+	 * @param ref
+	 *            the reference point of two or three objectives
+	 * @throws IllegalArgumentException
+	 *             for other numbers of objectives
+	 */
+	public HypervolumeTracker(ParetoArchive<T> archive, double[] ref) {
+		this.archive = archive;
+		this.volume = HypervolumeCalculators.dynamic(ref,
+				archive.isMinimization());
+		this.ref = ref.clone();
+		if (archive instanceof BoundedParetoArchive) {
+			((BoundedParetoArchive<T>) archive).setRemovalListener(
+					new BoundedParetoArchive.RemovalListener<T>() {
+				@Override
+				public void removed(double[] point, T value) {
+					HypervolumeTracker.this.volume.remove(point);
+				}
+			});
+		}
+		this.rebuild();
+	}
+
+	@Override
+	public boolean add(double[] point, T value) {
+		if (!this.archive.add(point, value)) {
+			return false;
+		}
+		if (!this.volume.add(point) && this.dominatesReference(point)) {
+			this.rebuild();
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isDominated(double[] point) {
+		return this.archive.isDominated(point);
+	}
+
+	@Override
+	public int size() {
+		return this.archive.size();
+	}
+
+	@Override
+	public List<Tuple<double[], T>> getEntries() {
+		return this.archive.getEntries();
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return this.archive.isMinimization();
+	}
+
+	@Override
+	public void clear() {
+		this.archive.clear();
+		this.volume.clear();
+	}
+
+	/**
+	 * @return the hypervolume of the points of the archive, which is
+	 *         truncated first if it is bounded
+	 */
+	public double getVolume() {
+		if (this.archive instanceof BoundedParetoArchive) {
+			((BoundedParetoArchive<T>) this.archive).truncate();
+		}
+		return this.volume.getVolume();
+	}
+
+	/**
+	 * @return a copy of the reference point
+	 */
+	public double[] getReferencePoint() {
+		return this.volume.getReferencePoint();
+	}
+
+	/**
+	 * @return the tracked archive
+	 */
+	public ParetoArchive<T> getArchive() {
+		return this.archive;
+	}
+
+	private boolean dominatesReference(double[] point) {
+		for (int d = 0; d < this.ref.length; d++) {
+			if (this.isMinimization() ? point[d] >= this.ref[d]
+					: point[d] <= this.ref[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rebuild() {
+		this.volume.clear();
+		for (Tuple<double[], T> entry : this.archive.getEntries()) {
+			this.volume.add(entry.getFirst());
+		}
+	}
+
+}
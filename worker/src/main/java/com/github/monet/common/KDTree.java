@@ -0,0 +1,275 @@
+package com.github.monet.common;
+
+/**
+ * A static k-d tree for nearest neighbour queries on a set of points, used by
+ * {@link QualityIndicators} so that the distances between two fronts are not
+ * calculated for all pairs of points.
+ *
+ * The points are split at the median of the objective with the largest
+ * spread until at most {@link #LEAF_SIZE} points are left. Every node knows
+ * the bounding box of its points, and a query skips all nodes whose box can't
+ * contain a point closer than the best one found so far. This works for every
+ * {@link Distance} that can give a lower bound for the points of a box.
+ *
+ * All points are copied into one row-major array; the tree never changes
+ * after it is built.
+ */
+public class KDTree {
+
+	/**
+	 * Maximum number of points of a leaf.
+	 */
+	public static final int LEAF_SIZE = 8;
+
+	/**
+	 * Distances between a query point q and a point p of the tree. The
+	 * directed distances assume minimization.
+	 */
+	public enum Distance {
+		/** the Euclidean distance */
+		EUCLIDEAN,
+		/** the sum of the absolute differences */
+		MANHATTAN,
+		/**
+		 * the Euclidean length of the part of p - q that is worse than q, as
+		 * used by IGD+
+		 */
+		DOMINANCE,
+		/**
+		 * the largest difference p - q, i.e. how far p has to be moved
+		 * towards the ideal point to weakly dominate q
+		 */
+		ADDITIVE_EPSILON;
+
+		/**
+		 * Distance from q to point i of the flat array (row-major, k values
+		 * per point).
+		 */
+		double distance(double[] q, double[] values, int i, int k) {
+			int offset = i * k;
+			double result = (this == ADDITIVE_EPSILON)
+					? Double.NEGATIVE_INFINITY : 0;
+			for (int d = 0; d < k; d++) {
+				double delta = values[offset + d] - q[d];
+				switch (this) {
+				case EUCLIDEAN:
+					result += delta * delta;
+					break;
+				case MANHATTAN:
+					result += Math.abs(delta);
+					break;
+				case DOMINANCE:
+					if (delta > 0) {
+						result += delta * delta;
+					}
+					break;
+				default:
+					result = Math.max(result, delta);
+				}
+			}
+			return (this == EUCLIDEAN || this == DOMINANCE) ? Math.sqrt(result)
+					: result;
+		}
+
+		/**
+		 * Lower bound of the distance from q to any point in the box.
+		 */
+		double lowerBound(double[] q, double[] min, double[] max) {
+			int k = q.length;
+			double result = (this == ADDITIVE_EPSILON)
+					? Double.NEGATIVE_INFINITY : 0;
+			for (int d = 0; d < k; d++) {
+				double below = min[d] - q[d];
+				double above = q[d] - max[d];
+				switch (this) {
+				case EUCLIDEAN:
+					double delta = Math.max(0, Math.max(below, above));
+					result += delta * delta;
+					break;
+				case MANHATTAN:
+					result += Math.max(0, Math.max(below, above));
+					break;
+				case DOMINANCE:
+					if (below > 0) {
+						result += below * below;
+					}
+					break;
+				default:
+					result = Math.max(result, below);
+				}
+			}
+			return (this == EUCLIDEAN || this == DOMINANCE) ? Math.sqrt(result)
+					: result;
+		}
+	}
+
+	private static final class Node {
+		final double[] min;
+		final double[] max;
+		/** range of the points in the index array */
+		final int from;
+		final int to;
+		Node left;
+		Node right;
+
+		Node(double[] min, double[] max, int from, int to) {
+			this.min = min;
+			this.max = max;
+			this.from = from;
+			this.to = to;
+		}
+	}
+
+	private final int k;
+	private final int size;
+	private final double[] values;
+	/** indices of the points, ordered so that every node covers a range */
+	private final int[] indices;
+	private final Node root;
+
+	/**
+	 * Builds a tree of the given points, which must not be empty.
+	 *
+	 * @param points
+	 *            points of the same dimension, not modified
+	 */
+	public KDTree(double[][] points) {
+		if (points.length == 0) {
+			throw new IllegalArgumentException("no points given");
+		}
+		this.k = points[0].length;
+		this.size = points.length;
+		this.values = new double[this.size * this.k];
+		this.indices = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			System.arraycopy(points[i], 0, this.values, i * this.k, this.k);
+			this.indices[i] = i;
+		}
+		this.root = this.build(0, this.size);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the distance from q to the closest point of the tree
+	 */
+	public double nearestDistance(double[] q, Distance distance) {
+		return this.nearestDistance(q, distance, -1);
+	}
+
+	/**
+	 * @param exclude
+	 *            index of a point to ignore, e.g. the query point itself; -1
+	 *            to consider all points
+	 * @return the distance from q to the closest point of the tree other than
+	 *         the excluded one, infinity if there is none
+	 */
+	public double nearestDistance(double[] q, Distance distance, int exclude) {
+		return this.nearest(this.root, q, distance, exclude,
+				Double.POSITIVE_INFINITY);
+	}
+
+	private double nearest(Node node, double[] q, Distance distance,
+			int exclude, double best) {
+		if (node.left == null) {
+			for (int j = node.from; j < node.to; j++) {
+				int i = this.indices[j];
+				if (i != exclude) {
+					best = Math.min(best,
+							distance.distance(q, this.values, i, this.k));
+				}
+			}
+			return best;
+		}
+		// visit the more promising child first, the other one only if it
+		// still can contain a closer point
+		double left = distance.lowerBound(q, node.left.min, node.left.max);
+		double right = distance.lowerBound(q, node.right.min, node.right.max);
+		Node first = (left <= right) ? node.left : node.right;
+		Node second = (left <= right) ? node.right : node.left;
+		if (Math.min(left, right) < best) {
+			best = this.nearest(first, q, distance, exclude, best);
+		}
+		if (Math.max(left, right) < best) {
+			best = this.nearest(second, q, distance, exclude, best);
+		}
+		return best;
+	}
+
+	private Node build(int from, int to) {
+		double[] min = new double[this.k];
+		double[] max = new double[this.k];
+		for (int d = 0; d < this.k; d++) {
+			min[d] = Double.POSITIVE_INFINITY;
+			max[d] = Double.NEGATIVE_INFINITY;
+		}
+		for (int j = from; j < to; j++) {
+			int offset = this.indices[j] * this.k;
+			for (int d = 0; d < this.k; d++) {
+				min[d] = Math.min(min[d], this.values[offset + d]);
+				max[d] = Math.max(max[d], this.values[offset + d]);
+			}
+		}
+		Node node = new Node(min, max, from, to);
+		if (to - from <= LEAF_SIZE) {
+			return node;
+		}
+		int split = 0;
+		for (int d = 1; d < this.k; d++) {
+			if (max[d] - min[d] > max[split] - min[split]) {
+				split = d;
+			}
+		}
+		if (!(max[split] > min[split])) {
+			// all points are equal
+			return node;
+		}
+		int middle = (from + to) >>> 1;
+		this.select(from, to - 1, middle, split);
+		node.left = this.build(from, middle);
+		node.right = this.build(middle, to);
+		return node;
+	}
+
+	/**
+	 * Moves the point with rank n in objective d among the indices
+	 * [left, right] to position n, smaller ones before and larger ones after
+	 * it (quickselect).
+	 */
+	private void select(int left, int right, int n, int d) {
+		while (left < right) {
+			double pivot = this.value((left + right) >>> 1, d);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (this.value(i, d) < pivot) {
+					i++;
+				}
+				while (this.value(j, d) > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = this.indices[i];
+					this.indices[i] = this.indices[j];
+					this.indices[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			if (n <= j) {
+				right = j;
+			} else if (n >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private double value(int j, int d) {
+		return this.values[this.indices[j] * this.k + d];
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.github.monet.common;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative long values with buckets of logarithmic size,
+ * like the high dynamic range histogram of Gil Tene: every power of two is
+ * split into {@link #SUB_BUCKETS} buckets of the same size, so a value is
+ * counted with a relative error of less than 1/{@link #SUB_BUCKETS}, whether
+ * it is a few nanoseconds or several hours. Values below
+ * {@link #SUB_BUCKETS} are counted exactly.
+ *
+ * The memory used is fixed and recording a value only increments a counter,
+ * which makes the histogram suited for timing sections of an algorithm that
+ * run millions of times. Histograms of parts of the values can be combined
+ * with {@link #merge(LogHistogram)}.
+ */
+public final class LogHistogram {
+
+	/**
+	 * Number of bits of a value that are kept.
+	 */
+	static final int PRECISION = 7;
+
+	/**
+	 * Number of buckets per power of two.
+	 */
+	public static final int SUB_BUCKETS = 1 << PRECISION;
+
+	private static final int BUCKETS = (64 - PRECISION) * SUB_BUCKETS;
+
+	private final long[] counts;
+	private long count;
+	private long sum;
+	private long min;
+	private long max;
+
+	public LogHistogram() {
+		this.counts = new long[BUCKETS];
+		this.clear();
+	}
+
+	/**
+	 * @return the bucket of the value
+	 */
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 64 - Long.numberOfLeadingZeros(value) - PRECISION - 1;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift)
+				- SUB_BUCKETS;
+	}
+
+	/**
+	 * @return the largest value of the bucket
+	 */
+	static long highest(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long sub = SUB_BUCKETS + index % SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * Records a value; negative values are recorded as 0.
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		this.counts[LogHistogram.index(value)]++;
+		this.count++;
+		this.sum += value;
+		if (value < this.min) {
+			this.min = value;
+		}
+		if (value > this.max) {
+			this.max = value;
+		}
+	}
+
+	/**
+	 * Adds the values recorded by the other histogram.
+	 */
+	public void merge(LogHistogram other) {
+		if (other.count == 0) {
+			return;
+		}
+		for (int i = 0; i < BUCKETS; i++) {
+			this.counts[i] += other.counts[i];
+		}
+		this.count += other.count;
+		this.sum += other.sum;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+	}
+
+	/**
+	 * Returns the value that the given fraction of the recorded values is
+	 * less than or equal to, rounded up to the end of its bucket but not above
+	 * the largest recorded value.
+	 *
+	 * @param q
+	 *            the quantile, e.g. 0.99 for the 99th percentile
+	 * @return the quantile, 0 if there are no values
+	 * @throws IllegalArgumentException
+	 *             unless 0 &lt;= q &lt;= 1
+	 */
+	public long getQuantile(double q) {
+		if (!(q >= 0 && q <= 1)) {
+			throw new IllegalArgumentException(
+					"the quantile has to be in [0, 1]: " + q);
+		}
+		if (this.count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(q * this.count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.counts[i];
+			if (seen >= rank) {
+				return Math.max(this.min,
+						Math.min(this.max, LogHistogram.highest(i)));
+			}
+		}
+		return this.max;
+	}
+
+	/**
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the sum of the recorded values
+	 */
+	public long getSum() {
+		return this.sum;
+	}
+
+	/**
+	 * @return the smallest recorded value, 0 if there are none
+	 */
+	public long getMin() {
+		return (this.count == 0) ? 0 : this.min;
+	}
+
+	/**
+	 * @return the largest recorded value, 0 if there are none
+	 */
+	public long getMax() {
+		return (this.count == 0) ? 0 : this.max;
+	}
+
+	/**
+	 * Forgets all recorded values.
+	 */
+	public void clear() {
+		Arrays.fill(this.counts, 0);
+		this.count = 0;
+		this.sum = 0;
+		this.min = Long.MAX_VALUE;
+		this.max = Long.MIN_VALUE;
+	}
+
+}
@@ -21,9 +21,13 @@
  */
 package com.github.monet.common;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.bson.BSONObject;
+
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
@@ -31,9 +35,15 @@ import com.mongodb.DBObject;
 /**
  * Implements a simple way to build MongoDB objects.
  *
- * This class doesn't hold any additional properties or internal state compared
- * to its ancestor {@link BasicDBObject}, so you can cast BasicDBObject to
- * MongoBuilder.
+ * Besides the document itself the builder only keeps a transient trie of the
+ * maps and lists it reached through the leading keys of the paths inserted
+ * so far, indexed by their {@link CompiledPath}, so inserting many values at
+ * the same path, e.g. appending to a list, doesn't walk the document again.
+ * The maps and lists below the document must therefore only be changed
+ * through the insert methods as long as values are inserted;
+ * keys of the document itself may be replaced or removed with
+ * {@link #put(String, Object)} or {@link #remove(Object)}, which drop the
+ * remembered containers below them.
  *
  * <pre>
  * <code>
@@ -50,6 +60,11 @@ import com.mongodb.DBObject;
 public class MongoBuilder extends BasicDBObject {
 	private static final long serialVersionUID = 8906097484838488572L;
 
+	/** the document, reached through no key */
+	private transient Node root = null;
+	/** the node of the leading keys of each path inserted so far */
+	private transient Map<CompiledPath, Node> resolved = null;
+
 	public MongoBuilder() {
 		super();
 	}
@@ -65,61 +80,39 @@ public class MongoBuilder extends BasicDBObject {
 	 * @return a the found value
 	 * @throws MongoBuilderException
 	 *             if the path was malformed or conflicted with the dbobj.
+	 * @see CompiledPath#find(DBObject)
 	 */
-	@SuppressWarnings("unchecked")
 	public static Object find(DBObject dbobj, String path) {
-		// ignore leading slash
-		if (path.startsWith("/")) {
-			path = path.substring(1);
-		}
-
-		// initialize
-		Tokenizer tokenizer = new Tokenizer(path);
-		Object current = dbobj;
-		Token currentToken = tokenizer.nextToken();
-
-		// can't start with '#'
-		if (currentToken.startsWith("#")) {
-			throw new MongoBuilderException("may not start with '#'", path,
-					currentToken.toString(), currentToken.pos);
-		}
-
-		// go through all tokens
-		while (currentToken != null) {
-			if (current instanceof Map) {
-				// it's a map so the current token needs to address a map
-				if (currentToken.startsWith("#")) {
-					throw new MongoBuilderException(
-							"expected key but got list", path,
-							currentToken.token, currentToken.pos);
-				}
-				Map<String, Object> currentAsMap = (Map<String, Object>) current;
-				current = currentAsMap.get(currentToken.toString());
-			} else if (current instanceof List) {
-				// it's a list so the current token needs to address a list
-				if (!currentToken.startsWith("#")) {
-					throw new MongoBuilderException(
-							"expected list but got key", path,
-							currentToken.token, currentToken.pos);
-				}
-				List<Object> currentAsList = (List<Object>) current;
+		return CompiledPath.compile(path).find(dbobj);
+	}
 
-				// find and parse a potential index
-				Integer index = null;
-				if (currentToken.length() > 1) {
-					index = currentToken.asIndex();
-					if (index >= currentAsList.size()) {
-						throw new MongoBuilderException("index out of bounds",
-								path, currentToken.token, currentToken.pos);
-					}
-				} else {
-					index = currentAsList.size() - 1;
-				}
-				current = currentAsList.get(index);
+	/**
+	 * Merges a document into another one: lists at the same key are
+	 * concatenated, maps at the same key are merged, and all other values of
+	 * the source replace those of the target. Used to combine documents that
+	 * were measured in parts, e.g. by several threads or in chunks.
+	 *
+	 * @param target
+	 *            the document to merge into, whose lists and maps are changed
+	 * @param source
+	 *            the document to merge, whose lists and maps may be taken over
+	 *            by the target
+	 */
+	@SuppressWarnings("unchecked")
+	public static void merge(Map<String, Object> target,
+			Map<String, Object> source) {
+		for (Map.Entry<String, Object> entry : source.entrySet()) {
+			Object value = entry.getValue();
+			Object existing = target.get(entry.getKey());
+			if (existing instanceof List && value instanceof List) {
+				((List<Object>) existing).addAll((List<Object>) value);
+			} else if (existing instanceof Map && value instanceof Map) {
+				MongoBuilder.merge((Map<String, Object>) existing,
+						(Map<String, Object>) value);
+			} else {
+				target.put(entry.getKey(), value);
 			}
-			currentToken = tokenizer.nextToken();
 		}
-		return current;
 	}
 
 	/**
@@ -134,117 +127,157 @@ public class MongoBuilder extends BasicDBObject {
 	 *             if the path is illegally formed or conflicts with previous
 	 *             inserts
 	 */
-	@SuppressWarnings("unchecked")
 	public BasicDBObject insert(String path, Object value) {
-		// ignore leading slash
-		if (path.startsWith("/")) {
-			path = path.substring(1);
+		return this.insert(CompiledPath.compile(path), value);
+	}
+
+	/**
+	 * Insert into the BasicDBObject using a compiled path expression.
+	 *
+	 * @see #insert(String, Object)
+	 */
+	public BasicDBObject insert(CompiledPath path, Object value) {
+		Node node = this.resolve(path);
+		if (node != null) {
+			MongoBuilder.insert(path, path.keyPrefix, node.container, value);
 		}
+		return this;
+	}
 
-		// initialize
-		Tokenizer tokenizer = new Tokenizer(path);
-		Object current = this;
-		Object newCurrent = null;
-		Token currentToken = tokenizer.nextToken();
-		Token nextToken = tokenizer.nextToken();
+	/**
+	 * Inserts a value into a map or list within the document, with the path
+	 * relative to it, e.g. into the elements of a list that is filled one
+	 * element after another, without compiling a path for every element.
+	 *
+	 * @param container
+	 *            the map or list to start from; it must not be reached
+	 *            through the leading keys of a path inserted before
+	 * @see #insert(String, Object)
+	 */
+	public static void insert(Object container, CompiledPath path,
+			Object value) {
+		MongoBuilder.insert(path, 0, container, value);
+	}
 
-		// can't start with '#'
-		if (currentToken.startsWith("#")) {
-			throw new MongoBuilderException("may not start with '#'", path,
-					currentToken.toString(), currentToken.pos);
+	/**
+	 * Returns the node of the leading keys of the path, creating the maps and
+	 * lists that are missing.
+	 *
+	 * @return null if a value is in the way, in which case nothing is
+	 *         inserted
+	 */
+	@SuppressWarnings("unchecked")
+	private Node resolve(CompiledPath path) {
+		if (this.root == null) {
+			this.root = new Node(this);
+			this.resolved = new IdentityHashMap<CompiledPath, Node>();
+		}
+		if (path.keyPrefix == 0) {
+			return this.root;
 		}
+		Node node = this.resolved.get(path);
+		if (node != null) {
+			return node;
+		}
+		node = this.root;
+		for (int t = 0; t < path.keyPrefix; t++) {
+			Node child = (node.children == null) ? null
+					: node.children.get(path.tokens[t]);
+			if (child == null) {
+				if (node.container instanceof List) {
+					throw path.exception("expected list but got key", t);
+				}
+				Map<String, Object> map = (Map<String, Object>) node.container;
+				Object container = map.get(path.tokens[t]);
+				if (container == null) {
+					container = MongoBuilder.newContainer(path, t + 1);
+					map.put(path.tokens[t], container);
+				}
+				if (!(container instanceof Map || container instanceof List)) {
+					return null;
+				}
+				child = new Node(container);
+				if (node.children == null) {
+					node.children = new HashMap<String, Node>();
+				}
+				node.children.put(path.tokens[t], child);
+			}
+			node = child;
+		}
+		if (this.resolved.size() >= CompiledPath.CACHE_SIZE) {
+			// paths dropped from the cache of compiled paths
+			this.resolved.clear();
+		}
+		this.resolved.put(path, node);
+		return node;
+	}
 
-		// go through all tokens
-		while (currentToken != null) {
+	/**
+	 * Inserts the value at the elements from start on, beginning at the given
+	 * map or list.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void insert(CompiledPath path, int start, Object current,
+			Object value) {
+		int last = path.tokens.length - 1;
+		for (int t = start; t <= last; t++) {
+			Object next = null;
 			if (current instanceof Map) {
 				// it's a map so the current token needs to address a map
-				if (currentToken.startsWith("#")) {
-					throw new MongoBuilderException(
-							"expected key but got list", path,
-							currentToken.token, currentToken.pos);
+				if (path.indices[t] != CompiledPath.KEY) {
+					throw path.exception("expected key but got list", t);
 				}
-				Map<String, Object> currentAsMap = (Map<String, Object>) current;
-				newCurrent = currentAsMap.get(currentToken.toString());
-				if (newCurrent == null) {
-					// need to insert an object according to the next token
-					if (nextToken == null) {
-						// no next token; insert value
-						currentAsMap.put(currentToken.toString(), value);
-					} else if (nextToken.startsWith("#")) {
-						// next token is a list; insert list
-						newCurrent = new BasicDBList();
-						currentAsMap.put(currentToken.toString(), newCurrent);
+				Map<String, Object> map = (Map<String, Object>) current;
+				next = map.get(path.tokens[t]);
+				if (next == null) {
+					if (t == last) {
+						map.put(path.tokens[t], value);
 					} else {
-						// next token is a map; insert map
-						newCurrent = new BasicDBObject();
-						currentAsMap.put(currentToken.toString(), newCurrent);
+						next = MongoBuilder.newContainer(path, t + 1);
+						map.put(path.tokens[t], next);
 					}
 				}
 			} else if (current instanceof List) {
 				// it's a list so the current token needs to address a list
-				if (!currentToken.startsWith("#")) {
-					throw new MongoBuilderException(
-							"expected list but got key", path,
-							currentToken.token, currentToken.pos);
+				if (path.indices[t] == CompiledPath.KEY) {
+					throw path.exception("expected list but got key", t);
 				}
-				List<Object> currentAsList = (List<Object>) current;
-				newCurrent = null;
-
-				// find and parse a potential index
-				Integer index = null;
-				if (currentToken.length() > 1) {
-					index = currentToken.asIndex();
-					if (index == currentAsList.size()) {
-						index = null;
-					} else {
-						try {
-							newCurrent = currentAsList.get(index);
-						} catch (IndexOutOfBoundsException ex) {
-							throw new MongoBuilderException(
-									"index of of bounds", path,
-									currentToken.token, currentToken.pos);
-						}
+				List<Object> list = (List<Object>) current;
+				int index = path.indices[t];
+				boolean append = index == CompiledPath.LAST
+						|| index == list.size();
+				if (!append) {
+					if (index > list.size()) {
+						throw path.exception("index of of bounds", t);
 					}
+					next = list.get(index);
 				}
-
-				if (newCurrent == null) {
+				if (next == null) {
 					// there was nothing at given index we need to add according
 					// to the next token
-					Object toAdd;
-					if (nextToken == null) {
-						// no next token; insert value
-						toAdd = value;
-					} else if (nextToken.startsWith("#")) {
-						// next token is a list; add a list
-						newCurrent = new BasicDBList();
-						toAdd = newCurrent;
-					} else {
-						// next token is a map; add a map
-						newCurrent = new BasicDBObject();
-						toAdd = newCurrent;
+					Object toAdd = value;
+					if (t < last) {
+						next = MongoBuilder.newContainer(path, t + 1);
+						toAdd = next;
 					}
-					// add or insert
-					if (index == null) {
-						currentAsList.add(toAdd);
+					if (append) {
+						list.add(toAdd);
 					} else {
-						try {
-							currentAsList.add(index, toAdd);
-						} catch (IndexOutOfBoundsException ex) {
-							throw new MongoBuilderException(
-									"index of of bounds", path,
-									currentToken.token, currentToken.pos);
-						}
+						list.add(index, toAdd);
 					}
 				}
 			}
-
-			// step forward
-			current = newCurrent;
-			currentToken = nextToken;
-			nextToken = tokenizer.nextToken();
+			current = next;
 		}
+	}
 
-		return this;
+	/**
+	 * @return a list if element t of the path addresses a list, a map
+	 *         otherwise
+	 */
+	private static Object newContainer(CompiledPath path, int t) {
+		return (path.indices[t] == CompiledPath.KEY) ? new BasicDBObject()
+				: new BasicDBList();
 	}
 
 	/**
@@ -253,61 +286,67 @@ public class MongoBuilder extends BasicDBObject {
 	@Override
 	public void clear() {
 		super.clear();
+		this.root = null;
+		this.resolved = null;
 	}
 
-	private static class Tokenizer {
-		private String input;
-		private int pos = 0;
+	@Override
+	public Object put(String key, Object value) {
+		this.invalidate(key);
+		return super.put(key, value);
+	}
 
-		public Tokenizer(String input) {
-			super();
-			this.input = input;
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Override
+	public void putAll(Map m) {
+		for (Object key : m.keySet()) {
+			this.invalidate(key);
 		}
+		super.putAll(m);
+	}
 
-		private Token nextToken() {
-			int i = pos;
-			for (; i < input.length(); i++) {
-				if (input.charAt(i) == '/') {
-					Token ret = new Token(input.substring(pos, i), pos);
-					i++;
-					pos = i;
-					return ret;
-				}
-			}
-			Token ret = new Token(input.substring(pos, i), pos);
-			pos = input.length();
-			if (ret.token.equals(""))
-				return null;
-			else
-				return ret;
+	@Override
+	public void putAll(BSONObject o) {
+		for (String key : o.keySet()) {
+			this.invalidate(key);
 		}
+		super.putAll(o);
 	}
 
-	private static class Token {
-		private String token;
-		private int pos;
-
-		public Token(String token, int pos) {
-			super();
-			this.token = token;
-			this.pos = pos;
-		}
+	@Override
+	public Object remove(Object key) {
+		this.invalidate(key);
+		return super.remove(key);
+	}
 
-		@Override
-		public String toString() {
-			return token;
-		}
+	@Override
+	public Object removeField(String key) {
+		this.invalidate(key);
+		return super.removeField(key);
+	}
 
-		public boolean startsWith(String prefix) {
-			return token.startsWith(prefix);
+	/**
+	 * Drops the remembered containers if the key of the document has some,
+	 * so they are looked up again by the next insert.
+	 */
+	private void invalidate(Object key) {
+		if (this.root != null && this.root.children != null
+				&& this.root.children.containsKey(key)) {
+			this.root = null;
+			this.resolved = null;
 		}
+	}
 
-		public int length() {
-			return token.length();
-		}
+	/**
+	 * A map or list of the document and the nodes of the maps and lists
+	 * reached from it through a key.
+	 */
+	private static class Node {
+		final Object container;
+		Map<String, Node> children = null;
 
-		public int asIndex() {
-			return Integer.parseInt(token.substring(1, token.length()));
+		Node(Object container) {
+			this.container = container;
 		}
 	}
 
@@ -0,0 +1,285 @@
+package com.github.monet.common;
+
+import java.util.Random;
+
+/**
+ * Approximates the hypervolume by uniform sampling. Meant for many objectives
+ * where the exact algorithms are infeasible; the running time is linear in the
+ * number of objectives and points per sample.
+ *
+ * Samples are drawn from the box between the reference point and the maximum
+ * of all points in each objective. The fraction of samples that are dominated
+ * by at least one point, times the volume of the box, estimates the
+ * hypervolume. The confidence interval is the Wilson score interval of that
+ * fraction.
+ *
+ * Sampling happens in batches of {@link #BATCH_SIZE} samples, each with its
+ * own random number generator derived from the seed, so an estimate is
+ * reproducible from the seed and the number of samples alone. If a target
+ * error is given, sampling stops as soon as the half-width of the confidence
+ * interval relative to the estimate drops below it (but never after more than
+ * the maximum number of samples).
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class MonteCarloHypervolume implements HypervolumeCalculator {
+
+	/**
+	 * Number of samples drawn between two checks of the target error.
+	 */
+	public static final int BATCH_SIZE = 10000;
+
+	public static final long DEFAULT_SAMPLES = 100000;
+	public static final double DEFAULT_CONFIDENCE = 0.95;
+	public static final long DEFAULT_SEED = 4711;
+
+	private final long maxSamples;
+	private final double targetError;
+	private final double confidence;
+	private final long seed;
+
+	/**
+	 * Creates an estimator that draws {@link #DEFAULT_SAMPLES} samples.
+	 */
+	public MonteCarloHypervolume() {
+		this(DEFAULT_SAMPLES, 0, DEFAULT_CONFIDENCE, DEFAULT_SEED);
+	}
+
+	/**
+	 * @param maxSamples
+	 *            the (maximum) number of samples to draw
+	 * @param targetError
+	 *            stop as soon as the relative half-width of the confidence
+	 *            interval is at most this value; 0 to always draw maxSamples
+	 *            samples
+	 * @param confidence
+	 *            the confidence level of the interval, e.g. 0.95
+	 * @param seed
+	 *            the seed of the random number generator
+	 */
+	public MonteCarloHypervolume(long maxSamples, double targetError,
+			double confidence, long seed) {
+		if (maxSamples <= 0) {
+			throw new IllegalArgumentException(
+					"the number of samples must be positive");
+		}
+		if (confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException(
+					"the confidence must lie in (0, 1)");
+		}
+		this.maxSamples = maxSamples;
+		this.targetError = targetError;
+		this.confidence = confidence;
+		this.seed = seed;
+	}
+
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		return this.estimate(points, ref).getValue();
+	}
+
+	/**
+	 * Approximates the dominated hypervolume of the given points.
+	 *
+	 * @param points
+	 *            points of a maximization problem; the array may be reordered
+	 * @param ref
+	 *            the reference point or null to use the origin
+	 * @return the estimate including its confidence interval
+	 */
+	public HypervolumeEstimate estimate(double[][] points, double[] ref) {
+		if (points.length == 0) {
+			return new HypervolumeEstimate(0, 0, 0, this.confidence, 0,
+					this.seed);
+		}
+		int k = points[0].length;
+		if (ref == null) {
+			ref = new double[k];
+		}
+
+		// only non-dominated points that dominate the reference point matter
+		double[][] relevant = new double[points.length][];
+		int n = 0;
+		for (double[] p : points) {
+			boolean inside = true;
+			for (int d = 0; d < k && inside; d++) {
+				inside = p[d] > ref[d];
+			}
+			if (inside) {
+				relevant[n++] = p;
+			}
+		}
+		if (n == 0) {
+			return new HypervolumeEstimate(0, 0, 0, this.confidence, 0,
+					this.seed);
+		}
+		// sorts decreasingly by the first objective, too
+		n = WFGHypervolume.removeDominated(relevant, n, k);
+
+		double[] upper = new double[k];
+		double boxVolume = 1;
+		for (int d = 0; d < k; d++) {
+			upper[d] = relevant[0][d];
+			for (int i = 1; i < n; i++) {
+				upper[d] = Math.max(upper[d], relevant[i][d]);
+			}
+			boxVolume *= upper[d] - ref[d];
+		}
+
+		double z = MonteCarloHypervolume.quantile(0.5 + this.confidence / 2);
+		long samples = 0;
+		long hits = 0;
+		long batch = 0;
+		double[] sample = new double[k];
+		while (samples < this.maxSamples) {
+			int size = (int) Math.min(BATCH_SIZE, this.maxSamples - samples);
+			hits += MonteCarloHypervolume.sampleBatch(relevant, n, ref, upper,
+					sample, size,
+					MonteCarloHypervolume.batchSeed(this.seed, batch));
+			samples += size;
+			batch++;
+			if (this.targetError > 0 && hits > 0) {
+				double[] interval = MonteCarloHypervolume.wilson(hits, samples,
+						z);
+				double halfWidth = (interval[1] - interval[0]) / 2;
+				if (halfWidth <= this.targetError * hits / samples) {
+					break;
+				}
+			}
+		}
+		double[] interval = MonteCarloHypervolume.wilson(hits, samples, z);
+		return new HypervolumeEstimate(boxVolume * hits / samples, boxVolume
+				* interval[0], boxVolume * interval[1], this.confidence,
+				samples, this.seed);
+	}
+
+	/**
+	 * Draws size samples from the box [ref, upper] and counts the dominated
+	 * ones. The points must be sorted decreasingly by their first objective.
+	 */
+	static long sampleBatch(double[][] points, int n, double[] ref,
+			double[] upper, double[] sample, int size, long seed) {
+		Random random = new Random(seed);
+		int k = ref.length;
+		long hits = 0;
+		for (int s = 0; s < size; s++) {
+			for (int d = 0; d < k; d++) {
+				sample[d] = ref[d] + random.nextDouble() * (upper[d] - ref[d]);
+			}
+			// only points that are at least as good in the first objective can
+			// dominate the sample; they form a prefix of the sorted points
+			int candidates = MonteCarloHypervolume.countAtLeast(points, n,
+					sample[0]);
+			for (int i = 0; i < candidates; i++) {
+				double[] p = points[i];
+				boolean dominated = true;
+				for (int d = 1; d < k && dominated; d++) {
+					dominated = p[d] >= sample[d];
+				}
+				if (dominated) {
+					hits++;
+					break;
+				}
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Number of points whose first objective is at least the given value.
+	 */
+	private static int countAtLeast(double[][] points, int n, double value) {
+		int low = 0;
+		int high = n;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (points[mid][0] >= value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Derives the seed of one batch from the seed of the estimator
+	 * (SplitMix64 finalizer), so neighbouring batches are not correlated.
+	 */
+	static long batchSeed(long seed, long batch) {
+		long z = seed + (batch + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Wilson score interval of a binomial proportion.
+	 *
+	 * @return lower and upper bound of the proportion
+	 */
+	static double[] wilson(long hits, long samples, double z) {
+		double p = (double) hits / samples;
+		double z2n = z * z / samples;
+		double denominator = 1 + z2n;
+		double center = (p + z2n / 2) / denominator;
+		double halfWidth = z
+				* Math.sqrt(p * (1 - p) / samples + z2n / (4 * samples))
+				/ denominator;
+		return new double[] { Math.max(0, center - halfWidth),
+				Math.min(1, center + halfWidth) };
+	}
+
+	/**
+	 * Quantile function of the standard normal distribution (P. J. Acklam's
+	 * rational approximation, relative error below 1.15e-9).
+	 */
+	static double quantile(double p) {
+		final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02,
+				-2.759285104469687e+02, 1.383577518672690e+02,
+				-3.066479806614716e+01, 2.506628277459239e+00 };
+		final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02,
+				-1.556989798598866e+02, 6.680131188771972e+01,
+				-1.328068155288572e+01 };
+		final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01,
+				-2.400758277161838e+00, -2.549732539343734e+00,
+				4.374664141464968e+00, 2.938163982698783e+00 };
+		final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01,
+				2.445134137142996e+00, 3.754408661907416e+00 };
+		double low = 0.02425;
+		if (p < low) {
+			double q = Math.sqrt(-2 * Math.log(p));
+			return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q
+					+ c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+		} else if (p > 1 - low) {
+			double q = Math.sqrt(-2 * Math.log(1 - p));
+			return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4])
+					* q + c[5])
+					/ ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+		}
+		double q = p - 0.5;
+		double r = q * q;
+		return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r
+				+ a[5]) * q
+				/ (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r
+				+ 1);
+	}
+
+	public long getMaxSamples() {
+		return this.maxSamples;
+	}
+
+	public double getTargetError() {
+		return this.targetError;
+	}
+
+	public double getConfidence() {
+		return this.confidence;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+}
@@ -0,0 +1,439 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A {@link ParetoArchive} backed by an ND-tree (A. Jaszkiewicz and T. Lust,
+ * "ND-Tree-Based Update: A Fast Algorithm for the Dynamic Nondominance
+ * Problem", 2018).
+ *
+ * Every node of the tree knows the ideal and the nadir point of the points in
+ * its subtree. A new point that is weakly dominated by the nadir point of a
+ * node is dominated by a point of that node, and a new point that weakly
+ * dominates the ideal point dominates all points of the node. Only if neither
+ * holds and the point lies between the two bounds the children of the node
+ * have to be looked at, so most updates only visit a few paths of the tree.
+ * New points are inserted into the leaf whose center is closest; full leaves
+ * are split into children of points that are close to each other.
+ *
+ * @param <T>
+ *            type of the values stored with the points
+ */
+public class NDTreeArchive<T> implements ParetoArchive<T> {
+
+	public static final int DEFAULT_LEAF_SIZE = 20;
+
+	private final boolean minimization;
+	private final int maxLeafSize;
+	private int children;
+	private Node<T> root = null;
+	private long sequence = 0;
+
+	/**
+	 * Creates an archive with leaves of up to {@link #DEFAULT_LEAF_SIZE}
+	 * points and one more child per node than there are objectives.
+	 *
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 */
+	public NDTreeArchive(boolean minimization) {
+		this(minimization, DEFAULT_LEAF_SIZE, 0);
+	}
+
+	/**
+	 * @param minimization
+	 *            true if smaller objective values are better
+	 * @param maxLeafSize
+	 *            number of points a leaf holds before it is split
+	 * @param children
+	 *            number of children a leaf is split into, at least 2; 0 to use
+	 *            one more than the number of objectives
+	 */
+	public NDTreeArchive(boolean minimization, int maxLeafSize, int children) {
+		if (maxLeafSize < 1) {
+			throw new IllegalArgumentException(
+					"leaves must hold at least one point");
+		}
+		if (children == 1 || children < 0) {
+			throw new IllegalArgumentException(
+					"nodes must have at least two children");
+		}
+		this.minimization = minimization;
+		this.maxLeafSize = maxLeafSize;
+		this.children = children;
+	}
+
+	/**
+	 * A point of the archive. The values are always minimized.
+	 */
+	private static final class Item<T> {
+		final double[] point;
+		final double[] values;
+		final T value;
+		final long sequence;
+
+		Item(double[] point, double[] values, T value, long sequence) {
+			this.point = point;
+			this.values = values;
+			this.value = value;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final class Node<T> {
+		/** the points of a leaf, null for inner nodes */
+		List<Item<T>> items;
+		/** the children of an inner node, null for leaves */
+		List<Node<T>> children;
+		int size = 0;
+		double[] ideal;
+		double[] nadir;
+
+		Node(int k) {
+			this.items = new ArrayList<Item<T>>();
+			this.ideal = new double[k];
+			this.nadir = new double[k];
+			Arrays.fill(this.ideal, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.nadir, Double.NEGATIVE_INFINITY);
+		}
+
+		boolean isLeaf() {
+			return this.children == null;
+		}
+
+		void extend(double[] values) {
+			for (int d = 0; d < values.length; d++) {
+				this.ideal[d] = Math.min(this.ideal[d], values[d]);
+				this.nadir[d] = Math.max(this.nadir[d], values[d]);
+			}
+		}
+
+		/**
+		 * Recalculates size and bounds after points have been removed.
+		 */
+		void shrink() {
+			this.size = 0;
+			Arrays.fill(this.ideal, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.nadir, Double.NEGATIVE_INFINITY);
+			if (this.isLeaf()) {
+				for (Item<T> item : this.items) {
+					this.extend(item.values);
+					this.size++;
+				}
+			} else {
+				for (Node<T> child : this.children) {
+					this.extend(child.ideal);
+					this.extend(child.nadir);
+					this.size += child.size;
+				}
+			}
+		}
+
+		double distanceToCenter(double[] values) {
+			double distance = 0;
+			for (int d = 0; d < values.length; d++) {
+				double delta = values[d] - (this.ideal[d] + this.nadir[d]) / 2;
+				distance += delta * delta;
+			}
+			return distance;
+		}
+	}
+
+	@Override
+	public boolean add(double[] point, T value) {
+		double[] values = ParetoPoint.toMinimization(point, this.minimization);
+		if (this.root == null || this.root.size == 0) {
+			this.root = new Node<T>(values.length);
+			if (this.children == 0) {
+				this.children = values.length + 1;
+			}
+		} else if (this.update(this.root, values)) {
+			return false;
+		}
+		if (this.root.size == 0) {
+			this.root = new Node<T>(values.length);
+		}
+		this.insert(new Item<T>(point, values, value, this.sequence++));
+		return true;
+	}
+
+	@Override
+	public boolean isDominated(double[] point) {
+		return this.root != null && this.root.size > 0
+				&& NDTreeArchive.isDominated(this.root,
+				ParetoPoint.toMinimization(point, this.minimization));
+	}
+
+	@Override
+	public int size() {
+		return (this.root == null) ? 0 : this.root.size;
+	}
+
+	@Override
+	public List<Tuple<double[], T>> getEntries() {
+		List<Item<T>> items = new ArrayList<Item<T>>(this.size());
+		if (this.root != null) {
+			NDTreeArchive.collect(this.root, items);
+		}
+		Collections.sort(items, new Comparator<Item<T>>() {
+			@Override
+			public int compare(Item<T> a, Item<T> b) {
+				return Long.compare(a.sequence, b.sequence);
+			}
+		});
+		List<Tuple<double[], T>> entries = new ArrayList<Tuple<double[], T>>(
+				items.size());
+		for (Item<T> item : items) {
+			entries.add(new Tuple<double[], T>(item.point, item.value));
+		}
+		return entries;
+	}
+
+	@Override
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	@Override
+	public void clear() {
+		this.root = null;
+	}
+
+	/**
+	 * Called for each point that is removed from the archive because a new
+	 * point dominates it. Does nothing by default.
+	 *
+	 * @param point
+	 *            the removed point
+	 * @param value
+	 *            the value stored with it
+	 */
+	protected void removed(double[] point, T value) {
+	}
+
+	/**
+	 * Removes all points of the node that are dominated by the new point.
+	 *
+	 * @return true if the new point is weakly dominated by a point of the node;
+	 *         nothing has been removed then
+	 */
+	private boolean update(Node<T> node, double[] values) {
+		if (NDTreeArchive.weaklyDominates(node.nadir, values)) {
+			return true;
+		}
+		if (NDTreeArchive.weaklyDominates(values, node.ideal)) {
+			// the points are mutually non-dominated, so none can be equal to
+			// the new one without being equal to the nadir point as well
+			List<Item<T>> dominated = new ArrayList<Item<T>>(node.size);
+			NDTreeArchive.collect(node, dominated);
+			for (Item<T> item : dominated) {
+				this.removed(item.point, item.value);
+			}
+			node.items = new ArrayList<Item<T>>();
+			node.children = null;
+			node.size = 0;
+			return false;
+		}
+		if (!NDTreeArchive.weaklyDominates(node.ideal, values)
+				&& !NDTreeArchive.weaklyDominates(values, node.nadir)) {
+			return false;
+		}
+		int size = node.size;
+		if (node.isLeaf()) {
+			for (int i = node.items.size() - 1; i >= 0; i--) {
+				double[] other = node.items.get(i).values;
+				if (NDTreeArchive.weaklyDominates(other, values)) {
+					return true;
+				}
+				if (NDTreeArchive.weaklyDominates(values, other)) {
+					Item<T> item = node.items.remove(i);
+					this.removed(item.point, item.value);
+					size--;
+				}
+			}
+		} else {
+			for (int i = node.children.size() - 1; i >= 0; i--) {
+				Node<T> child = node.children.get(i);
+				int before = child.size;
+				if (this.update(child, values)) {
+					return true;
+				}
+				size -= before - child.size;
+				if (child.size == 0) {
+					node.children.remove(i);
+				}
+			}
+		}
+		if (size != node.size) {
+			if (!node.isLeaf() && node.children.size() == 1) {
+				// pull up the only child left
+				Node<T> child = node.children.get(0);
+				node.items = child.items;
+				node.children = child.children;
+			}
+			node.shrink();
+		}
+		return false;
+	}
+
+	/**
+	 * Inserts a point that is not dominated by any point of the archive.
+	 */
+	private void insert(Item<T> item) {
+		Node<T> node = this.root;
+		while (!node.isLeaf()) {
+			node.extend(item.values);
+			node.size++;
+			Node<T> closest = null;
+			double distance = Double.POSITIVE_INFINITY;
+			for (Node<T> child : node.children) {
+				double d = child.distanceToCenter(item.values);
+				if (d < distance) {
+					closest = child;
+					distance = d;
+				}
+			}
+			node = closest;
+		}
+		node.extend(item.values);
+		node.size++;
+		node.items.add(item);
+		if (node.items.size() > this.maxLeafSize) {
+			this.split(node);
+		}
+	}
+
+	/**
+	 * Turns a full leaf into an inner node. The first child starts with the
+	 * point that is farthest from all others on average, each further child
+	 * with the point farthest from the points the children started with. The
+	 * other points are added to the child with the closest center.
+	 */
+	private void split(Node<T> node) {
+		List<Item<T>> items = node.items;
+		int n = items.size();
+		int k = node.ideal.length;
+
+		int first = 0;
+		double farthest = -1;
+		for (int i = 0; i < n; i++) {
+			double sum = 0;
+			for (int j = 0; j < n; j++) {
+				sum += NDTreeArchive.distance(items.get(i).values,
+						items.get(j).values);
+			}
+			if (sum > farthest) {
+				first = i;
+				farthest = sum;
+			}
+		}
+
+		boolean[] seed = new boolean[n];
+		double[] minDistance = new double[n];
+		List<Node<T>> children = new ArrayList<Node<T>>(this.children);
+		int next = first;
+		for (int c = 0; c < this.children && c < n; c++) {
+			seed[next] = true;
+			Node<T> child = new Node<T>(k);
+			child.extend(items.get(next).values);
+			child.size = 1;
+			child.items.add(items.get(next));
+			children.add(child);
+
+			int candidate = -1;
+			for (int i = 0; i < n; i++) {
+				if (seed[i]) {
+					continue;
+				}
+				double d = NDTreeArchive.distance(items.get(i).values,
+						items.get(next).values);
+				minDistance[i] = (c == 0) ? d : Math.min(minDistance[i], d);
+				if (candidate == -1
+						|| minDistance[i] > minDistance[candidate]) {
+					candidate = i;
+				}
+			}
+			next = candidate;
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (seed[i]) {
+				continue;
+			}
+			Item<T> item = items.get(i);
+			Node<T> closest = null;
+			double distance = Double.POSITIVE_INFINITY;
+			for (Node<T> child : children) {
+				double d = child.distanceToCenter(item.values);
+				if (d < distance) {
+					closest = child;
+					distance = d;
+				}
+			}
+			closest.extend(item.values);
+			closest.size++;
+			closest.items.add(item);
+		}
+		node.items = null;
+		node.children = children;
+	}
+
+	private static <T> boolean isDominated(Node<T> node, double[] values) {
+		if (NDTreeArchive.weaklyDominates(node.nadir, values)) {
+			return true;
+		}
+		if (!NDTreeArchive.weaklyDominates(node.ideal, values)) {
+			return false;
+		}
+		if (node.isLeaf()) {
+			for (Item<T> item : node.items) {
+				if (NDTreeArchive.weaklyDominates(item.values, values)) {
+					return true;
+				}
+			}
+		} else {
+			for (Node<T> child : node.children) {
+				if (NDTreeArchive.isDominated(child, values)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static <T> void collect(Node<T> node, List<Item<T>> items) {
+		if (node.isLeaf()) {
+			items.addAll(node.items);
+		} else {
+			for (Node<T> child : node.children) {
+				NDTreeArchive.collect(child, items);
+			}
+		}
+	}
+
+	/**
+	 * @return true if a is at least as good as b in every objective
+	 *         (minimization)
+	 */
+	private static boolean weaklyDominates(double[] a, double[] b) {
+		for (int d = 0; d < a.length; d++) {
+			if (a[d] > b[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static double distance(double[] a, double[] b) {
+		double distance = 0;
+		for (int d = 0; d < a.length; d++) {
+			distance += (a[d] - b[d]) * (a[d] - b[d]);
+		}
+		return Math.sqrt(distance);
+	}
+
+}
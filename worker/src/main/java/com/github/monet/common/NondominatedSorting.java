@@ -0,0 +1,426 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Non-dominated filtering and sorting of point sets. Only the first k values
+ * of each point are considered. Dominance is strict as in
+ * {@link ParetoPoint#dominates(double[], double[], int, boolean)}, so equal
+ * points never dominate each other and end up in the same front.
+ *
+ * All algorithms first sort the points lexicographically, after which a point
+ * can only be dominated by points in front of it.
+ * <ul>
+ * <li>Filtering: a linear scan for one and two objectives, a sweep over a
+ * staircase kept in a search tree for three objectives (both O(n log n)) and
+ * Kung's divide and conquer algorithm for more objectives.</li>
+ * <li>Sorting: O(n log n) for two objectives by a binary search over the
+ * fronts; the efficient non-dominated sort with binary search (ENS-BS, X.
+ * Zhang et al., 2015) for more objectives.</li>
+ * </ul>
+ *
+ * The given points are never modified and results refer to the indices of the
+ * points in the given array or list.
+ */
+public class NondominatedSorting {
+
+	private NondominatedSorting() {
+	}
+
+	/**
+	 * Finds all points that are not dominated by any other point.
+	 *
+	 * @param points
+	 *            the points, each with at least k values
+	 * @param k
+	 *            objective values to process (first k values are used)
+	 * @param minimization
+	 *            true if smaller values are better
+	 * @return the indices of the non-dominated points in ascending order
+	 */
+	public static int[] nondominated(double[][] points, int k,
+			boolean minimization) {
+		if (points.length == 0) {
+			return new int[0];
+		}
+		return NondominatedSorting.nondominated(
+				NondominatedSorting.toMinimization(points, k, minimization));
+	}
+
+	/**
+	 * Finds all points of the front that are not dominated by any other point.
+	 *
+	 * @return the indices of the non-dominated points in ascending order
+	 */
+	public static int[] nondominated(ParetoFront front) {
+		if (front.size() == 0) {
+			return new int[0];
+		}
+		return NondominatedSorting.nondominated(front.toMinimizationArray());
+	}
+
+	private static int[] nondominated(double[][] values) {
+		int k = values[0].length;
+		Integer[] order = NondominatedSorting.sortLexicographically(values);
+		int[] result;
+		if (k <= 2) {
+			result = NondominatedSorting.nondominated2D(values, order);
+		} else if (k == 3) {
+			result = NondominatedSorting.nondominated3D(values, order);
+		} else {
+			result = NondominatedSorting.kung(values, order, 0, order.length);
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Assigns each point the index of its non-dominated front: 0 for the
+	 * non-dominated points, 1 for the points that are non-dominated once the
+	 * first front is removed and so on.
+	 *
+	 * @param points
+	 *            the points, each with at least k values
+	 * @param k
+	 *            objective values to process (first k values are used)
+	 * @param minimization
+	 *            true if smaller values are better
+	 * @return the rank of points[i] at index i
+	 */
+	public static int[] ranks(double[][] points, int k, boolean minimization) {
+		int[] ranks = new int[points.length];
+		if (points.length == 0) {
+			return ranks;
+		}
+		NondominatedSorting.ranks(NondominatedSorting.toMinimization(points, k,
+				minimization), ranks);
+		return ranks;
+	}
+
+	/**
+	 * Assigns each point of the front the index of its non-dominated front.
+	 *
+	 * @return the rank of point i at index i
+	 * @see #ranks(double[][], int, boolean)
+	 */
+	public static int[] ranks(ParetoFront front) {
+		int[] ranks = new int[front.size()];
+		if (ranks.length > 0) {
+			NondominatedSorting.ranks(front.toMinimizationArray(), ranks);
+		}
+		return ranks;
+	}
+
+	private static void ranks(double[][] values, int[] ranks) {
+		int k = values[0].length;
+		Integer[] order = NondominatedSorting.sortLexicographically(values);
+		if (k <= 2) {
+			NondominatedSorting.ranks2D(values, order, ranks);
+		} else {
+			NondominatedSorting.ranksENS(values, order, ranks);
+		}
+	}
+
+	/**
+	 * Sorts the points into their non-dominated fronts.
+	 *
+	 * @return the indices of the points of each front in ascending order,
+	 *         starting with the non-dominated front
+	 * @see #ranks(double[][], int, boolean)
+	 */
+	public static int[][] fronts(double[][] points, int k,
+			boolean minimization) {
+		int[] ranks = NondominatedSorting.ranks(points, k, minimization);
+		int fronts = 0;
+		for (int rank : ranks) {
+			fronts = Math.max(fronts, rank + 1);
+		}
+		int[] sizes = new int[fronts];
+		for (int rank : ranks) {
+			sizes[rank]++;
+		}
+		int[][] result = new int[fronts][];
+		for (int f = 0; f < fronts; f++) {
+			result[f] = new int[sizes[f]];
+			sizes[f] = 0;
+		}
+		for (int i = 0; i < ranks.length; i++) {
+			result[ranks[i]][sizes[ranks[i]]++] = i;
+		}
+		return result;
+	}
+
+	/**
+	 * @return a new list of the non-dominated points of the population in
+	 *         their original order
+	 * @see #nondominated(double[][], int, boolean)
+	 */
+	public static <P extends ObjectivePoint> List<P> getNondominated(
+			List<P> population, int k, boolean minimization) {
+		int[] indices = NondominatedSorting.nondominated(
+				NondominatedSorting.objectiveValues(population), k,
+				minimization);
+		List<P> result = new ArrayList<P>(indices.length);
+		for (int i : indices) {
+			result.add(population.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * @return new lists of the points of each front in their original order,
+	 *         starting with the non-dominated front
+	 * @see #fronts(double[][], int, boolean)
+	 */
+	public static <P extends ObjectivePoint> List<List<P>> getFronts(
+			List<P> population, int k, boolean minimization) {
+		int[][] fronts = NondominatedSorting.fronts(
+				NondominatedSorting.objectiveValues(population), k,
+				minimization);
+		List<List<P>> result = new ArrayList<List<P>>(fronts.length);
+		for (int[] front : fronts) {
+			List<P> points = new ArrayList<P>(front.length);
+			for (int i : front) {
+				points.add(population.get(i));
+			}
+			result.add(points);
+		}
+		return result;
+	}
+
+	static <P extends ObjectivePoint> double[][] objectiveValues(
+			List<P> population) {
+		double[][] points = new double[population.size()][];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = population.get(i).getObjectiveValues();
+		}
+		return points;
+	}
+
+	// ########################################################################
+	// FILTERING
+	// ########################################################################
+
+	/**
+	 * One or two objectives: a point is non-dominated iff its last objective is
+	 * better than that of all (different) points in front of it.
+	 */
+	private static int[] nondominated2D(double[][] values, Integer[] order) {
+		int k = values[0].length;
+		int[] result = new int[order.length];
+		int n = 0;
+		double min = Double.POSITIVE_INFINITY;
+		boolean previous = false;
+		for (int i = 0; i < order.length; i++) {
+			double[] p = values[order[i]];
+			if (i == 0 || !Arrays.equals(p, values[order[i - 1]])) {
+				previous = p[k - 1] < min;
+				min = Math.min(min, p[k - 1]);
+			}
+			if (previous) {
+				result[n++] = order[i];
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * Three objectives: the last two objectives of the points in front of the
+	 * current one form a staircase, mapping the second objective to the third
+	 * one which is strictly decreasing along the map.
+	 */
+	private static int[] nondominated3D(double[][] values, Integer[] order) {
+		TreeMap<Double, Double> staircase = new TreeMap<Double, Double>();
+		int[] result = new int[order.length];
+		int n = 0;
+		boolean previous = false;
+		for (int i = 0; i < order.length; i++) {
+			double[] p = values[order[i]];
+			if (i == 0 || !Arrays.equals(p, values[order[i - 1]])) {
+				Map.Entry<Double, Double> floor = staircase.floorEntry(p[1]);
+				previous = (floor == null || floor.getValue() > p[2]);
+				if (previous) {
+					Map.Entry<Double, Double> higher = staircase.ceilingEntry(
+							p[1]);
+					while (higher != null && higher.getValue() >= p[2]) {
+						staircase.remove(higher.getKey());
+						higher = staircase.higherEntry(higher.getKey());
+					}
+					staircase.put(p[1], p[2]);
+				}
+			}
+			if (previous) {
+				result[n++] = order[i];
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * Kung's divide and conquer algorithm on order[from, to). The better half
+	 * in the lexicographic order can't be dominated by the worse one, so only
+	 * the non-dominated points of the worse half have to be checked against
+	 * the non-dominated points of the better half.
+	 */
+	private static int[] kung(double[][] values, Integer[] order, int from,
+			int to) {
+		if (to - from == 1) {
+			return new int[] { order[from] };
+		}
+		int middle = (from + to) >>> 1;
+		int[] top = NondominatedSorting.kung(values, order, from, middle);
+		int[] bottom = NondominatedSorting.kung(values, order, middle, to);
+		int[] result = Arrays.copyOf(top, top.length + bottom.length);
+		int n = top.length;
+		for (int b : bottom) {
+			boolean dominated = false;
+			for (int t = top.length - 1; t >= 0 && !dominated; t--) {
+				dominated = NondominatedSorting.dominatesPrecedent(
+						values[top[t]], values[b]);
+			}
+			if (!dominated) {
+				result[n++] = b;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	// ########################################################################
+	// SORTING
+	// ########################################################################
+
+	/**
+	 * One or two objectives: the minimum of the last objective of each front
+	 * grows with the fronts, so the front of a point is found by a binary
+	 * search over these minima.
+	 */
+	private static void ranks2D(double[][] values, Integer[] order,
+			int[] ranks) {
+		int k = values[0].length;
+		double[] minima = new double[order.length];
+		int fronts = 0;
+		for (int i = 0; i < order.length; i++) {
+			double[] p = values[order[i]];
+			if (i > 0 && Arrays.equals(p, values[order[i - 1]])) {
+				ranks[order[i]] = ranks[order[i - 1]];
+				continue;
+			}
+			// first front whose minimum is worse than p
+			int low = 0;
+			int high = fronts;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (minima[middle] <= p[k - 1]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			minima[low] = p[k - 1];
+			fronts = Math.max(fronts, low + 1);
+			ranks[order[i]] = low;
+		}
+	}
+
+	/**
+	 * ENS-BS: if no point of a front dominates p, no point of a later front
+	 * does, so the front of p is found by a binary search over the fronts.
+	 * Within a front the latest points are the most likely to dominate p.
+	 */
+	private static void ranksENS(double[][] values, Integer[] order,
+			int[] ranks) {
+		List<int[]> fronts = new ArrayList<int[]>();
+		int[] sizes = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			double[] p = values[order[i]];
+			if (i > 0 && Arrays.equals(p, values[order[i - 1]])) {
+				ranks[order[i]] = ranks[order[i - 1]];
+				continue;
+			}
+			int low = 0;
+			int high = fronts.size();
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				int[] front = fronts.get(middle);
+				boolean dominated = false;
+				for (int j = sizes[middle] - 1; j >= 0 && !dominated; j--) {
+					dominated = NondominatedSorting.dominatesPrecedent(
+							values[front[j]], p);
+				}
+				if (dominated) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low == fronts.size()) {
+				fronts.add(new int[4]);
+			}
+			int[] front = fronts.get(low);
+			if (sizes[low] == front.length) {
+				front = Arrays.copyOf(front, 2 * front.length);
+				fronts.set(low, front);
+			}
+			front[sizes[low]++] = order[i];
+			ranks[order[i]] = low;
+		}
+	}
+
+	// ########################################################################
+	// HELPERS
+	// ########################################################################
+
+	/**
+	 * Checks if q dominates p, given that q precedes p lexicographically, so q
+	 * is at least as good as p in the first objective.
+	 */
+	private static boolean dominatesPrecedent(double[] q, double[] p) {
+		boolean oneBetter = q[0] < p[0];
+		for (int d = 1; d < p.length; d++) {
+			if (q[d] > p[d]) {
+				return false;
+			}
+			if (q[d] < p[d]) {
+				oneBetter = true;
+			}
+		}
+		return oneBetter;
+	}
+
+	private static double[][] toMinimization(double[][] points, int k,
+			boolean minimization) {
+		double[][] values = new double[points.length][];
+		for (int i = 0; i < points.length; i++) {
+			values[i] = ParetoPoint.toMinimization(points[i], k, minimization);
+		}
+		return values;
+	}
+
+	private static Integer[] sortLexicographically(final double[][] values) {
+		Integer[] order = new Integer[values.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				double[] p = values[a];
+				double[] q = values[b];
+				for (int d = 0; d < p.length; d++) {
+					int c = Double.compare(p[d], q[d]);
+					if (c != 0) {
+						return c;
+					}
+				}
+				return 0;
+			}
+		});
+		return order;
+	}
+
+}
@@ -0,0 +1,234 @@
+package com.github.monet.common;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ideal and nadir point of several fronts, e.g. of all jobs of an
+ * experiment, to calculate hypervolumes that are comparable between the
+ * fronts.
+ *
+ * Every point is mapped to a maximization problem with all objectives in
+ * [offset, 1 + offset]: (nadir - value) / (nadir - ideal) + offset for
+ * minimization problems. The hypervolume is then calculated with the origin
+ * as reference point, which corresponds to the point that is worse than the
+ * nadir point by offset times the range of each objective. Objectives in which
+ * all points are equal get a range of 1.
+ */
+public class ObjectiveBounds {
+
+	/**
+	 * Default distance of the reference point from the nadir point, relative
+	 * to the range of each objective.
+	 */
+	public static final double DEFAULT_REFERENCE_OFFSET = 0.1;
+
+	private final boolean minimization;
+	private final double offset;
+	private double[] ideal = null;
+	private double[] nadir = null;
+
+	/**
+	 * Uses the {@link #DEFAULT_REFERENCE_OFFSET}.
+	 *
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public ObjectiveBounds(boolean minimization) {
+		this(minimization, DEFAULT_REFERENCE_OFFSET);
+	}
+
+	/**
+	 * @param minimization
+	 *            true if smaller values are better
+	 * @param offset
+	 *            distance of the reference point from the nadir point,
+	 *            relative to the range of each objective
+	 */
+	public ObjectiveBounds(boolean minimization, double offset) {
+		if (!(offset >= 0)) {
+			throw new IllegalArgumentException(
+					"the offset must not be negative");
+		}
+		this.minimization = minimization;
+		this.offset = offset;
+	}
+
+	/**
+	 * Extends the bounds by the point.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the point has another dimension than the points before
+	 */
+	public void add(double[] point) {
+		if (this.ideal == null) {
+			this.ideal = point.clone();
+			this.nadir = point.clone();
+			return;
+		}
+		this.checkDimension(point, this.ideal.length);
+		for (int d = 0; d < point.length; d++) {
+			if (this.better(point[d], this.ideal[d])) {
+				this.ideal[d] = point[d];
+			}
+			if (this.better(this.nadir[d], point[d])) {
+				this.nadir[d] = point[d];
+			}
+		}
+	}
+
+	/**
+	 * Extends the bounds by all points of a front. The bounds are not changed
+	 * if one of the points has the wrong dimension.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the points have another dimension than the points before
+	 *             or than each other
+	 */
+	public void addAll(List<double[]> points) {
+		if (points.isEmpty()) {
+			return;
+		}
+		int k = (this.ideal == null) ? points.get(0).length : this.ideal.length;
+		for (double[] point : points) {
+			this.checkDimension(point, k);
+		}
+		for (double[] point : points) {
+			this.add(point);
+		}
+	}
+
+	/**
+	 * @return true if no point has been added yet
+	 */
+	public boolean isEmpty() {
+		return this.ideal == null;
+	}
+
+	/**
+	 * @return the number of objectives, 0 if no point has been added yet
+	 */
+	public int getDimension() {
+		return (this.ideal == null) ? 0 : this.ideal.length;
+	}
+
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	public double getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * @return the best value of every objective, null if empty
+	 */
+	public double[] getIdeal() {
+		return (this.ideal == null) ? null : this.ideal.clone();
+	}
+
+	/**
+	 * @return the worst value of every objective, null if empty
+	 */
+	public double[] getNadir() {
+		return (this.nadir == null) ? null : this.nadir.clone();
+	}
+
+	/**
+	 * @return the reference point of the hypervolume in the original
+	 *         objective space, null if empty
+	 */
+	public double[] getReferencePoint() {
+		if (this.ideal == null) {
+			return null;
+		}
+		double[] ref = new double[this.ideal.length];
+		for (int d = 0; d < ref.length; d++) {
+			double range = this.range(d);
+			if (this.minimization) {
+				ref[d] = this.nadir[d] + this.offset * range;
+			} else {
+				ref[d] = this.nadir[d] - this.offset * range;
+			}
+		}
+		return ref;
+	}
+
+	/**
+	 * Maps the points to the normalized maximization problem described above.
+	 * Points beyond the reference point get negative values and don't count
+	 * for the hypervolume.
+	 *
+	 * @param points
+	 *            points of the same dimension as the bounds, not modified
+	 * @return the normalized points
+	 */
+	public double[][] normalize(List<double[]> points) {
+		if (this.ideal == null) {
+			throw new IllegalStateException("no bounds known yet");
+		}
+		int k = this.ideal.length;
+		double[][] result = new double[points.size()][k];
+		for (int i = 0; i < result.length; i++) {
+			double[] point = points.get(i);
+			this.checkDimension(point, k);
+			for (int d = 0; d < k; d++) {
+				double distance = this.minimization ? this.nadir[d] - point[d]
+						: point[d] - this.nadir[d];
+				result[i][d] = distance / this.range(d) + this.offset;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the hypervolume of the normalized points.
+	 *
+	 * @param calculator
+	 *            algorithm used for the hypervolume, null for
+	 *            {@link ExactHypervolume}
+	 * @return the hypervolume, at most (1 + offset)^k
+	 */
+	public double hypervolume(List<double[]> points,
+			HypervolumeCalculator calculator) {
+		if (points.isEmpty()) {
+			return 0;
+		}
+		if (calculator == null) {
+			calculator = new ExactHypervolume();
+		}
+		double[][] normalized = this.normalize(points);
+		double[][] relevant = new double[normalized.length][];
+		int n = 0;
+		for (double[] p : normalized) {
+			boolean inside = true;
+			for (int d = 0; d < p.length && inside; d++) {
+				inside = p[d] > 0;
+			}
+			if (inside) {
+				relevant[n++] = p;
+			}
+		}
+		if (n == 0) {
+			return 0;
+		}
+		return calculator.calculate(Arrays.copyOf(relevant, n), null);
+	}
+
+	private double range(int d) {
+		double range = Math.abs(this.nadir[d] - this.ideal[d]);
+		return (range > 0) ? range : 1;
+	}
+
+	private boolean better(double a, double b) {
+		return this.minimization ? a < b : a > b;
+	}
+
+	private void checkDimension(double[] point, int k) {
+		if (point.length != k) {
+			throw new IllegalArgumentException("the point has " + point.length
+					+ " objectives, expected " + k);
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+package com.github.monet.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exact hypervolume that spreads the slices of the {@link WFGHypervolume}
+ * algorithm over the threads of a {@link ForkJoinPool}.
+ *
+ * WFG sums the exclusive volumes of the points sorted by their last
+ * objective, and each of these slices only reads the points in front of it,
+ * so they can be calculated independently. The slices are stored in an array
+ * and summed up in their original order afterwards, which gives exactly the
+ * same result as {@link ExactHypervolume}, bit for bit and regardless of the
+ * number of threads.
+ *
+ * Fronts with less points than the threshold and fronts with up to three
+ * objectives, which the sweep algorithms of {@link Hypervolume2D} and
+ * {@link Hypervolume3D} handle in O(n log n), are calculated in the calling
+ * thread.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class ParallelHypervolume implements HypervolumeCalculator {
+
+	/**
+	 * Default minimum number of points for a parallel calculation.
+	 */
+	public static final int DEFAULT_THRESHOLD = 200;
+
+	/**
+	 * Number of tasks per thread the slices are split into. The slices get
+	 * more expensive towards the end, so a few tasks per thread balance the
+	 * load.
+	 */
+	private static final int TASKS_PER_THREAD = 16;
+
+	private static final Map<Integer, ForkJoinPool> sharedPools =
+			new HashMap<Integer, ForkJoinPool>();
+
+	private final ForkJoinPool pool;
+	private final int threshold;
+	private final ExactHypervolume exact = new ExactHypervolume();
+	private final WFGHypervolume wfg = new WFGHypervolume();
+
+	/**
+	 * Uses a pool shared by all instances with one thread per processor and
+	 * the {@link #DEFAULT_THRESHOLD}.
+	 */
+	public ParallelHypervolume() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Uses a pool shared by all instances with one thread per processor.
+	 *
+	 * @param threshold
+	 *            minimum number of points for a parallel calculation
+	 */
+	public ParallelHypervolume(int threshold) {
+		this(ParallelHypervolume.getSharedPool(), threshold);
+	}
+
+	/**
+	 * Uses the pool shared by all instances with the given number of threads,
+	 * so creating a calculator for every job does not start new threads.
+	 *
+	 * @param parallelism
+	 *            number of threads
+	 * @param threshold
+	 *            minimum number of points for a parallel calculation
+	 */
+	public ParallelHypervolume(int parallelism, int threshold) {
+		this(ParallelHypervolume.getSharedPool(parallelism), threshold);
+	}
+
+	/**
+	 * @param pool
+	 *            the pool to run the slices in
+	 * @param threshold
+	 *            minimum number of points for a parallel calculation
+	 */
+	public ParallelHypervolume(ForkJoinPool pool, int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException(
+					"the threshold must be positive");
+		}
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * @return the pool shared by all instances with one thread per processor,
+	 *         also used by {@link AttainmentFunction}
+	 */
+	static ForkJoinPool getSharedPool() {
+		return ParallelHypervolume.getSharedPool(
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Pools are created once per number of threads and never shut down. Their
+	 * threads are daemon threads and end after a while without work.
+	 *
+	 * @return the pool shared by all instances with the given number of
+	 *         threads
+	 */
+	static synchronized ForkJoinPool getSharedPool(int parallelism) {
+		ForkJoinPool pool = sharedPools.get(parallelism);
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+			sharedPools.put(parallelism, pool);
+		}
+		return pool;
+	}
+
+	public int getParallelism() {
+		return this.pool.getParallelism();
+	}
+
+	public int getThreshold() {
+		return this.threshold;
+	}
+
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		if (points.length < this.threshold || points[0].length <= 3) {
+			return this.exact.calculate(points, ref);
+		}
+		int k = points[0].length;
+		if (ref == null) {
+			ref = new double[k];
+		}
+
+		// the same preparation as WFGHypervolume.calculate(...)
+		double[][] relevant = new double[points.length][];
+		int n = 0;
+		for (double[] p : points) {
+			if (ParallelHypervolume.dominatesReference(p, ref, k)) {
+				relevant[n++] = p;
+			}
+		}
+		n = WFGHypervolume.removeDominated(relevant, n, k);
+		if (n < this.threshold) {
+			return this.wfg.hypervolume(relevant, n, ref, k);
+		}
+		Arrays.sort(relevant, 0, n,
+				new WFGHypervolume.ByObjectiveDescending(k - 1));
+
+		double[] slices = new double[n];
+		int grain = Math.max(1, n
+				/ (TASKS_PER_THREAD * this.pool.getParallelism()));
+		this.pool.invoke(new Slices(relevant, ref, k, slices, 0, n, grain));
+		double volume = 0;
+		for (int i = 0; i < n; i++) {
+			volume += slices[i];
+		}
+		return volume;
+	}
+
+	/**
+	 * Calculates the slices from..to-1, splitting the range in halves until
+	 * at most grain slices are left.
+	 */
+	private final class Slices extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[][] points;
+		private final double[] ref;
+		private final int k;
+		private final double[] slices;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Slices(double[][] points, double[] ref, int k, double[] slices,
+				int from, int to, int grain) {
+			this.points = points;
+			this.ref = ref;
+			this.k = k;
+			this.slices = slices;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.grain) {
+				for (int i = this.from; i < this.to; i++) {
+					this.slices[i] = ParallelHypervolume.this.wfg
+							.exclusiveSliceVolume(this.points, i, this.ref,
+							this.k)
+							* (this.points[i][this.k - 1]
+							- this.ref[this.k - 1]);
+				}
+				return;
+			}
+			int middle = (this.from + this.to) >>> 1;
+			RecursiveAction.invokeAll(new Slices(this.points, this.ref, this.k,
+					this.slices, this.from, middle, this.grain),
+					new Slices(this.points, this.ref, this.k, this.slices,
+					middle, this.to, this.grain));
+		}
+	}
+
+	private static boolean dominatesReference(double[] p, double[] ref, int k) {
+		for (int d = 0; d < k; d++) {
+			if (p[d] <= ref[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.github.monet.common;
+
+import java.util.List;
+
+/**
+ * An archive of mutually non-dominated points that is updated online: a new
+ * point is only accepted if no point in the archive weakly dominates it (equal
+ * points are rejected, too), and all points it dominates are removed.
+ *
+ * Each point carries an arbitrary value, e.g. the solution it belongs to.
+ *
+ * @param <T>
+ *            type of the values stored with the points
+ * @see NDTreeArchive
+ */
+public interface ParetoArchive<T> {
+
+	/**
+	 * Adds a point to the archive unless it is weakly dominated by a point of
+	 * the archive. Points dominated by the new point are removed.
+	 *
+	 * @param point
+	 *            the objective values, which must not be modified afterwards
+	 * @param value
+	 *            the value stored with the point, may be null
+	 * @return true if the point was added
+	 */
+	public boolean add(double[] point, T value);
+
+	/**
+	 * @return true if the point would be rejected by
+	 *         {@link #add(double[], Object)}, i.e. a point of the archive
+	 *         weakly
+	 *         dominates it (bounded archives may reject other points, too)
+	 */
+	public boolean isDominated(double[] point);
+
+	/**
+	 * @return the number of points in the archive
+	 */
+	public int size();
+
+	/**
+	 * @return the points of the archive with their values, in the order they
+	 *         were added
+	 */
+	public List<Tuple<double[], T>> getEntries();
+
+	/**
+	 * @return true if smaller objective values are better
+	 */
+	public boolean isMinimization();
+
+	/**
+	 * Removes all points from the archive.
+	 */
+	public void clear();
+
+}
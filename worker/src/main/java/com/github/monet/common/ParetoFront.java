@@ -0,0 +1,453 @@
+package com.github.monet.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A set of points with k objective values each, stored in one row-major
+ * array: value d of point i is found at index i * k + d. Compared to a list
+ * of {@link ParetoPoint} objects this saves an object and up to three arrays
+ * per point, and the values of neighbouring points are next to each other in
+ * memory.
+ *
+ * Normalizing and inverting is done in place, so a copy has to be made first
+ * if the original values are still needed. Use {@link #toParetoPoints()} and
+ * {@link #fromObjectivePoints(List)} to work with code that expects
+ * {@link ObjectivePoint} lists.
+ */
+public class ParetoFront {
+
+	private final int k;
+	private final boolean minimization;
+	private double[] values;
+	private int size;
+	private DominanceKernel kernel = null;
+
+	/**
+	 * @param k
+	 *            number of objective values of each point
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public ParetoFront(int k, boolean minimization) {
+		this(k, 16, minimization);
+	}
+
+	/**
+	 * @param k
+	 *            number of objective values of each point
+	 * @param capacity
+	 *            number of points to reserve space for
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public ParetoFront(int k, int capacity, boolean minimization) {
+		if (k < 1) {
+			throw new IllegalArgumentException(
+					"points need at least one objective");
+		}
+		this.k = k;
+		this.minimization = minimization;
+		this.values = new double[Math.max(capacity, 1) * k];
+		this.size = 0;
+	}
+
+	/**
+	 * Wraps the row-major values of size points without copying them.
+	 */
+	ParetoFront(int k, double[] values, int size, boolean minimization) {
+		if (k < 1) {
+			throw new IllegalArgumentException(
+					"points need at least one objective");
+		}
+		this.k = k;
+		this.minimization = minimization;
+		this.values = (values.length > 0) ? values : new double[k];
+		this.size = size;
+	}
+
+	/**
+	 * Copies the given points into a new front.
+	 *
+	 * @param points
+	 *            points of the same length; must not be empty
+	 */
+	public static ParetoFront fromList(List<double[]> points,
+			boolean minimization) {
+		ParetoFront front = new ParetoFront(points.get(0).length, points.size(),
+				minimization);
+		for (double[] point : points) {
+			front.add(point);
+		}
+		return front;
+	}
+
+	/**
+	 * Copies the active objective values of the given points into a new front.
+	 *
+	 * @param points
+	 *            points of the same dimension; must not be empty
+	 */
+	public static <P extends ObjectivePoint> ParetoFront fromObjectivePoints(
+			List<P> points) {
+		P first = points.get(0);
+		ParetoFront front = new ParetoFront(first.getObjectiveValues().length,
+				points.size(), first.isMinimization());
+		for (P point : points) {
+			front.add(point.getObjectiveValues());
+		}
+		return front;
+	}
+
+	/**
+	 * Appends a copy of the first k values of the point.
+	 */
+	public void add(double[] point) {
+		if (point.length < this.k) {
+			throw new IllegalArgumentException("the point has " + point.length
+					+ " values, expected " + this.k);
+		}
+		if ((this.size + 1) * this.k > this.values.length) {
+			this.values = Arrays.copyOf(this.values, 2 * this.values.length);
+		}
+		System.arraycopy(point, 0, this.values, this.size * this.k, this.k);
+		this.size++;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the number of objective values of each point
+	 */
+	public int getDimension() {
+		return this.k;
+	}
+
+	public boolean isMinimization() {
+		return this.minimization;
+	}
+
+	/**
+	 * @return value d of point i
+	 */
+	public double get(int i, int d) {
+		return this.values[i * this.k + d];
+	}
+
+	/**
+	 * @return a copy of the values of point i
+	 */
+	public double[] getPoint(int i) {
+		return Arrays.copyOfRange(this.values, i * this.k, (i + 1) * this.k);
+	}
+
+	/**
+	 * The backing array, which is replaced when the front grows. Only the first
+	 * size() * getDimension() values belong to points.
+	 */
+	public double[] getValues() {
+		return this.values;
+	}
+
+	/**
+	 * @return a new front with the same points
+	 */
+	public ParetoFront copy() {
+		ParetoFront copy = new ParetoFront(this.k, this.size,
+				this.minimization);
+		System.arraycopy(this.values, 0, copy.values, 0, this.size * this.k);
+		copy.size = this.size;
+		return copy;
+	}
+
+	/**
+	 * @return a new front with the points at the given indices in the given
+	 *         order
+	 */
+	public ParetoFront filter(int[] indices) {
+		ParetoFront result = new ParetoFront(this.k, indices.length,
+				this.minimization);
+		for (int i : indices) {
+			System.arraycopy(this.values, i * this.k, result.values, result.size
+					* this.k, this.k);
+			result.size++;
+		}
+		return result;
+	}
+
+	/**
+	 * @return a copy of the points as separate arrays
+	 */
+	public double[][] toArray() {
+		double[][] points = new double[this.size][];
+		for (int i = 0; i < this.size; i++) {
+			points[i] = this.getPoint(i);
+		}
+		return points;
+	}
+
+	/**
+	 * Creates a {@link ParetoPoint} for each point, for code that still needs
+	 * a list of points.
+	 */
+	public List<ParetoPoint> toParetoPoints() {
+		List<ParetoPoint> points = new ArrayList<ParetoPoint>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			points.add(new ParetoPoint(this.getPoint(i), this.minimization));
+		}
+		return points;
+	}
+
+	// ########################################################################
+	// BOUNDS
+	// ########################################################################
+
+	/**
+	 * @return the minimum value of every dimension or null if the front is
+	 *         empty
+	 */
+	public double[] getMin() {
+		if (this.size == 0) {
+			return null;
+		}
+		double[] min = this.getPoint(0);
+		for (int i = 1, offset = this.k; i < this.size; i++, offset += this.k) {
+			for (int d = 0; d < this.k; d++) {
+				if (this.values[offset + d] < min[d]) {
+					min[d] = this.values[offset + d];
+				}
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * @return the maximum value of every dimension or null if the front is
+	 *         empty
+	 */
+	public double[] getMax() {
+		if (this.size == 0) {
+			return null;
+		}
+		double[] max = this.getPoint(0);
+		for (int i = 1, offset = this.k; i < this.size; i++, offset += this.k) {
+			for (int d = 0; d < this.k; d++) {
+				if (this.values[offset + d] > max[d]) {
+					max[d] = this.values[offset + d];
+				}
+			}
+		}
+		return max;
+	}
+
+	// ########################################################################
+	// TRANSFORMATIONS (IN PLACE)
+	// ########################################################################
+
+	/**
+	 * Replaces each value by ((value - min) / (max - min)) + add, like the
+	 * normalized values of
+	 * {@link ParetoPoint#setNormalizedAndInvertedValues(List, double[],
+	 * double[], boolean, double, double)}.
+	 *
+	 * @return this front
+	 */
+	public ParetoFront normalize(double[] min, double[] max, double add) {
+		for (int i = 0, offset = 0; i < this.size; i++, offset += this.k) {
+			for (int d = 0; d < this.k; d++) {
+				this.values[offset + d] = ((this.values[offset + d] - min[d])
+						/ (max[d] - min[d])) + add;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Replaces each value by (max - value) + add, like the inverted values of
+	 * {@link ParetoPoint#setNormalizedAndInvertedValues(List, double[],
+	 * double[], boolean, double, double)}
+	 * for points that are not normalized.
+	 *
+	 * @return this front
+	 */
+	public ParetoFront invert(double[] max, double add) {
+		for (int i = 0, offset = 0; i < this.size; i++, offset += this.k) {
+			for (int d = 0; d < this.k; d++) {
+				this.values[offset + d] = (max[d] - this.values[offset + d])
+						+ add;
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Turns the front into the maximization problem expected by the
+	 * hypervolume methods, see
+	 * {@link #calculateSMetric(double[], HypervolumeCalculator)}.
+	 *
+	 * @return this front
+	 */
+	public ParetoFront toMaximization() {
+		if (this.minimization && this.size > 0) {
+			this.invert(this.getMax(), 1);
+		}
+		return this;
+	}
+
+	// ########################################################################
+	// DOMINANCE
+	// ########################################################################
+
+	/**
+	 * @return true if point i dominates point j
+	 * @see ParetoPoint#dominates(double[], double[], int, boolean)
+	 */
+	public boolean dominates(int i, int j) {
+		int a = i * this.k;
+		int b = j * this.k;
+		boolean oneBetter = false;
+		for (int d = 0; d < this.k; d++) {
+			double first = this.values[a + d];
+			double second = this.values[b + d];
+			if (this.minimization ? first > second : first < second) {
+				return false;
+			}
+			if (first != second) {
+				oneBetter = true;
+			}
+		}
+		return oneBetter;
+	}
+
+	/**
+	 * Relations of all points of the front to the point p, see
+	 * {@link DominanceKernel}.
+	 *
+	 * @param p
+	 *            objective values of the same dimension as the front
+	 * @return the relation of each point to p, e.g.
+	 *         {@link DominanceKernel#DOMINATES} if the point dominates p
+	 */
+	public byte[] relations(double[] p) {
+		byte[] relations = new byte[this.size];
+		this.getKernel().relations(this.values, 0, this.size, p, relations);
+		return relations;
+	}
+
+	/**
+	 * @return the indices of the points that dominate p in ascending order
+	 */
+	public int[] dominating(double[] p) {
+		int[] indices = new int[this.size];
+		return Arrays.copyOf(indices,
+				this.getKernel().dominating(this.values, this.size, p,
+				indices));
+	}
+
+	/**
+	 * @return the indices of the points that p dominates in ascending order
+	 */
+	public int[] dominatedBy(double[] p) {
+		int[] indices = new int[this.size];
+		return Arrays.copyOf(indices,
+				this.getKernel().dominatedBy(this.values, this.size, p,
+				indices));
+	}
+
+	/**
+	 * @return true if a point of the front dominates p
+	 */
+	public boolean isDominated(double[] p) {
+		return this.getKernel().isDominated(this.values, this.size, p);
+	}
+
+	private DominanceKernel getKernel() {
+		if (this.kernel == null) {
+			this.kernel = DominanceKernel.forDimension(this.k,
+					this.minimization);
+		}
+		return this.kernel;
+	}
+
+	/**
+	 * @return the indices of the points that are not dominated by any other
+	 *         point in ascending order
+	 * @see NondominatedSorting#nondominated(ParetoFront)
+	 */
+	public int[] nondominated() {
+		return NondominatedSorting.nondominated(this);
+	}
+
+	/**
+	 * @return a new front of the non-dominated points in their original order
+	 */
+	public ParetoFront getNondominated() {
+		return this.filter(this.nondominated());
+	}
+
+	// ########################################################################
+	// HYPERVOLUME
+	// ########################################################################
+
+	/**
+	 * Calculates the S-Metric, also for
+	 * {@link ParetoPoint#calculateSMetric(List, double[], boolean,
+	 * HypervolumeCalculator)}:
+	 * for minimization problems the values are inverted to (max - value) + 1
+	 * first, so no point lies on one of the axes. The front is not modified.
+	 *
+	 * @param ref
+	 *            reference point of the maximization problem or null to use
+	 *            the origin
+	 * @param calculator
+	 *            algorithm used for the hypervolume, null for
+	 *            {@link ExactHypervolume}
+	 */
+	public double calculateSMetric(double[] ref,
+			HypervolumeCalculator calculator) {
+		if (this.size == 0) {
+			return 0;
+		}
+		if (calculator == null) {
+			calculator = new ExactHypervolume();
+		}
+		return calculator.calculate(this.toMaximizationArray(), ref);
+	}
+
+	/**
+	 * @return the points of the maximization problem as separate arrays,
+	 *         without modifying this front
+	 * @see #toMaximization()
+	 */
+	double[][] toMaximizationArray() {
+		double[] max = this.minimization ? this.getMax() : null;
+		double[][] points = new double[this.size][this.k];
+		for (int i = 0, offset = 0; i < this.size; i++, offset += this.k) {
+			for (int d = 0; d < this.k; d++) {
+				points[i][d] = this.minimization
+						? (max[d] - this.values[offset + d]) + 1
+						: this.values[offset + d];
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * @return the points as separate arrays, negated for maximization (see
+	 *         {@link ParetoPoint#toMinimization(double, boolean)})
+	 */
+	double[][] toMinimizationArray() {
+		double[][] points = new double[this.size][this.k];
+		for (int i = 0, offset = 0; i < this.size; i++, offset += this.k) {
+			for (int d = 0; d < this.k; d++) {
+				points[i][d] = ParetoPoint.toMinimization(this.values[offset
+						+ d], this.minimization);
+			}
+		}
+		return points;
+	}
+
+}
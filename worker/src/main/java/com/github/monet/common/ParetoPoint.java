@@ -1,12 +1,13 @@
 package com.github.monet.common;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class representing a point that can be used for calculating the S-Metric. 
@@ -102,43 +103,78 @@ public class ParetoPoint implements ObjectivePoint {
 	 * 		Points to calculate the S-Metric for. THE POINTS HAVE TO BE POSITIVE!
 	 * @param minimization
 	 * 		True for minimization problems (which is the case for all MONET-Problems)
+	 * @param calculator
+	 * 		Algorithm used for the hypervolume, null for
+	 * 		{@link ExactHypervolume}
 	 * @return
 	 * 		S-Metric value
 	 */
-	public static double calculateSMetric(List<double[]> points, double[] ref, boolean minimization) {
+	public static double calculateSMetric(List<double[]> points, double[] ref,
+			boolean minimization, HypervolumeCalculator calculator) {
 		
-		// Get Dimension
 		if (points.size() == 0) return 0;
-		int k = points.get(0).length;
-		
-		// Create reference point if none is given
-		if (ref == null) {
-			ref = new double[k];
-		}
-		
-		// Create ParetoPoint objects so we can work on the points
-		List<ParetoPoint> resPoints = new ArrayList<ParetoPoint>(points.size());
-		for (double[] point : points) {
-			resPoints.add(new ParetoPoint(point, minimization));
-		}
 		
 		// If we have a minimization problem we have to use inverted values
-		// because getMaximizationSMetricByHSO expects a maximization problem!
-		// NOTE: WE ALSO ADD 1 TO EACH INVERTED VALUE SO WE DON'T HAVE ANY POINTS THAT LIE ON ONE OF THE AXIS!
-		if (minimization) {
-			ParetoPoint.setNormalizedAndInvertedValues(resPoints, ParetoPoint.getMin(resPoints), ParetoPoint.getMax(resPoints), false, 0, 1);
-			for (ParetoPoint p : resPoints)
-				p.setActiveObjectives(ObjectivePoint.ActiveObjectives.INVERTED);
-		}
-		
-		// Calculate the S-Metric value
-		double sMetricValue = ParetoPoint.getMaximizationSMetricByHSO(resPoints, ref, k);
-		return sMetricValue;
+		// because the hypervolume algorithms expect a maximization problem,
+		// see ParetoFront#calculateSMetric.
+		return ParetoFront.fromList(points, minimization).calculateSMetric(ref,
+				calculator);
+	}
+	public static double calculateSMetric(List<double[]> points, double[] ref,
+			boolean minimization) {
+		return ParetoPoint.calculateSMetric(points, ref, minimization, null);
 	}
 	public static double calculateSMetric(List<double[]> points, boolean minimization) {
-		return ParetoPoint.calculateSMetric(points, null, minimization);
+		return ParetoPoint.calculateSMetric(points, null, minimization, null);
 	}
-	
+
+	/**
+	 * Approximate the S-Metric for the given list of points by sampling. The
+	 * points are inverted like in
+	 * {@link #calculateSMetric(List, double[], boolean, HypervolumeCalculator)}.
+	 * 
+	 * @param points
+	 * 		Points to calculate the S-Metric for. THE POINTS HAVE TO BE
+	 * 		POSITIVE!
+	 * @param minimization
+	 * 		True for minimization problems (which is the case for all
+	 * 		MONET-Problems)
+	 * @param estimator
+	 * 		Sampling options, null for the defaults of
+	 * 		{@link MonteCarloHypervolume}
+	 * @return
+	 * 		approximated S-Metric value with its confidence interval
+	 */
+	public static HypervolumeEstimate estimateSMetric(List<double[]> points,
+			double[] ref, boolean minimization,
+			MonteCarloHypervolume estimator) {
+		if (estimator == null) {
+			estimator = new MonteCarloHypervolume();
+		}
+		if (points.size() == 0) {
+			return estimator.estimate(new double[0][], ref);
+		}
+		return estimator.estimate(ParetoPoint.toMaximizationPoints(points,
+				minimization), ref);
+	}
+
+	/**
+	 * Copy the given points into the maximization problem expected by the
+	 * hypervolume methods, see
+	 * {@link ParetoFront#calculateSMetric(double[], HypervolumeCalculator)}.
+	 *
+	 * @param points
+	 * 		Points to convert. They are not modified.
+	 * @param minimization
+	 * 		True for minimization problems
+	 * @return
+	 * 		new array of (possibly inverted) points
+	 */
+	static double[][] toMaximizationPoints(List<double[]> points,
+			boolean minimization) {
+		return ParetoFront.fromList(points, minimization).toMaximizationArray();
+	}
+
 	
 	/**
 	 * Create a list of ParetoPoint objects from given double arrays
@@ -190,12 +226,46 @@ public class ParetoPoint implements ObjectivePoint {
 		}
 		return oneBetter;
 	}
+
+	/**
+	 * Negates the value for maximization, so smaller values are always
+	 * better. Adding to 0 turns -0.0 into 0.0, so equal values are equal bit
+	 * by bit; negating twice restores the original value.
+	 */
+	public static double toMinimization(double value, boolean minimization) {
+		return minimization ? 0.0 + value : 0.0 - value;
+	}
+
+	/**
+	 * Copies the first k values of the point, see
+	 * {@link #toMinimization(double, boolean)}.
+	 */
+	public static double[] toMinimization(double[] point, int k,
+			boolean minimization) {
+		double[] values = new double[k];
+		for (int d = 0; d < k; d++) {
+			values[d] = ParetoPoint.toMinimization(point[d], minimization);
+		}
+		return values;
+	}
+
+	public static double[] toMinimization(double[] point,
+			boolean minimization) {
+		return ParetoPoint.toMinimization(point, point.length, minimization);
+	}
+
+	public static double[][] toMinimization(double[][] points,
+			boolean minimization) {
+		double[][] values = new double[points.length][];
+		for (int i = 0; i < points.length; i++) {
+			values[i] = ParetoPoint.toMinimization(points[i], minimization);
+		}
+		return values;
+	}
 	
 	
 	/**
-	 * Get non-dominated solutions (fast book-keeping strategy, see NSGA2 Paper)
-	 * Note: No "Individual competitor : nonDominated" loop because the lists
-	 * change!
+	 * Get non-dominated solutions (see {@link NondominatedSorting}).
 	 * 
 	 * Modification for k-non-domination: only consider first k objective
 	 * values.
@@ -219,28 +289,21 @@ public class ParetoPoint implements ObjectivePoint {
 		// Init nondominated set
 		if (nonDominated == null) nonDominated = new ArrayList<P>();
 		if (population.size() == 0) return nonDominated;
-		if (nonDominated.size() == 0) nonDominated.add(population.get(0));
 		
-		// Fill nondominated set
+		// Candidates: the initial set followed by the new individuals (each
+		// only once)
+		List<P> candidates = new ArrayList<P>(nonDominated.size()
+				+ population.size());
+		Set<P> known = new HashSet<P>(nonDominated);
+		candidates.addAll(nonDominated);
 		for (P individual : population) {
-			if (nonDominated.contains(individual)) continue;
-			nonDominated.add(individual);
-			// For current individual selected from population: 
-			// check if any individual in the nonDominated set is now dominated
-			for (int j = 0; j < nonDominated.size(); j++) {
-				P competitor = nonDominated.get(j);
-				if (competitor.equals(individual)) {
-					continue;
-				} else if (ParetoPoint.dominates(individual.getObjectiveValues(), competitor.getObjectiveValues(), k, minimization)) {
-					nonDominated.remove(competitor);
-					j--;
-				} else if (ParetoPoint.dominates(competitor.getObjectiveValues(), individual.getObjectiveValues(), k, minimization)) {
-					nonDominated.remove(individual);
-					// j--; Individual is always added at the end => no j--!
-				}
-			}
+			if (known.add(individual)) candidates.add(individual);
 		}
 		
+		// Fill nondominated set
+		nonDominated.clear();
+		nonDominated.addAll(NondominatedSorting.getNondominated(candidates, k,
+				minimization));
 		return nonDominated;
 	}
 	
@@ -249,13 +312,9 @@ public class ParetoPoint implements ObjectivePoint {
 	 * Checks if the given set contains a dominated solution
 	 */
 	public static <P extends ObjectivePoint> boolean containsDominatedSolution(List<P> population, int k, boolean minimization) {
-		for (ObjectivePoint p1 : population)
-			for (ObjectivePoint p2 : population)
-				if (       ParetoPoint.dominates(p1.getObjectiveValues(), p2.getObjectiveValues(), k, minimization) 
-						|| ParetoPoint.dominates(p2.getObjectiveValues(), p1.getObjectiveValues(), k, minimization)
-					)
-					return true;
-		return false;
+		return NondominatedSorting.nondominated(
+				NondominatedSorting.objectiveValues(population), k,
+				minimization).length < population.size();
 	}
 	
 	
@@ -271,13 +330,15 @@ public class ParetoPoint implements ObjectivePoint {
 	 */
 	public static <P extends ObjectivePoint> List<P> getDominatedSolutions(List<P> population, int k, boolean minimization) {
 		List<P> result = new ArrayList<P>();
-		for (P ind : population) {
-			// Check if ind is dominated by any individual and add it if this is the case
-			for (P comp : population) {
-				if (ParetoPoint.dominates(comp.getObjectiveValues(), ind.getObjectiveValues(), k, minimization)) {
-					result.add(ind);
-					break;
-				}
+		int[] nonDominated = NondominatedSorting.nondominated(
+				NondominatedSorting.objectiveValues(population), k,
+				minimization);
+		for (int i = 0, j = 0; i < population.size(); i++) {
+			// nonDominated is sorted, so it is enough to look at the next index
+			if (j < nonDominated.length && nonDominated[j] == i) {
+				j++;
+			} else {
+				result.add(population.get(i));
 			}
 		}
 		return result;
@@ -478,67 +539,129 @@ public class ParetoPoint implements ObjectivePoint {
 	 * Export objective values of the individuals to CSV
 	 */
 	public static <P extends ObjectivePoint> void exportObjectiveValuesToCSV(List<P> individuals, String filePath, boolean append) {
-		try {
-			FileWriter writer = new FileWriter(filePath, append);
+		try (CSVFrontWriter writer = new CSVFrontWriter(new File(filePath),
+				append)) {
 			for (P ind : individuals) {
 				double[] objValues = ind.getObjectiveValues();
 				if (objValues != null) {
-					writer.append( ParetoPoint.join(objValues, ", ") + "\n" );
+					writer.write(objValues);
 				}
 			}
-			writer.flush();
-			writer.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	public static <P extends ObjectivePoint> void exportObjectiveValuesToCSV(P individual, String filePath, boolean append) {
-		try {
-			FileWriter writer = new FileWriter(filePath, append);
-			double[] objValues = individual.getObjectiveValues();
-			if (objValues != null) {
-				writer.append( ParetoPoint.join(objValues, ", ") + "\n" );
+		ParetoPoint.exportObjectiveValuesToCSV(
+				Collections.singletonList(individual), filePath, append);
+	}
+
+	/**
+	 * Export objective values of the individuals to a binary
+	 * {@link FrontFile}, which is much faster to read for large fronts. All
+	 * individuals need the same number of objectives; when appending, the
+	 * same number as the points of the file.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the numbers of objectives differ; nothing is written then
+	 */
+	public static <P extends ObjectivePoint> void exportObjectiveValues(
+			List<P> individuals, String filePath, boolean append) {
+		File file = new File(filePath);
+		int k = -1;
+		boolean minimization = true;
+		for (P ind : individuals) {
+			if (ind.getObjectiveValues() != null) {
+				k = ind.getObjectiveValues().length;
+				minimization = ind.isMinimization();
+				break;
+			}
+		}
+		boolean appending = append && file.exists();
+		if (!appending) {
+			if (k < 0) {
+				return;
+			}
+			// checked before the file is replaced
+			ParetoPoint.checkDimension(individuals, k);
+		}
+		try (FrontFileWriter writer = appending ? FrontFileWriter.append(file)
+				: FrontFileWriter.create(file, k, minimization)) {
+			if (appending) {
+				ParetoPoint.checkDimension(individuals, writer.getDimension());
+			}
+			for (P ind : individuals) {
+				double[] objValues = ind.getObjectiveValues();
+				if (objValues != null) {
+					writer.add(objValues);
+				}
 			}
-			writer.flush();
-			writer.close();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
-	
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if an individual doesn't have k objectives
+	 */
+	private static <P extends ObjectivePoint> void checkDimension(
+			List<P> individuals, int k) {
+		for (P ind : individuals) {
+			double[] objValues = ind.getObjectiveValues();
+			if (objValues != null && objValues.length != k) {
+				throw new IllegalArgumentException("the individual has "
+						+ objValues.length + " objectives, the file " + k);
+			}
+		}
+	}
+
 	public static double calcSMetricfromCSV(String filepath,
 			boolean minimization) {
-		BufferedReader br = null;
-		List<double[]> front = new ArrayList<>();
-		String line = "";
-		String cvsSplitBy = ",";
+		return ParetoPoint.calcSMetricfromFile(filepath, minimization);
+	}
+
+	/**
+	 * Calculates the S-Metric of the points of a {@link FrontFile} or a CSV
+	 * file. A front file is mapped and copied into a {@link ParetoFront}
+	 * without parsing; its header tells whether it is a minimization problem,
+	 * so the flag is only used for CSV files.
+	 */
+	public static double calcSMetricfromFile(String filepath,
+			boolean minimization) {
+		File file = new File(filepath);
 		try {
-			br = new BufferedReader(new FileReader(filepath));
-			while ((line = br.readLine()) != null) {
-				String[] pointStr = line.split(cvsSplitBy);
-				double[] point = new double[pointStr.length];
-				for (int i = 0; i < pointStr.length; i++) {
-					point[i] = Double.parseDouble(pointStr[i].trim());
+			if (FrontFile.isFrontFile(file)) {
+				return FrontFile.open(file).toParetoFront().calculateSMetric(
+						null, null);
+			}
+			try (CSVFrontReader reader = new CSVFrontReader(file)) {
+				if (!reader.next()) {
+					return 0;
 				}
-				front.add(point);
-				// ParetoPoint nextPoint = new ParetoPoint(point,minimization);
-				// front.add(nextPoint);
+				ParetoFront front = new ParetoFront(reader.size(),
+						minimization);
+				do {
+					front.add(reader.getPoint());
+				} while (reader.next());
+				return front.calculateSMetric(null, null);
 			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
 		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			if (br != null) {
-				try {
-					br.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-			}
+			return 0;
+		}
+	}
+	
+	/**
+	 * Read points from a CSV file with the objective values of one point per
+	 * line, as written by
+	 * {@link #exportObjectiveValuesToCSV(List, String, boolean)}.
+	 */
+	public static List<double[]> readFromCSV(String filepath)
+			throws IOException {
+		try (CSVFrontReader reader = new CSVFrontReader(new File(filepath))) {
+			return reader.readAll();
 		}
-
-		return ParetoPoint.calculateSMetric(front, minimization);
 	}
 	
 	
@@ -546,10 +669,14 @@ public class ParetoPoint implements ObjectivePoint {
 	 * Simple join function on double arrays
 	 */
 	public static String join(double[] arr, String sep) {
-		String result = "";
-		for (int i = 0; i < arr.length; i++)
-			result += (i < arr.length-1) ? (arr[i]+sep) : (arr[i]);
-		return result;
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < arr.length; i++) {
+			if (i > 0) {
+				result.append(sep);
+			}
+			result.append(arr[i]);
+		}
+		return result.toString();
 	}
 	
 	
@@ -654,6 +781,34 @@ public class ParetoPoint implements ObjectivePoint {
 //	}
 	
 	
+	/**
+	 * Calculates the exclusive S-Metric contribution of each individual in the
+	 * given list in one pass (see {@link HypervolumeContributions}). The
+	 * results are stored in the individuals "result" attribute, the list is
+	 * not modified.
+	 * 
+	 * @param inds
+	 *            list to calculate the contribution values for
+	 * @param ref
+	 *            reference point or null to use the origin
+	 * @param k
+	 *            objective values to process (first k values are used)
+	 * @return the contribution of inds.get(i) at index i
+	 */
+	public static <P extends ObjectivePoint> double[] calcSMetricContributions(
+			List<P> inds, double[] ref, int k) {
+		double[][] points = new double[inds.size()][];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = Arrays.copyOf(inds.get(i).getObjectiveValues(), k);
+		}
+		double[] contributions = HypervolumeContributions.calculate(points,
+				ref);
+		for (int i = 0; i < contributions.length; i++) {
+			inds.get(i).setResult(contributions[i]);
+		}
+		return contributions;
+	}
+
 	/**
 	 * Calculates the S-Metric contribution of each individual in the given
 	 * list. The results are stored in the individuals "result" attribute.
@@ -661,41 +816,32 @@ public class ParetoPoint implements ObjectivePoint {
 	 * @param inds
 	 *            list to calculate the contribution values for
 	 * @param ref
-	 *            reference point for the HSO alg.
+	 *            reference point or null to use the origin
 	 * @param k
 	 *            objective values to process (first k values are used)
 	 * @param returnMaxContributor
 	 *            return Individual that contributes the most to the S-Metric
 	 *            value of the population. If this is set to false, then the
-	 *            minimum contributor is returned instead.
+	 *            minimum contributor is returned instead. Of several equal
+	 *            contributors the first one is returned.
 	 */
 	public static <P extends ObjectivePoint> P calcSMetricContrib(List<P> inds, double[] ref, int k, boolean returnMaxContibutor) {
 		// Nothing to do?
 		if (inds.size() == 0) {
 			return null;
 		}
-		// Reference must not be null
-		if (ref == null) {
-			ref = new double[k];
-		}
-		// Calculate contribution
-		P result = inds.get(0);
-		double totalVolume = getMaximizationSMetricByHSO(inds, ref, k);
-		for (int i = 0; i < inds.size(); i++) {
-			// Always take first element (will select new individual each time)
-			P ind = inds.remove(0);
-			// Calculate contribution of ind to the totalVolume
-			double subsetVolume  = getMaximizationSMetricByHSO(inds, ref, k);
-			double contribVolume = totalVolume - subsetVolume;
-			ind.setResult(contribVolume);
-			// Add Individual back (append!)
-			inds.add(ind);
-			// Check what to return later
-			if ( (result.getResult() < ind.getResult() && returnMaxContibutor) || (result.getResult() > ind.getResult() && !returnMaxContibutor) ) {
-				result = ind;
+		double[] contributions = calcSMetricContributions(inds, ref, k);
+		// Check what to return
+		int result = 0;
+		for (int i = 1; i < contributions.length; i++) {
+			if ( (contributions[result] < contributions[i]
+					&& returnMaxContibutor)
+					|| (contributions[result] > contributions[i]
+					&& !returnMaxContibutor) ) {
+				result = i;
 			}
 		}
-		return result;
+		return inds.get(result);
 	}
 
 }
@@ -0,0 +1,348 @@
+package com.github.monet.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quality indicators of a pareto front besides the S-Metric. Most of them
+ * compare the front to a reference front, e.g. the best known front of the
+ * problem:
+ * <ul>
+ * <li>IGD: the average Euclidean distance from each reference point to the
+ * closest point of the front.</li>
+ * <li>IGD+: like IGD, but only the part of the difference in which the point
+ * of the front is worse counts (H. Ishibuchi et al., 2015), which makes it
+ * weakly Pareto compliant.</li>
+ * <li>Additive epsilon: the smallest value that has to be subtracted from all
+ * objectives of the front so that it weakly dominates the other front
+ * (E. Zitzler et al., 2003).</li>
+ * <li>Spacing: the standard deviation of the Manhattan distance from each point
+ * to its closest neighbour (J. R. Schott, 1995). Needs no reference front.</li>
+ * <li>Spread: the generalized spread of A. Zhou et al. (2006), which combines
+ * the distance to the extreme points of the reference front with the
+ * deviation of the Euclidean distances to the closest neighbours.</li>
+ * </ul>
+ *
+ * Closest points are found with a {@link KDTree}, so the distances are not
+ * calculated for all pairs of points. All indicators are to be minimized.
+ */
+public class QualityIndicators {
+
+	/**
+	 * Name of the job parameter that selects the indicators calculated after
+	 * a job: a comma separated list of {@link #IGD}, {@link #IGD_PLUS},
+	 * {@link #EPSILON}, {@link #SPACING} and {@link #SPREAD}, or {@link #ALL}.
+	 */
+	public static final String PARAMETER = "indicators";
+
+	/**
+	 * Name of the job parameter of the reference front: the path of a CSV
+	 * file with one point per line or of a {@link FrontFile}, or a list of
+	 * points.
+	 */
+	public static final String REFERENCE_PARAMETER = "reference_front";
+
+	public static final String IGD = "igd";
+	public static final String IGD_PLUS = "igd+";
+	public static final String EPSILON = "epsilon";
+	public static final String SPACING = "spacing";
+	public static final String SPREAD = "spread";
+	public static final String ALL = "all";
+
+	private static final String[] NAMES = { IGD, IGD_PLUS, EPSILON, SPACING,
+			SPREAD };
+	private static final String[] KEYS = { "IGD", "IGDPlus", "Epsilon",
+			"Spacing", "Spread" };
+
+	private QualityIndicators() {
+	}
+
+	/**
+	 * Inverted generational distance of the front to the reference front.
+	 *
+	 * @param front
+	 *            the points to rate, not modified
+	 * @param reference
+	 *            the reference front, not modified
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public static double igd(double[][] front, double[][] reference,
+			boolean minimization) {
+		return QualityIndicators.averageDistance(front, reference, minimization,
+				KDTree.Distance.EUCLIDEAN);
+	}
+
+	/**
+	 * Inverted generational distance plus of the front to the reference
+	 * front.
+	 *
+	 * @see #igd(double[][], double[][], boolean)
+	 */
+	public static double igdPlus(double[][] front, double[][] reference,
+			boolean minimization) {
+		return QualityIndicators.averageDistance(front, reference, minimization,
+				KDTree.Distance.DOMINANCE);
+	}
+
+	/**
+	 * Binary additive epsilon indicator: the smallest epsilon such that every
+	 * point of b is weakly dominated by a point of a moved by epsilon towards
+	 * the ideal point. Negative if a strictly dominates b.
+	 */
+	public static double epsilon(double[][] a, double[][] b,
+			boolean minimization) {
+		KDTree tree = new KDTree(ParetoPoint.toMinimization(a, minimization));
+		double epsilon = Double.NEGATIVE_INFINITY;
+		for (double[] q : ParetoPoint.toMinimization(b, minimization)) {
+			epsilon = Math.max(epsilon,
+					tree.nearestDistance(q, KDTree.Distance.ADDITIVE_EPSILON));
+		}
+		return epsilon;
+	}
+
+	/**
+	 * Unary additive epsilon indicator: the binary indicator of the front and
+	 * the reference front.
+	 *
+	 * @see #epsilon(double[][], double[][], boolean)
+	 */
+	public static double unaryEpsilon(double[][] front, double[][] reference,
+			boolean minimization) {
+		return QualityIndicators.epsilon(front, reference, minimization);
+	}
+
+	/**
+	 * Schott's spacing; 0 for fronts of less than two points.
+	 */
+	public static double spacing(double[][] front, boolean minimization) {
+		if (front.length < 2) {
+			return 0;
+		}
+		double[] distances = QualityIndicators.neighbourDistances(front,
+				minimization, KDTree.Distance.MANHATTAN);
+		double mean = 0;
+		for (double d : distances) {
+			mean += d;
+		}
+		mean /= distances.length;
+		double sum = 0;
+		for (double d : distances) {
+			sum += (d - mean) * (d - mean);
+		}
+		return Math.sqrt(sum / (distances.length - 1));
+	}
+
+	/**
+	 * Generalized spread; 0 for a perfectly even front that contains the
+	 * extreme points of the reference front.
+	 *
+	 * @param reference
+	 *            the reference front whose extreme points are used, null to
+	 *            use the extreme points of the front itself
+	 */
+	public static double spread(double[][] front, double[][] reference,
+			boolean minimization) {
+		if (front.length < 2) {
+			return 0;
+		}
+		double[][] values = ParetoPoint.toMinimization(front, minimization);
+		double[][] extremes = ParetoPoint.toMinimization(
+				(reference == null) ? front : reference, minimization);
+		int k = values[0].length;
+
+		// the worst point of the reference in each objective is the end of
+		// the front where the other objectives are best
+		KDTree tree = new KDTree(values);
+		double extremeDistances = 0;
+		for (int d = 0; d < k; d++) {
+			double[] extreme = extremes[0];
+			for (double[] p : extremes) {
+				if (p[d] > extreme[d]) {
+					extreme = p;
+				}
+			}
+			extremeDistances += tree.nearestDistance(extreme,
+					KDTree.Distance.EUCLIDEAN);
+		}
+
+		double[] distances = QualityIndicators.neighbourDistances(front,
+				minimization, KDTree.Distance.EUCLIDEAN);
+		double mean = 0;
+		for (double d : distances) {
+			mean += d;
+		}
+		mean /= distances.length;
+		double deviation = 0;
+		for (double d : distances) {
+			deviation += Math.abs(d - mean);
+		}
+		double denominator = extremeDistances + distances.length * mean;
+		return (denominator > 0) ? (extremeDistances + deviation) / denominator
+				: 0;
+	}
+
+	/**
+	 * Calculates the indicators selected by the job parameters, see
+	 * {@link #PARAMETER} and {@link #REFERENCE_PARAMETER}.
+	 *
+	 * @param parameters
+	 *            the job parameters
+	 * @param front
+	 *            the measured pareto front, not empty
+	 * @param minimization
+	 *            true if smaller values are better
+	 * @return the value of each selected indicator by its measurement key
+	 *         (IGD, IGDPlus, Epsilon, Spacing, Spread); empty if none is
+	 *         selected
+	 * @throws IllegalArgumentException
+	 *             if an indicator is unknown or the reference front is needed
+	 *             but missing or can't be read
+	 */
+	public static Map<String, Double> forParameters(
+			Map<String, Object> parameters, List<double[]> front,
+			boolean minimization) {
+		return QualityIndicators.forParameters(parameters, front, null,
+				minimization);
+	}
+
+	/**
+	 * Like {@link #forParameters(Map, List, boolean)}, but with a reference
+	 * front that has been loaded already, e.g. the one the controlserver
+	 * builds from all fronts of an experiment (see
+	 * {@link ReferenceFrontBuilder#read(java.io.InputStream)}).
+	 *
+	 * @param reference
+	 *            the reference front, not modified; null to read it from
+	 *            {@link #REFERENCE_PARAMETER}
+	 */
+	public static Map<String, Double> forParameters(
+			Map<String, Object> parameters, List<double[]> front,
+			double[][] reference, boolean minimization) {
+		Map<String, Double> result = new LinkedHashMap<String, Double>();
+		Object selection = parameters.get(PARAMETER);
+		if (selection == null || selection.toString().trim().isEmpty()) {
+			return result;
+		}
+		boolean[] selected = new boolean[NAMES.length];
+		for (String name : selection.toString().split(",")) {
+			name = name.trim().toLowerCase();
+			boolean known = name.equals(ALL);
+			for (int i = 0; i < NAMES.length; i++) {
+				if (name.equals(ALL) || name.equals(NAMES[i])) {
+					selected[i] = true;
+					known = true;
+				}
+			}
+			if (!known) {
+				throw new IllegalArgumentException("unknown quality indicator: "
+						+ name);
+			}
+		}
+
+		double[][] points = front.toArray(new double[front.size()][]);
+		if (reference != null && reference.length == 0) {
+			throw new IllegalArgumentException("the reference front is empty");
+		}
+		if (reference == null && (selected[0] || selected[1] || selected[2]
+				|| parameters.get(REFERENCE_PARAMETER) != null)) {
+			reference = QualityIndicators.readReference(
+					parameters.get(REFERENCE_PARAMETER));
+		}
+		for (int i = 0; i < NAMES.length; i++) {
+			if (!selected[i]) {
+				continue;
+			}
+			double value;
+			if (NAMES[i].equals(IGD)) {
+				value = QualityIndicators.igd(points, reference, minimization);
+			} else if (NAMES[i].equals(IGD_PLUS)) {
+				value = QualityIndicators.igdPlus(points, reference,
+						minimization);
+			} else if (NAMES[i].equals(EPSILON)) {
+				value = QualityIndicators.unaryEpsilon(points, reference,
+						minimization);
+			} else if (NAMES[i].equals(SPACING)) {
+				value = QualityIndicators.spacing(points, minimization);
+			} else {
+				value = QualityIndicators.spread(points, reference,
+						minimization);
+			}
+			result.put(KEYS[i], value);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the reference front from a job parameter: a path of a CSV file or
+	 * a {@link FrontFile}, or a list of points, each a list of numbers.
+	 */
+	static double[][] readReference(Object value) {
+		if (value == null) {
+			throw new IllegalArgumentException("the quality indicators need a "
+					+ REFERENCE_PARAMETER);
+		}
+		List<double[]> points = new ArrayList<double[]>();
+		if (value instanceof List) {
+			for (Object point : (List<?>) value) {
+				if (!(point instanceof List)) {
+					throw new IllegalArgumentException(
+							"malformed point of the reference front: " + point);
+				}
+				List<?> coordinates = (List<?>) point;
+				double[] p = new double[coordinates.size()];
+				for (int d = 0; d < p.length; d++) {
+					p[d] = ((Number) coordinates.get(d)).doubleValue();
+				}
+				points.add(p);
+			}
+		} else {
+			try {
+				points = FrontFile.readPoints(new File(value.toString()));
+			} catch (IOException | NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"can't read the reference front " + value + ": "
+						+ e.getMessage(), e);
+			}
+		}
+		if (points.isEmpty()) {
+			throw new IllegalArgumentException("the reference front is empty");
+		}
+		return points.toArray(new double[points.size()][]);
+	}
+
+	/**
+	 * Average distance from the reference points to their closest point of
+	 * the front.
+	 */
+	private static double averageDistance(double[][] front,
+			double[][] reference, boolean minimization,
+			KDTree.Distance distance) {
+		KDTree tree = new KDTree(ParetoPoint.toMinimization(front,
+				minimization));
+		double sum = 0;
+		for (double[] q : ParetoPoint.toMinimization(reference, minimization)) {
+			sum += tree.nearestDistance(q, distance);
+		}
+		return sum / reference.length;
+	}
+
+	/**
+	 * Distance of each point to its closest neighbour in the front.
+	 */
+	private static double[] neighbourDistances(double[][] front,
+			boolean minimization, KDTree.Distance distance) {
+		double[][] values = ParetoPoint.toMinimization(front, minimization);
+		KDTree tree = new KDTree(values);
+		double[] distances = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			distances[i] = tree.nearestDistance(values[i], distance, i);
+		}
+		return distances;
+	}
+
+}
@@ -0,0 +1,286 @@
+package com.github.monet.common;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Merges pareto fronts, e.g. of all jobs of an experiment, into the front of
+ * their union: the best known front, used as reference front by
+ * {@link QualityIndicators} and for plots.
+ *
+ * Fronts are merged one after another, so only the merged front and the
+ * current one have to be held in memory. For two objectives the merged front
+ * is kept sorted and a new front is merged in by sorting it and walking
+ * through both fronts once. For more objectives the points are added to an
+ * {@link NDTreeArchive}. Builders can be merged as well, so several threads
+ * can each merge a part of the fronts.
+ *
+ * Points that are equal to or weakly dominated by another point are dropped.
+ * The resulting front is sorted lexicographically (in the minimized values),
+ * so it does not depend on the order in which the fronts were merged.
+ */
+public class ReferenceFrontBuilder {
+
+	/**
+	 * Version of the binary format of {@link #write(double[][], OutputStream)}.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final Comparator<double[]> LEXICOGRAPHIC =
+			new Comparator<double[]>() {
+		@Override
+		public int compare(double[] a, double[] b) {
+			for (int d = 0; d < a.length; d++) {
+				int c = Double.compare(a[d], b[d]);
+				if (c != 0) {
+					return c;
+				}
+			}
+			return 0;
+		}
+	};
+
+	private final boolean minimization;
+	private int k = 0;
+	private int fronts = 0;
+	/** the merged front of two objectives, sorted lexicographically */
+	private double[][] sorted = new double[0][];
+	/** the merged front of more objectives */
+	private NDTreeArchive<Void> archive = null;
+
+	/**
+	 * @param minimization
+	 *            true if smaller values are better
+	 */
+	public ReferenceFrontBuilder(boolean minimization) {
+		this.minimization = minimization;
+	}
+
+	/**
+	 * Merges a front into the reference front. The front does not have to be
+	 * non-dominated.
+	 *
+	 * @param front
+	 *            points of the same dimension as all fronts before, not
+	 *            modified
+	 * @throws IllegalArgumentException
+	 *             if the dimension differs from the fronts before
+	 */
+	public synchronized void merge(List<double[]> front) {
+		if (front.isEmpty()) {
+			return;
+		}
+		double[][] values = new double[front.size()][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = ParetoPoint.toMinimization(front.get(i),
+					this.minimization);
+		}
+		this.mergeMinimized(values);
+		this.fronts++;
+	}
+
+	/**
+	 * Merges the reference front of another builder into this one.
+	 */
+	public void merge(ReferenceFrontBuilder other) {
+		double[][] values;
+		int fronts;
+		synchronized (other) {
+			if (other.k == 0) {
+				return;
+			}
+			values = other.getMinimized();
+			fronts = other.fronts;
+		}
+		synchronized (this) {
+			this.mergeMinimized(values);
+			this.fronts += fronts;
+		}
+	}
+
+	/**
+	 * @return the number of fronts merged, including those of merged builders
+	 */
+	public synchronized int getMergedFronts() {
+		return this.fronts;
+	}
+
+	/**
+	 * @return the number of points of the reference front
+	 */
+	public synchronized int size() {
+		return (this.archive != null) ? this.archive.size()
+				: this.sorted.length;
+	}
+
+	/**
+	 * @return the number of objectives, 0 if nothing has been merged yet
+	 */
+	public synchronized int getDimension() {
+		return this.k;
+	}
+
+	/**
+	 * @return a copy of the reference front, sorted lexicographically in the
+	 *         minimized values
+	 */
+	public synchronized double[][] getFront() {
+		double[][] front = this.getMinimized();
+		for (int i = 0; i < front.length; i++) {
+			front[i] = ParetoPoint.toMinimization(front[i], this.minimization);
+		}
+		return front;
+	}
+
+	/**
+	 * A rejected front leaves the builder unchanged, so the first front only
+	 * fixes the dimension once all its points have been checked.
+	 */
+	private void mergeMinimized(double[][] values) {
+		int k = (this.k == 0) ? values[0].length : this.k;
+		for (double[] p : values) {
+			if (p.length != k) {
+				throw new IllegalArgumentException("the front has " + p.length
+						+ " objectives, expected " + k);
+			}
+		}
+		if (this.k == 0) {
+			this.k = k;
+			if (k > 2) {
+				this.archive = new NDTreeArchive<Void>(true);
+			}
+		}
+		if (this.archive != null) {
+			for (double[] p : values) {
+				this.archive.add(p, null);
+			}
+		} else {
+			Arrays.sort(values, LEXICOGRAPHIC);
+			this.sorted = ReferenceFrontBuilder.mergeSorted(this.sorted,
+					values);
+		}
+	}
+
+	/**
+	 * Merges two lexicographically sorted lists of points of up to two
+	 * objectives. In this order a point is non-dominated iff its last value
+	 * is smaller than that of all points before it.
+	 */
+	private static double[][] mergeSorted(double[][] a, double[][] b) {
+		double[][] result = new double[a.length + b.length][];
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		double min = Double.POSITIVE_INFINITY;
+		while (i < a.length || j < b.length) {
+			double[] p;
+			if (j == b.length
+					|| (i < a.length
+					&& LEXICOGRAPHIC.compare(a[i], b[j]) <= 0)) {
+				p = a[i++];
+			} else {
+				p = b[j++];
+			}
+			double last = p[p.length - 1];
+			if (last < min) {
+				result[n++] = p;
+				min = last;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * @return the minimized points, sorted lexicographically
+	 */
+	private double[][] getMinimized() {
+		if (this.archive == null) {
+			double[][] copy = new double[this.sorted.length][];
+			for (int i = 0; i < copy.length; i++) {
+				copy[i] = this.sorted[i].clone();
+			}
+			return copy;
+		}
+		List<Tuple<double[], Void>> entries = this.archive.getEntries();
+		double[][] points = new double[entries.size()][];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = entries.get(i).getFirst().clone();
+		}
+		Arrays.sort(points, LEXICOGRAPHIC);
+		return points;
+	}
+
+	// ########################################################################
+	// STORAGE
+	// ########################################################################
+
+	/**
+	 * Writes a front in a compact binary format: the format version, the
+	 * number of objectives and of points as ints, followed by all values as
+	 * doubles, point by point.
+	 *
+	 * @param front
+	 *            points of the same dimension
+	 * @param out
+	 *            the stream to write to, not closed
+	 */
+	public static void write(double[][] front, OutputStream out)
+			throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		int k = (front.length == 0) ? 0 : front[0].length;
+		data.writeInt(FORMAT_VERSION);
+		data.writeInt(k);
+		data.writeInt(front.length);
+		for (double[] p : front) {
+			for (int d = 0; d < k; d++) {
+				data.writeDouble(p[d]);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads a front written by {@link #write(double[][], OutputStream)}.
+	 *
+	 * @param in
+	 *            the stream to read from, not closed
+	 * @return the points of the front
+	 * @throws IOException
+	 *             if the stream can't be read or has an unknown format
+	 */
+	public static double[][] read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		int version = data.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("unknown reference front format " + version);
+		}
+		int k = data.readInt();
+		int n = data.readInt();
+		if (k < 0 || n < 0) {
+			throw new IOException("malformed reference front");
+		}
+		double[][] front = new double[n][k];
+		for (int i = 0; i < n; i++) {
+			for (int d = 0; d < k; d++) {
+				front[i][d] = data.readDouble();
+			}
+		}
+		return front;
+	}
+
+	/**
+	 * @return the points of the front as a list, e.g. for
+	 *         {@link #merge(List)}
+	 */
+	public static List<double[]> asList(double[][] front) {
+		return new ArrayList<double[]>(Arrays.asList(front));
+	}
+
+}
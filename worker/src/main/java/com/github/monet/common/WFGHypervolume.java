@@ -0,0 +1,203 @@
+package com.github.monet.common;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Exact hypervolume for four and more objectives following the WFG algorithm
+ * of L. While, L. Bradstreet and L. Barone, "A Fast Way of Calculating Exact
+ * Hypervolumes", 2012.
+ *
+ * The points are sorted decreasingly by their last objective. The exclusive
+ * hypervolume of each point with respect to all points before it is the
+ * volume of its own box minus the hypervolume of the points before it, bounded
+ * ("limited") by the point. Since all points before it are at least as good in
+ * the last objective, the bounded points share the last objective of the point
+ * and the problem shrinks by one dimension. Bounded points that are dominated
+ * are pruned before recursing, which usually leaves very small sets. Three
+ * objective subproblems are solved by {@link Hypervolume3D}, two objective
+ * subproblems by {@link Hypervolume2D}.
+ *
+ * Points that do not dominate the reference point do not contribute.
+ *
+ * !!! A _MAXIMIZATION_ PROBLEM IS ASSERTED !!!
+ */
+public class WFGHypervolume implements HypervolumeCalculator {
+
+	private final HypervolumeCalculator hypervolume2D = new Hypervolume2D();
+	private final HypervolumeCalculator hypervolume3D = new Hypervolume3D();
+
+	@Override
+	public double calculate(double[][] points, double[] ref) {
+		if (points.length == 0) {
+			return 0;
+		}
+		int k = points[0].length;
+		if (ref == null) {
+			ref = new double[k];
+		}
+		double[][] relevant = new double[points.length][];
+		int n = 0;
+		for (double[] p : points) {
+			if (dominatesReference(p, ref, k)) {
+				relevant[n++] = p;
+			}
+		}
+		n = WFGHypervolume.removeDominated(relevant, n, k);
+		return this.hypervolume(relevant, n, ref, k);
+	}
+
+	/**
+	 * Hypervolume of the first n points of the array in the first k
+	 * objectives. The points must be mutually non-dominated.
+	 */
+	double hypervolume(double[][] points, int n, double[] ref, int k) {
+		if (n == 0) {
+			return 0;
+		}
+		if (n == 1) {
+			return WFGHypervolume.inclusiveHypervolume(points[0], ref, k);
+		}
+		if (k == 2) {
+			return this.hypervolume2D.calculate(Arrays.copyOf(points, n), ref);
+		}
+		if (k == 3) {
+			return this.hypervolume3D.calculate(Arrays.copyOf(points, n), ref);
+		}
+		Arrays.sort(points, 0, n, new ByObjectiveDescending(k - 1));
+		double volume = 0;
+		for (int i = 0; i < n; i++) {
+			volume += this.exclusiveSliceVolume(points, i, ref, k)
+					* (points[i][k - 1] - ref[k - 1]);
+		}
+		return volume;
+	}
+
+	/**
+	 * The (k-1)-dimensional exclusive hypervolume of point i with respect to
+	 * the points 0..i-1. The points have to be sorted decreasingly by
+	 * objective k-1.
+	 */
+	double exclusiveSliceVolume(double[][] points, int i, double[] ref, int k) {
+		double[] p = points[i];
+		double volume = WFGHypervolume.inclusiveHypervolume(p, ref, k - 1);
+		if (i == 0) {
+			return volume;
+		}
+		double[][] limited = WFGHypervolume.limitSet(points, 0, i, p, k - 1);
+		int m = WFGHypervolume.removeDominated(limited, limited.length, k - 1);
+		return volume - this.hypervolume(limited, m, ref, k - 1);
+	}
+
+	/**
+	 * Volume of the box spanned by the point and the reference point in the
+	 * first k objectives.
+	 */
+	static double inclusiveHypervolume(double[] p, double[] ref, int k) {
+		double volume = 1;
+		for (int j = 0; j < k; j++) {
+			volume *= p[j] - ref[j];
+		}
+		return volume;
+	}
+
+	/**
+	 * Returns the points from..to-1, each bounded by the given point, i.e.
+	 * the worse value of both in each of the first k objectives.
+	 */
+	static double[][] limitSet(double[][] points, int from, int to,
+			double[] bound, int k) {
+		double[][] limited = new double[to - from][];
+		for (int j = from; j < to; j++) {
+			double[] q = points[j];
+			double[] l = new double[k];
+			for (int d = 0; d < k; d++) {
+				l[d] = Math.min(q[d], bound[d]);
+			}
+			limited[j - from] = l;
+		}
+		return limited;
+	}
+
+	/**
+	 * Moves all points that are not weakly dominated by another point of the
+	 * first n points to the front of the array. Duplicates are kept once.
+	 *
+	 * @return the number of remaining points
+	 */
+	static int removeDominated(double[][] points, int n, int k) {
+		// after a lexicographically decreasing sort, no point can be
+		// dominated by a point behind it
+		Arrays.sort(points, 0, n, new Lexicographic(k));
+		int kept = 0;
+		for (int i = 0; i < n; i++) {
+			double[] p = points[i];
+			boolean dominated = false;
+			for (int j = 0; j < kept && !dominated; j++) {
+				dominated = WFGHypervolume.weaklyDominates(points[j], p, k);
+			}
+			if (!dominated) {
+				points[kept++] = p;
+			}
+		}
+		return kept;
+	}
+
+	private static boolean weaklyDominates(double[] first, double[] second,
+			int k) {
+		for (int d = 0; d < k; d++) {
+			if (first[d] < second[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean dominatesReference(double[] p, double[] ref, int k) {
+		for (int d = 0; d < k; d++) {
+			if (p[d] <= ref[d]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Orders points decreasingly by one objective.
+	 */
+	static class ByObjectiveDescending implements Comparator<double[]> {
+		private final int objective;
+
+		ByObjectiveDescending(int objective) {
+			this.objective = objective;
+		}
+
+		@Override
+		public int compare(double[] a, double[] b) {
+			return Double.compare(b[this.objective], a[this.objective]);
+		}
+	}
+
+	/**
+	 * Orders points lexicographically decreasing in the first k objectives.
+	 */
+	static class Lexicographic implements Comparator<double[]> {
+		private final int k;
+
+		Lexicographic(int k) {
+			this.k = k;
+		}
+
+		@Override
+		public int compare(double[] a, double[] b) {
+			for (int d = 0; d < this.k; d++) {
+				int c = Double.compare(b[d], a[d]);
+				if (c != 0) {
+					return c;
+				}
+			}
+			return 0;
+		}
+	}
+
+}
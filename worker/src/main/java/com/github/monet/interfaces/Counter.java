@@ -0,0 +1,32 @@
+/*
+ * This interface is too trivial to license.
+ */
+package com.github.monet.interfaces;
+
+/**
+ * A single long value at one path that is counted up, e.g. the number of
+ * evaluations of an algorithm. Obtained once with
+ * {@link Meter#counter(String)}; only the final value is saved.
+ *
+ * @see DoubleSeries, LongSeries
+ */
+public interface Counter {
+
+	/**
+	 * Adds one.
+	 */
+	public void increment();
+
+	/**
+	 * Adds a value, which may be negative.
+	 */
+	public void add(long value);
+
+	/**
+	 * Returns the current value.
+	 *
+	 * @return the current value
+	 */
+	public long get();
+
+}
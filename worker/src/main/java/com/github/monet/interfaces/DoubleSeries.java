@@ -0,0 +1,28 @@
+/*
+ * This interface is too trivial to license.
+ */
+package com.github.monet.interfaces;
+
+/**
+ * A list of double values measured at one path, e.g. one value per
+ * iteration of an algorithm. Obtained once with
+ * {@link Meter#doubleSeries(String)}; adding a value neither boxes it nor
+ * resolves the path again.
+ *
+ * @see LongSeries, Counter
+ */
+public interface DoubleSeries {
+
+	/**
+	 * Appends a value.
+	 */
+	public void add(double value);
+
+	/**
+	 * Returns the number of values added.
+	 *
+	 * @return the number of values
+	 */
+	public int size();
+
+}
@@ -0,0 +1,26 @@
+/*
+ * This interface is too trivial to license.
+ */
+package com.github.monet.interfaces;
+
+/**
+ * A list of long values measured at one path, like {@link DoubleSeries}.
+ * Obtained once with {@link Meter#longSeries(String)}.
+ *
+ * @see DoubleSeries, Counter
+ */
+public interface LongSeries {
+
+	/**
+	 * Appends a value.
+	 */
+	public void add(long value);
+
+	/**
+	 * Returns the number of values added.
+	 *
+	 * @return the number of values
+	 */
+	public int size();
+
+}
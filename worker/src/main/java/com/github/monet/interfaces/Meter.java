@@ -25,6 +25,14 @@ import java.util.Collection;
 import java.util.List;
 
 import com.github.monet.aggregators.Aggregator;
+import com.github.monet.aggregators.DoubleAggregator;
+import com.github.monet.aggregators.IntAggregator;
+import com.github.monet.aggregators.LongAggregator;
+import com.github.monet.common.BoundedParetoArchive;
+import com.github.monet.common.DBCollections;
+import com.github.monet.common.EdgeSets;
+import com.github.monet.common.HypervolumeTracker;
+import com.github.monet.common.ParetoArchive;
 import com.github.monet.worker.Experimentor;
 
 /**
@@ -56,6 +64,11 @@ import com.github.monet.worker.Experimentor;
  * </code>
  * </pre>
  *
+ * Values measured very often, e.g. in every iteration of an algorithm, should
+ * be measured through the handles returned by {@link #doubleSeries(String)},
+ * {@link #longSeries(String)} and {@link #counter(String)}, which resolve the
+ * path once and keep the values unboxed.
+ *
  * <h2>Conventions and reserved paths</h2> In general all keys in all CAPS have
  * some kind of special purpose. This usually means the are interpreted by the
  * gui or the analysator in some way.
@@ -83,8 +96,27 @@ import com.github.monet.worker.Experimentor;
  * identified.</li>
  * <li><code>PLATFORM_HASH</code> - SHA256-Hash of <code>RAM</code>,
  * <code>CPU</code>, <code>CPU_NAME</code>, <code>OS</code>, <code>KERNEL</code>, <code>MONET_VERSION</code></li>
+ * <li><code>SPILLED_CHUNKS</code> - only present if parts of the measured
+ * data were spilled while the algorithm was running: the number of chunks,
+ * see {@link DBCollections#MEASURED_CHUNKS}</li>
  * <li><code>EXCEPTION</code> - usually <code>null</code> or the message of an
  * exception encountered during the execution of an algorithm</li>
+ * <li><code>SMetric</code> - the S-Metric (hypervolume) of the measured pareto
+ * front</li>
+ * <li><code>SMetricApproximation</code> - only present if the S-Metric was
+ * approximated by sampling: the confidence interval (<code>lower</code>,
+ * <code>upper</code>, <code>confidence</code>) and the <code>samples</code>
+ * and <code>seed</code> used</li>
+ * <li><code>paretoFront/truncation</code> - only present if the pareto front
+ * was measured with a {@link BoundedParetoArchive}: how the front was thinned
+ * (see {@link BoundedParetoArchive#getTruncationStatistics()})</li>
+ * <li><code>paretoFront/hypervolume</code> - only present if the pareto
+ * front was measured with a {@link HypervolumeTracker}: the
+ * <code>volume</code> of the front and its <code>reference</code> point</li>
+ * <li><code>paretoFront/edgeSets</code> and
+ * <code>paretoFront/edgeDictionary</code> - only present if edges were
+ * measured with the points: the edges of each solution encoded as in
+ * {@link EdgeSets}, and all edges in the order of their ids</li>
  * </ul>
  *
  *
@@ -136,11 +168,31 @@ public interface Meter {
 	 */
 	public abstract void send();
 
+	/**
+	 * Marks a point at which the values measured so far are complete, e.g.
+	 * the end of a generation: no list element measured so far is changed
+	 * through "<code>#n</code>" afterwards and series measured side by side
+	 * have the same length. Optional.
+	 *
+	 * A meter that spills its data while the algorithm is running may start a
+	 * new chunk at such a point, besides those it finds by itself, otherwise
+	 * nothing happens.
+	 */
+	public abstract void checkpoint();
+
 	/**
 	 * Add an aggregator to be used with a path. Whenever you measure using the
 	 * same path, the aggregator will be used. Note that you should you use the
 	 * right measure type to match up with the type of the aggregator.
 	 *
+	 * Aggregators that implement {@link DoubleAggregator},
+	 * {@link LongAggregator} or {@link IntAggregator} get the values of the
+	 * primitive measure methods without boxing. An int value is passed to an
+	 * {@link IntAggregator}, {@link LongAggregator} or {@link DoubleAggregator}
+	 * and a long value to a {@link LongAggregator} or {@link DoubleAggregator},
+	 * whichever the aggregator implements first; all other values are passed
+	 * to {@link Aggregator#aggregate(Object)}.
+	 *
 	 * @param path
 	 * @param agg
 	 * @see Aggregator
@@ -237,6 +289,71 @@ public interface Meter {
 	 */
 	public abstract void measureDouble(String path, double[] arr);
 
+	/**
+	 * Returns a handle to measure a list of double values at the given
+	 * <code>path</code>, which has to contain exactly one "<code>#</code>"
+	 * without an index, e.g. <code>"gen/#/hv"</code>. The n-th value added is
+	 * saved at the n-th element of the list (<code>"gen/#n/hv"</code>), so
+	 * several series with the same list, like <code>"gen/#/hv"</code> and
+	 * <code>"gen/#/evals"</code>, fill the same elements. If the path ends
+	 * with "<code>#</code>" the values are appended to the list instead.
+	 *
+	 * The path is resolved once and the values are kept in a primitive array
+	 * until the data is sent, so measuring a value in a loop costs no more
+	 * than storing it. Calling this method again with the same path returns
+	 * the same handle. If an aggregator was added for the path before, the
+	 * values are passed to it instead.
+	 *
+	 * @param path
+	 *            where the values are to be saved
+	 * @return the handle to add values with
+	 * @throws IllegalArgumentException
+	 *             if the path has no or more than one "<code>#</code>" or an
+	 *             index
+	 */
+	public abstract DoubleSeries doubleSeries(String path);
+
+	/**
+	 * Returns a handle to measure a list of long values at the given
+	 * <code>path</code>, like {@link #doubleSeries(String)}.
+	 *
+	 * @param path
+	 *            where the values are to be saved
+	 * @return the handle to add values with
+	 */
+	public abstract LongSeries longSeries(String path);
+
+	/**
+	 * Returns a counter whose value is saved at the given <code>path</code>
+	 * when the data is sent. Counting neither boxes the value nor resolves
+	 * the path again. Calling this method again with the same path returns
+	 * the same counter.
+	 *
+	 * @param path
+	 *            where the final value is to be saved
+	 * @return the counter
+	 */
+	public abstract Counter counter(String path);
+
+	/**
+	 * Returns a timer whose elapsed times are recorded in a histogram with a
+	 * relative error of less than 1%, instead of saving every time like
+	 * {@link #stopTimer(String)}. When the data is sent, the number of times
+	 * and their sum, median, 90th and 99th percentile and maximum are saved
+	 * in nanoseconds below the given <code>path</code>, at
+	 * <code>count</code>, <code>sum</code>, <code>p50</code>,
+	 * <code>p90</code>, <code>p99</code> and <code>max</code>.
+	 *
+	 * Calling this method again with the same path returns the same timer.
+	 * Once there is a timer for a path, {@link #stopTimer(String)} with the
+	 * same path records the elapsed time in its histogram as well.
+	 *
+	 * @param path
+	 *            where the statistics of the times are to be saved
+	 * @return the timer
+	 */
+	public abstract Timer timer(String path);
+
 	/**
 	 * Saves the measured String value at the given <code>path</code>.
 	 *
@@ -249,18 +366,43 @@ public interface Meter {
 
 	/**
 	 * Measure a single value on a pareto front. Note that no checks are made
-	 * whether the point dominates any other measured points.
+	 * whether the point dominates any other measured points, unless a
+	 * {@link ParetoArchive} has been set with
+	 * {@link #setParetoArchive(ParetoArchive)}.
 	 *
 	 * @param point
 	 *            array of dimensions of a single point in the pareto front
 	 * @param edges
 	 *            collection of edges that are included in that solution
 	 *            resulting in the point on the pareto front or null, if
-	 *            measuring this isn't relevant
+	 *            measuring this isn't relevant; stored as a set, see
+	 *            {@link EdgeSets}
 	 *
 	 */
 	public abstract void measurePareto(double[] point, Collection<String> edges);
 
+	/**
+	 * Filters the measured pareto front with the given archive: a point given
+	 * to {@link #measurePareto(double[], Collection)} is only kept if no other
+	 * measured point weakly dominates it, and the points dominated by it are
+	 * dropped. Since the S-Metric of the pareto front is calculated for a
+	 * minimization problem the archive should minimize as well, e.g.
+	 * <code>new NDTreeArchive&lt;Collection&lt;String&gt;&gt;(true)</code>.
+	 * A {@link BoundedParetoArchive} keeps the front small but only a
+	 * representative subset of it; its truncation statistics are saved at
+	 * <code>paretoFront/truncation</code>. Wrapped in a
+	 * {@link HypervolumeTracker} the hypervolume of the front is kept up to
+	 * date while points are measured and saved at
+	 * <code>paretoFront/hypervolume</code>.
+	 *
+	 * Has to be called before the first point is measured.
+	 *
+	 * @param archive
+	 *            the archive to use or null to keep all measured points
+	 */
+	public abstract void setParetoArchive(
+			ParetoArchive<Collection<String>> archive);
+
 	/**
 	 * Returns the pareto front that has been measured.
 	 *
@@ -281,7 +423,8 @@ public interface Meter {
 
 	/**
 	 * Stops the timer at the given <code>path</code> and records the elapsed
-	 * time.
+	 * time; in the histogram of the timer with the same path, if one was
+	 * returned by {@link #timer(String)}.
 	 *
 	 * If there was not corresponding call of {@link #startTimer(String)}
 	 * nothing happens.
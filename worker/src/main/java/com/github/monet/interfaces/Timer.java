@@ -0,0 +1,35 @@
+/*
+ * This interface is too trivial to license.
+ */
+package com.github.monet.interfaces;
+
+/**
+ * Times a section of an algorithm that runs many times. Obtained once with
+ * {@link Meter#timer(String)}; the elapsed times are kept in a histogram and
+ * only their number, sum and some percentiles are saved.
+ *
+ * @see Counter
+ */
+public interface Timer {
+
+	/**
+	 * Starts timing, a running time is started again.
+	 */
+	public void start();
+
+	/**
+	 * Stops timing and records the elapsed time.
+	 *
+	 * @return the elapsed time in nanoseconds or -1 if the timer wasn't
+	 *         started; then nothing is recorded
+	 */
+	public long stop();
+
+	/**
+	 * Returns the number of recorded times.
+	 *
+	 * @return the number of recorded times
+	 */
+	public long getCount();
+
+}
@@ -0,0 +1,551 @@
+package com.github.monet.worker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.github.monet.aggregators.Aggregator;
+import com.github.monet.aggregators.DoubleAggregator;
+import com.github.monet.aggregators.IntAggregator;
+import com.github.monet.aggregators.LongAggregator;
+import com.github.monet.aggregators.MergeableAggregator;
+import com.github.monet.common.DBCollections;
+import com.github.monet.common.EdgeSets;
+import com.github.monet.common.MongoBuilder;
+import com.github.monet.common.ParetoArchive;
+import com.github.monet.common.Tuple;
+import com.github.monet.interfaces.Counter;
+import com.github.monet.interfaces.DoubleSeries;
+import com.github.monet.interfaces.LongSeries;
+import com.github.monet.interfaces.MeasurementStream;
+import com.github.monet.interfaces.Meter;
+import com.github.monet.interfaces.Timer;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+
+/**
+ * A {@link MongoMeter} for algorithms that measure from several threads, e.g.
+ * a parallel evolutionary algorithm. It is used instead of a
+ * {@link MongoMeter} if the parameter {@link #PARAMETER} of the job is true.
+ *
+ * <p>
+ * Every thread measures into its own buffer, which is a {@link MongoMeter}
+ * without database, so measuring needs no locks. Timers, series, counters
+ * and timer handles belong to the thread that started or requested them; a
+ * thread has to request its own handles. When the data is sent, after all
+ * threads are done measuring, the documents of the threads are merged one
+ * after another with {@link MongoBuilder#merge(Map, Map)}, ordered by the
+ * name of their thread and, for threads of the same name, by their first
+ * measurement:
+ * </p>
+ * <ul>
+ * <li>the lists of the threads are concatenated, so an index like
+ * "<code>#3</code>" refers to the part of the list of the thread,</li>
+ * <li>maps are merged key by key,</li>
+ * <li>other values of later threads replace those of earlier ones,</li>
+ * <li>counters are summed up and the histograms of timers merged.</li>
+ * </ul>
+ * <p>
+ * Each thread aggregates into its own copy of an added
+ * {@link MergeableAggregator}, and the copies are merged into the added
+ * aggregator before its value is saved. Other aggregators are shared by all
+ * threads and locked for every value.
+ * </p>
+ * <p>
+ * Measured pareto points are added to the archive under a lock, if there is
+ * one. Otherwise each thread also keeps a list of its points, which it locks
+ * for every point, so {@link #getParetoFront()} can be called while other
+ * threads are measuring. The {@link MeasurementStream} is shared by all
+ * threads and has to be synchronized by the algorithm.
+ * </p>
+ * <p>
+ * The buffers are released when the data is collected, so threads of a pool
+ * that outlive the job don't keep the measured data. A thread that measures
+ * afterwards gets a new buffer.
+ * </p>
+ *
+ * @see MongoMeter
+ */
+public class ConcurrentMongoMeter implements Meter {
+	private final static Logger log = LogManager
+			.getFormatterLogger(ConcurrentMongoMeter.class);
+
+	/**
+	 * Parameter of a job that selects this meter if it is true or "true".
+	 */
+	public static final String PARAMETER = "concurrent_meter";
+
+	private final DBCollection jobs;
+	private final String jobID;
+	private final MeasurementStream measurementStream;
+	/** the buffer of the current thread */
+	private final ThreadLocal<Buffer> buffer = new ThreadLocal<Buffer>();
+	/** the buffers of all threads in the order of their creation */
+	private final List<Buffer> buffers = new ArrayList<Buffer>();
+	private final ConcurrentMap<String, Aggregator<?>> aggregators =
+			new ConcurrentHashMap<String, Aggregator<?>>();
+	/** dictionary of the edges of the measured pareto front */
+	private final EdgeSets edgeSets = new EdgeSets();
+	private ParetoArchive<Collection<String>> paretoArchive = null;
+	private long startTime;
+	private long runtime = -1;
+
+	/**
+	 * Creates a new meter using a mongo database and the ID of the job.
+	 *
+	 * @param db
+	 *            the mongo db object
+	 * @param jobID
+	 *            the id of the job
+	 */
+	ConcurrentMongoMeter(DB db, String jobID) {
+		this(db.getCollection(DBCollections.JOBS), jobID,
+				ConcurrentMongoMeter.createStream(db, jobID));
+	}
+
+	/**
+	 * @param jobs
+	 *            the collection of the jobs to save the measured data in
+	 * @param jobID
+	 *            the id of the job
+	 * @param measurementStream
+	 *            the stream returned by {@link #getMeasurementStream()}
+	 */
+	ConcurrentMongoMeter(DBCollection jobs, String jobID,
+			MeasurementStream measurementStream) {
+		this.jobs = jobs;
+		this.jobID = jobID;
+		this.measurementStream = measurementStream;
+	}
+
+	private static MeasurementStream createStream(DB db, String jobID) {
+		try {
+			return new MongoMeasurementStream(db, jobID.replaceAll("/", "-"));
+		} catch (IOException e) {
+			log.error(e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param parameters
+	 *            the parameters of a job
+	 * @return true if the job should be measured with this meter, see
+	 *         {@link #PARAMETER}
+	 */
+	public static boolean isSelected(Map<String, Object> parameters) {
+		Object value = parameters.get(PARAMETER);
+		return Boolean.TRUE.equals(value) || "true".equals(value);
+	}
+
+	/**
+	 * @return the buffer of the current thread, which is created when the
+	 *         thread measures for the first time
+	 */
+	private Buffer buffer() {
+		Buffer buffer = this.buffer.get();
+		if (buffer == null || buffer.released) {
+			synchronized (this.buffers) {
+				buffer = new Buffer(Thread.currentThread().getName(),
+						this.buffers.size());
+				this.buffers.add(buffer);
+			}
+			this.buffer.set(buffer);
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return the buffers in the order they are merged in
+	 */
+	private List<Buffer> sortedBuffers() {
+		List<Buffer> sorted;
+		synchronized (this.buffers) {
+			sorted = new ArrayList<Buffer>(this.buffers);
+		}
+		Collections.sort(sorted, new Comparator<Buffer>() {
+			@Override
+			public int compare(Buffer a, Buffer b) {
+				int names = a.thread.compareTo(b.thread);
+				return (names != 0) ? names : Integer.compare(a.index, b.index);
+			}
+		});
+		return sorted;
+	}
+
+	@Override
+	public void startExperiment() {
+		this.startTime = System.nanoTime();
+	}
+
+	@Override
+	public void endExperiment() {
+		if (this.runtime < 0) {
+			this.runtime = System.nanoTime() - this.startTime;
+		}
+	}
+
+	@Override
+	public void send() {
+		MongoMeter.save(this.jobs, this.jobID, this.collect());
+		if (this.measurementStream != null) {
+			this.measurementStream.saveFile();
+		}
+	}
+
+	/**
+	 * Does nothing, the measured data of the threads isn't spilled.
+	 */
+	@Override
+	public void checkpoint() {
+	}
+
+	/**
+	 * Merges the documents of all threads and the values of the aggregators
+	 * into the document that is sent.
+	 *
+	 * @return the measured data
+	 */
+	MongoBuilder collect() {
+		List<Buffer> buffers = this.sortedBuffers();
+		MongoBuilder builder = new MongoBuilder();
+		if (this.runtime >= 0) {
+			builder.insert("RUNTIME", this.runtime);
+		}
+		MeasurementHandles totals = new MeasurementHandles();
+		for (Buffer buffer : buffers) {
+			MeasurementHandles handles = buffer.getHandles();
+			totals.mergeTotals(handles);
+			handles.writeTo(buffer.getBuilder());
+			MongoBuilder.merge(builder, buffer.getBuilder());
+		}
+		totals.writeTo(builder);
+		for (Map.Entry<String, Aggregator<?>> entry
+				: new TreeMap<String, Aggregator<?>>(
+				this.aggregators).entrySet()) {
+			Aggregator<?> agg = entry.getValue();
+			if (agg instanceof MergeableAggregator) {
+				for (Buffer buffer : buffers) {
+					Aggregator<?> stripe = buffer.stripes.get(entry.getKey());
+					if (stripe != null) {
+						ConcurrentMongoMeter.merge(agg, stripe);
+					}
+				}
+			}
+			builder.insert(entry.getKey(), agg.getValue());
+		}
+		MongoMeter.writeParetoFront(builder, this.paretoArchive, this.edgeSets);
+		// the merged document took over the lists and maps of the buffers,
+		// which the thread-locals of the threads would keep alive otherwise
+		for (Buffer buffer : buffers) {
+			buffer.releaseBuffer();
+		}
+		synchronized (this.buffers) {
+			this.buffers.removeAll(buffers);
+		}
+		this.buffer.remove();
+		return builder;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void merge(Aggregator<?> agg, Aggregator<?> stripe) {
+		((MergeableAggregator<Object>) agg)
+				.merge((MergeableAggregator<Object>) stripe);
+	}
+
+	@Override
+	public void addAggregator(String path, Aggregator<Object> agg) {
+		this.aggregators.put(path, agg);
+	}
+
+	@Override
+	public void measureInt(String path, int value) {
+		this.buffer().measureInt(path, value);
+	}
+
+	@Override
+	public void measureInt(String path, int[] arr) {
+		this.buffer().measureInt(path, arr);
+	}
+
+	@Override
+	public void measureInt(String path, Iterable<Integer> val) {
+		this.buffer().measureInt(path, val);
+	}
+
+	@Override
+	public void measureLong(String path, long value) {
+		this.buffer().measureLong(path, value);
+	}
+
+	@Override
+	public void measureLong(String path, Iterable<Long> val) {
+		this.buffer().measureLong(path, val);
+	}
+
+	@Override
+	public void measureLong(String path, long[] values) {
+		this.buffer().measureLong(path, values);
+	}
+
+	@Override
+	public void measureDouble(String path, double value) {
+		this.buffer().measureDouble(path, value);
+	}
+
+	@Override
+	public void measureDouble(String path, Iterable<Double> val) {
+		this.buffer().measureDouble(path, val);
+	}
+
+	@Override
+	public void measureDouble(String path, double[] arr) {
+		this.buffer().measureDouble(path, arr);
+	}
+
+	@Override
+	public void measureString(String path, String value) {
+		this.buffer().measureString(path, value);
+	}
+
+	public void measure(String path, Object value) {
+		this.buffer().measure(path, value);
+	}
+
+	@Override
+	public DoubleSeries doubleSeries(String path) {
+		return this.buffer().doubleSeries(path);
+	}
+
+	@Override
+	public LongSeries longSeries(String path) {
+		return this.buffer().longSeries(path);
+	}
+
+	@Override
+	public Counter counter(String path) {
+		return this.buffer().counter(path);
+	}
+
+	@Override
+	public Timer timer(String path) {
+		return this.buffer().timer(path);
+	}
+
+	@Override
+	public void startTimer(String path) {
+		this.buffer().startTimer(path);
+	}
+
+	@Override
+	public void stopTimer(String path) {
+		this.buffer().stopTimer(path);
+	}
+
+	@Override
+	public void setParetoArchive(ParetoArchive<Collection<String>> archive) {
+		this.paretoArchive = archive;
+	}
+
+	@Override
+	public void measurePareto(double[] point, Collection<String> edges) {
+		if (this.paretoArchive != null) {
+			synchronized (this.paretoArchive) {
+				this.paretoArchive.add(point, edges);
+			}
+			return;
+		}
+		Buffer buffer = this.buffer();
+		synchronized (buffer.paretoPoints) {
+			buffer.paretoPoints.add(point);
+		}
+		buffer.measure("paretoFront/points/#/", point);
+		if (edges != null) {
+			byte[] encoded;
+			synchronized (this.edgeSets) {
+				encoded = this.edgeSets.encode(edges);
+			}
+			buffer.measure("paretoFront/edgeSets/#", encoded);
+		}
+	}
+
+	@Override
+	public List<double[]> getParetoFront() {
+		List<double[]> ret = new ArrayList<>();
+		if (this.paretoArchive != null) {
+			synchronized (this.paretoArchive) {
+				MongoMeter.truncate(this.paretoArchive);
+				for (Tuple<double[],
+						Collection<String>> entry : this.paretoArchive
+						.getEntries()) {
+					ret.add(entry.getFirst().clone());
+				}
+			}
+		} else {
+			for (Buffer buffer : this.sortedBuffers()) {
+				synchronized (buffer.paretoPoints) {
+					for (double[] point : buffer.paretoPoints) {
+						ret.add(point.clone());
+					}
+				}
+			}
+		}
+		return ret.isEmpty() ? null : ret;
+	}
+
+	@Override
+	public MeasurementStream getMeasurementStream() {
+		return this.measurementStream;
+	}
+
+	/**
+	 * The measurements of one thread.
+	 */
+	private class Buffer extends MongoMeter {
+		/** name of the thread */
+		final String thread;
+		/** number of the buffer in the order of creation */
+		final int index;
+		/** the copies of the aggregators used by the thread */
+		final Map<String, Aggregator<?>> stripes =
+				new HashMap<String, Aggregator<?>>();
+		/** the measured pareto points, locked for reading by other threads */
+		final List<double[]> paretoPoints = new ArrayList<double[]>();
+		/** true after the data has been collected */
+		volatile boolean released = false;
+
+		Buffer(String thread, int index) {
+			this.thread = thread;
+			this.index = index;
+		}
+
+		@Override
+		Aggregator<?> getAggregator(String path) {
+			Aggregator<?> stripe = this.stripes.get(path);
+			if (stripe == null
+					&& !ConcurrentMongoMeter.this.aggregators.isEmpty()) {
+				Aggregator<?> agg = ConcurrentMongoMeter.this.aggregators.get(
+						path);
+				if (agg instanceof MergeableAggregator) {
+					stripe = ((MergeableAggregator<?>) agg).newAggregator();
+				} else if (agg != null) {
+					stripe = LockedAggregator.lock(agg);
+				}
+				if (stripe != null) {
+					this.stripes.put(path, stripe);
+				}
+			}
+			return stripe;
+		}
+
+		void releaseBuffer() {
+			this.released = true;
+			this.release();
+			this.stripes.clear();
+			synchronized (this.paretoPoints) {
+				this.paretoPoints.clear();
+			}
+		}
+	}
+
+	/**
+	 * An aggregator shared by all threads, which is locked for every value.
+	 */
+	private static class LockedAggregator<T> implements Aggregator<T> {
+		final Aggregator<T> aggregator;
+
+		LockedAggregator(Aggregator<T> aggregator) {
+			this.aggregator = aggregator;
+		}
+
+		/**
+		 * Wraps the aggregator in a locked aggregator that implements the same
+		 * primitive interface, so the values are passed as they would be to
+		 * the aggregator itself.
+		 */
+		@SuppressWarnings("unchecked")
+		static Aggregator<?> lock(Aggregator<?> aggregator) {
+			if (aggregator instanceof IntAggregator) {
+				return new LockedIntAggregator((IntAggregator) aggregator);
+			} else if (aggregator instanceof LongAggregator) {
+				return new LockedLongAggregator((LongAggregator) aggregator);
+			} else if (aggregator instanceof DoubleAggregator) {
+				return new LockedDoubleAggregator(
+						(DoubleAggregator) aggregator);
+			}
+			return new LockedAggregator<Object>(
+					(Aggregator<Object>) aggregator);
+		}
+
+		@Override
+		public void aggregate(T value) {
+			synchronized (this.aggregator) {
+				this.aggregator.aggregate(value);
+			}
+		}
+
+		@Override
+		public T getValue() {
+			synchronized (this.aggregator) {
+				return this.aggregator.getValue();
+			}
+		}
+	}
+
+	private static class LockedIntAggregator extends LockedAggregator<Integer>
+			implements IntAggregator {
+
+		LockedIntAggregator(IntAggregator aggregator) {
+			super(aggregator);
+		}
+
+		@Override
+		public void aggregate(int value) {
+			synchronized (this.aggregator) {
+				((IntAggregator) this.aggregator).aggregate(value);
+			}
+		}
+	}
+
+	private static class LockedLongAggregator extends LockedAggregator<Long>
+			implements LongAggregator {
+
+		LockedLongAggregator(LongAggregator aggregator) {
+			super(aggregator);
+		}
+
+		@Override
+		public void aggregate(long value) {
+			synchronized (this.aggregator) {
+				((LongAggregator) this.aggregator).aggregate(value);
+			}
+		}
+	}
+
+	private static class LockedDoubleAggregator extends
+			LockedAggregator<Double> implements DoubleAggregator {
+
+		LockedDoubleAggregator(DoubleAggregator aggregator) {
+			super(aggregator);
+		}
+
+		@Override
+		public void aggregate(double value) {
+			synchronized (this.aggregator) {
+				((DoubleAggregator) this.aggregator).aggregate(value);
+			}
+		}
+	}
+
+}
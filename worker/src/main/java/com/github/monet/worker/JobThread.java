@@ -2,12 +2,18 @@ package com.github.monet.worker;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.github.monet.common.ExceptionUtil;
+import com.github.monet.common.HypervolumeCalculator;
+import com.github.monet.common.HypervolumeCalculators;
+import com.github.monet.common.HypervolumeEstimate;
+import com.github.monet.common.MonteCarloHypervolume;
 import com.github.monet.common.ParetoPoint;
+import com.github.monet.common.QualityIndicators;
 import com.github.monet.interfaces.Algorithm;
 import com.github.monet.interfaces.GraphParser;
 import com.github.monet.interfaces.Meter;
@@ -92,7 +98,20 @@ class JobThread implements Runnable {
 					inputFile.getAbsolutePath(), job);
 			job.setInputGraph(inputGraph);
 			job.setState(Job.State.RUNNING);
-			meter = new MongoMeter(this.db, job.getID());
+			if (ConcurrentMongoMeter.isSelected(job.getParameters())) {
+				if (MongoMeter.isSpillRequested(job.getParameters())) {
+					throw new IllegalArgumentException(
+							"the concurrent meter doesn't spill, unset "
+									+ MongoMeter.SPILL_VALUES_PARAMETER
+									+ " and "
+									+ MongoMeter.SPILL_SECONDS_PARAMETER);
+				}
+				meter = new ConcurrentMongoMeter(this.db, job.getID());
+			} else {
+				MongoMeter mongoMeter = new MongoMeter(this.db, job.getID());
+				mongoMeter.setSpill(job.getParameters());
+				meter = mongoMeter;
+			}
 			meter.startExperiment();
 			this.algorithm.execute(job, meter,
 					this.experimentor.getServiceDirectory());
@@ -103,8 +122,8 @@ class JobThread implements Runnable {
 				List<double[]> front = meter.getParetoFront();
 				if (front != null) {
 					job.setState(Job.State.CALCULATING_METRICS);
-					double metric = ParetoPoint.calculateSMetric(front, true);
-					meter.measureDouble("SMetric", metric);
+					this.measureSMetric(job, meter, front);
+					this.measureQualityIndicators(job, meter, front);
 				}
 			}
 		} catch (KillJobException e) {
@@ -152,6 +171,78 @@ class JobThread implements Runnable {
 		}
 	}
 
+	/**
+	 * Calculates the S-Metric of the measured pareto front with the
+	 * hypervolume algorithm selected by the job parameters (see
+	 * {@link HypervolumeCalculators#forParameters(java.util.Map)}) and saves
+	 * it at <code>SMetric</code>. If the S-Metric was approximated, its
+	 * confidence interval is saved at <code>SMetricApproximation</code>.
+	 *
+	 * @param job
+	 *            the job
+	 * @param meter
+	 *            the meter
+	 * @param front
+	 *            the measured pareto front
+	 */
+	private void measureSMetric(WorkerJob job, Meter meter,
+			List<double[]> front) {
+		HypervolumeCalculator calculator;
+		try {
+			calculator = HypervolumeCalculators.forParameters(job
+					.getParameters());
+		} catch (IllegalArgumentException e) {
+			log.warn("%s, using the default instead", e.getMessage());
+			calculator = HypervolumeCalculators.forName(null);
+		}
+		if (calculator instanceof MonteCarloHypervolume) {
+			HypervolumeEstimate estimate = ParetoPoint.estimateSMetric(front,
+					null, true, (MonteCarloHypervolume) calculator);
+			meter.measureDouble("SMetric", estimate.getValue());
+			meter.measureDouble("SMetricApproximation/lower",
+					estimate.getLowerBound());
+			meter.measureDouble("SMetricApproximation/upper",
+					estimate.getUpperBound());
+			meter.measureDouble("SMetricApproximation/confidence",
+					estimate.getConfidence());
+			meter.measureLong("SMetricApproximation/samples",
+					estimate.getSamples());
+			meter.measureLong("SMetricApproximation/seed", estimate.getSeed());
+		} else {
+			meter.measureDouble("SMetric", ParetoPoint.calculateSMetric(front,
+					null, true, calculator));
+		}
+	}
+
+	/**
+	 * Calculates the quality indicators selected by the job parameters (see
+	 * {@link QualityIndicators#forParameters(java.util.Map, List, boolean)})
+	 * and saves each one at its name, e.g. <code>IGD</code>. Nothing is saved
+	 * if the indicators are misconfigured.
+	 *
+	 * @param job
+	 *            the job
+	 * @param meter
+	 *            the meter
+	 * @param front
+	 *            the measured pareto front
+	 */
+	private void measureQualityIndicators(WorkerJob job, Meter meter,
+			List<double[]> front) {
+		Map<String, Double> indicators;
+		try {
+			indicators = QualityIndicators.forParameters(job.getParameters(),
+					front, true);
+		} catch (IllegalArgumentException e) {
+			log.warn("%s, no quality indicators are calculated",
+					e.getMessage());
+			return;
+		}
+		for (Map.Entry<String, Double> indicator : indicators.entrySet()) {
+			meter.measureDouble(indicator.getKey(), indicator.getValue());
+		}
+	}
+
 	/**
 	 * Try to write some stuff to the meter and set the state to failed.
 	 *
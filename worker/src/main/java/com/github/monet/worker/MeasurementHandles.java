@@ -0,0 +1,754 @@
+package com.github.monet.worker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.monet.aggregators.Aggregator;
+import com.github.monet.aggregators.DoubleAggregator;
+import com.github.monet.aggregators.LongAggregator;
+import com.github.monet.common.CompiledPath;
+import com.github.monet.common.LogHistogram;
+import com.github.monet.common.MongoBuilder;
+import com.github.monet.common.MongoBuilderException;
+import com.github.monet.interfaces.Counter;
+import com.github.monet.interfaces.DoubleSeries;
+import com.github.monet.interfaces.LongSeries;
+import com.github.monet.interfaces.Meter;
+import com.github.monet.interfaces.Timer;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * The handles returned by {@link Meter#doubleSeries(String)},
+ * {@link Meter#longSeries(String)}, {@link Meter#counter(String)} and
+ * {@link Meter#timer(String)} of a
+ * {@link MongoMeter}. The values are kept in primitive arrays, which grow by
+ * doubling, and are only boxed when they are written into the document with
+ * {@link #writeTo(MongoBuilder)}.
+ *
+ * The same is done for single int, long and double values measured with a
+ * path that ends with "#" and has no other "#", like "gen/hv/#": they are
+ * appended to a column of primitive values of the list instead of the list
+ * itself. A column only holds values of one type; before a value of another
+ * type or anything else is inserted into, below or above its list, the column
+ * is written with {@link #flush(MongoBuilder, String)}, so the order of the
+ * values in the list stays the same and the document never has to hold a
+ * value and a list at the same path.
+ *
+ * Like the meter itself the handles are not thread-safe.
+ */
+class MeasurementHandles {
+
+	private final Map<String, DoubleValues> doubles =
+			new LinkedHashMap<String, DoubleValues>();
+	private final Map<String, LongValues> longs =
+			new LinkedHashMap<String, LongValues>();
+	private final Map<String, LongCounter> counters =
+			new LinkedHashMap<String, LongCounter>();
+	private final Map<String, HistogramTimer> timers =
+			new LinkedHashMap<String, HistogramTimer>();
+	/** the columns by measured path */
+	private final Map<String, Column> columns = new HashMap<String, Column>();
+	/** the columns by path of their list */
+	private final Map<String, Column> lists =
+			new LinkedHashMap<String, Column>();
+	/** number of columns below each path that has columns below it */
+	private final Map<String, Integer> parents = new HashMap<String, Integer>();
+	/** measured paths that can't have a column */
+	private final Set<String> scalars = new HashSet<String>();
+	/** called after a value is stored in a series, null if not needed */
+	private Runnable onAppend = null;
+
+	/**
+	 * Sets the callback that is run after a value is stored in a series
+	 * created afterwards, e.g. to spill the data when the series are long.
+	 */
+	void setOnAppend(Runnable onAppend) {
+		this.onAppend = onAppend;
+	}
+
+	/**
+	 * @param aggregator
+	 *            the aggregator of the path or null
+	 * @see Meter#doubleSeries(String)
+	 */
+	DoubleSeries doubleSeries(String path, Aggregator<?> aggregator) {
+		DoubleValues series = this.doubles.get(path);
+		if (series == null) {
+			series = new DoubleValues(SeriesPath.parse(path), aggregator,
+					this.onAppend);
+			this.doubles.put(path, series);
+		}
+		return series;
+	}
+
+	/**
+	 * @param aggregator
+	 *            the aggregator of the path or null
+	 * @see Meter#longSeries(String)
+	 */
+	LongSeries longSeries(String path, Aggregator<?> aggregator) {
+		LongValues series = this.longs.get(path);
+		if (series == null) {
+			series = new LongValues(SeriesPath.parse(path), aggregator,
+					this.onAppend);
+			this.longs.put(path, series);
+		}
+		return series;
+	}
+
+	/**
+	 * @see Meter#counter(String)
+	 */
+	Counter counter(String path) {
+		LongCounter counter = this.counters.get(path);
+		if (counter == null) {
+			counter = new LongCounter();
+			this.counters.put(path, counter);
+		}
+		return counter;
+	}
+
+	/**
+	 * @see Meter#timer(String)
+	 */
+	Timer timer(String path) {
+		HistogramTimer timer = this.timers.get(path);
+		if (timer == null) {
+			timer = new HistogramTimer();
+			this.timers.put(path, timer);
+		}
+		return timer;
+	}
+
+	/**
+	 * Records an elapsed time in the histogram of the timer of the path.
+	 *
+	 * @return false if there is no timer for the path
+	 */
+	boolean recordTime(String path, long nanos) {
+		if (this.timers.isEmpty()) {
+			return false;
+		}
+		HistogramTimer timer = this.timers.get(path);
+		if (timer == null) {
+			return false;
+		}
+		timer.histogram.record(nanos);
+		return true;
+	}
+
+	/**
+	 * Appends the value to the column of the path.
+	 *
+	 * @return false if the path has no column, then the value has to be
+	 *         inserted into the document
+	 */
+	boolean addInt(MongoBuilder builder, String path, int value) {
+		Column column = this.column(builder, path, Column.INT);
+		if (column == null) {
+			return false;
+		}
+		if (column.size == column.ints.length) {
+			column.ints = Arrays.copyOf(column.ints, 2 * column.size);
+		}
+		column.ints[column.size++] = value;
+		return true;
+	}
+
+	/**
+	 * @see #addInt(MongoBuilder, String, int)
+	 */
+	boolean addLong(MongoBuilder builder, String path, long value) {
+		Column column = this.column(builder, path, Column.LONG);
+		if (column == null) {
+			return false;
+		}
+		if (column.size == column.longs.length) {
+			column.longs = Arrays.copyOf(column.longs, 2 * column.size);
+		}
+		column.longs[column.size++] = value;
+		return true;
+	}
+
+	/**
+	 * @see #addInt(MongoBuilder, String, int)
+	 */
+	boolean addDouble(MongoBuilder builder, String path, double value) {
+		Column column = this.column(builder, path, Column.DOUBLE);
+		if (column == null) {
+			return false;
+		}
+		if (column.size == column.doubles.length) {
+			column.doubles = Arrays.copyOf(column.doubles, 2 * column.size);
+		}
+		column.doubles[column.size++] = value;
+		return true;
+	}
+
+	private Column column(MongoBuilder builder, String path, int type) {
+		Column column = this.columns.get(path);
+		if (column != null && column.type == type) {
+			return column;
+		}
+		if (column == null) {
+			if (this.scalars.contains(path)) {
+				return null;
+			}
+			String list = MeasurementHandles.listPath(path);
+			if (list == null) {
+				this.scalars.add(path);
+				return null;
+			}
+			column = this.lists.get(list);
+			if (column == null) {
+				column = new Column(list, type);
+				this.lists.put(list, column);
+				this.countParents(list, 1);
+			}
+			if (column.type == type) {
+				this.columns.put(path, column);
+				return column;
+			}
+		}
+		// values of another type keep their place in the list
+		this.writeColumn(builder, column);
+		return this.column(builder, path, type);
+	}
+
+	/**
+	 * @return the path of the list of a path like "gen/hv/#", null if the path
+	 *         doesn't end with "#" or has another "#"
+	 */
+	private static String listPath(String path) {
+		int start = path.startsWith("/") ? 1 : 0;
+		int end = path.endsWith("/") ? path.length() - 1 : path.length();
+		if (end - start < 3 || path.charAt(end - 1) != '#'
+				|| path.charAt(end - 2) != '/') {
+			return null;
+		}
+		int hash = path.indexOf('#', start);
+		if (hash != end - 1) {
+			return null;
+		}
+		return path.substring(start, end - 2);
+	}
+
+	/**
+	 * Writes the columns of all lists that the path is in, below or above, so
+	 * a value can be inserted with the path without changing the order of the
+	 * values or replacing a list that is still pending. Only the lists on the
+	 * path are looked up, all lists are only checked if one is below it.
+	 */
+	void flush(MongoBuilder builder, String path) {
+		if (this.lists.isEmpty()) {
+			return;
+		}
+		int start = path.startsWith("/") ? 1 : 0;
+		int end = path.endsWith("/") ? path.length() - 1 : path.length();
+		String normalized = (start < end) ? path.substring(start, end) : "";
+		for (int slash = normalized.indexOf('/'); slash >= 0; slash = normalized
+				.indexOf('/', slash + 1)) {
+			Column column = this.lists.get(normalized.substring(0, slash));
+			if (column != null) {
+				this.writeColumn(builder, column);
+			}
+		}
+		Column column = this.lists.get(normalized);
+		if (column != null) {
+			this.writeColumn(builder, column);
+		}
+		if (this.parents.containsKey(normalized)) {
+			String prefix = normalized + "/";
+			for (Column below : new ArrayList<Column>(this.lists.values())) {
+				if (below.list.startsWith(prefix)) {
+					this.writeColumn(builder, below);
+				}
+			}
+		}
+	}
+
+	private void writeColumn(MongoBuilder builder, Column column) {
+		this.lists.remove(column.list);
+		this.countParents(column.list, -1);
+		this.removeColumn(column);
+		column.writeTo(builder);
+	}
+
+	/**
+	 * Adds delta to the number of columns below each parent of the list.
+	 */
+	private void countParents(String list, int delta) {
+		for (int slash = list.indexOf('/'); slash >= 0; slash = list
+				.indexOf('/', slash + 1)) {
+			String parent = list.substring(0, slash);
+			Integer count = this.parents.get(parent);
+			int updated = ((count == null) ? 0 : count) + delta;
+			if (updated > 0) {
+				this.parents.put(parent, updated);
+			} else {
+				this.parents.remove(parent);
+			}
+		}
+	}
+
+	private void removeColumn(Column column) {
+		Iterator<Column> it = this.columns.values().iterator();
+		while (it.hasNext()) {
+			if (it.next() == column) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Inserts the values of all columns, series, counters and timers into the
+	 * document.
+	 */
+	void writeTo(MongoBuilder builder) {
+		for (Column column : this.lists.values()) {
+			column.writeTo(builder);
+		}
+		this.lists.clear();
+		this.columns.clear();
+		this.parents.clear();
+		for (DoubleValues series : this.doubles.values()) {
+			if (series.aggregator == null && series.size > 0) {
+				List<Object> list = series.path.getList(builder);
+				for (int i = 0; i < series.size; i++) {
+					series.path.insert(list, i, series.values[i]);
+				}
+			}
+		}
+		for (LongValues series : this.longs.values()) {
+			if (series.aggregator == null && series.size > 0) {
+				List<Object> list = series.path.getList(builder);
+				for (int i = 0; i < series.size; i++) {
+					series.path.insert(list, i, series.values[i]);
+				}
+			}
+		}
+		for (Map.Entry<String, LongCounter> entry : this.counters.entrySet()) {
+			builder.insert(entry.getKey(), entry.getValue().value);
+		}
+		for (Map.Entry<String, HistogramTimer> entry : this.timers.entrySet()) {
+			LogHistogram histogram = entry.getValue().histogram;
+			if (histogram.getCount() > 0) {
+				MeasurementHandles.writeHistogram(builder, entry.getKey(),
+						histogram);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the values of all columns, series, counters and timers into the
+	 * document like {@link #writeTo(MongoBuilder)}, but keeps the handles:
+	 * series continue with new values, counters and timers with their totals.
+	 */
+	void spill(MongoBuilder builder) {
+		this.writeTo(builder);
+		for (DoubleValues series : this.doubles.values()) {
+			series.spilled += series.size;
+			series.size = 0;
+		}
+		for (LongValues series : this.longs.values()) {
+			series.spilled += series.size;
+			series.size = 0;
+		}
+	}
+
+	/**
+	 * @return true if all series of the same list without aggregator have the
+	 *         same number of values that haven't been written yet, so the
+	 *         elements of the list are complete
+	 */
+	boolean isAligned() {
+		Map<String, Integer> sizes = new HashMap<String, Integer>();
+		for (DoubleValues series : this.doubles.values()) {
+			if (series.aggregator == null
+					&& !MeasurementHandles.aligned(sizes, series.path.list,
+					series.size)) {
+				return false;
+			}
+		}
+		for (LongValues series : this.longs.values()) {
+			if (series.aggregator == null
+					&& !MeasurementHandles.aligned(sizes, series.path.list,
+					series.size)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean aligned(Map<String, Integer> sizes, String list,
+			int size) {
+		Integer other = sizes.put(list, size);
+		return other == null || other == size;
+	}
+
+	/**
+	 * Adds the counters and the times of the timers of the other handles to
+	 * those with the same paths and removes them from the other handles, so
+	 * they are only written once.
+	 */
+	void mergeTotals(MeasurementHandles other) {
+		for (Map.Entry<String, LongCounter> entry : other.counters.entrySet()) {
+			this.counter(entry.getKey()).add(entry.getValue().value);
+		}
+		for (Map.Entry<String, HistogramTimer> entry : other.timers
+				.entrySet()) {
+			this.timer(entry.getKey());
+			this.timers.get(entry.getKey()).histogram
+					.merge(entry.getValue().histogram);
+		}
+		other.counters.clear();
+		other.timers.clear();
+	}
+
+	/**
+	 * Forgets all handles; handles given out before keep working but aren't
+	 * written anymore.
+	 */
+	void clear() {
+		this.lists.clear();
+		this.columns.clear();
+		this.parents.clear();
+		this.doubles.clear();
+		this.longs.clear();
+		this.counters.clear();
+		this.timers.clear();
+	}
+
+	/**
+	 * Inserts the number, sum, percentiles and maximum of the values of the
+	 * histogram below the path.
+	 */
+	static void writeHistogram(MongoBuilder builder, String path,
+			LogHistogram histogram) {
+		String prefix = path.endsWith("/") ? path : path + "/";
+		builder.insert(prefix + "count", histogram.getCount());
+		builder.insert(prefix + "sum", histogram.getSum());
+		builder.insert(prefix + "p50", histogram.getQuantile(0.5));
+		builder.insert(prefix + "p90", histogram.getQuantile(0.9));
+		builder.insert(prefix + "p99", histogram.getQuantile(0.99));
+		builder.insert(prefix + "max", histogram.getMax());
+	}
+
+	/**
+	 * @return the aggregator to pass boxed values to
+	 */
+	@SuppressWarnings("unchecked")
+	static Aggregator<Object> generic(Aggregator<?> aggregator) {
+		return (Aggregator<Object>) aggregator;
+	}
+
+	/**
+	 * A path of a series split at its "#": the path of the list and the path
+	 * of the value within each element of the list.
+	 */
+	static class SeriesPath {
+		final String path;
+		/** path of the list */
+		final String list;
+		/** path within an element of the list, empty to append the values */
+		final String element;
+		/** true if the path within an element has a single key */
+		final boolean key;
+		/** the path within an element if it has more than one key */
+		final CompiledPath nested;
+
+		private SeriesPath(String path, String list, String element) {
+			this.path = path;
+			this.list = list;
+			this.element = element;
+			this.key = !element.isEmpty() && element.indexOf('/') < 0;
+			this.nested = (element.isEmpty() || this.key) ? null
+					: CompiledPath.compile(element);
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             unless the path has exactly one "#" without index
+		 */
+		static SeriesPath parse(String path) {
+			String p = path;
+			if (p.startsWith("/")) {
+				p = p.substring(1);
+			}
+			if (p.endsWith("/")) {
+				p = p.substring(0, p.length() - 1);
+			}
+			int hash = p.indexOf('#');
+			if (hash < 1 || p.charAt(hash - 1) != '/'
+					|| p.indexOf('#', hash + 1) >= 0) {
+				throw new IllegalArgumentException("the path of a series "
+						+ "needs exactly one '#' after a key: " + path);
+			}
+			if (hash + 1 < p.length() && p.charAt(hash + 1) != '/') {
+				throw new IllegalArgumentException(
+						"the '#' of the path of a series can't have an index: "
+						+ path);
+			}
+			String element = (hash + 1 < p.length()) ? p.substring(hash + 2)
+					: "";
+			return new SeriesPath(path, p.substring(0, hash - 1), element);
+		}
+
+		/**
+		 * Inserts value i of the series.
+		 *
+		 * @param list
+		 *            the list of the path, see
+		 *            {@link #getList(MongoBuilder)}
+		 */
+		void insert(List<Object> list, int i, Object value) {
+			if (this.element.isEmpty()) {
+				list.add(value);
+				return;
+			}
+			if (i == list.size()) {
+				list.add(new BasicDBObject());
+			}
+			Object element = list.get(i);
+			if (!(element instanceof DBObject)) {
+				throw new MongoBuilderException("expected key but got value",
+						this.path, "#" + i, this.list.length() + 1);
+			}
+			if (this.key) {
+				((DBObject) element).put(this.element, value);
+			} else {
+				// the element is reached through the list, so the path
+				// within it is compiled only once for all elements
+				MongoBuilder.insert(element, this.nested, value);
+			}
+		}
+
+		/**
+		 * @return the list of the path, which is created if it is missing
+		 */
+		List<Object> getList(MongoBuilder builder) {
+			return MeasurementHandles.getList(builder, this.list, this.path);
+		}
+	}
+
+	/**
+	 * @param list
+	 *            the path of the list
+	 * @param path
+	 *            the measured path, for the exception
+	 * @return the list, which is created if it is missing
+	 */
+	@SuppressWarnings("unchecked")
+	static List<Object> getList(MongoBuilder builder, String list,
+			String path) {
+		Object value = MongoBuilder.find(builder, list);
+		if (value == null) {
+			value = new BasicDBList();
+			builder.insert(list, value);
+		}
+		if (!(value instanceof List)) {
+			throw new MongoBuilderException("expected list but got key", path,
+					"#", list.length() + 1);
+		}
+		return (List<Object>) value;
+	}
+
+	/**
+	 * The values of one type measured into a list, in the order they were
+	 * measured.
+	 */
+	private static class Column {
+		static final int INT = 0;
+		static final int LONG = 1;
+		static final int DOUBLE = 2;
+
+		/** path of the list */
+		final String list;
+		final int type;
+		int[] ints;
+		long[] longs;
+		double[] doubles;
+		int size = 0;
+
+		Column(String list, int type) {
+			this.list = list;
+			this.type = type;
+			if (type == INT) {
+				this.ints = new int[16];
+			} else if (type == LONG) {
+				this.longs = new long[16];
+			} else {
+				this.doubles = new double[16];
+			}
+		}
+
+		void writeTo(MongoBuilder builder) {
+			List<Object> values = MeasurementHandles.getList(builder, this.list,
+					this.list + "/#");
+			if (values instanceof ArrayList) {
+				((ArrayList<Object>) values).ensureCapacity(values.size()
+						+ this.size);
+			}
+			for (int i = 0; i < this.size; i++) {
+				if (this.type == INT) {
+					values.add(this.ints[i]);
+				} else if (this.type == LONG) {
+					values.add(this.longs[i]);
+				} else {
+					values.add(this.doubles[i]);
+				}
+			}
+		}
+	}
+
+	private static class DoubleValues implements DoubleSeries {
+		final SeriesPath path;
+		final Aggregator<Object> aggregator;
+		final DoubleAggregator primitive;
+		double[] values = new double[16];
+		int size = 0;
+		/** number of values written by earlier spills */
+		int spilled = 0;
+		final Runnable onAppend;
+
+		DoubleValues(SeriesPath path, Aggregator<?> aggregator,
+				Runnable onAppend) {
+			this.path = path;
+			this.onAppend = onAppend;
+			this.aggregator = MeasurementHandles.generic(aggregator);
+			this.primitive = (aggregator instanceof DoubleAggregator)
+					? (DoubleAggregator) aggregator : null;
+		}
+
+		@Override
+		public void add(double value) {
+			if (this.primitive != null) {
+				this.primitive.aggregate(value);
+			} else if (this.aggregator != null) {
+				this.aggregator.aggregate(value);
+			} else {
+				if (this.size == this.values.length) {
+					this.values = Arrays.copyOf(this.values, 2 * this.size);
+				}
+				this.values[this.size++] = value;
+				if (this.onAppend != null) {
+					this.onAppend.run();
+				}
+				return;
+			}
+			this.size++;
+		}
+
+		@Override
+		public int size() {
+			return this.spilled + this.size;
+		}
+	}
+
+	private static class LongValues implements LongSeries {
+		final SeriesPath path;
+		final Aggregator<Object> aggregator;
+		final LongAggregator primitive;
+		final DoubleAggregator widened;
+		long[] values = new long[16];
+		int size = 0;
+		/** number of values written by earlier spills */
+		int spilled = 0;
+		final Runnable onAppend;
+
+		LongValues(SeriesPath path, Aggregator<?> aggregator,
+				Runnable onAppend) {
+			this.path = path;
+			this.onAppend = onAppend;
+			this.aggregator = MeasurementHandles.generic(aggregator);
+			this.primitive = (aggregator instanceof LongAggregator)
+					? (LongAggregator) aggregator : null;
+			this.widened = (aggregator instanceof DoubleAggregator)
+					? (DoubleAggregator) aggregator : null;
+		}
+
+		@Override
+		public void add(long value) {
+			if (this.primitive != null) {
+				this.primitive.aggregate(value);
+			} else if (this.widened != null) {
+				this.widened.aggregate(value);
+			} else if (this.aggregator != null) {
+				this.aggregator.aggregate(value);
+			} else {
+				if (this.size == this.values.length) {
+					this.values = Arrays.copyOf(this.values, 2 * this.size);
+				}
+				this.values[this.size++] = value;
+				if (this.onAppend != null) {
+					this.onAppend.run();
+				}
+				return;
+			}
+			this.size++;
+		}
+
+		@Override
+		public int size() {
+			return this.spilled + this.size;
+		}
+	}
+
+	private static class HistogramTimer implements Timer {
+		final LogHistogram histogram = new LogHistogram();
+		long start;
+		boolean running = false;
+
+		@Override
+		public void start() {
+			this.running = true;
+			this.start = System.nanoTime();
+		}
+
+		@Override
+		public long stop() {
+			long end = System.nanoTime();
+			if (!this.running) {
+				return -1;
+			}
+			long elapsed = end - this.start;
+			this.running = false;
+			this.histogram.record(elapsed);
+			return elapsed;
+		}
+
+		@Override
+		public long getCount() {
+			return this.histogram.getCount();
+		}
+	}
+
+	private static class LongCounter implements Counter {
+		long value = 0;
+
+		@Override
+		public void increment() {
+			this.value++;
+		}
+
+		@Override
+		public void add(long value) {
+			this.value += value;
+		}
+
+		@Override
+		public long get() {
+			return this.value;
+		}
+	}
+
+}
@@ -12,11 +12,23 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.github.monet.aggregators.Aggregator;
+import com.github.monet.aggregators.DoubleAggregator;
+import com.github.monet.aggregators.IntAggregator;
+import com.github.monet.aggregators.LongAggregator;
+import com.github.monet.common.BoundedParetoArchive;
 import com.github.monet.common.DBCollections;
+import com.github.monet.common.EdgeSets;
+import com.github.monet.common.HypervolumeTracker;
 import com.github.monet.common.MongoBuilder;
 import com.github.monet.common.MongoBuilderException;
+import com.github.monet.common.ParetoArchive;
+import com.github.monet.common.Tuple;
+import com.github.monet.interfaces.Counter;
+import com.github.monet.interfaces.DoubleSeries;
+import com.github.monet.interfaces.LongSeries;
 import com.github.monet.interfaces.MeasurementStream;
 import com.github.monet.interfaces.Meter;
+import com.github.monet.interfaces.Timer;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
@@ -93,6 +105,18 @@ import com.mongodb.DBObject;
 public class MongoMeter implements Meter {
 	private final static Logger log = LogManager
 			.getFormatterLogger(MongoMeter.class);
+
+	/**
+	 * Parameter of a job: the number of measured values after which the
+	 * measured data is spilled, see {@link #setSpill(long, double)}.
+	 */
+	public static final String SPILL_VALUES_PARAMETER = "spill_values";
+
+	/**
+	 * Parameter of a job: the number of seconds after which the measured data
+	 * is spilled, see {@link #setSpill(long, double)}.
+	 */
+	public static final String SPILL_SECONDS_PARAMETER = "spill_seconds";
 	private DB db;
 	private DBCollection jobs;
 	private MeasurementStream measurementStream = null;
@@ -100,8 +124,31 @@ public class MongoMeter implements Meter {
 	private Map<String, Long> timers;
 	private int paretoIndex = 0;
 	private String jobID;
-	private Map<String, Aggregator<Object>> aggregators;
+	private Map<String, Aggregator<?>> aggregators;
+	private ParetoArchive<Collection<String>> paretoArchive = null;
+	/** dictionary of the edges of the measured pareto front */
+	private EdgeSets edgeSets;
+	private MeasurementHandles handles;
 	private boolean finished = false;
+	/** collection of the spilled chunks, null unless spilling */
+	private DBCollection chunks = null;
+	/** number of values after which the data is spilled, 0 for no limit */
+	private long spillValues = 0;
+	/** nanoseconds after which the data is spilled, 0 for no limit */
+	private long spillNanos = 0;
+	/** number of values measured since the last spill */
+	private long measured = 0;
+	private long lastSpill;
+	private int spilledChunks = 0;
+	/** true while the data is spilled */
+	private boolean spilling = false;
+	/**
+	 * the list whose last element is a dictionary that may still be measured
+	 * into, null if there is none
+	 */
+	private String openList = null;
+	/** number of elements of each list that are in the spilled chunks */
+	private Map<String, Integer> offsets = new HashMap<String, Integer>();
 
 	/**
 	 * Creates a new meter using a mongo database and the ID of the job.
@@ -124,14 +171,281 @@ public class MongoMeter implements Meter {
 		}
 	}
 
-	@Override
-	public void startExperiment() {
+	/**
+	 * Creates a meter that only keeps the measured values, without database
+	 * and measurement stream, e.g. as buffer of a thread of a
+	 * {@link ConcurrentMongoMeter}.
+	 */
+	MongoMeter() {
+		this.init();
+	}
+
+	private void init() {
 		this.builder = new MongoBuilder();
 		this.timers = new HashMap<String, Long>();
-		this.aggregators = new HashMap<String, Aggregator<Object>>();
+		this.aggregators = new HashMap<String, Aggregator<?>>();
+		this.edgeSets = new EdgeSets();
+		this.handles = new MeasurementHandles();
+	}
+
+	/**
+	 * Spills the measured data into chunks in
+	 * {@link DBCollections#MEASURED_CHUNKS} while the algorithm is running,
+	 * whenever the given number of values has been measured or the given
+	 * time has passed since the last chunk, so the data doesn't have to be
+	 * kept in memory until it is sent, it may exceed the 16MB of a document
+	 * and most of it survives a crash of the worker. Values added to handles
+	 * like {@link #doubleSeries(String)} are counted with the others, values
+	 * of aggregators are not.
+	 *
+	 * A chunk is only cut where the document is complete: at a
+	 * {@link #checkpoint()}, before a value is appended to a list with
+	 * "<code>#</code>" unless the last dictionary appended like this, which
+	 * may still be measured into, is in another list, and after a value is
+	 * added to a series if no such dictionary is open and all series of the
+	 * same list have the same length. The elements of a list that were
+	 * spilled can't be changed anymore; an index like "<code>#3</code>" still
+	 * refers to the whole list, so the last element can be measured into
+	 * after its list was spilled. The chunks are merged with
+	 * {@link MongoBuilder#merge(Map, Map)} when the measured data is read.
+	 * Counters and timers are saved with their totals in every chunk, the
+	 * pareto front and the values of aggregators only when the data is sent.
+	 *
+	 * Has to be called before {@link #startExperiment()}, which removes the
+	 * chunks of an earlier run of the job.
+	 *
+	 * @param values
+	 *            the number of values or 0
+	 * @param seconds
+	 *            the number of seconds or 0
+	 */
+	void setSpill(long values, double seconds) {
+		this.spillValues = values;
+		this.spillNanos = (long) (seconds * 1e9);
+	}
+
+	/**
+	 * @return true if a threshold of {@link #setSpill(long, double)} is set
+	 */
+	boolean isSpilling() {
+		return this.spillValues > 0 || this.spillNanos > 0;
+	}
+
+	/**
+	 * @return true if the parameters of a job set a threshold of
+	 *         {@link #setSpill(Map)}
+	 * @throws IllegalArgumentException
+	 *             if a parameter isn't a number
+	 */
+	static boolean isSpillRequested(Map<String, Object> parameters) {
+		return MongoMeter.getNumber(parameters, SPILL_VALUES_PARAMETER) > 0
+				|| MongoMeter.getNumber(parameters,
+				SPILL_SECONDS_PARAMETER) > 0;
+	}
+
+	/**
+	 * Sets the thresholds of {@link #setSpill(long, double)} from the
+	 * parameters {@link #SPILL_VALUES_PARAMETER} and
+	 * {@link #SPILL_SECONDS_PARAMETER} of a job, if present.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a parameter isn't a number
+	 */
+	void setSpill(Map<String, Object> parameters) {
+		this.setSpill(
+				(long) MongoMeter.getNumber(parameters, SPILL_VALUES_PARAMETER),
+				MongoMeter.getNumber(parameters, SPILL_SECONDS_PARAMETER));
+	}
+
+	private static double getNumber(Map<String, Object> parameters,
+			String key) {
+		Object value = parameters.get(key);
+		if (value == null || value.toString().trim().isEmpty()) {
+			return 0;
+		}
+		try {
+			return Double.parseDouble(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("malformed meter option " + key
+					+ ": " + value);
+		}
+	}
+
+	@Override
+	public void startExperiment() {
+		this.init();
+		if (this.isSpilling()) {
+			if (this.db != null) {
+				this.chunks = this.db.getCollection(
+						DBCollections.MEASURED_CHUNKS);
+				this.chunks.ensureIndex(new BasicDBObject("job",
+						1).append("seq", 1));
+				this.chunks.remove(new BasicDBObject("job", this.jobID));
+			}
+			this.spilledChunks = 0;
+			this.measured = 0;
+			this.lastSpill = System.nanoTime();
+			this.spilling = true;
+			this.openList = null;
+			this.offsets.clear();
+			this.handles.setOnAppend(new Runnable() {
+				@Override
+				public void run() {
+					MongoMeter.this.appended();
+				}
+			});
+		}
 		this.startTimer("RUNTIME");
 	}
 
+	/**
+	 * Spills the data if a threshold of {@link #setSpill(long, double)} is
+	 * reached, otherwise does nothing.
+	 */
+	@Override
+	public void checkpoint() {
+		if (this.isSpillDue()) {
+			this.spill();
+		}
+	}
+
+	/**
+	 * @return true if a threshold of {@link #setSpill(long, double)} is
+	 *         reached
+	 */
+	private boolean isSpillDue() {
+		return this.spilling
+				&& ((this.spillValues > 0 && this.measured >= this.spillValues)
+				|| (this.spillNanos > 0 && System
+						.nanoTime() - this.lastSpill >= this.spillNanos));
+	}
+
+	/**
+	 * Spills the data before a value is measured with the path, if the path
+	 * appends to a list and no element of another list can be cut off.
+	 */
+	private void beforeMeasure(String path) {
+		int start = path.startsWith("/") ? 1 : 0;
+		int hash = path.indexOf('#', start);
+		if (hash < start + 2 || path.charAt(hash - 1) != '/'
+				|| (hash + 1 < path.length() && path.charAt(hash + 1) != '/')) {
+			return;
+		}
+		int length = hash - 1 - start;
+		boolean same = this.openList != null
+				&& this.openList.length() == length
+				&& path.regionMatches(start, this.openList, 0, length);
+		if ((this.openList == null || same) && this.isSpillDue()) {
+			this.spill();
+		}
+		if (hash + 2 < path.length()) {
+			// the new element is a dictionary
+			if (!same) {
+				this.openList = path.substring(start, hash - 1);
+			}
+		} else if (same) {
+			this.openList = null;
+		}
+	}
+
+	/**
+	 * Counts a value added to a series and spills the data if the elements of
+	 * the lists of the series are complete.
+	 */
+	private void appended() {
+		this.measured++;
+		if (this.openList == null && this.isSpillDue()
+				&& this.handles.isAligned()) {
+			this.spill();
+		}
+	}
+
+	/**
+	 * Saves the data measured since the last chunk as the next chunk, except
+	 * for the pareto front, and starts a new document.
+	 */
+	private void spill() {
+		this.handles.spill(this.builder);
+		Object front = this.builder.remove("paretoFront");
+		if (!this.builder.isEmpty()) {
+			MongoMeter.countElements(this.offsets, "", this.builder);
+			this.saveChunk(this.spilledChunks, this.builder);
+			this.spilledChunks++;
+		}
+		this.builder = new MongoBuilder();
+		if (front != null) {
+			this.builder.put("paretoFront", front);
+		}
+		this.measured = 0;
+		this.lastSpill = System.nanoTime();
+	}
+
+	/**
+	 * Adds the number of elements of the lists in the dictionary, but not of
+	 * those in lists, to the offsets.
+	 */
+	private static void countElements(Map<String, Integer> offsets,
+			String prefix, Map<?, ?> dictionary) {
+		for (Entry<?, ?> entry : dictionary.entrySet()) {
+			String path = prefix + entry.getKey();
+			if (entry.getValue() instanceof List) {
+				Integer offset = offsets.get(path);
+				offsets.put(path, ((offset == null) ? 0 : offset)
+						+ ((List<?>) entry.getValue()).size());
+			} else if (entry.getValue() instanceof Map) {
+				MongoMeter.countElements(offsets, path + "/",
+						(Map<?, ?>) entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Translates the index of the first list of the path to the part of the
+	 * list that hasn't been spilled.
+	 *
+	 * @throws MongoBuilderException
+	 *             if the element has been spilled
+	 */
+	private String translate(String path) {
+		int start = path.startsWith("/") ? 1 : 0;
+		int hash = path.indexOf('#', start);
+		int end = hash + 1;
+		while (end < path.length() && Character.isDigit(path.charAt(end))) {
+			end++;
+		}
+		if (hash < start + 2 || end == hash + 1) {
+			return path;
+		}
+		Integer offset = this.offsets.get(path.substring(start, hash - 1));
+		if (offset == null) {
+			return path;
+		}
+		int index = Integer.parseInt(path.substring(hash + 1, end));
+		if (index < offset) {
+			throw new MongoBuilderException("element already spilled", path,
+					path.substring(hash, end), hash);
+		}
+		return path.substring(0, hash + 1) + (index - offset)
+				+ path.substring(end);
+	}
+
+	/**
+	 * Inserts a chunk into {@link DBCollections#MEASURED_CHUNKS} and counts it
+	 * in the measured data of the job.
+	 *
+	 * @param seq
+	 *            the number of the chunk, starting with 0
+	 * @param chunk
+	 *            the data of the chunk
+	 */
+	void saveChunk(int seq, MongoBuilder chunk) {
+		this.chunks.insert(new BasicDBObject("job", this.jobID).append("seq",
+				seq).append("data", chunk));
+		this.jobs.update(new BasicDBObject("_id", this.jobID),
+				new BasicDBObject("$set", new BasicDBObject("measuredData."
+						+ DBCollections.SPILLED_CHUNKS, seq + 1)));
+	}
+
 	@Override
 	public void endExperiment() {
 		if (!finished) {
@@ -142,31 +456,181 @@ public class MongoMeter implements Meter {
 
 	@Override
 	public void send() {
-		for (Entry<String, Aggregator<Object>> item : this.aggregators
+		MongoMeter.writeParetoFront(this.builder, this.paretoArchive,
+				this.edgeSets);
+		this.handles.writeTo(this.builder);
+		this.handles.clear();
+		for (Entry<String, Aggregator<?>> item : this.aggregators
 				.entrySet()) {
 			this.builder.insert(item.getKey(), item.getValue().getValue());
 		}
-		BasicDBObject updateObj = new BasicDBObject("$set", new BasicDBObject(
-				"measuredData", this.builder));
-		this.jobs.update(new BasicDBObject("_id", jobID), updateObj);
+		if (this.spilledChunks > 0) {
+			this.builder.insert(DBCollections.SPILLED_CHUNKS,
+					this.spilledChunks);
+		}
+		this.spilling = false;
+		MongoMeter.save(this.jobs, this.jobID, this.builder);
 		this.measurementStream.saveFile();
 		this.timers.clear();
 		this.builder = null;
 	}
 
+	/**
+	 * Inserts the points of the archive, if there is one, and the dictionary
+	 * of the edges of the measured pareto front into the document.
+	 */
+	static void writeParetoFront(MongoBuilder builder,
+			ParetoArchive<Collection<String>> paretoArchive,
+			EdgeSets edgeSets) {
+		if (paretoArchive != null) {
+			MongoMeter.truncate(paretoArchive);
+			for (Tuple<double[], Collection<String>> entry : paretoArchive
+					.getEntries()) {
+				builder.insert("paretoFront/points/#/", entry.getFirst());
+				if (entry.getSecond() != null) {
+					builder.insert("paretoFront/edgeSets/#",
+							edgeSets.encode(entry.getSecond()));
+				}
+			}
+			ParetoArchive<Collection<String>> archive = paretoArchive;
+			if (archive instanceof HypervolumeTracker) {
+				HypervolumeTracker<Collection<String>> tracker =
+						(HypervolumeTracker<Collection<String>>) archive;
+				builder.insert("paretoFront/hypervolume/volume",
+						tracker.getVolume());
+				builder.insert("paretoFront/hypervolume/reference",
+						tracker.getReferencePoint());
+				archive = tracker.getArchive();
+			}
+			if (archive instanceof BoundedParetoArchive) {
+				for (Entry<String, Object> item : ((BoundedParetoArchive<Collection<String>>) archive)
+						.getTruncationStatistics().entrySet()) {
+					builder.insert("paretoFront/truncation/"
+							+ item.getKey(), item.getValue());
+				}
+			}
+		}
+		if (edgeSets.size() > 0) {
+			builder.insert("paretoFront/edgeDictionary", new ArrayList<String>(
+					edgeSets.getDictionary()));
+		}
+	}
+
+	/**
+	 * Thins the archive, or the archive of a {@link HypervolumeTracker}, to
+	 * its bound before its points are read.
+	 */
+	static void truncate(ParetoArchive<?> archive) {
+		if (archive instanceof HypervolumeTracker) {
+			archive = ((HypervolumeTracker<?>) archive).getArchive();
+		}
+		if (archive instanceof BoundedParetoArchive) {
+			((BoundedParetoArchive<?>) archive).truncate();
+		}
+	}
+
+	/**
+	 * Saves the document as measured data of the job.
+	 */
+	static void save(DBCollection jobs, String jobID, MongoBuilder builder) {
+		BasicDBObject updateObj = new BasicDBObject("$set", new BasicDBObject(
+				"measuredData", builder));
+		jobs.update(new BasicDBObject("_id", jobID), updateObj);
+	}
+
+	/**
+	 * @return the document the values are measured into
+	 */
+	MongoBuilder getBuilder() {
+		return this.builder;
+	}
+
+	/**
+	 * @return the handles of the measured series, counters and timers
+	 */
+	MeasurementHandles getHandles() {
+		return this.handles;
+	}
+
+	/**
+	 * Drops the measured data, e.g. after it has been merged into another
+	 * document. The meter can't measure anymore afterwards.
+	 */
+	void release() {
+		this.builder = null;
+		this.handles.clear();
+		this.timers.clear();
+		this.aggregators.clear();
+	}
+
+	/**
+	 * Returns the aggregator of a path, which is looked up for every measured
+	 * value.
+	 *
+	 * @return the aggregator or null
+	 */
+	Aggregator<?> getAggregator(String path) {
+		return this.aggregators.get(path);
+	}
+
 	@Override
 	public void measureInt(String path, int value) {
-		this.measure(path, value);
+		Aggregator<?> agg = this.getAggregator(path);
+		if (agg == null) {
+			if (this.spilling) {
+				this.beforeMeasure(path);
+			}
+			this.measured++;
+			if (!this.handles.addInt(this.builder, path, value)) {
+				this.insert(path, value);
+			}
+		} else if (agg instanceof IntAggregator) {
+			((IntAggregator) agg).aggregate(value);
+		} else if (agg instanceof LongAggregator) {
+			((LongAggregator) agg).aggregate(value);
+		} else if (agg instanceof DoubleAggregator) {
+			((DoubleAggregator) agg).aggregate(value);
+		} else {
+			MongoMeter.aggregate(agg, value);
+		}
 	}
 
 	@Override
 	public void measureLong(String path, long value) {
-		this.measure(path, value);
+		Aggregator<?> agg = this.getAggregator(path);
+		if (agg == null) {
+			if (this.spilling) {
+				this.beforeMeasure(path);
+			}
+			this.measured++;
+			if (!this.handles.addLong(this.builder, path, value)) {
+				this.insert(path, value);
+			}
+		} else if (agg instanceof LongAggregator) {
+			((LongAggregator) agg).aggregate(value);
+		} else if (agg instanceof DoubleAggregator) {
+			((DoubleAggregator) agg).aggregate(value);
+		} else {
+			MongoMeter.aggregate(agg, value);
+		}
 	}
 
 	@Override
 	public void measureDouble(String path, double value) {
-		this.measure(path, value);
+		Aggregator<?> agg = this.getAggregator(path);
+		if (agg == null) {
+			if (this.spilling) {
+				this.beforeMeasure(path);
+			}
+			this.measured++;
+			if (!this.handles.addDouble(this.builder, path, value)) {
+				this.insert(path, value);
+			}
+		} else if (agg instanceof DoubleAggregator) {
+			((DoubleAggregator) agg).aggregate(value);
+		} else {
+			MongoMeter.aggregate(agg, value);
+		}
 	}
 
 	@Override
@@ -175,6 +639,26 @@ public class MongoMeter implements Meter {
 	}
 
 
+	@Override
+	public DoubleSeries doubleSeries(String path) {
+		return this.handles.doubleSeries(path, this.getAggregator(path));
+	}
+
+	@Override
+	public LongSeries longSeries(String path) {
+		return this.handles.longSeries(path, this.getAggregator(path));
+	}
+
+	@Override
+	public Counter counter(String path) {
+		return this.handles.counter(path);
+	}
+
+	@Override
+	public Timer timer(String path) {
+		return this.handles.timer(path);
+	}
+
 	@Override
 	public void startTimer(String path) {
 		this.timers.put(path, System.nanoTime());
@@ -183,9 +667,14 @@ public class MongoMeter implements Meter {
 	@Override
 	public void stopTimer(String path) {
 		long endTime = System.nanoTime();
-		long startTime = this.timers.remove(path);
+		Long startTime = this.timers.remove(path);
+		if (startTime == null) {
+			return;
+		}
 		long elapsedTime = endTime - startTime;
-		this.measureLong(path, elapsedTime);
+		if (!this.handles.recordTime(path, elapsedTime)) {
+			this.measureLong(path, elapsedTime);
+		}
 	}
 
 	@Override
@@ -205,7 +694,7 @@ public class MongoMeter implements Meter {
 	public void measureDouble(String path, Iterable<Double> values) {
 		path = appendListSymbol(path);
 		for (double v : values) {
-			this.measure(path, v);
+			this.measureDouble(path, v);
 		}
 	}
 
@@ -213,7 +702,7 @@ public class MongoMeter implements Meter {
 	public void measureInt(String path, Iterable<Integer> values) {
 		path = appendListSymbol(path);
 		for (int v : values) {
-			this.measure(path, v);
+			this.measureInt(path, v);
 		}
 	}
 
@@ -221,7 +710,7 @@ public class MongoMeter implements Meter {
 	public void measureInt(String path, int[] arr) {
 		path = appendListSymbol(path);
 		for (int v : arr) {
-			this.measure(path, v);
+			this.measureInt(path, v);
 		}
 	}
 
@@ -229,7 +718,7 @@ public class MongoMeter implements Meter {
 	public void measureLong(String path, Iterable<Long> values) {
 		path = appendListSymbol(path);
 		for (long v : values) {
-			this.measure(path, v);
+			this.measureLong(path, v);
 		}
 	}
 
@@ -237,7 +726,7 @@ public class MongoMeter implements Meter {
 	public void measureLong(String path, long[] values) {
 		path = appendListSymbol(path);
 		for (long v : values) {
-			this.measure(path, v);
+			this.measureLong(path, v);
 		}
 	}
 
@@ -245,29 +734,56 @@ public class MongoMeter implements Meter {
 	public void measureDouble(String path, double[] arr) {
 		path = appendListSymbol(path);
 		for (double v : arr) {
-			this.measure(path, v);
+			this.measureDouble(path, v);
 		}
 	}
 
 	public void measure(String path, Object value) {
-		Aggregator<Object> agg = this.aggregators.get(path);
+		Aggregator<?> agg = this.getAggregator(path);
 		if (agg == null) {
-			this.builder.insert(path, value);
+			if (this.spilling) {
+				this.beforeMeasure(path);
+			}
+			this.measured++;
+			this.insert(path, value);
 		} else {
-			agg.aggregate(value);
+			MongoMeter.aggregate(agg, value);
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private static void aggregate(Aggregator<?> agg, Object value) {
+		((Aggregator<Object>) agg).aggregate(value);
+	}
+
+	private void insert(String path, Object value) {
+		if (!this.offsets.isEmpty()) {
+			path = this.translate(path);
+		}
+		this.handles.flush(this.builder, path);
+		this.builder.insert(path, value);
+	}
+
 	@Override
 	public void addAggregator(String path, Aggregator<Object> agg) {
 		this.aggregators.put(path, agg);
 	}
 
+	@Override
+	public void setParetoArchive(ParetoArchive<Collection<String>> archive) {
+		this.paretoArchive = archive;
+	}
+
 	@Override
 	public void measurePareto(double[] point, Collection<String> edges) {
+		if (this.paretoArchive != null) {
+			// written to the document when it is sent
+			this.paretoArchive.add(point, edges);
+			return;
+		}
 		this.measure("paretoFront/points/#/", point);
 		if (edges != null) {
-			this.measure("paretoFront/edges/#/", edges);
+			this.measure("paretoFront/edgeSets/#", this.edgeSets.encode(edges));
 		}
 		paretoIndex++;
 	}
@@ -275,6 +791,17 @@ public class MongoMeter implements Meter {
 	@Override
 	public List<double[]> getParetoFront() {
 		List<double[]> ret = new ArrayList<>();
+		if (this.paretoArchive != null) {
+			MongoMeter.truncate(this.paretoArchive);
+			if (this.paretoArchive.size() == 0) {
+				return null;
+			}
+			for (Tuple<double[], Collection<String>> entry : this.paretoArchive
+					.getEntries()) {
+				ret.add(entry.getFirst().clone());
+			}
+			return ret;
+		}
 		try {
 			DBObject front = (DBObject) builder.get("paretoFront");
 			@SuppressWarnings("unchecked")
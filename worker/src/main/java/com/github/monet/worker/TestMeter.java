@@ -8,8 +8,16 @@ import java.util.List;
 import java.util.Map;
 
 import com.github.monet.aggregators.Aggregator;
+import com.github.monet.common.BoundedParetoArchive;
+import com.github.monet.common.HypervolumeTracker;
+import com.github.monet.common.ParetoArchive;
+import com.github.monet.common.Tuple;
+import com.github.monet.interfaces.Counter;
+import com.github.monet.interfaces.DoubleSeries;
+import com.github.monet.interfaces.LongSeries;
 import com.github.monet.interfaces.MeasurementStream;
 import com.github.monet.interfaces.Meter;
+import com.github.monet.interfaces.Timer;
 
 /**
  * This Meter simply writes the measured data to the console.
@@ -23,6 +31,7 @@ public class TestMeter implements Meter {
 	private Map<String, Long> timers;
 	private Map<String, Aggregator<Object>> aggregators;
 	private Collection<ParetoPoint> paretoFront;
+	private ParetoArchive<Collection<String>> paretoArchive = null;
 
 	public TestMeter() {
 		this.measurementStream = new TestMeasurementStream();
@@ -39,11 +48,24 @@ public class TestMeter implements Meter {
 	@Override
 	public void endExperiment() {
 		System.out.println("Pareto Front:");
-		for (ParetoPoint point : this.paretoFront) {
+		for (ParetoPoint point : this.getParetoPoints()) {
 			String str = String.format("%f: %s", Arrays.toString(point.point),
 					point.edges);
 			System.out.println(str);
 		}
+		ParetoArchive<Collection<String>> archive = this.paretoArchive;
+		if (archive instanceof HypervolumeTracker) {
+			System.out.format("Hypervolume: %f\n",
+					((HypervolumeTracker<Collection<String>>) archive)
+					.getVolume());
+			archive = ((HypervolumeTracker<Collection<String>>) archive)
+					.getArchive();
+		}
+		if (archive instanceof BoundedParetoArchive) {
+			System.out.format("Truncation: %s\n",
+					((BoundedParetoArchive<Collection<String>>) archive)
+							.getTruncationStatistics());
+		}
 		System.out.println("finished experiment");
 	}
 
@@ -67,6 +89,99 @@ public class TestMeter implements Meter {
 		this.measure(path, String.valueOf(value));
 	}
 
+	@Override
+	public DoubleSeries doubleSeries(final String path) {
+		MeasurementHandles.SeriesPath.parse(path);
+		return new DoubleSeries() {
+			private int size = 0;
+
+			@Override
+			public void add(double value) {
+				TestMeter.this.measureDouble(path, value);
+				this.size++;
+			}
+
+			@Override
+			public int size() {
+				return this.size;
+			}
+		};
+	}
+
+	@Override
+	public LongSeries longSeries(final String path) {
+		MeasurementHandles.SeriesPath.parse(path);
+		return new LongSeries() {
+			private int size = 0;
+
+			@Override
+			public void add(long value) {
+				TestMeter.this.measureLong(path, value);
+				this.size++;
+			}
+
+			@Override
+			public int size() {
+				return this.size;
+			}
+		};
+	}
+
+	@Override
+	public Counter counter(final String path) {
+		return new Counter() {
+			private long value = 0;
+
+			@Override
+			public void increment() {
+				this.add(1);
+			}
+
+			@Override
+			public void add(long value) {
+				this.value += value;
+				TestMeter.this.measureLong(path, this.value);
+			}
+
+			@Override
+			public long get() {
+				return this.value;
+			}
+		};
+	}
+
+	@Override
+	public Timer timer(final String path) {
+		return new Timer() {
+			private long start;
+			private boolean running = false;
+			private long count = 0;
+
+			@Override
+			public void start() {
+				this.running = true;
+				this.start = System.nanoTime();
+			}
+
+			@Override
+			public long stop() {
+				long end = System.nanoTime();
+				if (!this.running) {
+					return -1;
+				}
+				this.running = false;
+				this.count++;
+				TestMeter.this.measureLong(path, end - this.start);
+				return end - this.start;
+			}
+
+			@Override
+			public long getCount() {
+				return this.count;
+			}
+		};
+	}
+
 	@Override
 	public void startTimer(String path) {
 		this.timers.put(path, System.nanoTime());
@@ -141,8 +256,17 @@ public class TestMeter implements Meter {
 		this.aggregators.put(path, agg);
 	}
 
+	@Override
+	public void setParetoArchive(ParetoArchive<Collection<String>> archive) {
+		this.paretoArchive = archive;
+	}
+
 	@Override
 	public void measurePareto(double[] point, Collection<String> edges) {
+		if (this.paretoArchive != null) {
+			this.paretoArchive.add(point, edges);
+			return;
+		}
 		ParetoPoint p = new ParetoPoint();
 		p.point = point;
 		p.edges = edges;
@@ -154,10 +278,29 @@ public class TestMeter implements Meter {
 		Collection<String> edges;
 	}
 
+	/**
+	 * @return the measured points, either all or those left in the archive
+	 */
+	private Collection<ParetoPoint> getParetoPoints() {
+		if (this.paretoArchive == null) {
+			return this.paretoFront;
+		}
+		MongoMeter.truncate(this.paretoArchive);
+		Collection<ParetoPoint> points = new ArrayList<>();
+		for (Tuple<double[], Collection<String>> entry : this.paretoArchive
+				.getEntries()) {
+			ParetoPoint p = new ParetoPoint();
+			p.point = entry.getFirst();
+			p.edges = entry.getSecond();
+			points.add(p);
+		}
+		return points;
+	}
+
 	@Override
 	public List<double[]> getParetoFront() {
 		ArrayList<double[]> front = new ArrayList<>();
-		for (ParetoPoint p : paretoFront) {
+		for (ParetoPoint p : this.getParetoPoints()) {
 			front.add(p.point);
 		}
 		return front;
@@ -167,4 +310,9 @@ public class TestMeter implements Meter {
 	public void send() {
 		// don't do anything
 	}
+
+	@Override
+	public void checkpoint() {
+		// don't do anything
+	}
 }
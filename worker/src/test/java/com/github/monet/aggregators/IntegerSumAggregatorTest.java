@@ -26,4 +26,12 @@ public class IntegerSumAggregatorTest {
 		assertEquals(28, (int) this.agg.getValue());
 	}
 
+	@Test
+	public void testAggregateBoxed() {
+		Aggregator<Integer> boxed = this.agg;
+		boxed.aggregate(Integer.valueOf(4));
+		this.agg.aggregate(-1);
+		assertEquals(3, (int) this.agg.getValue());
+	}
+
 }
@@ -1,6 +1,8 @@
 package com.github.monet.aggregators;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -44,4 +46,21 @@ public class MedianAggregatorTest {
 		assertEquals(2.0, this.agg.getValue(), 0.0);
 	}
 
+	@Test
+	public void testManyValues() {
+		MedianAggregator exact = new MedianAggregator(true);
+		for (int i = 0; i <= 2 * MedianAggregator.EXACT_LIMIT; i++) {
+			// 0, 2, 4, ..., 4 * EXACT_LIMIT in mixed order
+			double v = (i * 7919) % (2 * MedianAggregator.EXACT_LIMIT + 1)
+					* 2.0;
+			this.agg.aggregate(v);
+			exact.aggregate(v);
+		}
+		assertFalse(this.agg.isExact());
+		assertTrue(exact.isExact());
+		assertEquals(2.0 * MedianAggregator.EXACT_LIMIT, exact.getValue(), 0.0);
+		assertEquals(2.0 * MedianAggregator.EXACT_LIMIT, this.agg.getValue(),
+				0.01 * MedianAggregator.EXACT_LIMIT);
+	}
+
 }
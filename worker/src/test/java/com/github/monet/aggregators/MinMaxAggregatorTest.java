@@ -0,0 +1,60 @@
+package com.github.monet.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MinMaxAggregatorTest {
+
+	@Test
+	public void testAggregate() {
+		MinAggregator min = new MinAggregator();
+		MaxAggregator max = new MaxAggregator();
+		assertEquals(Double.POSITIVE_INFINITY, min.getValue(), 0.0);
+		assertEquals(Double.NEGATIVE_INFINITY, max.getValue(), 0.0);
+		for (double value : new double[] { 4.2, -1.5, 3.0 }) {
+			min.aggregate(value);
+			max.aggregate(value);
+		}
+		assertEquals(-1.5, min.getValue(), 0.0);
+		assertEquals(4.2, max.getValue(), 0.0);
+	}
+
+	@Test
+	public void testNaNWhenAggregating() {
+		MinAggregator min = new MinAggregator();
+		MaxAggregator max = new MaxAggregator();
+		for (double value : new double[] { 1.0, Double.NaN, 2.0 }) {
+			min.aggregate(value);
+			max.aggregate(value);
+		}
+		assertTrue(min.getValue().isNaN());
+		assertTrue(max.getValue().isNaN());
+	}
+
+	@Test
+	public void testNaNWhenMerging() {
+		MinAggregator min = new MinAggregator();
+		MinAggregator nanMin = min.newAggregator();
+		MaxAggregator max = new MaxAggregator();
+		MaxAggregator nanMax = max.newAggregator();
+		min.aggregate(1.0);
+		max.aggregate(1.0);
+		nanMin.aggregate(Double.NaN);
+		nanMax.aggregate(Double.NaN);
+		min.merge(nanMin);
+		max.merge(nanMax);
+		assertTrue(min.getValue().isNaN());
+		assertTrue(max.getValue().isNaN());
+
+		// the same result in the other order
+		nanMin = new MinAggregator();
+		nanMin.aggregate(Double.NaN);
+		MinAggregator other = new MinAggregator();
+		other.aggregate(1.0);
+		nanMin.merge(other);
+		assertTrue(nanMin.getValue().isNaN());
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.github.monet.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantileAggregatorTest {
+
+	@Test
+	public void testFewValues() {
+		QuantileAggregator agg = new QuantileAggregator(0.5);
+		assertTrue(Double.isNaN(agg.getValue()));
+		agg.aggregate(4.2);
+		agg.aggregate(0.0);
+		agg.aggregate(2.0);
+		assertEquals(2.0, agg.getValue(), 0.0);
+		agg.aggregate(3.7);
+		assertEquals(2.85, agg.getValue(), 1e-12);
+	}
+
+	@Test
+	public void testUniform() {
+		Random random = new Random(1);
+		QuantileAggregator median = new QuantileAggregator(0.5);
+		QuantileAggregator p90 = new QuantileAggregator(0.9);
+		for (int i = 0; i < 100000; i++) {
+			double v = random.nextDouble();
+			median.aggregate(v);
+			p90.aggregate(v);
+		}
+		assertEquals(100000, median.getCount());
+		assertEquals(0.5, median.getValue(), 0.01);
+		assertEquals(0.9, p90.getValue(), 0.01);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidQuantile() {
+		new QuantileAggregator(1.5);
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.github.monet.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TDigestAggregatorTest {
+
+	@Test
+	public void testFewValues() {
+		TDigestAggregator agg = new TDigestAggregator();
+		assertTrue(Double.isNaN(agg.getValue()));
+		for (double v : new double[] { 4.2, 0.0, 3.7, 2.0, 90.3, -71.232 }) {
+			agg.aggregate(v);
+		}
+		assertEquals(2.85, agg.getValue(), 1e-12);
+		assertEquals(-71.232, agg.getQuantile(0), 0.0);
+		assertEquals(90.3, agg.getQuantile(1), 0.0);
+	}
+
+	@Test
+	public void testQuantiles() {
+		Random random = new Random(1);
+		int n = 200000;
+		double[] values = new double[n];
+		TDigestAggregator agg = new TDigestAggregator();
+		for (int i = 0; i < n; i++) {
+			values[i] = random.nextGaussian();
+			agg.aggregate(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(n, agg.getCount());
+		assertTrue(agg.getCentroids() <= 2
+				* TDigestAggregator.DEFAULT_COMPRESSION);
+		for (double q : new double[] { 0.001, 0.01, 0.1, 0.5, 0.9, 0.99,
+				0.999 }) {
+			double exact = values[(int) (q * n)];
+			// compare ranks, which are what the digest bounds
+			int rank = Arrays.binarySearch(values, agg.getQuantile(q));
+			rank = (rank < 0) ? -rank - 1 : rank;
+			assertEquals("quantile " + q + " (" + exact + ")", q, (double) rank
+					/ n, 0.005);
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		Random random = new Random(2);
+		TDigestAggregator all = new TDigestAggregator();
+		TDigestAggregator merged = new TDigestAggregator();
+		for (int part = 0; part < 10; part++) {
+			TDigestAggregator digest = new TDigestAggregator();
+			for (int i = 0; i < 10000; i++) {
+				double v = random.nextDouble() * (part + 1);
+				all.aggregate(v);
+				digest.aggregate(v);
+			}
+			merged.merge(digest);
+		}
+		assertEquals(all.getCount(), merged.getCount());
+		assertEquals(all.getMin(), merged.getMin(), 0.0);
+		assertEquals(all.getMax(), merged.getMax(), 0.0);
+		for (double q : new double[] { 0.01, 0.5, 0.99 }) {
+			assertEquals(all.getQuantile(q), merged.getQuantile(q), 0.05);
+		}
+	}
+
+}
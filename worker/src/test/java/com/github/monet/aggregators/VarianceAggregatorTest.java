@@ -0,0 +1,50 @@
+package com.github.monet.aggregators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VarianceAggregatorTest {
+
+	@Test
+	public void testAggregate() {
+		VarianceAggregator agg = new VarianceAggregator();
+		assertTrue(Double.isNaN(agg.getMean()));
+		for (double v : new double[] { 2, 4, 4, 4, 5, 5, 7, 9 }) {
+			agg.aggregate(v);
+		}
+		assertEquals(8, agg.getCount());
+		assertEquals(5.0, agg.getMean(), 1e-12);
+		assertEquals(32.0 / 7, agg.getValue(), 1e-12);
+		assertEquals(Math.sqrt(32.0 / 7), agg.getStandardDeviation(), 1e-12);
+	}
+
+	@Test
+	public void testLargeOffset() {
+		// summing up squares would lose all digits of the variance
+		VarianceAggregator agg = new VarianceAggregator();
+		for (int i = 0; i < 1000; i++) {
+			agg.aggregate(1e9 + (i % 2));
+		}
+		assertEquals(0.25 * 1000 / 999, agg.getVariance(), 1e-9);
+	}
+
+	@Test
+	public void testMerge() {
+		VarianceAggregator all = new VarianceAggregator();
+		VarianceAggregator first = new VarianceAggregator();
+		VarianceAggregator second = new VarianceAggregator();
+		for (int i = 0; i < 100; i++) {
+			double v = Math.sin(i) * i;
+			all.aggregate(v);
+			(i < 30 ? first : second).aggregate(v);
+		}
+		first.merge(second);
+		first.merge(new VarianceAggregator());
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getMean(), first.getMean(), 1e-12);
+		assertEquals(all.getVariance(), first.getVariance(), 1e-9);
+	}
+
+}
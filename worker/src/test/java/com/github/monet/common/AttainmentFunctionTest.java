@@ -0,0 +1,190 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class AttainmentFunctionTest {
+
+	private static final Comparator<double[]> LEXICOGRAPHIC =
+			new Comparator<double[]>() {
+		@Override
+		public int compare(double[] a, double[] b) {
+			for (int d = 0; d < a.length; d++) {
+				int c = Double.compare(a[d], b[d]);
+				if (c != 0) {
+					return c;
+				}
+			}
+			return 0;
+		}
+	};
+
+	private static List<double[][]> randomRuns(Random random, int n, int k) {
+		List<double[][]> runs = new ArrayList<double[][]>();
+		for (int r = 0; r < n; r++) {
+			double[][] front = new double[random.nextInt(8)][k];
+			for (double[] p : front) {
+				for (int d = 0; d < k; d++) {
+					p[d] = random.nextInt(10);
+				}
+			}
+			runs.add(front);
+		}
+		return runs;
+	}
+
+	private static int attainedBy(List<double[][]> runs, double[] q) {
+		int count = 0;
+		for (double[][] run : runs) {
+			boolean attained = false;
+			for (double[] p : run) {
+				boolean weaklyDominates = true;
+				for (int d = 0; d < q.length; d++) {
+					weaklyDominates &= p[d] <= q[d];
+				}
+				attained |= weaklyDominates;
+			}
+			count += attained ? 1 : 0;
+		}
+		return count;
+	}
+
+	/**
+	 * Minimal points of the attained region on the grid of all values, which
+	 * contains all corners of the region.
+	 */
+	private static double[][] naiveSurface(List<double[][]> runs, int level,
+			int k) {
+		List<double[]> values = new ArrayList<double[]>();
+		for (int d = 0; d < k; d++) {
+			TreeSet<Double> set = new TreeSet<Double>();
+			for (double[][] run : runs) {
+				for (double[] p : run) {
+					set.add(p[d]);
+				}
+			}
+			double[] sorted = new double[set.size()];
+			int i = 0;
+			for (double v : set) {
+				sorted[i++] = v;
+			}
+			values.add(sorted);
+		}
+		List<double[]> surface = new ArrayList<double[]>();
+		if (values.get(0).length == 0) {
+			return new double[0][];
+		}
+		int[] index = new int[k];
+		while (true) {
+			double[] q = new double[k];
+			for (int d = 0; d < k; d++) {
+				q[d] = values.get(d)[index[d]];
+			}
+			boolean minimal = attainedBy(runs, q) >= level;
+			for (int d = 0; d < k && minimal; d++) {
+				if (index[d] > 0) {
+					double[] lower = q.clone();
+					lower[d] = values.get(d)[index[d] - 1];
+					minimal = attainedBy(runs, lower) < level;
+				}
+			}
+			if (minimal) {
+				surface.add(q);
+			}
+			int d = 0;
+			while (d < k && ++index[d] == values.get(d).length) {
+				index[d++] = 0;
+			}
+			if (d == k) {
+				break;
+			}
+		}
+		double[][] result = surface.toArray(new double[surface.size()][]);
+		Arrays.sort(result, LEXICOGRAPHIC);
+		return result;
+	}
+
+	private static void assertSameSurface(double[][] expected,
+			double[][] actual) {
+		double[][] sorted = actual.clone();
+		Arrays.sort(sorted, LEXICOGRAPHIC);
+		assertEquals(expected.length, sorted.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], sorted[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testExample() {
+		List<double[][]> runs = Arrays.asList(new double[][] { { 1, 3 },
+				{ 3, 1 } }, new double[][] { { 2, 2 } },
+				new double[][] {});
+		double[][][] surfaces = new AttainmentFunction().surfaces(runs,
+				new int[] { 1, 2, 3 }, true);
+		assertSameSurface(new double[][] { { 1, 3 }, { 2, 2 }, { 3, 1 } },
+				surfaces[0]);
+		assertSameSurface(new double[][] { { 2, 3 }, { 3, 2 } }, surfaces[1]);
+		assertEquals(0, surfaces[2].length);
+
+		// maximization mirrors minimization
+		runs = Arrays.asList(new double[][] { { -1, -3 }, { -3, -1 } },
+				new double[][] { { -2, -2 } });
+		surfaces = new AttainmentFunction().surfaces(runs, new int[] { 2 },
+				false);
+		assertSameSurface(new double[][] { { -3, -2 }, { -2, -3 } },
+				surfaces[0]);
+	}
+
+	@Test
+	public void testMatchesNaive() {
+		Random random = new Random(13);
+		for (int k = 2; k <= 3; k++) {
+			for (int run = 0; run < 20; run++) {
+				ForkJoinPool pool = new ForkJoinPool(1 + run % 3);
+				try {
+					AttainmentFunction eaf = new AttainmentFunction(pool);
+					List<double[][]> runs = randomRuns(random, 2
+							+ random.nextInt(5), k);
+					int[] levels = new int[runs.size()];
+					for (int t = 1; t <= levels.length; t++) {
+						levels[t - 1] = t;
+					}
+					double[][][] surfaces = eaf.surfaces(runs, levels, true);
+					for (int t = 1; t <= levels.length; t++) {
+						assertSameSurface(naiveSurface(runs, t, k),
+								surfaces[t - 1]);
+					}
+				} finally {
+					pool.shutdown();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDefaultLevels() {
+		assertArrayEquals(new int[] { 1 }, AttainmentFunction.defaultLevels(1));
+		assertArrayEquals(new int[] { 1, 2 },
+				AttainmentFunction.defaultLevels(2));
+		assertArrayEquals(new int[] { 1, 16, 31 },
+				AttainmentFunction.defaultLevels(31));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLevelOutOfRange() {
+		new AttainmentFunction().surfaces(
+				Arrays.<double[][]> asList(new double[][] { { 1, 2 } }),
+				new int[] { 2 }, true);
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+public class CompiledPathTest {
+
+	@Test
+	public void testCompile() {
+		CompiledPath path = CompiledPath.compile("/gen/#3/hv/");
+		assertSame(path, CompiledPath.compile("/gen/#3/hv/"));
+		assertEquals("gen/#3/hv/", path.getPath());
+		assertEquals(3, path.length());
+		assertEquals(1, path.keyPrefix);
+		assertEquals(2, CompiledPath.compile("a/b/c").keyPrefix);
+		try {
+			CompiledPath.compile("a/#x");
+			fail("should throw MongoBuilderException");
+		} catch (MongoBuilderException ex) {
+			assertEquals("#x", ex.getToken());
+			assertEquals(2, ex.getPosition());
+		}
+		try {
+			CompiledPath.compile("/#/a");
+			fail("should throw MongoBuilderException");
+		} catch (MongoBuilderException ex) {
+			assertEquals("may not start with '#'", ex.getShortMessage());
+		}
+	}
+
+	@Test
+	public void testReplaceCachedKey() {
+		MongoBuilder builder = new MongoBuilder();
+		builder.insert("run/gen/#/hv", 1.0);
+		// the containers of the path are remembered, but replaced here
+		builder.put("run", new BasicDBObject("name", "a"));
+		builder.insert("run/gen/#/hv", 2.0);
+		assertEquals(1,
+				((List<?>) MongoBuilder.find(builder, "run/gen")).size());
+		assertEquals(2.0, MongoBuilder.find(builder, "run/gen/#0/hv"));
+		assertEquals("a", MongoBuilder.find(builder, "run/name"));
+
+		builder.remove("run");
+		builder.insert("run/gen/#/hv", 3.0);
+		assertEquals(1, ((Map<?, ?>) MongoBuilder.find(builder, "run")).size());
+		assertEquals(3.0, MongoBuilder.find(builder, "run/gen/#0/hv"));
+
+		Map<String, Object> replacement = new HashMap<String, Object>();
+		replacement.put("run", new BasicDBList());
+		builder.putAll(replacement);
+		builder.insert("run/#", 4);
+		assertEquals(Arrays.<Object> asList(4),
+				MongoBuilder.find(builder, "run"));
+	}
+
+	@Test
+	public void testRepeatedInserts() {
+		MongoBuilder builder = new MongoBuilder();
+		for (int i = 0; i < 1000; i++) {
+			builder.insert("run/points/#", i);
+			builder.insert("run/gen/#/hv", 0.5 * i);
+			builder.insert("run/gen/#" + i + "/evals", i);
+		}
+		builder.insert("run/name", "a");
+		builder.insert("run/name", "b");
+		assertEquals(1000,
+				((List<?>) MongoBuilder.find(builder, "run/points")).size());
+		assertEquals(999, MongoBuilder.find(builder, "run/points/#"));
+		assertEquals(499.5, MongoBuilder.find(builder, "run/gen/#999/hv"));
+		assertEquals(999, MongoBuilder.find(builder, "run/gen/#999/evals"));
+		assertEquals("a", MongoBuilder.find(builder, "run/name"));
+
+		// a value in the way of a path is kept
+		builder.insert("run/name/first", "c");
+		assertEquals("a", MongoBuilder.find(builder, "run/name"));
+		try {
+			builder.insert("run/points/x", 1);
+			fail("should throw MongoBuilderException");
+		} catch (MongoBuilderException ex) {
+			assertEquals("expected list but got key", ex.getShortMessage());
+			assertEquals(11, ex.getPosition());
+		}
+
+		builder.clear();
+		builder.insert("run/points/#", 1);
+		assertEquals(1,
+				((List<?>) MongoBuilder.find(builder, "run/points")).size());
+	}
+
+	@Test
+	public void testFind() {
+		MongoBuilder builder = new MongoBuilder();
+		builder.insert("a/#/b", 1);
+		builder.insert("a/#/b", 2);
+		CompiledPath last = CompiledPath.compile("a/#/b");
+		assertEquals(2, last.find(builder));
+		assertEquals(1, CompiledPath.compile("a/#0/b").find(builder));
+		assertNull(CompiledPath.compile("x/y").find(builder));
+		try {
+			CompiledPath.compile("a/#2/b").find(builder);
+			fail("should throw MongoBuilderException");
+		} catch (MongoBuilderException ex) {
+			assertEquals("index out of bounds", ex.getShortMessage());
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DominanceKernelTest {
+
+	/**
+	 * @return uniformly random points, or points close to a sphere if
+	 *         converged, with few distinct values so there are equal points
+	 */
+	private static double[] population(Random random, int n, int k,
+			boolean converged) {
+		double[] values = new double[n * k];
+		for (int i = 0; i < n; i++) {
+			double norm = 0;
+			for (int d = 0; d < k; d++) {
+				values[i * k + d] = converged ? Math.abs(random.nextGaussian())
+						: random.nextInt(4);
+				norm += values[i * k + d] * values[i * k + d];
+			}
+			if (converged) {
+				norm = Math.sqrt(norm) * (1 + 0.05 * random.nextDouble());
+				for (int d = 0; d < k; d++) {
+					values[i * k + d] /= norm;
+				}
+			}
+		}
+		return values;
+	}
+
+	@Test
+	public void testMatchesPairwise() {
+		Random random = new Random(8);
+		int n = 300;
+		for (int k = 2; k <= 8; k++) {
+			for (boolean converged : new boolean[] { false, true }) {
+				for (boolean minimization : new boolean[] { true, false }) {
+					double[] values = DominanceKernelTest.population(random, n,
+							k, converged);
+					DominanceKernel kernel = DominanceKernel.forDimension(k,
+							minimization);
+					assertEquals(k, kernel.getDimension());
+					byte[] relations = new byte[n];
+					for (int q = 0; q < 20; q++) {
+						double[] p = new double[k];
+						System.arraycopy(values, random.nextInt(n) * k, p, 0,
+								k);
+						kernel.relations(values, 0, n, p, relations);
+						for (int i = 0; i < n; i++) {
+							double[] point = new double[k];
+							System.arraycopy(values, i * k, point, 0, k);
+							boolean dominates = ParetoPoint.dominates(point, p,
+									k, minimization);
+							boolean dominated = ParetoPoint.dominates(p, point,
+									k, minimization);
+							int expected = Arrays.equals(point, p)
+									? DominanceKernel.EQUAL
+									: dominates ? DominanceKernel.DOMINATES
+											: dominated
+											? DominanceKernel.DOMINATED
+											: DominanceKernel.INCOMPARABLE;
+							assertEquals(expected, relations[i]);
+							assertEquals(expected,
+									kernel.relation(values, i, p));
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
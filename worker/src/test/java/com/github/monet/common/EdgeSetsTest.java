@@ -0,0 +1,79 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class EdgeSetsTest {
+
+	@Test
+	public void testDictionary() {
+		EdgeSets edgeSets = new EdgeSets();
+		byte[] first = edgeSets.encode(Arrays.asList("b-c", "a-b", "b-c"));
+		byte[] second = edgeSets.encode(Arrays.asList("c-d", "a-b"));
+		assertEquals(Arrays.asList("b-c", "a-b", "c-d"),
+				edgeSets.getDictionary());
+		assertEquals(Arrays.asList("b-c", "a-b"), edgeSets.decode(first));
+		assertEquals(Arrays.asList("a-b", "c-d"), edgeSets.decode(second));
+
+		// decoded with a dictionary read back from the database
+		EdgeSets read = new EdgeSets(
+				new ArrayList<String>(edgeSets.getDictionary()));
+		assertEquals(Arrays.asList("a-b", "c-d"), read.decode(second));
+		assertEquals(0,
+				read.decode(edgeSets.encode(new ArrayList<String>())).size());
+	}
+
+	@Test
+	public void testFormats() {
+		// few ids far apart: gaps
+		byte[] sparse = EdgeSets.encodeIds(new int[] { 100000, 5, 300 });
+		assertEquals(EdgeSets.DELTA, sparse[0]);
+		assertArrayEquals(new int[] { 5, 300, 100000 },
+				EdgeSets.decodeIds(sparse));
+
+		// most of the ids: bits
+		int[] dense = new int[900];
+		for (int i = 0; i < dense.length; i++) {
+			dense[i] = i + i / 9;
+		}
+		byte[] bits = EdgeSets.encodeIds(dense.clone());
+		assertEquals(EdgeSets.BITSET, bits[0]);
+		assertEquals(1 + dense[dense.length - 1] / 8 + 1, bits.length);
+		assertArrayEquals(dense, EdgeSets.decodeIds(bits));
+	}
+
+	@Test
+	public void testRandomSets() {
+		Random random = new Random(1);
+		for (int t = 0; t < 500; t++) {
+			int range = 1 + random.nextInt(5000);
+			int n = random.nextInt(range);
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			int[] ids = new int[n];
+			for (int i = 0; i < n; i++) {
+				ids[i] = random.nextInt(range);
+				expected.add(ids[i]);
+			}
+			int[] decoded = EdgeSets.decodeIds(EdgeSets.encodeIds(ids));
+			List<Integer> actual = new ArrayList<Integer>();
+			for (int id : decoded) {
+				actual.add(id);
+			}
+			assertEquals(new ArrayList<Integer>(expected), actual);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMalformed() {
+		EdgeSets.decodeIds(new byte[] { EdgeSets.DELTA, 3, 1, (byte) 0x80 });
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FrontFileTest {
+
+	private static File tempFile(String suffix) throws IOException {
+		File file = File.createTempFile("front", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	private static List<double[]> randomPoints(Random random, int n, int k) {
+		List<double[]> points = new ArrayList<double[]>();
+		for (int i = 0; i < n; i++) {
+			double[] p = new double[k];
+			for (int d = 0; d < k; d++) {
+				p[d] = random.nextGaussian()
+						* Math.pow(10, random.nextInt(20) - 10);
+			}
+			points.add(p);
+		}
+		return points;
+	}
+
+	@Test
+	public void testWriteAndMap() throws IOException {
+		File file = FrontFileTest.tempFile(".monf");
+		List<double[]> points = FrontFileTest.randomPoints(new Random(1), 1000,
+				3);
+		// a small batch, so the points are written in several batches
+		try (FrontFileWriter writer = FrontFileWriter.create(file, 3, false,
+				64)) {
+			writer.addAll(points.subList(0, 500));
+			assertEquals(500, writer.size());
+		}
+		try (FrontFileWriter writer = FrontFileWriter.append(file, 64)) {
+			assertEquals(3, writer.getDimension());
+			assertFalse(writer.isMinimization());
+			writer.addAll(ParetoFront.fromList(points.subList(500, 1000),
+					false));
+		}
+
+		assertTrue(FrontFile.isFrontFile(file));
+		FrontFile front = FrontFile.open(file);
+		assertEquals(1000, front.size());
+		assertEquals(3, front.getDimension());
+		assertFalse(front.isMinimization());
+		double[] point = new double[3];
+		for (int i = 0; i < 1000; i++) {
+			assertArrayEquals(points.get(i), front.getPoint(i, point), 0);
+			assertEquals(points.get(i)[2], front.get(i, 2), 0);
+		}
+		ParetoFront copy = front.toParetoFront();
+		assertEquals(1000, copy.size());
+		assertArrayEquals(points.get(999), copy.getPoint(999), 0);
+		assertEquals(1000, FrontFile.readPoints(file).size());
+	}
+
+	@Test
+	public void testEmptyAndUnflushed() throws IOException {
+		File file = FrontFileTest.tempFile(".monf");
+		FrontFileWriter.create(file, 2, true).close();
+		FrontFile front = FrontFile.open(file);
+		assertEquals(0, front.size());
+		assertEquals(0, front.toParetoFront().size());
+
+		// only complete batches are visible before the writer is closed
+		FrontFileWriter writer = FrontFileWriter.create(file, 2, true, 2);
+		for (int i = 0; i < 5; i++) {
+			writer.add(new double[] { i, -i });
+		}
+		assertEquals(4, FrontFile.open(file).size());
+		writer.close();
+		assertEquals(5, FrontFile.open(file).size());
+		assertArrayEquals(new double[] { 4, -4 },
+				FrontFile.open(file).getPoint(4, new double[2]), 0);
+	}
+
+	@Test
+	public void testCSV() throws IOException {
+		String csv = "1, 2.5, -3e2\r\n\n  0.000125 ,-0.0,1E-5\n"
+				+ "0.1, 123456789012345678, 4.9E-324\n"
+				+ "NaN, Infinity, -1.7976931348623157E308";
+		CSVFrontReader reader = new CSVFrontReader(new StringReader(csv));
+		List<double[]> points = reader.readAll();
+		assertEquals(4, points.size());
+		assertArrayEquals(new double[] { 1, 2.5, -300 }, points.get(0), 0);
+		assertArrayEquals(new double[] { 0.000125, -0.0, 1e-5 }, points.get(1),
+				0);
+		assertEquals(Double.doubleToLongBits(-0.0),
+				Double.doubleToLongBits(points.get(1)[1]));
+		assertArrayEquals(new double[] { 0.1, 123456789012345678.0,
+				Double.MIN_VALUE }, points.get(2), 0);
+		assertArrayEquals(new double[] { Double.NaN, Double.POSITIVE_INFINITY,
+				-Double.MAX_VALUE }, points.get(3), 0);
+
+		// the written values are read back exactly
+		List<double[]> expected = FrontFileTest.randomPoints(new Random(2),
+				2000, 4);
+		StringWriter out = new StringWriter();
+		try (CSVFrontWriter writer = new CSVFrontWriter(out)) {
+			writer.writeAll(expected);
+		}
+		reader = new CSVFrontReader(new StringReader(out.toString()));
+		ParetoFront front = reader.readFront(true);
+		assertEquals(expected.size(), front.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(expected.get(i), front.getPoint(i), 0);
+		}
+	}
+
+	@Test
+	public void testWrongDimension() throws IOException {
+		File file = FrontFileTest.tempFile(".monf");
+		try (FrontFileWriter writer = FrontFileWriter.create(file, 2, true)) {
+			writer.add(new double[] { 1, 2 });
+			try {
+				writer.add(new double[] { 1, 2, 3 });
+				fail();
+			} catch (IllegalArgumentException e) {
+				// points with more values are not truncated
+			}
+		}
+
+		// appending individuals of another dimension leaves the file as it is
+		List<ParetoPoint> points = Arrays.asList(
+				new ParetoPoint(new double[] { 3, 4, 5 }, true));
+		try {
+			ParetoPoint.exportObjectiveValues(points, file.getPath(), true);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals(1, FrontFile.open(file).size());
+		}
+
+		// so does replacing it with individuals of different dimensions
+		byte[] before = Files.readAllBytes(file.toPath());
+		points = Arrays.asList(new ParetoPoint(new double[] { 1, 2 }, true),
+				new ParetoPoint(new double[] { 3, 4, 5 }, true));
+		try {
+			ParetoPoint.exportObjectiveValues(points, file.getPath(), false);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testMalformedCSV() throws IOException {
+		new CSVFrontReader(new StringReader("1, 2\n3,,4\n")).readAll();
+	}
+
+	@Test
+	public void testExport() throws IOException {
+		List<ParetoPoint> points = new ArrayList<ParetoPoint>();
+		for (double[] p : FrontFileTest.randomPoints(new Random(3), 50, 2)) {
+			points.add(new ParetoPoint(new double[] { Math.abs(p[0]) % 10,
+					Math.abs(p[1]) % 10 }, true));
+		}
+		File csv = FrontFileTest.tempFile(".csv");
+		File binary = FrontFileTest.tempFile(".monf");
+		ParetoPoint.exportObjectiveValuesToCSV(points.subList(0, 20),
+				csv.getPath(), false);
+		ParetoPoint.exportObjectiveValuesToCSV(points.subList(20, 50),
+				csv.getPath(), true);
+		ParetoPoint.exportObjectiveValues(points.subList(0, 20),
+				binary.getPath(), false);
+		ParetoPoint.exportObjectiveValues(points.subList(20, 50),
+				binary.getPath(), true);
+
+		assertFalse(FrontFile.isFrontFile(csv));
+		List<double[]> fromCSV = ParetoPoint.readFromCSV(csv.getPath());
+		List<double[]> fromBinary = FrontFile.readPoints(binary);
+		assertEquals(50, fromCSV.size());
+		for (int i = 0; i < 50; i++) {
+			assertArrayEquals(points.get(i).getObjectiveValues(),
+					fromCSV.get(i), 0);
+			assertArrayEquals(points.get(i).getObjectiveValues(),
+					fromBinary.get(i), 0);
+		}
+		double expected = ParetoPoint.calculateSMetric(fromCSV, true);
+		assertEquals(expected,
+				ParetoPoint.calcSMetricfromCSV(csv.getPath(), true), 0);
+		assertEquals(expected,
+				ParetoPoint.calcSMetricfromFile(binary.getPath(), true), 0);
+	}
+
+}
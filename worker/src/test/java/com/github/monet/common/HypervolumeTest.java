@@ -0,0 +1,462 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HypervolumeTest {
+
+	/**
+	 * The S-Metric as calculated before the dedicated engines existed.
+	 */
+	private static double legacySMetric(List<double[]> points,
+			boolean minimization) {
+		int k = points.get(0).length;
+		List<ParetoPoint> resPoints = ParetoPoint.createPoints(points,
+				minimization);
+		if (minimization) {
+			ParetoPoint.setNormalizedAndInvertedValues(resPoints,
+					ParetoPoint.getMin(resPoints),
+					ParetoPoint.getMax(resPoints), false, 0, 1);
+			for (ParetoPoint p : resPoints)
+				p.setActiveObjectives(ObjectivePoint.ActiveObjectives.INVERTED);
+		}
+		return ParetoPoint.getMaximizationSMetricByHSO(resPoints, new double[k],
+				k);
+	}
+
+	private static List<double[]> randomPoints(Random random, int n, int k) {
+		List<double[]> points = new ArrayList<double[]>(n);
+		for (int i = 0; i < n; i++) {
+			double[] point = new double[k];
+			for (int j = 0; j < k; j++) {
+				point[j] = random.nextInt(50) + random.nextDouble();
+			}
+			points.add(point);
+		}
+		return points;
+	}
+
+	@Test
+	public void test2DExample() {
+		double[][] points = { { 1, 4 }, { 2, 3 }, { 3, 1 }, { 1, 1 } };
+		assertEquals(8.0, new Hypervolume2D().calculate(points, null), 0.0);
+		double[][] shifted = { { 1, 4 }, { 2, 3 }, { 3, 1 } };
+		assertEquals(2.0,
+				new Hypervolume2D().calculate(shifted, new double[] { 1, 1 }),
+				0.0);
+	}
+
+	@Test
+	public void test2DMatchesHSO() {
+		Random random = new Random(4711);
+		for (int run = 0; run < 50; run++) {
+			List<double[]> points = randomPoints(random, 1 + random.nextInt(60),
+					2);
+			assertEquals(legacySMetric(points, true),
+					ParetoPoint.calculateSMetric(points, true), 0.0);
+			assertEquals(legacySMetric(points, false),
+					ParetoPoint.calculateSMetric(points, false), 0.0);
+		}
+	}
+
+	@Test
+	public void test2DDoesNotModifyInput() {
+		List<double[]> points = new ArrayList<double[]>();
+		points.add(new double[] { 5.0, 2.0 });
+		points.add(new double[] { 1.5, 3.53 });
+		ParetoPoint.calculateSMetric(points, true);
+		assertEquals(5.0, points.get(0)[0], 0.0);
+		assertEquals(3.53, points.get(1)[1], 0.0);
+	}
+
+	@Test
+	public void test3DExample() {
+		double[][] points = { { 2, 1, 1 }, { 1, 2, 1 }, { 1, 1, 2 },
+				{ 1, 1, 1 } };
+		assertEquals(4.0, new Hypervolume3D().calculate(points, null), 0.0);
+		double[][] cube = { { 2, 2, 2 }, { 1, 1, 1 }, { 2, 2, 2 } };
+		assertEquals(8.0, new Hypervolume3D().calculate(cube, null), 0.0);
+	}
+
+	@Test
+	public void test3DMatchesHSO() {
+		Random random = new Random(42);
+		for (int run = 0; run < 30; run++) {
+			List<double[]> points = randomPoints(random, 1 + random.nextInt(40),
+					3);
+			double expected = legacySMetric(points, true);
+			assertEquals(expected, ParetoPoint.calculateSMetric(points, true),
+					expected * 1e-12);
+			expected = legacySMetric(points, false);
+			assertEquals(expected, ParetoPoint.calculateSMetric(points, false),
+					expected * 1e-12);
+		}
+	}
+
+	@Test
+	public void testWFGMatchesHSO() {
+		Random random = new Random(7);
+		for (int k = 2; k <= 5; k++) {
+			for (int run = 0; run < 10; run++) {
+				List<double[]> points = randomPoints(random, 1
+						+ random.nextInt(25), k);
+				double expected = legacySMetric(points, true);
+				assertEquals(expected,
+						ParetoPoint.calculateSMetric(points, null, true,
+						new WFGHypervolume()), expected * 1e-12);
+				assertEquals(expected,
+						ParetoPoint.calculateSMetric(points, null, true,
+						new ExactHypervolume()), expected * 1e-12);
+			}
+		}
+	}
+
+	/**
+	 * Contributions as the difference of two full hypervolume calculations.
+	 */
+	private static double[] naiveContributions(double[][] points,
+			double[] ref) {
+		double[][] copy = points.clone();
+		double total = new ExactHypervolume().calculate(copy, ref);
+		double[] contributions = new double[points.length];
+		for (int i = 0; i < points.length; i++) {
+			double[][] others = new double[points.length - 1][];
+			for (int j = 0, o = 0; j < points.length; j++) {
+				if (j != i) {
+					others[o++] = points[j];
+				}
+			}
+			contributions[i] = total
+					- new ExactHypervolume().calculate(others, ref);
+		}
+		return contributions;
+	}
+
+	@Test
+	public void testContributionsExample() {
+		double[][] points = { { 1, 4 }, { 2, 3 }, { 3, 1 }, { 1, 1 },
+				{ 2, 3 } };
+		double[] contributions = HypervolumeContributions.calculate(points,
+				null);
+		assertArrayEquals(new double[] { 1, 0, 1, 0, 0 }, contributions, 0.0);
+		// the input is not reordered
+		assertEquals(3.0, points[2][0], 0.0);
+	}
+
+	@Test
+	public void testContributionsMatchNaive() {
+		Random random = new Random(5);
+		for (int k = 1; k <= 5; k++) {
+			for (int run = 0; run < 40; run++) {
+				int n = 1 + random.nextInt(k <= 3 ? 60 : 20);
+				double[][] points = new double[n][k];
+				for (int i = 0; i < n; i++) {
+					for (int j = 0; j < k; j++) {
+						// few distinct values to provoke ties and duplicates
+						points[i][j] = (run % 2 == 0) ? random.nextInt(8)
+								: random.nextDouble() * 10;
+					}
+				}
+				double[] ref = new double[k];
+				Arrays.fill(ref, -0.5);
+				double[] expected = naiveContributions(points, ref);
+				double[] actual = HypervolumeContributions.calculate(points,
+						ref);
+				for (int i = 0; i < n; i++) {
+					assertEquals(expected[i], actual[i], 1e-9
+							* Math.max(1, Math.abs(expected[i])));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCalcSMetricContrib() {
+		List<double[]> values = randomPoints(new Random(8), 30, 3);
+		List<ParetoPoint> points = ParetoPoint.createPoints(values, false);
+		ParetoPoint min = ParetoPoint.calcSMetricContrib(points, null, 3,
+				false);
+		ParetoPoint max = ParetoPoint.calcSMetricContrib(points, null, 3, true);
+		assertEquals(30, points.size());
+		for (ParetoPoint p : points) {
+			assertTrue(min.getResult() <= p.getResult());
+			assertTrue(max.getResult() >= p.getResult());
+		}
+	}
+
+	@Test
+	public void testForName() {
+		assertEquals(ExactHypervolume.class,
+				HypervolumeCalculators.forName(null).getClass());
+		assertEquals(WFGHypervolume.class,
+				HypervolumeCalculators.forName("WFG").getClass());
+		assertEquals(HSOHypervolume.class,
+				HypervolumeCalculators.forName("hso").getClass());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testForNameUnknown() {
+		HypervolumeCalculators.forName("foo");
+	}
+
+	@Test
+	public void testMonteCarloContainsExactValue() {
+		Random random = new Random(11);
+		for (int k = 3; k <= 6; k++) {
+			List<double[]> points = randomPoints(random, 30, k);
+			double exact = ParetoPoint.calculateSMetric(points, true);
+			HypervolumeEstimate estimate = ParetoPoint.estimateSMetric(points,
+					null, true, new MonteCarloHypervolume(200000, 0, 0.999, 1));
+			assertEquals(200000, estimate.getSamples());
+			assertTrue(estimate.toString(), estimate.getLowerBound() <= exact
+					&& exact <= estimate.getUpperBound());
+			assertEquals(exact, estimate.getValue(), exact * 0.05);
+		}
+	}
+
+	@Test
+	public void testMonteCarloReproducible() {
+		List<double[]> points = randomPoints(new Random(3), 50, 6);
+		MonteCarloHypervolume estimator = new MonteCarloHypervolume(1000000,
+				0.01, 0.95, 99);
+		HypervolumeEstimate first = ParetoPoint.estimateSMetric(points, null,
+				true, estimator);
+		HypervolumeEstimate second = ParetoPoint.estimateSMetric(points, null,
+				true, estimator);
+		assertEquals(first.getValue(), second.getValue(), 0.0);
+		assertEquals(first.getSamples(), second.getSamples());
+		// the target error stops sampling early
+		assertTrue(first.getSamples() < 1000000);
+		assertTrue(first.getUpperBound() - first.getLowerBound() <= 2 * 0.01
+				* first.getValue());
+	}
+
+	@Test
+	public void testForParameters() {
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		assertEquals(ExactHypervolume.class,
+				HypervolumeCalculators.forParameters(parameters).getClass());
+		parameters.put(HypervolumeCalculators.PARAMETER, "montecarlo");
+		parameters.put(HypervolumeCalculators.SAMPLES_PARAMETER, "5000");
+		parameters.put(HypervolumeCalculators.SEED_PARAMETER, "17");
+		MonteCarloHypervolume estimator =
+				(MonteCarloHypervolume) HypervolumeCalculators.forParameters(
+				parameters);
+		assertEquals(5000, estimator.getMaxSamples());
+		assertEquals(17, estimator.getSeed());
+		assertEquals(MonteCarloHypervolume.DEFAULT_CONFIDENCE,
+				estimator.getConfidence(), 0.0);
+	}
+
+	@Test
+	public void testParallelIsIdentical() {
+		Random random = new Random(23);
+		for (int k = 2; k <= 6; k++) {
+			List<double[]> points = randomPoints(random, 300, k);
+			double[][] maximization = ParetoPoint.toMaximizationPoints(points,
+					true);
+			double expected = new ExactHypervolume().calculate(
+					maximization.clone(), null);
+			for (int threads : new int[] { 1, 2, 3, 8 }) {
+				// a threshold of 1 runs even small subproblems in parallel
+				for (int threshold : new int[] { 1, 50 }) {
+					double parallel = new ParallelHypervolume(threads,
+							threshold).calculate(maximization.clone(), null);
+					assertEquals(Double.doubleToLongBits(expected),
+							Double.doubleToLongBits(parallel));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testForParametersParallel() {
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put(HypervolumeCalculators.PARAMETER, "parallel");
+		ParallelHypervolume calculator =
+				(ParallelHypervolume) HypervolumeCalculators.forParameters(
+				parameters);
+		assertEquals(ParallelHypervolume.DEFAULT_THRESHOLD,
+				calculator.getThreshold());
+		parameters.put(HypervolumeCalculators.THREADS_PARAMETER, "3");
+		parameters.put(HypervolumeCalculators.THRESHOLD_PARAMETER, 500);
+		calculator = (ParallelHypervolume) HypervolumeCalculators.forParameters(
+				parameters);
+		assertEquals(3, calculator.getParallelism());
+		assertEquals(500, calculator.getThreshold());
+		// jobs with the same number of threads share one pool
+		ParallelHypervolume other = (ParallelHypervolume) HypervolumeCalculators
+				.forParameters(parameters);
+		assertTrue(
+				ParallelHypervolume.getSharedPool(
+				3) == ParallelHypervolume.getSharedPool(3));
+		assertEquals(3, other.getParallelism());
+	}
+
+	/**
+	 * Points on the positive part of a unit sphere are all non-dominated, so
+	 * every slice of the parallel calculation has work to do.
+	 */
+	@Test
+	public void testParallelSphere() {
+		Random random = new Random(42);
+		double[][] points = new double[400][5];
+		for (double[] point : points) {
+			double norm = 0;
+			for (int d = 0; d < point.length; d++) {
+				point[d] = Math.abs(random.nextGaussian());
+				norm += point[d] * point[d];
+			}
+			norm = Math.sqrt(norm);
+			for (int d = 0; d < point.length; d++) {
+				point[d] /= norm;
+			}
+		}
+		double expected = new ExactHypervolume().calculate(points.clone(),
+				null);
+		for (int threads : new int[] { 1, 2, 4, 8, 16, 32 }) {
+			double parallel = new ParallelHypervolume(threads,
+					1).calculate(points.clone(), null);
+			assertEquals(Double.doubleToLongBits(expected),
+					Double.doubleToLongBits(parallel));
+		}
+	}
+
+	@Test
+	public void testObjectiveBounds() {
+		List<double[]> first = Arrays.asList(new double[] { 0, 4 },
+				new double[] { 2, 2 });
+		List<double[]> second = Arrays.asList(new double[] { 1, 1 },
+				new double[] { 4, 0 });
+		ObjectiveBounds bounds = new ObjectiveBounds(true, 0.5);
+		bounds.addAll(first);
+		bounds.addAll(second);
+		assertArrayEquals(new double[] { 0, 0 }, bounds.getIdeal(), 0.0);
+		assertArrayEquals(new double[] { 4, 4 }, bounds.getNadir(), 0.0);
+		assertArrayEquals(new double[] { 6, 6 }, bounds.getReferencePoint(),
+				0.0);
+
+		// the hypervolume of the original points and the reference point,
+		// divided by the product of the ranges
+		assertEquals(20 / 16.0, bounds.hypervolume(first, null), 1e-12);
+		assertEquals(27 / 16.0, bounds.hypervolume(second, null), 1e-12);
+		// points beyond the reference point don't count
+		assertEquals(0,
+				bounds.hypervolume(Arrays.asList(new double[] { 7, 1 }), null),
+				0.0);
+
+		// a point of the wrong dimension leaves the bounds unchanged
+		try {
+			bounds.addAll(Arrays.asList(new double[] { -1, -1 },
+					new double[] { 1, 1, 1 }));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertArrayEquals(new double[] { 0, 0 }, bounds.getIdeal(), 0.0);
+		}
+	}
+
+	/**
+	 * Hypervolume of minimization points by a from-scratch calculation.
+	 */
+	private static double minimizedVolume(List<double[]> points, double[] ref) {
+		double[][] inverted = new double[points.size()][ref.length];
+		for (int i = 0; i < inverted.length; i++) {
+			for (int d = 0; d < ref.length; d++) {
+				inverted[i][d] = ref[d] - points.get(i)[d];
+			}
+		}
+		return new ExactHypervolume().calculate(inverted, null);
+	}
+
+	@Test
+	public void testDynamicMatchesExact() {
+		Random random = new Random(21);
+		for (int k = 2; k <= 3; k++) {
+			double[] ref = new double[k];
+			Arrays.fill(ref, 18);
+			DynamicHypervolume volume = HypervolumeCalculators.dynamic(ref,
+					true);
+			for (int step = 0; step < 2000; step++) {
+				List<double[]> points = volume.getPoints();
+				if (!points.isEmpty() && random.nextInt(4) == 0) {
+					assertTrue(
+							volume.remove(
+							points.get(random.nextInt(points.size()))));
+				} else {
+					double[] p = new double[k];
+					for (int d = 0; d < k; d++) {
+						p[d] = random.nextInt(20);
+					}
+					volume.add(p);
+				}
+				assertEquals(minimizedVolume(volume.getPoints(), ref),
+						volume.getVolume(), 1e-9);
+			}
+			assertTrue(volume.size() > 0);
+			volume.clear();
+			assertEquals(0, volume.getVolume(), 0.0);
+		}
+	}
+
+	@Test
+	public void testDynamicExample() {
+		DynamicHypervolume volume = new DynamicHypervolume2D(new double[] { 0,
+				0 }, false);
+		assertTrue(volume.add(new double[] { 1, 3 }));
+		assertTrue(volume.add(new double[] { 3, 1 }));
+		assertEquals(5, volume.getVolume(), 0.0);
+		// weakly dominated or beyond the reference point
+		assertEquals(false, volume.add(new double[] { 1, 1 }));
+		assertEquals(false, volume.add(new double[] { 4, -1 }));
+		assertTrue(volume.add(new double[] { 3, 3 }));
+		assertEquals(1, volume.size());
+		assertEquals(9, volume.getVolume(), 0.0);
+		assertEquals(false, volume.remove(new double[] { 1, 3 }));
+		assertTrue(volume.remove(new double[] { 3, 3 }));
+		assertEquals(0, volume.getVolume(), 0.0);
+	}
+
+	@Test
+	public void testHypervolumeTracker() {
+		Random random = new Random(22);
+		double[] ref = { 20, 20, 20 };
+		HypervolumeTracker<Void> tracker = new HypervolumeTracker<Void>(
+				new NDTreeArchive<Void>(true), ref);
+		HypervolumeTracker<Void> bounded = new HypervolumeTracker<Void>(
+				new EpsilonGridArchive<Void>(true, 2.0), ref);
+		HypervolumeTracker<Void> truncated = new HypervolumeTracker<Void>(
+				new HypervolumeArchive<Void>(true, 10), ref);
+		for (int i = 0; i < 300; i++) {
+			double[] p = { random.nextInt(25), random.nextInt(25),
+					random.nextInt(25) };
+			tracker.add(p, null);
+			bounded.add(p, null);
+			truncated.add(p, null);
+		}
+		for (HypervolumeTracker<Void> t : Arrays.asList(tracker, bounded,
+				truncated)) {
+			// truncates the archive before the points are read
+			double volume = t.getVolume();
+			List<double[]> points = new ArrayList<double[]>();
+			for (Tuple<double[], Void> entry : t.getEntries()) {
+				if (entry.getFirst()[0] < 20 && entry.getFirst()[1] < 20
+						&& entry.getFirst()[2] < 20) {
+					points.add(entry.getFirst());
+				}
+			}
+			assertEquals(minimizedVolume(points, ref), volume, 1e-9);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		for (long v : new long[] { 0, 1, 127, 128, 255, 256, 257, 1000,
+				123456789L, Long.MAX_VALUE }) {
+			int index = LogHistogram.index(v);
+			assertTrue(v + " in its bucket", LogHistogram.highest(index) >= v);
+			if (index > 0) {
+				assertTrue(v + " above the bucket before",
+						LogHistogram.highest(index - 1) < v);
+			}
+		}
+		assertEquals(100, LogHistogram.highest(LogHistogram.index(100)));
+	}
+
+	@Test
+	public void testQuantiles() {
+		Random random = new Random(1);
+		int n = 100000;
+		long[] values = new long[n];
+		LogHistogram histogram = new LogHistogram();
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			// about 1us to 1s
+			values[i] = (long) Math.exp(7 + 14 * random.nextDouble());
+			histogram.record(values[i]);
+			sum += values[i];
+		}
+		Arrays.sort(values);
+		assertEquals(n, histogram.getCount());
+		assertEquals(sum, histogram.getSum());
+		assertEquals(values[0], histogram.getMin());
+		assertEquals(values[n - 1], histogram.getMax());
+		assertEquals(values[n - 1], histogram.getQuantile(1));
+		for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+			long exact = values[(int) Math.ceil(q * n) - 1];
+			assertEquals(exact, histogram.getQuantile(q), exact
+					/ (double) LogHistogram.SUB_BUCKETS);
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		LogHistogram first = new LogHistogram();
+		LogHistogram second = new LogHistogram();
+		first.record(5);
+		first.record(-3);
+		second.record(1000);
+		first.merge(second);
+		first.merge(new LogHistogram());
+		assertEquals(3, first.getCount());
+		assertEquals(1005, first.getSum());
+		assertEquals(0, first.getMin());
+		assertEquals(1000, first.getMax());
+		assertEquals(5, first.getQuantile(0.5));
+		first.clear();
+		assertEquals(0, first.getQuantile(0.5));
+	}
+
+}
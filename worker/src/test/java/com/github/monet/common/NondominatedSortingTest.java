@@ -0,0 +1,129 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class NondominatedSortingTest {
+
+	private static double[][] randomPoints(Random random, int n, int k,
+			boolean ties) {
+		double[][] points = new double[n][k];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < k; j++) {
+				points[i][j] = ties ? random.nextInt(5) : random.nextDouble();
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * Ranks by repeatedly peeling off the non-dominated points.
+	 */
+	private static int[] naiveRanks(double[][] points, int k,
+			boolean minimization) {
+		int[] ranks = new int[points.length];
+		Arrays.fill(ranks, -1);
+		int assigned = 0;
+		for (int rank = 0; assigned < points.length; rank++) {
+			List<Integer> front = new ArrayList<Integer>();
+			for (int i = 0; i < points.length; i++) {
+				if (ranks[i] != -1) {
+					continue;
+				}
+				boolean dominated = false;
+				for (int j = 0; j < points.length && !dominated; j++) {
+					dominated = ranks[j] == -1
+							&& ParetoPoint.dominates(points[j], points[i], k,
+							minimization);
+				}
+				if (!dominated) {
+					front.add(i);
+				}
+			}
+			for (int i : front) {
+				ranks[i] = rank;
+			}
+			assigned += front.size();
+		}
+		return ranks;
+	}
+
+	@Test
+	public void testExample() {
+		double[][] points = { { 1, 4 }, { 2, 3 }, { 2, 3 }, { 3, 4 }, { 4, 1 },
+				{ 5, 5 } };
+		assertArrayEquals(new int[] { 0, 1, 2, 4 },
+				NondominatedSorting.nondominated(points, 2, true));
+		assertArrayEquals(new int[] { 0, 0, 0, 1, 0, 2 },
+				NondominatedSorting.ranks(points, 2, true));
+		assertArrayEquals(new int[] { 5 },
+				NondominatedSorting.nondominated(points, 2, false));
+		int[][] fronts = NondominatedSorting.fronts(points, 2, true);
+		assertEquals(3, fronts.length);
+		assertArrayEquals(new int[] { 3 }, fronts[1]);
+	}
+
+	@Test
+	public void testMatchesNaive() {
+		Random random = new Random(17);
+		for (int k = 1; k <= 6; k++) {
+			for (int run = 0; run < 40; run++) {
+				double[][] points = randomPoints(random, 1 + random.nextInt(80),
+						k + 1, run % 2 == 0);
+				boolean minimization = run % 4 < 2;
+				int[] expected = naiveRanks(points, k, minimization);
+				assertArrayEquals(expected,
+						NondominatedSorting.ranks(points, k, minimization));
+				int n = 0;
+				for (int rank : expected) {
+					if (rank == 0) {
+						n++;
+					}
+				}
+				int[] nondominated = NondominatedSorting.nondominated(points, k,
+						minimization);
+				assertEquals(n, nondominated.length);
+				for (int i : nondominated) {
+					assertEquals(0, expected[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParetoPointDelegates() {
+		Random random = new Random(3);
+		List<double[]> values = new ArrayList<double[]>(
+				Arrays.asList(randomPoints(random, 200, 3, true)));
+		List<ParetoPoint> points = ParetoPoint.createPoints(values, true);
+		List<ParetoPoint> nonDominated = ParetoPoint.getNondominatedSolutions(
+				null, points, 3, true);
+		List<ParetoPoint> dominated = ParetoPoint.getDominatedSolutions(points,
+				3, true);
+		assertEquals(points.size(), nonDominated.size() + dominated.size());
+		assertTrue(ParetoPoint.containsDominatedSolution(points, 3, true));
+		assertFalse(ParetoPoint.containsDominatedSolution(nonDominated, 3,
+				true));
+		for (ParetoPoint p : nonDominated) {
+			for (ParetoPoint q : points) {
+				assertFalse(ParetoPoint.dominates(q.getObjectiveValues(),
+						p.getObjectiveValues(), 3, true));
+			}
+		}
+		// the original order is kept
+		for (int i = 1; i < nonDominated.size(); i++) {
+			assertTrue(points.indexOf(nonDominated.get(i
+					- 1)) < points.indexOf(nonDominated.get(i)));
+		}
+	}
+
+}
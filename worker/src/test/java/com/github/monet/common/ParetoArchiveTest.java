@@ -0,0 +1,173 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ParetoArchiveTest {
+
+	/**
+	 * The first occurrence of each non-dominated point, in order.
+	 */
+	private static List<double[]> naiveArchive(double[][] points,
+			boolean minimization) {
+		int k = points[0].length;
+		List<double[]> archive = new ArrayList<double[]>();
+		for (int i : NondominatedSorting.nondominated(points, k,
+				minimization)) {
+			boolean duplicate = false;
+			for (double[] p : archive) {
+				duplicate |= Arrays.equals(p, points[i]);
+			}
+			if (!duplicate) {
+				archive.add(points[i]);
+			}
+		}
+		return archive;
+	}
+
+	@Test
+	public void testExample() {
+		ParetoArchive<String> archive = new NDTreeArchive<String>(true);
+		assertTrue(archive.add(new double[] { 2, 2 }, "a"));
+		assertFalse(archive.add(new double[] { 3, 2 }, "b"));
+		assertFalse(archive.add(new double[] { 2, 2 }, "c"));
+		assertTrue(archive.add(new double[] { 1, 3 }, "d"));
+		assertTrue(archive.add(new double[] { 1, 1 }, "e"));
+		assertEquals(1, archive.size());
+		assertSame("e", archive.getEntries().get(0).getSecond());
+		assertTrue(archive.isDominated(new double[] { 1, 1 }));
+		assertFalse(archive.isDominated(new double[] { 0, 5 }));
+	}
+
+	@Test
+	public void testMatchesNaive() {
+		Random random = new Random(23);
+		for (int k = 2; k <= 5; k++) {
+			for (int run = 0; run < 20; run++) {
+				boolean minimization = run % 2 == 0;
+				double[][] points = new double[1 + random.nextInt(500)][k];
+				for (double[] p : points) {
+					for (int d = 0; d < k; d++) {
+						p[d] = (run % 4 < 2) ? random.nextInt(20)
+								: random.nextDouble();
+					}
+				}
+				ParetoArchive<Integer> archive = new NDTreeArchive<Integer>(
+						minimization, 1 + random.nextInt(8), 0);
+				for (int i = 0; i < points.length; i++) {
+					archive.add(points[i], i);
+				}
+				List<double[]> expected = naiveArchive(points, minimization);
+				List<Tuple<double[], Integer>> entries = archive.getEntries();
+				assertEquals(expected.size(), archive.size());
+				assertEquals(expected.size(), entries.size());
+				for (int i = 0; i < entries.size(); i++) {
+					assertSame(expected.get(i), entries.get(i).getFirst());
+					assertSame(points[entries.get(i).getSecond()],
+							entries.get(i).getFirst());
+				}
+				for (double[] p : points) {
+					assertTrue(archive.isDominated(p));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEpsilonGridArchive() {
+		Random random = new Random(29);
+		for (int k = 2; k <= 4; k++) {
+			double epsilon = 0.05;
+			EpsilonGridArchive<Integer> archive =
+					new EpsilonGridArchive<Integer>(true, epsilon);
+			double[][] points = new double[5000][k];
+			for (double[] p : points) {
+				double sum = 0;
+				for (int d = 0; d < k; d++) {
+					p[d] = random.nextDouble();
+					sum += p[d];
+				}
+				// close to the simplex, so many points are non-dominated
+				for (int d = 0; d < k; d++) {
+					p[d] /= sum * (1 + 0.1 * random.nextDouble());
+				}
+				archive.add(p, null);
+			}
+			List<Tuple<double[], Integer>> entries = archive.getEntries();
+			assertTrue(entries.size() < naiveArchive(points, true).size());
+			// every offered point is epsilon-dominated by a kept one
+			for (double[] p : points) {
+				boolean covered = false;
+				for (int i = 0; i < entries.size() && !covered; i++) {
+					covered = true;
+					for (int d = 0; d < k; d++) {
+						covered &= entries.get(i).getFirst()[d] < p[d]
+								+ epsilon;
+					}
+				}
+				assertTrue(covered);
+				assertTrue(archive.isDominated(p));
+			}
+			Map<String, Object> statistics = archive.getTruncationStatistics();
+			assertEquals("epsilon", statistics.get("method"));
+			assertEquals(5000L, statistics.get("offered"));
+			assertEquals(entries.size(), statistics.get("size"));
+			assertEquals(5000L, (Long) statistics.get("rejected")
+					+ (Long) statistics.get("removed") + entries.size());
+		}
+	}
+
+	@Test
+	public void testHypervolumeArchive() {
+		Random random = new Random(31);
+		for (int k = 2; k <= 3; k++) {
+			HypervolumeArchive<Integer> archive =
+					new HypervolumeArchive<Integer>(false, 25);
+			double[][] points = new double[2000][k];
+			for (int i = 0; i < points.length; i++) {
+				double sum = 0;
+				for (int d = 0; d < k; d++) {
+					points[i][d] = random.nextDouble();
+					sum += points[i][d] * points[i][d];
+				}
+				for (int d = 0; d < k; d++) {
+					points[i][d] /= Math.sqrt(sum)
+							* (1 + 0.1 * random.nextDouble());
+				}
+				archive.add(points[i], i);
+			}
+			// reading the size doesn't thin the archive
+			int collected = archive.size();
+			assertTrue(collected <= 50);
+			assertEquals(collected, archive.size());
+			assertEquals(collected, archive.getEntries().size());
+			archive.truncate();
+			List<Tuple<double[], Integer>> entries = archive.getEntries();
+			assertEquals(25, entries.size());
+			double[][] kept = new double[entries.size()][];
+			for (int i = 0; i < kept.length; i++) {
+				kept[i] = entries.get(i).getFirst();
+				assertSame(points[entries.get(i).getSecond()], kept[i]);
+			}
+			assertEquals(kept.length,
+					NondominatedSorting.nondominated(kept, k, false).length);
+			Map<String, Object> statistics = archive.getTruncationStatistics();
+			assertEquals("hypervolume", statistics.get("method"));
+			assertEquals(25, statistics.get("capacity"));
+			assertEquals(2000L, (Long) statistics.get("rejected")
+					+ (Long) statistics.get("removed") + entries.size());
+			assertTrue((Long) statistics.get("truncated") > 0);
+		}
+	}
+
+}
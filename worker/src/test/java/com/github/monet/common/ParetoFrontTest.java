@@ -0,0 +1,168 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ParetoFrontTest {
+
+	private static List<double[]> randomPoints(Random random, int n, int k) {
+		List<double[]> points = new ArrayList<double[]>(n);
+		for (int i = 0; i < n; i++) {
+			double[] point = new double[k];
+			for (int d = 0; d < k; d++) {
+				point[d] = random.nextInt(10) + random.nextDouble();
+			}
+			points.add(point);
+		}
+		return points;
+	}
+
+	@Test
+	public void testStorage() {
+		ParetoFront front = new ParetoFront(2, 1, true);
+		double[] point = { 1, 2 };
+		front.add(point);
+		front.add(new double[] { 3, 4 });
+		front.add(new double[] { 5, 6, 7 });
+		point[0] = 42;
+		assertEquals(3, front.size());
+		assertEquals(2, front.getDimension());
+		assertEquals(1, front.get(0, 0), 0.0);
+		assertEquals(6, front.get(2, 1), 0.0);
+		assertArrayEquals(new double[] { 3, 4 }, front.getPoint(1), 0.0);
+		assertArrayEquals(new double[] { 1, 2 }, front.getMin(), 0.0);
+		assertArrayEquals(new double[] { 5, 6 }, front.getMax(), 0.0);
+		assertArrayEquals(new double[] { 5, 6 },
+				front.filter(new int[] { 2 }).getPoint(0), 0.0);
+
+		List<ParetoPoint> points = front.toParetoPoints();
+		assertEquals(3, points.size());
+		assertTrue(points.get(0).isMinimization());
+		assertArrayEquals(new double[] { 5, 6 },
+				points.get(2).getObjectiveValues(), 0.0);
+		assertArrayEquals(new double[] { 5, 6 },
+				ParetoFront.fromObjectivePoints(points).getPoint(2), 0.0);
+	}
+
+	@Test
+	public void testDominance() {
+		ParetoFront front = ParetoFront.fromList(
+				Arrays.asList(new double[][] { { 1, 4 }, { 2, 3 }, { 2, 3 },
+				{ 3, 4 } }), true);
+		assertTrue(front.dominates(1, 3));
+		assertFalse(front.dominates(3, 1));
+		assertFalse(front.dominates(1, 2));
+		assertFalse(front.dominates(0, 1));
+		assertArrayEquals(new int[] { 0, 1, 2 }, front.nondominated());
+		assertEquals(3, front.getNondominated().size());
+
+		Random random = new Random(7);
+		for (int k = 2; k <= 4; k++) {
+			for (boolean minimization : new boolean[] { true, false }) {
+				List<double[]> points = randomPoints(random, 200, k);
+				ParetoFront f = ParetoFront.fromList(points, minimization);
+				double[][] array = points.toArray(new double[0][]);
+				assertArrayEquals(NondominatedSorting.nondominated(array, k,
+						minimization), f.nondominated());
+				assertArrayEquals(NondominatedSorting.ranks(array, k,
+						minimization), NondominatedSorting.ranks(f));
+			}
+		}
+	}
+
+	@Test
+	public void testTransformations() {
+		List<double[]> values = randomPoints(new Random(3), 50, 3);
+		List<ParetoPoint> points = ParetoPoint.createPoints(values, true);
+		ParetoPoint.setNormalizedAndInvertedValues(points,
+				ParetoPoint.getMin(points), ParetoPoint.getMax(points), false,
+				0.5, 1);
+		ParetoFront front = ParetoFront.fromList(values, true);
+		ParetoFront normalized = front.copy().normalize(front.getMin(),
+				front.getMax(), 0.5);
+		ParetoFront inverted = front.copy().invert(front.getMax(), 1);
+		for (int i = 0; i < points.size(); i++) {
+			assertArrayEquals(points.get(i).getNormalizedValues(),
+					normalized.getPoint(i), 0.0);
+			assertArrayEquals(points.get(i).getInvertedValues(),
+					inverted.getPoint(i), 0.0);
+			assertArrayEquals(values.get(i), front.getPoint(i), 0.0);
+		}
+		assertArrayEquals(inverted.toArray()[7],
+				front.copy().toMaximization().getPoint(7), 0.0);
+	}
+
+	@Test
+	public void testSMetric() {
+		Random random = new Random(11);
+		for (int k = 2; k <= 4; k++) {
+			List<double[]> points = randomPoints(random, 30, k);
+			for (boolean minimization : new boolean[] { true, false }) {
+				double[][] maximization = ParetoPoint.toMaximizationPoints(
+						points, minimization);
+				double expected = new WFGHypervolume().calculate(maximization,
+						null);
+				assertEquals(expected,
+						ParetoFront.fromList(points,
+						minimization).calculateSMetric(null, null), expected
+						* 1e-12);
+			}
+		}
+		assertEquals(0, new ParetoFront(2, true).calculateSMetric(null, null),
+				0.0);
+	}
+
+	@Test
+	public void testBatchDominance() {
+		Random random = new Random(15);
+		for (int k = 1; k <= 7; k++) {
+			for (boolean minimization : new boolean[] { true, false }) {
+				ParetoFront front = new ParetoFront(k, minimization);
+				for (int i = 0; i < 200; i++) {
+					double[] point = new double[k];
+					for (int d = 0; d < k; d++) {
+						point[d] = random.nextInt(4);
+					}
+					front.add(point);
+				}
+				double[] p = front.getPoint(random.nextInt(front.size()));
+				byte[] relations = front.relations(p);
+				List<Integer> dominating = new ArrayList<Integer>();
+				List<Integer> dominated = new ArrayList<Integer>();
+				for (int i = 0; i < front.size(); i++) {
+					double[] q = front.getPoint(i);
+					boolean dominates = ParetoPoint.dominates(q, p, k,
+							minimization);
+					boolean isDominated = ParetoPoint.dominates(p, q, k,
+							minimization);
+					int expected = Arrays.equals(p, q) ? DominanceKernel.EQUAL
+							: dominates ? DominanceKernel.DOMINATES
+									: isDominated ? DominanceKernel.DOMINATED
+									: DominanceKernel.INCOMPARABLE;
+					assertEquals(expected, relations[i]);
+					if (dominates) {
+						dominating.add(i);
+					}
+					if (isDominated) {
+						dominated.add(i);
+					}
+				}
+				assertEquals(dominating.toString(),
+						Arrays.toString(front.dominating(p)));
+				assertEquals(dominated.toString(),
+						Arrays.toString(front.dominatedBy(p)));
+				assertEquals(!dominating.isEmpty(), front.isDominated(p));
+			}
+		}
+	}
+
+}
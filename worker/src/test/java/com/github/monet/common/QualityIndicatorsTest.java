@@ -0,0 +1,187 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QualityIndicatorsTest {
+
+	private static double[][] randomPoints(Random random, int n, int k) {
+		double[][] points = new double[n][k];
+		for (int i = 0; i < n; i++) {
+			for (int d = 0; d < k; d++) {
+				points[i][d] = random.nextInt(20) + random.nextDouble();
+			}
+		}
+		return points;
+	}
+
+	private static double naiveIGD(double[][] front, double[][] reference,
+			boolean plus) {
+		double sum = 0;
+		for (double[] r : reference) {
+			double best = Double.POSITIVE_INFINITY;
+			for (double[] a : front) {
+				double distance = 0;
+				for (int d = 0; d < r.length; d++) {
+					double delta = plus ? Math.max(a[d] - r[d], 0) : a[d]
+							- r[d];
+					distance += delta * delta;
+				}
+				best = Math.min(best, Math.sqrt(distance));
+			}
+			sum += best;
+		}
+		return sum / reference.length;
+	}
+
+	private static double naiveEpsilon(double[][] a, double[][] b) {
+		double epsilon = Double.NEGATIVE_INFINITY;
+		for (double[] q : b) {
+			double best = Double.POSITIVE_INFINITY;
+			for (double[] p : a) {
+				double max = Double.NEGATIVE_INFINITY;
+				for (int d = 0; d < q.length; d++) {
+					max = Math.max(max, p[d] - q[d]);
+				}
+				best = Math.min(best, max);
+			}
+			epsilon = Math.max(epsilon, best);
+		}
+		return epsilon;
+	}
+
+	@Test
+	public void testExample() {
+		double[][] reference = { { 0, 2 }, { 1, 1 }, { 2, 0 } };
+		double[][] front = { { 0, 3 }, { 2, 1 } };
+		assertEquals((1 + 1 + 1) / 3.0,
+				QualityIndicators.igd(front, reference, true), 1e-12);
+		assertEquals((1 + 1 + 1) / 3.0,
+				QualityIndicators.igdPlus(front, reference, true), 1e-12);
+		assertEquals(1, QualityIndicators.unaryEpsilon(front, reference, true),
+				0.0);
+		assertEquals(0,
+				QualityIndicators.unaryEpsilon(reference, reference, true),
+				0.0);
+		assertEquals(-1,
+				QualityIndicators.epsilon(reference,
+				new double[][] { { 1, 3 } }, true), 0.0);
+
+		// evenly spaced fronts
+		assertEquals(0, QualityIndicators.spacing(reference, true), 0.0);
+		assertEquals(0, QualityIndicators.spread(reference, reference, true),
+				1e-12);
+		assertTrue(QualityIndicators.spread(front, reference, true) > 0);
+
+		// maximization mirrors minimization
+		double[][] negated = { { -0.0, -3 }, { -2, -1 } };
+		double[][] negatedReference = { { -0.0, -2 }, { -1, -1 },
+				{ -2, -0.0 } };
+		assertEquals(1,
+				QualityIndicators.igdPlus(negated, negatedReference, false),
+				1e-12);
+		assertEquals(1,
+				QualityIndicators.unaryEpsilon(negated, negatedReference,
+				false), 0.0);
+	}
+
+	@Test
+	public void testMatchesNaive() {
+		Random random = new Random(5);
+		for (int k = 2; k <= 5; k++) {
+			for (int run = 0; run < 5; run++) {
+				double[][] front = randomPoints(random, 1 + random.nextInt(200),
+						k);
+				double[][] reference = randomPoints(random, 1
+						+ random.nextInt(200), k);
+				assertEquals(naiveIGD(front, reference, false),
+						QualityIndicators.igd(front, reference, true), 1e-9);
+				assertEquals(naiveIGD(front, reference, true),
+						QualityIndicators.igdPlus(front, reference, true),
+						1e-9);
+				assertEquals(naiveEpsilon(front, reference),
+						QualityIndicators.epsilon(front, reference, true), 0.0);
+				assertEquals(naiveEpsilon(reference, front),
+						QualityIndicators.epsilon(reference, front, true), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testKDTreeExcludesPoint() {
+		double[][] points = randomPoints(new Random(9), 500, 3);
+		KDTree tree = new KDTree(points);
+		for (int i = 0; i < points.length; i++) {
+			double best = Double.POSITIVE_INFINITY;
+			for (int j = 0; j < points.length; j++) {
+				if (j != i) {
+					double distance = 0;
+					for (int d = 0; d < 3; d++) {
+						distance += Math.abs(points[i][d] - points[j][d]);
+					}
+					best = Math.min(best, distance);
+				}
+			}
+			assertEquals(best,
+					tree.nearestDistance(points[i], KDTree.Distance.MANHATTAN,
+					i), 1e-9);
+			assertEquals(0,
+					tree.nearestDistance(points[i], KDTree.Distance.MANHATTAN),
+					0.0);
+		}
+	}
+
+	@Test
+	public void testForParameters() {
+		List<double[]> front = Arrays.asList(new double[] { 0, 3 },
+				new double[] { 2, 1 });
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		assertTrue(QualityIndicators.forParameters(parameters, front,
+				true).isEmpty());
+		parameters.put(QualityIndicators.PARAMETER, "spacing, IGD");
+		parameters.put(QualityIndicators.REFERENCE_PARAMETER,
+				Arrays.asList(Arrays.asList(0, 2), Arrays.asList(1.0, 1.0),
+				Arrays.asList(2, 0)));
+		Map<String, Double> indicators = QualityIndicators.forParameters(
+				parameters, front, true);
+		assertEquals(Arrays.asList("IGD", "Spacing"),
+				Arrays.asList(indicators.keySet().toArray()));
+		assertEquals(1, indicators.get("IGD"), 1e-12);
+		parameters.put(QualityIndicators.PARAMETER, "all");
+		assertEquals(5,
+				QualityIndicators.forParameters(parameters, front,
+				true).size());
+	}
+
+	@Test
+	public void testForParametersWithLoadedReference() {
+		List<double[]> front = Arrays.asList(new double[] { 0, 3 },
+				new double[] { 2, 1 });
+		double[][] reference = { { 0, 2 }, { 1, 1 }, { 2, 0 } };
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put(QualityIndicators.PARAMETER, "igd");
+		assertEquals(1, QualityIndicators.forParameters(parameters, front,
+				reference, true).get("IGD"), 1e-12);
+		// the loaded front takes precedence over the parameter
+		parameters.put(QualityIndicators.REFERENCE_PARAMETER, "missing.csv");
+		assertEquals(1, QualityIndicators.forParameters(parameters, front,
+				reference, true).get("IGD"), 1e-12);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testForParametersWithoutReference() {
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put(QualityIndicators.PARAMETER, "igd+");
+		QualityIndicators.forParameters(parameters,
+				Arrays.asList(new double[] { 1, 2 }), true);
+	}
+
+}
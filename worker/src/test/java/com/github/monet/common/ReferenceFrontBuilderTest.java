@@ -0,0 +1,144 @@
+package com.github.monet.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ReferenceFrontBuilderTest {
+
+	private static List<double[]> randomFront(Random random, int n, int k) {
+		List<double[]> front = new ArrayList<double[]>();
+		for (int i = 0; i < n; i++) {
+			double[] p = new double[k];
+			for (int d = 0; d < k; d++) {
+				p[d] = random.nextInt(30);
+			}
+			front.add(p);
+		}
+		return front;
+	}
+
+	/**
+	 * Non-dominated points of all fronts without duplicates.
+	 */
+	private static List<double[]> naiveUnion(List<List<double[]>> fronts) {
+		List<double[]> all = new ArrayList<double[]>();
+		for (List<double[]> front : fronts) {
+			all.addAll(front);
+		}
+		List<double[]> union = new ArrayList<double[]>();
+		for (int i = 0; i < all.size(); i++) {
+			boolean keep = true;
+			for (int j = 0; j < all.size() && keep; j++) {
+				double[] a = all.get(j);
+				double[] b = all.get(i);
+				boolean weaklyDominates = true;
+				for (int d = 0; d < a.length; d++) {
+					weaklyDominates &= a[d] <= b[d];
+				}
+				// keep the first of equal points
+				keep = !weaklyDominates || (Arrays.equals(a, b) && j >= i);
+			}
+			if (keep) {
+				union.add(all.get(i));
+			}
+		}
+		return union;
+	}
+
+	private static void assertSameFront(List<double[]> expected,
+			double[][] actual) {
+		assertEquals(expected.size(), actual.length);
+		for (double[] p : expected) {
+			boolean found = false;
+			for (double[] q : actual) {
+				found |= Arrays.equals(p, q);
+			}
+			assertEquals(true, found);
+		}
+	}
+
+	@Test
+	public void testMatchesNaive() {
+		Random random = new Random(12);
+		for (int k = 2; k <= 4; k++) {
+			List<List<double[]>> fronts = new ArrayList<List<double[]>>();
+			ReferenceFrontBuilder builder = new ReferenceFrontBuilder(true);
+			ReferenceFrontBuilder other = new ReferenceFrontBuilder(true);
+			for (int i = 0; i < 10; i++) {
+				List<double[]> front = randomFront(random, 1
+						+ random.nextInt(50), k);
+				fronts.add(front);
+				// split the fronts as the threads of the controlserver do
+				((i % 2 == 0) ? builder : other).merge(front);
+			}
+			builder.merge(other);
+			assertEquals(10, builder.getMergedFronts());
+			assertEquals(k, builder.getDimension());
+			assertSameFront(naiveUnion(fronts), builder.getFront());
+		}
+	}
+
+	@Test
+	public void testMaximization() {
+		ReferenceFrontBuilder builder = new ReferenceFrontBuilder(false);
+		builder.merge(Arrays.asList(new double[] { 1, 3 },
+				new double[] { 2, 2 }));
+		builder.merge(Arrays.asList(new double[] { 3, 1 },
+				new double[] { 1, 2 }, new double[] { 2, 2 }));
+		double[][] front = builder.getFront();
+		assertEquals(3, front.length);
+		assertArrayEquals(new double[] { 3, 1 }, front[0], 0.0);
+		assertArrayEquals(new double[] { 2, 2 }, front[1], 0.0);
+		assertArrayEquals(new double[] { 1, 3 }, front[2], 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDimensionMismatch() {
+		ReferenceFrontBuilder builder = new ReferenceFrontBuilder(true);
+		builder.merge(Arrays.asList(new double[] { 1, 3 }));
+		builder.merge(Arrays.asList(new double[] { 1, 3, 4 }));
+	}
+
+	@Test
+	public void testRejectedFirstFront() {
+		ReferenceFrontBuilder builder = new ReferenceFrontBuilder(true);
+		try {
+			builder.merge(Arrays.asList(new double[] { 1, 3 },
+					new double[] { 1, 3, 4 }));
+			fail("the front has mixed dimensions");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(0, builder.getDimension());
+		assertEquals(0, builder.getMergedFronts());
+		builder.merge(Arrays.asList(new double[] { 1, 3, 4 },
+				new double[] { 2, 1, 4 }));
+		assertEquals(3, builder.getDimension());
+		assertEquals(2, builder.size());
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		double[][] front = { { 0.5, 3 }, { 1, -2.25 } };
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReferenceFrontBuilder.write(front, out);
+		assertEquals(3 * 4 + 4 * 8, out.size());
+		double[][] read = ReferenceFrontBuilder.read(
+				new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(2, read.length);
+		assertArrayEquals(front[0], read[0], 0.0);
+		assertArrayEquals(front[1], read[1], 0.0);
+	}
+
+}
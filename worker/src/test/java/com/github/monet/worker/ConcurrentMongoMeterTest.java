@@ -0,0 +1,156 @@
+package com.github.monet.worker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.monet.aggregators.Aggregator;
+import com.github.monet.aggregators.DoubleSumAggregator;
+import com.github.monet.aggregators.MaxAggregator;
+import com.github.monet.aggregators.QuantileAggregator;
+import com.github.monet.common.MongoBuilder;
+import com.github.monet.interfaces.Counter;
+
+public class ConcurrentMongoMeterTest {
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Aggregator<Object> generic(Aggregator<?> agg) {
+		return (Aggregator) agg;
+	}
+
+	@Test
+	public void testThreads() throws InterruptedException {
+		final ConcurrentMongoMeter meter = new ConcurrentMongoMeter(null, "job",
+				null);
+		meter.startExperiment();
+		DoubleSumAggregator sum = new DoubleSumAggregator();
+		meter.addAggregator("sum", generic(sum));
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread("worker-" + t) {
+				@Override
+				public void run() {
+					Counter evals = meter.counter("evals");
+					for (int i = 0; i < 10000; i++) {
+						meter.measureInt("values/#", id);
+						meter.measureDouble("sum", 0.5);
+						evals.increment();
+					}
+					meter.measureString("thread/" + id, this.getName());
+					meter.timer("phase").start();
+					meter.timer("phase").stop();
+				}
+			};
+		}
+		// started in reverse, merged by name
+		for (int t = threads.length - 1; t >= 0; t--) {
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		meter.endExperiment();
+
+		MongoBuilder builder = meter.collect();
+		List<?> values = (List<?>) MongoBuilder.find(builder, "values");
+		assertEquals(40000, values.size());
+		for (int i = 0; i < values.size(); i++) {
+			assertEquals(i / 10000, values.get(i));
+		}
+		assertEquals(40000L, MongoBuilder.find(builder, "evals"));
+		assertEquals(4L, MongoBuilder.find(builder, "phase/count"));
+		assertEquals(20000.0, (Double) MongoBuilder.find(builder, "sum"), 0.0);
+		assertEquals(20000.0, sum.getValue(), 0.0);
+		assertEquals("worker-3", MongoBuilder.find(builder, "thread/3"));
+		assertEquals(4,
+				((Map<?, ?>) MongoBuilder.find(builder, "thread")).size());
+	}
+
+	@Test
+	public void testMerge() {
+		MongoBuilder first = new MongoBuilder();
+		first.insert("a/#", 1);
+		first.insert("b/x", "first");
+		first.insert("b/y", 1);
+		MongoBuilder second = new MongoBuilder();
+		second.insert("a/#", 2);
+		second.insert("b/x", "second");
+		second.insert("c", 3);
+		MongoBuilder.merge(first, second);
+		assertEquals(Arrays.<Object> asList(1, 2),
+				MongoBuilder.find(first, "a"));
+		assertEquals("second", MongoBuilder.find(first, "b/x"));
+		assertEquals(1, MongoBuilder.find(first, "b/y"));
+		assertEquals(3, MongoBuilder.find(first, "c"));
+	}
+
+	@Test
+	public void testParetoFront() throws InterruptedException {
+		final ConcurrentMongoMeter meter = new ConcurrentMongoMeter(null, "job",
+				null);
+		meter.addAggregator("max", generic(new MaxAggregator()));
+		assertNull(meter.getParetoFront());
+		Thread thread = new Thread("x") {
+			@Override
+			public void run() {
+				meter.measurePareto(new double[] { 2, 1 }, null);
+				meter.measureDouble("max", 3.0);
+			}
+		};
+		thread.start();
+		thread.join();
+		meter.measurePareto(new double[] { 1, 2 }, null);
+		meter.measureDouble("max", 1.0);
+		List<double[]> front = meter.getParetoFront();
+		assertEquals(2, front.size());
+		// the thread "x" comes after "main"
+		assertEquals(1.0, front.get(0)[0], 0.0);
+		assertEquals(3.0, (Double) MongoBuilder.find(meter.collect(), "max"),
+				0.0);
+	}
+
+	@Test
+	public void testLockedPrimitiveAggregator() throws InterruptedException {
+		final ConcurrentMongoMeter meter = new ConcurrentMongoMeter(null, "job",
+				null);
+		QuantileAggregator median = new QuantileAggregator(0.5);
+		meter.addAggregator("median", generic(median));
+		Thread thread = new Thread("x") {
+			@Override
+			public void run() {
+				meter.measureInt("median", 1);
+				meter.measureLong("median", 2L);
+			}
+		};
+		thread.start();
+		thread.join();
+		meter.measureInt("median", 3);
+		meter.measureDouble("median", 4.0);
+		meter.measureLong("median", 5L);
+		assertEquals(3.0, median.getValue(), 0.0);
+		assertEquals(3.0, (Double) MongoBuilder.find(meter.collect(), "median"),
+				0.0);
+	}
+
+	@Test
+	public void testCollectReleasesBuffers() {
+		ConcurrentMongoMeter meter = new ConcurrentMongoMeter(null, "job",
+				null);
+		meter.measureInt("values/#", 1);
+		meter.measurePareto(new double[] { 1, 2 }, null);
+		assertEquals(Arrays.<Object> asList(1),
+				MongoBuilder.find(meter.collect(), "values"));
+		assertNull(meter.getParetoFront());
+		// the thread measures into a new buffer afterwards
+		meter.measureInt("values/#", 2);
+		assertEquals(Arrays.<Object> asList(2),
+				MongoBuilder.find(meter.collect(), "values"));
+	}
+
+}
@@ -0,0 +1,237 @@
+package com.github.monet.worker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.monet.aggregators.Aggregator;
+import com.github.monet.aggregators.DoubleSumAggregator;
+import com.github.monet.common.MongoBuilder;
+import com.github.monet.interfaces.Counter;
+import com.github.monet.interfaces.DoubleSeries;
+import com.github.monet.interfaces.LongSeries;
+import com.github.monet.interfaces.Timer;
+
+public class MeasurementHandlesTest {
+
+	@Test
+	public void testSeries() {
+		MeasurementHandles handles = new MeasurementHandles();
+		DoubleSeries hv = handles.doubleSeries("gen/#/hv", null);
+		LongSeries evals = handles.longSeries("/gen/#/evals/", null);
+		DoubleSeries best = handles.doubleSeries("best/#", null);
+		assertSame(hv, handles.doubleSeries("gen/#/hv", null));
+		for (int i = 0; i < 100; i++) {
+			hv.add(0.5 * i);
+			evals.add(10L * i);
+		}
+		best.add(2.0);
+		best.add(1.0);
+		assertEquals(100, hv.size());
+
+		MongoBuilder builder = new MongoBuilder();
+		builder.insert("gen/#/x", 7);
+		builder.insert("best/#", 3.0);
+		handles.writeTo(builder);
+		assertEquals(100, ((List<?>) MongoBuilder.find(builder, "gen")).size());
+		assertEquals(7, MongoBuilder.find(builder, "gen/#0/x"));
+		assertEquals(0.0, MongoBuilder.find(builder, "gen/#0/hv"));
+		assertEquals(49.5, MongoBuilder.find(builder, "gen/#99/hv"));
+		assertEquals(990L, MongoBuilder.find(builder, "gen/#99/evals"));
+		assertEquals(Arrays.<Object> asList(3.0, 2.0, 1.0),
+				MongoBuilder.find(builder, "best"));
+	}
+
+	@Test
+	public void testNestedElements() {
+		MeasurementHandles handles = new MeasurementHandles();
+		DoubleSeries series = handles.doubleSeries("runs/#/front/hv", null);
+		LongSeries size = handles.longSeries("runs/#/front/size", null);
+		for (int i = 0; i < 2000; i++) {
+			series.add(i / 2.0);
+			size.add(i);
+		}
+		MongoBuilder builder = new MongoBuilder();
+		builder.insert("runs/#/front/points", 7);
+		handles.writeTo(builder);
+		assertEquals(2000, ((List<?>) MongoBuilder.find(builder, "runs"))
+				.size());
+		assertEquals(7, MongoBuilder.find(builder, "runs/#0/front/points"));
+		assertEquals(0.0, MongoBuilder.find(builder, "runs/#0/front/hv"));
+		assertEquals(999.5, MongoBuilder.find(builder, "runs/#1999/front/hv"));
+		assertEquals(1999L,
+				MongoBuilder.find(builder, "runs/#1999/front/size"));
+	}
+
+	@Test
+	public void testCounterAndAggregator() {
+		MeasurementHandles handles = new MeasurementHandles();
+		Counter counter = handles.counter("evals");
+		for (int i = 0; i < 1000; i++) {
+			counter.increment();
+		}
+		counter.add(-10);
+		assertEquals(990, counter.get());
+		assertSame(counter, handles.counter("evals"));
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Aggregator<Object> sum = (Aggregator) new DoubleSumAggregator();
+		DoubleSeries aggregated = handles.doubleSeries("sum/#", sum);
+		aggregated.add(1.5);
+		aggregated.add(2.5);
+		assertEquals(4.0, (Double) sum.getValue(), 0);
+		// longs are widened for an aggregator of doubles
+		LongSeries widened = handles.longSeries("sum/#", sum);
+		widened.add(3L);
+		assertEquals(7.0, (Double) sum.getValue(), 0);
+
+		MongoBuilder builder = new MongoBuilder();
+		handles.writeTo(builder);
+		assertEquals(990L, builder.get("evals"));
+		// aggregated values are written by the meter with the aggregator
+		assertEquals(null, builder.get("sum"));
+	}
+
+	@Test
+	public void testColumns() {
+		MeasurementHandles handles = new MeasurementHandles();
+		MongoBuilder builder = new MongoBuilder();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(handles.addDouble(builder, "gen/hv/#", 0.5 * i));
+			assertTrue(handles.addInt(builder, "/gen/evals/#/", i));
+		}
+		assertFalse(handles.addDouble(builder, "gen/best", 1.0));
+		assertFalse(handles.addDouble(builder, "gen/#/hv", 1.0));
+		assertFalse(handles.addLong(builder, "gen/#3/evals/#", 1L));
+		// nothing is in the document until the columns are written
+		assertEquals(null, MongoBuilder.find(builder, "gen/hv"));
+
+		handles.writeTo(builder);
+		assertEquals(1000,
+				((List<?>) MongoBuilder.find(builder, "gen/hv")).size());
+		assertEquals(499.5, MongoBuilder.find(builder, "gen/hv/#"));
+		assertEquals(999, MongoBuilder.find(builder, "gen/evals/#"));
+
+		// appended to the list after the values written before
+		assertTrue(handles.addLong(builder, "gen/evals/#", 1000L));
+		handles.writeTo(builder);
+		assertEquals(1001,
+				((List<?>) MongoBuilder.find(builder, "gen/evals")).size());
+		assertEquals(1000L, MongoBuilder.find(builder, "gen/evals/#"));
+	}
+
+	@Test
+	public void testColumnOrder() {
+		MeasurementHandles handles = new MeasurementHandles();
+		MongoBuilder builder = new MongoBuilder();
+		handles.addInt(builder, "values/#", 1);
+		handles.addDouble(builder, "values/#", 2.0);
+		handles.flush(builder, "values/#");
+		builder.insert("values/#", "three");
+		handles.addLong(builder, "/values/#", 4L);
+		handles.addInt(builder, "values/#", 5);
+		// paths below other lists or keys with the same prefix keep the column
+		handles.flush(builder, "valuesX/#");
+		handles.flush(builder, "other/values/#");
+		// 4L was written when 5 started a column of ints
+		assertEquals(4,
+				((List<?>) MongoBuilder.find(builder, "values")).size());
+		handles.writeTo(builder);
+		assertEquals(Arrays.<Object> asList(1, 2.0, "three", 4L, 5),
+				MongoBuilder.find(builder, "values"));
+	}
+
+	@Test
+	public void testFlushAboveColumn() {
+		MeasurementHandles handles = new MeasurementHandles();
+		MongoBuilder builder = new MongoBuilder();
+		handles.addInt(builder, "run/gen/hv/#", 1);
+		handles.addInt(builder, "run/gen/evals/#", 2);
+		// neither a parent of the lists nor in them
+		handles.flush(builder, "run/ge");
+		handles.flush(builder, "run/gen/hvX");
+		assertEquals(null, MongoBuilder.find(builder, "run"));
+		// a parent writes all columns below it before it is inserted
+		handles.flush(builder, "/run/gen/");
+		assertEquals(Arrays.<Object> asList(1),
+				MongoBuilder.find(builder, "run/gen/hv"));
+		assertEquals(Arrays.<Object> asList(2),
+				MongoBuilder.find(builder, "run/gen/evals"));
+		// the written columns are gone
+		handles.writeTo(builder);
+		assertEquals(1,
+				((List<?>) MongoBuilder.find(builder, "run/gen/hv")).size());
+	}
+
+	@Test
+	public void testTimer() {
+		MeasurementHandles handles = new MeasurementHandles();
+		Timer timer = handles.timer("phase");
+		assertSame(timer, handles.timer("phase"));
+		assertEquals(-1, timer.stop());
+		for (int i = 0; i < 100; i++) {
+			timer.start();
+			assertTrue(timer.stop() >= 0);
+		}
+		assertTrue(handles.recordTime("phase", 5000000));
+		assertFalse(handles.recordTime("other", 1));
+		assertEquals(101, timer.getCount());
+
+		MongoBuilder builder = new MongoBuilder();
+		handles.writeTo(builder);
+		assertEquals(101L, MongoBuilder.find(builder, "phase/count"));
+		long max = (Long) MongoBuilder.find(builder, "phase/max");
+		assertTrue(max >= 5000000);
+		assertTrue((Long) MongoBuilder.find(builder, "phase/p50") <= max);
+		assertEquals(null, MongoBuilder.find(builder, "other"));
+	}
+
+	@Test
+	public void testSpill() {
+		MeasurementHandles handles = new MeasurementHandles();
+		DoubleSeries hv = handles.doubleSeries("gen/#/hv", null);
+		Counter evals = handles.counter("evals");
+		MongoBuilder merged = new MongoBuilder();
+		for (int chunk = 0; chunk < 3; chunk++) {
+			for (int i = 0; i < 10; i++) {
+				hv.add(chunk * 10 + i);
+				handles.addInt(merged, "best/#", chunk);
+				evals.increment();
+			}
+			MongoBuilder builder = new MongoBuilder();
+			handles.spill(builder);
+			assertEquals(10,
+					((List<?>) MongoBuilder.find(builder, "gen")).size());
+			assertEquals(10L * (chunk + 1),
+					MongoBuilder.find(builder, "evals"));
+			MongoBuilder.merge(merged, builder);
+		}
+		assertEquals(30, hv.size());
+		assertEquals(30, ((List<?>) MongoBuilder.find(merged, "gen")).size());
+		assertEquals(29.0, MongoBuilder.find(merged, "gen/#29/hv"));
+		assertEquals(2, MongoBuilder.find(merged, "best/#29"));
+		assertEquals(30L, MongoBuilder.find(merged, "evals"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPathWithoutList() {
+		new MeasurementHandles().doubleSeries("gen/hv", null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPathWithIndex() {
+		new MeasurementHandles().doubleSeries("gen/#3/hv", null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPathWithTwoLists() {
+		new MeasurementHandles().longSeries("gen/#/hv/#", null);
+	}
+
+}
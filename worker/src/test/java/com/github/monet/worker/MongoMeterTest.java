@@ -0,0 +1,159 @@
+package com.github.monet.worker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.monet.common.MongoBuilder;
+import com.github.monet.common.MongoBuilderException;
+import com.github.monet.interfaces.DoubleSeries;
+import com.github.monet.interfaces.LongSeries;
+
+public class MongoMeterTest {
+
+	/**
+	 * A meter without database that keeps the spilled chunks.
+	 */
+	private static class ChunkMeter extends MongoMeter {
+		final List<MongoBuilder> chunks = new ArrayList<MongoBuilder>();
+
+		@Override
+		void saveChunk(int seq, MongoBuilder chunk) {
+			assertEquals(this.chunks.size(), seq);
+			this.chunks.add(chunk);
+		}
+
+		/**
+		 * @return the spilled chunks merged with the data still in memory
+		 */
+		MongoBuilder merged() {
+			MongoBuilder merged = new MongoBuilder();
+			for (MongoBuilder chunk : this.chunks) {
+				MongoBuilder.merge(merged, chunk);
+			}
+			MongoBuilder rest = this.getBuilder();
+			this.getHandles().writeTo(rest);
+			MongoBuilder.merge(merged, rest);
+			return merged;
+		}
+	}
+
+	@Test
+	public void testSpillAtCheckpoint() {
+		ChunkMeter meter = new ChunkMeter();
+		meter.setSpill(3, 0);
+		assertTrue(meter.isSpilling());
+		meter.startExperiment();
+		meter.measureInt("gen/#/size", 1);
+		meter.measureInt("gen/#/size", 2);
+		meter.measureInt("gen/#/size", 3);
+		// the threshold is reached, but the element is still measured into
+		meter.measureDouble("gen/#2/hv", 0.5);
+		assertTrue(meter.chunks.isEmpty());
+		meter.checkpoint();
+		assertEquals(1, meter.chunks.size());
+		MongoBuilder chunk = meter.chunks.get(0);
+		assertEquals(3, ((List<?>) MongoBuilder.find(chunk, "gen")).size());
+		assertEquals(3, MongoBuilder.find(chunk, "gen/#2/size"));
+		assertEquals(0.5, MongoBuilder.find(chunk, "gen/#2/hv"));
+
+		meter.measureInt("gen/#/size", 4);
+		// the index still refers to the whole list
+		meter.measureDouble("gen/#3/hv", 0.7);
+		meter.checkpoint();
+		assertEquals(1, meter.chunks.size());
+		MongoBuilder merged = meter.merged();
+		assertEquals(4, ((List<?>) MongoBuilder.find(merged, "gen")).size());
+		assertEquals(4, MongoBuilder.find(merged, "gen/#3/size"));
+		assertEquals(0.7, MongoBuilder.find(merged, "gen/#3/hv"));
+		assertEquals(0.5, MongoBuilder.find(merged, "gen/#2/hv"));
+	}
+
+	@Test
+	public void testSpillWithoutCheckpoint() {
+		ChunkMeter meter = new ChunkMeter();
+		meter.setSpill(4, 0);
+		meter.startExperiment();
+		for (int g = 0; g < 10; g++) {
+			meter.measureInt("gen/#/size", g);
+			meter.measureDouble("gen/#" + g + "/hv", g / 2.0);
+			meter.measureInt("best/#", g);
+		}
+		assertEquals(4, meter.chunks.size());
+		for (MongoBuilder chunk : meter.chunks) {
+			List<?> gen = (List<?>) MongoBuilder.find(chunk, "gen");
+			assertEquals(((List<?>) MongoBuilder.find(chunk, "best")).size(),
+					gen.size());
+			for (Object element : gen) {
+				assertEquals(2, ((Map<?, ?>) element).size());
+			}
+		}
+		MongoBuilder merged = meter.merged();
+		assertEquals(10, ((List<?>) MongoBuilder.find(merged, "gen")).size());
+		for (int g = 0; g < 10; g++) {
+			assertEquals(g, MongoBuilder.find(merged, "gen/#" + g + "/size"));
+			assertEquals(g / 2.0,
+					MongoBuilder.find(merged, "gen/#" + g + "/hv"));
+			assertEquals(g, MongoBuilder.find(merged, "best/#" + g));
+		}
+	}
+
+	@Test(expected = MongoBuilderException.class)
+	public void testSpilledElement() {
+		ChunkMeter meter = new ChunkMeter();
+		meter.setSpill(2, 0);
+		meter.startExperiment();
+		meter.measureInt("gen/#/size", 0);
+		meter.measureInt("gen/#/size", 1);
+		meter.measureInt("gen/#/size", 2);
+		assertEquals(1, meter.chunks.size());
+		meter.measureInt("gen/#0/hv", 0);
+	}
+
+	@Test
+	public void testSpillSeries() {
+		ChunkMeter meter = new ChunkMeter();
+		meter.setSpill(5, 0);
+		meter.startExperiment();
+		DoubleSeries hv = meter.doubleSeries("gen/#/hv");
+		LongSeries size = meter.longSeries("gen/#/size");
+		for (int i = 0; i < 7; i++) {
+			hv.add(i / 2.0);
+			size.add(i);
+			// only the values of the handles are counted
+			meter.checkpoint();
+			assertEquals((i < 2) ? 0 : (i < 5) ? 1 : 2, meter.chunks.size());
+		}
+		assertEquals(2, meter.chunks.size());
+		MongoBuilder merged = meter.merged();
+		List<?> gen = (List<?>) MongoBuilder.find(merged, "gen");
+		assertEquals(7, gen.size());
+		for (int i = 0; i < gen.size(); i++) {
+			Map<?, ?> element = (Map<?, ?>) gen.get(i);
+			assertEquals(i / 2.0, element.get("hv"));
+			assertEquals((long) i, element.get("size"));
+		}
+		assertEquals(7, hv.size());
+	}
+
+	@Test
+	public void testNoSpill() {
+		ChunkMeter meter = new ChunkMeter();
+		meter.setSpill(new HashMap<String, Object>());
+		assertFalse(meter.isSpilling());
+		meter.startExperiment();
+		for (int i = 0; i < 100; i++) {
+			meter.measureInt("values/#", i);
+			meter.checkpoint();
+		}
+		assertTrue(meter.chunks.isEmpty());
+	}
+
+}